@@ -353,21 +353,15 @@ class AndroidBinaryBuildable implements AddsToRuleKey {
     }
 
     if (isApk) {
-      Path zipalignedApkPath = getZipalignedApkPath();
-      steps.add(
-          new ZipalignStep(
-              getProjectFilesystem().getRootPath(),
-              androidPlatformTarget,
-              apkToAlign,
-              zipalignedApkPath));
+      // The signer aligns stored entries while it writes the signed APK, so the APK is not
+      // zipaligned into a separate file first.
       steps.add(
           new ApkSignerStep(
               getProjectFilesystem(),
-              zipalignedApkPath,
+              apkToAlign,
               v2SignedApkPath,
               keystoreProperties,
               applyRedex));
-
     } else {
       steps.add(
           new ZipalignStep(
@@ -797,14 +791,6 @@ class AndroidBinaryBuildable implements AddsToRuleKey {
             .replaceAll("\\.unsigned\\.aab$", ".signed.aab"));
   }
 
-  /** The APK at this path will be zipaligned and jar signed. */
-  private Path getZipalignedApkPath() {
-    return Paths.get(
-        getUnsignedApkPath()
-            .replaceAll("\\.unsigned\\.apk$", ".zipaligned.apk")
-            .replaceAll("\\.unsigned\\.aab$", ".signed.aab"));
-  }
-
   /** The APK at this path will be zipaligned and v2 signed. */
   Path getFinalApkPath() {
     return Paths.get(
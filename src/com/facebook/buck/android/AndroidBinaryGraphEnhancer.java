@@ -750,7 +750,8 @@ public class AndroidBinaryGraphEnhancer {
 
   /**
    * Group DexProducedFromJavaLibrary rules by module, into partitions of at most
-   * dex_group_lib_limit. Create a single partition per APK module if dex_group_lib_limit is 0
+   * dex_group_lib_limit. Create a single partition per APK module if dex_group_lib_limit is 0.
+   * Partitions may be smaller than the limit if stable_pre_dex_grouping is enabled.
    */
   private ImmutableMultimap<APKModule, List<DexProducedFromJavaLibrary>> groupDexes(
       ImmutableMultimap<APKModule, DexProducedFromJavaLibrary> dexFilesToMerge) {
@@ -761,7 +762,14 @@ public class AndroidBinaryGraphEnhancer {
     for (APKModule module : dexFilesToMerge.keySet()) {
       List<DexProducedFromJavaLibrary> currentDexContents = null;
       for (DexProducedFromJavaLibrary dexWithClasses : dexFilesToMerge.get(module)) {
-        if (currentDexContents == null || (limit != 0 && currentDexContents.size() + 1 > limit)) {
+        if (currentDexContents == null
+            || (limit != 0 && currentDexContents.size() + 1 > limit)
+            || (limit != 0
+                && dexSplitMode.isStablePreDexGrouping()
+                && StableDexGrouping.shouldStartNewGroup(
+                    dexWithClasses.getJavaLibraryBuildTarget().getFullyQualifiedName(),
+                    currentDexContents.size(),
+                    limit))) {
           currentDexContents = new ArrayList<>();
           resultBuilder.put(module, currentDexContents);
         }
@@ -17,6 +17,7 @@
 package com.facebook.buck.android;
 
 import com.facebook.buck.android.exopackage.ExopackageInfo;
+import com.facebook.buck.android.exopackage.ExopackageInstaller;
 import com.facebook.buck.android.exopackage.ExopackagePathAndHash;
 import com.facebook.buck.core.model.BuildTarget;
 import com.facebook.buck.core.model.Flavor;
@@ -84,25 +85,37 @@ class AndroidBinaryInstallGraphEnhancer {
             buildTarget.withFlavors(DIRECTORY_LISTING_FLAVOR), projectFilesystem);
     ExopackageInfo exopackageInfo = apkInfo.getExopackageInfo().get();
     ImmutableList.Builder<BuildRule> finisherDeps = ImmutableList.builder();
-    if (exopackageInfo.getDexInfo().isPresent()
-        || exopackageInfo.getNativeLibsInfo().isPresent()
-        || exopackageInfo.getModuleInfo().isPresent()) {
-      ExopackageInfo filteredExopackageInfo =
-          ExopackageInfo.builder()
-              .setDexInfo(exopackageInfo.getDexInfo())
-              .setNativeLibsInfo(exopackageInfo.getNativeLibsInfo())
-              .setModuleInfo(exopackageInfo.getModuleInfo())
-              .build();
-      ExopackageFilesInstaller fileInstaller =
-          new ExopackageFilesInstaller(
-              buildTarget.withFlavors(EXO_FILE_INSTALL_FLAVOR),
-              projectFilesystem,
+    // Each kind of exopackage file gets its own installer so that, e.g., secondary dexes are pushed
+    // to the device while native libraries are still being built, rather than waiting for every
+    // exopackage file to be built first.
+    if (exopackageInfo.getDexInfo().isPresent()) {
+      finisherDeps.add(
+          createFileInstallRule(
+              ExopackageInfo.builder().setDexInfo(exopackageInfo.getDexInfo()).build(),
+              ExopackageInstaller.SECONDARY_DEX_TYPE,
+              graphBuilder,
+              apkInfo.getManifestPath(),
+              directoryLister.getSourcePathToOutput()));
+    }
+    if (exopackageInfo.getNativeLibsInfo().isPresent()) {
+      finisherDeps.add(
+          createFileInstallRule(
+              ExopackageInfo.builder()
+                  .setNativeLibsInfo(exopackageInfo.getNativeLibsInfo())
+                  .build(),
+              ExopackageInstaller.NATIVE_LIBRARY_TYPE,
+              graphBuilder,
+              apkInfo.getManifestPath(),
+              directoryLister.getSourcePathToOutput()));
+    }
+    if (exopackageInfo.getModuleInfo().isPresent()) {
+      finisherDeps.add(
+          createFileInstallRule(
+              ExopackageInfo.builder().setModuleInfo(exopackageInfo.getModuleInfo()).build(),
+              ExopackageInstaller.MODULAR_DEX_TYPE,
               graphBuilder,
-              directoryLister.getSourcePathToOutput(),
               apkInfo.getManifestPath(),
-              filteredExopackageInfo);
-      graphBuilder.addToIndex(fileInstaller);
-      finisherDeps.add(fileInstaller);
+              directoryLister.getSourcePathToOutput()));
     }
     if (exopackageInfo.getResourcesInfo().isPresent()) {
       List<BuildRule> resourceInstallRules =
@@ -128,6 +141,22 @@ class AndroidBinaryInstallGraphEnhancer {
     graphBuilder.addToIndex(apkInstaller);
   }
 
+  private BuildRule createFileInstallRule(
+      ExopackageInfo exopackageInfo,
+      String filesType,
+      ActionGraphBuilder graphBuilder,
+      SourcePath manifestPath,
+      SourcePath deviceExoContents) {
+    return graphBuilder.addToIndex(
+        new ExopackageFilesInstaller(
+            buildTarget.withAppendedFlavors(EXO_FILE_INSTALL_FLAVOR, InternalFlavor.of(filesType)),
+            projectFilesystem,
+            graphBuilder,
+            deviceExoContents,
+            manifestPath,
+            exopackageInfo));
+  }
+
   private List<BuildRule> createResourceInstallRules(
       ExopackageInfo.ResourcesInfo resourcesInfo,
       SourcePathRuleFinder ruleFinder,
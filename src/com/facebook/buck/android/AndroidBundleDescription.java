@@ -232,7 +232,8 @@ public class AndroidBundleDescription
         args.isPrimaryDexScenarioOverflowAllowed(),
         args.getSecondaryDexHeadClassesFile(),
         args.getSecondaryDexTailClassesFile(),
-        args.isAllowRDotJavaInSecondaryDex());
+        args.isAllowRDotJavaInSecondaryDex(),
+        args.isStablePreDexGrouping());
   }
 
   @Override
@@ -125,6 +125,11 @@ public interface AndroidGraphEnhancerArgs
     return false;
   }
 
+  @Value.Default
+  default boolean isStablePreDexGrouping() {
+    return false;
+  }
+
   Optional<String> getKeepResourcePattern();
 
   Optional<String> getResourceUnionPackage();
@@ -19,6 +19,7 @@ package com.facebook.buck.android;
 import com.android.apksig.ApkSigner;
 import com.android.sdklib.build.ApkCreationException;
 import com.facebook.buck.core.build.execution.context.ExecutionContext;
+import com.facebook.buck.core.util.log.Logger;
 import com.facebook.buck.io.filesystem.ProjectFilesystem;
 import com.facebook.buck.step.Step;
 import com.facebook.buck.step.StepExecutionResult;
@@ -34,11 +35,20 @@ import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
-/** Use Google apksigner to v1/v2/v3 sign the final APK */
+/**
+ * Use Google apksigner to v1/v2/v3 sign the final APK.
+ *
+ * <p>The input APK does not need to be zipaligned: the signer reads it through a {@link
+ * ZipAlignedDataSource} and keeps the stored entries aligned, so the signed APK is the only copy
+ * that is written.
+ */
 class ApkSignerStep implements Step {
 
+  private static final Logger LOG = Logger.get(ApkSignerStep.class);
+
   private final ProjectFilesystem filesystem;
   private final Path inputApkPath;
   private final Path outputApkPath;
@@ -76,6 +86,7 @@ class ApkSignerStep implements Step {
   private void signApkFile(
       File inputApk, File outputApk, ImmutableList<ApkSigner.SignerConfig> signerConfigs)
       throws ApkCreationException {
+    long startNanos = System.nanoTime();
     ApkSigner.Builder apkSignerBuilder = new ApkSigner.Builder(signerConfigs);
     // For non-redex build, apkSignerBuilder can look up minimum SDK version from
     // AndroidManifest.xml. Redex build does not have AndroidManifest.xml, so we
@@ -83,15 +94,20 @@ class ApkSignerStep implements Step {
     if (isRedexBuild) {
       apkSignerBuilder.setMinSdkVersion(1);
     }
-    try {
+    try (ZipAlignedDataSource alignedInputApk = ZipAlignedDataSource.open(inputApk.toPath())) {
       apkSignerBuilder
           .setV1SigningEnabled(true)
           .setV2SigningEnabled(true)
           .setV3SigningEnabled(false)
-          .setInputApk(inputApk)
+          .setInputApk(alignedInputApk)
           .setOutputApk(outputApk)
           .build()
           .sign();
+      LOG.debug(
+          "Aligned and signed %s in %d ms without writing a zipaligned copy of %d bytes.",
+          outputApk,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+          alignedInputApk.size());
     } catch (Exception e) {
       throw new ApkCreationException(e, "Failed to sign APK");
     }
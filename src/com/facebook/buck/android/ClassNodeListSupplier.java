@@ -18,10 +18,13 @@ package com.facebook.buck.android;
 
 import com.facebook.buck.util.MoreSuppliers;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.function.Supplier;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -46,34 +49,43 @@ class ClassNodeListSupplier implements Supplier<ImmutableList<ClassNode>> {
     return loadAllClassNodes();
   }
 
+  /**
+   * Reads the classes out of the jars one jar at a time, then parses them concurrently, keeping the
+   * order of the jars and their entries.
+   */
   private ImmutableList<ClassNode> loadAllClassNodes() {
-    ImmutableList.Builder<ClassNode> builder = ImmutableList.builder();
+    List<byte[]> classes = new ArrayList<>();
 
     for (Path jarPath : jarPaths) {
       try (JarFile jarFile = new JarFile(jarPath.toFile())) {
-        loadClassNodes(jarFile, builder);
+        readClasses(jarFile, classes);
       } catch (IOException e) {
         throw new RuntimeException(e);
       }
     }
 
-    return builder.build();
+    return classes.parallelStream()
+        .map(ClassNodeListSupplier::loadClassNode)
+        .collect(ImmutableList.toImmutableList());
   }
 
-  private void loadClassNodes(JarFile jarFile, ImmutableList.Builder<ClassNode> builder)
-      throws IOException {
+  private void readClasses(JarFile jarFile, List<byte[]> classes) throws IOException {
     for (JarEntry entry : Collections.list(jarFile.entries())) {
       String name = entry.getName();
       if (entry.isDirectory() || (name == null) || !name.endsWith(".class")) {
         continue;
       }
 
-      ClassNode node = new ClassNode();
       try (InputStream stream = jarFile.getInputStream(entry)) {
-        ClassReader reader = new ClassReader(stream);
-        reader.accept(node, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+        classes.add(ByteStreams.toByteArray(stream));
       }
-      builder.add(node);
     }
   }
+
+  private static ClassNode loadClassNode(byte[] classBytes) {
+    ClassNode node = new ClassNode();
+    ClassReader reader = new ClassReader(classBytes);
+    reader.accept(node, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+    return node;
+  }
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.android;
+
+import com.android.tools.r8.ArchiveClassFileProvider;
+import com.android.tools.r8.ClassFileResourceProvider;
+import com.facebook.buck.core.util.log.Logger;
+import com.facebook.buck.util.hashing.FileHashLoader;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.hash.HashCode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
+
+/**
+ * Shares the class file providers of library and classpath archives across in-process D8
+ * invocations.
+ *
+ * <p>Opening an archive reads its central directory and indexes every class it contains. Every
+ * pre-dexed library is compiled against android.jar and usually against a largely overlapping
+ * desugaring classpath, so sharing providers avoids indexing the same archives for each library.
+ * Providers are keyed by the content hash the build engine keeps for the archive, so an archive
+ * rewritten by the build gets a fresh provider. Archives without a hash, like android.jar, are
+ * keyed by their size, modification time and file key; archives fetched from the artifact cache
+ * all share the same modification time, so only replacing such an archive is noticed. D8 does not
+ * close providers it did not create, and reads from them concurrently are safe, since they only
+ * read entries of the open zip file.
+ *
+ * <p>An instance tracks the providers used by a single D8 invocation and releases them when it is
+ * closed. At most {@link #MAX_OPEN_ARCHIVES} providers are cached; providers that are evicted, or
+ * whose archive was rewritten, close their archive as soon as no invocation uses them anymore, so
+ * stale archives are neither kept open nor locked.
+ */
+final class D8ClassFileProviders implements AutoCloseable {
+
+  private static final Logger LOG = Logger.get(D8ClassFileProviders.class);
+
+  private static final int MAX_OPEN_ARCHIVES = 512;
+
+  private static final Cache<ArchiveKey, SharedArchive> ARCHIVES =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_OPEN_ARCHIVES)
+          .removalListener(
+              (RemovalNotification<ArchiveKey, SharedArchive> notification) ->
+                  Objects.requireNonNull(notification.getValue()).evict())
+          .build();
+
+  private final Optional<FileHashLoader> fileHashLoader;
+  private final List<SharedArchive> acquired = new ArrayList<>();
+
+  /** @param fileHashLoader hashes of files kept by the build engine, used to key the archives */
+  D8ClassFileProviders(Optional<FileHashLoader> fileHashLoader) {
+    this.fileHashLoader = fileHashLoader;
+  }
+
+  /**
+   * @return a shared provider for the classes in the archive at {@code path}, or {@link
+   *     Optional#empty()} if {@code path} is not an archive. The provider stays open at least until
+   *     this instance is closed.
+   */
+  Optional<ClassFileResourceProvider> forArchive(Path path) throws IOException {
+    String fileName = path.getFileName().toString();
+    if (!fileName.endsWith(".jar") && !fileName.endsWith(".zip")) {
+      return Optional.empty();
+    }
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    if (!attributes.isRegularFile()) {
+      return Optional.empty();
+    }
+    HashCode contentHash = null;
+    if (fileHashLoader.isPresent()) {
+      try {
+        contentHash = fileHashLoader.get().get(path);
+      } catch (NoSuchFileException e) {
+        // archives outside of the cells are not hashed by the build engine
+      }
+    }
+    ArchiveKey key =
+        new ArchiveKey(
+            path,
+            attributes.size(),
+            attributes.lastModifiedTime().toMillis(),
+            attributes.fileKey(),
+            contentHash);
+    if (ARCHIVES.getIfPresent(key) == null) {
+      // Providers of earlier versions of the archive will never be used again. They are evicted
+      // before the archive is opened again, as the JDK may otherwise hand out the zip file that is
+      // still open for a replaced archive with the same name and modification time.
+      ARCHIVES.asMap().keySet().removeIf(other -> other.path.equals(path) && !other.equals(key));
+    }
+    while (true) {
+      SharedArchive archive;
+      try {
+        archive = ARCHIVES.get(key, () -> new SharedArchive(new ArchiveClassFileProvider(path)));
+      } catch (ExecutionException e) {
+        Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new IllegalStateException(e.getCause());
+      }
+      // The archive may have been evicted, and closed, right after it was looked up.
+      if (archive.acquire()) {
+        acquired.add(archive);
+        return Optional.of(archive.provider);
+      }
+    }
+  }
+
+  /** Releases the providers returned by this instance. */
+  @Override
+  public void close() {
+    acquired.forEach(SharedArchive::release);
+    acquired.clear();
+  }
+
+  /** A cached provider, closed once it is evicted and no longer used. */
+  private static class SharedArchive {
+    private final ArchiveClassFileProvider provider;
+    private int references = 0;
+    private boolean evicted = false;
+
+    private SharedArchive(ArchiveClassFileProvider provider) {
+      this.provider = provider;
+    }
+
+    synchronized boolean acquire() {
+      if (evicted) {
+        return false;
+      }
+      references++;
+      return true;
+    }
+
+    synchronized void release() {
+      references--;
+      closeIfUnused();
+    }
+
+    synchronized void evict() {
+      evicted = true;
+      closeIfUnused();
+    }
+
+    private void closeIfUnused() {
+      if (!evicted || references > 0) {
+        return;
+      }
+      try {
+        provider.close();
+      } catch (IOException e) {
+        LOG.warn(e, "Failed to close D8 class file provider.");
+      }
+    }
+  }
+
+  private static class ArchiveKey {
+    private final Path path;
+    private final long size;
+    private final long lastModifiedMillis;
+    @Nullable private final Object fileKey;
+    @Nullable private final HashCode contentHash;
+
+    private ArchiveKey(
+        Path path,
+        long size,
+        long lastModifiedMillis,
+        @Nullable Object fileKey,
+        @Nullable HashCode contentHash) {
+      this.path = path;
+      this.size = size;
+      this.lastModifiedMillis = lastModifiedMillis;
+      this.fileKey = fileKey;
+      this.contentHash = contentHash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof ArchiveKey)) {
+        return false;
+      }
+      ArchiveKey that = (ArchiveKey) other;
+      return path.equals(that.path)
+          && size == that.size
+          && lastModifiedMillis == that.lastModifiedMillis
+          && Objects.equals(fileKey, that.fileKey)
+          && Objects.equals(contentHash, that.contentHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, size, lastModifiedMillis, fileKey, contentHash);
+    }
+  }
+}
@@ -42,7 +42,8 @@ class DexSplitMode implements AddsToRuleKey {
           /* isPrimaryDexScenarioOverflowAllowed */ false,
           /* secondaryDexHeadClassesFile */ Optional.empty(),
           /* secondaryDexTailClassesFile */ Optional.empty(),
-          /* allowRDotJavaInSecondaryDex */ false);
+          /* allowRDotJavaInSecondaryDex */ false,
+          /* stablePreDexGrouping */ false);
 
   /**
    * By default, assume we have 5MB of linear alloc, 1MB of which is taken up by the framework, so
@@ -131,6 +132,13 @@ class DexSplitMode implements AddsToRuleKey {
    */
   @AddToRuleKey private boolean allowRDotJavaInSecondaryDex;
 
+  /**
+   * Boolean identifying whether pre-dexed libraries should be grouped at content-defined
+   * boundaries, so that a small change only re-merges the secondary dex and the dex group it
+   * affects. See {@link StableDexGrouping}.
+   */
+  @AddToRuleKey private final boolean stablePreDexGrouping;
+
   /**
    * @param primaryDexPatterns Set of substrings that, when matched, will cause individual input
    *     class or resource files to be placed into the primary jar (and thus the primary dex
@@ -148,6 +156,7 @@ class DexSplitMode implements AddsToRuleKey {
    *     the first secondary dexes.
    * @param secondaryDexTailClassesFile Path to a file containing a list of classes that are put in
    * @param allowRDotJavaInSecondaryDex whether to allow R.java classes in the secondary dex files
+   * @param stablePreDexGrouping whether to group pre-dexed libraries at content-defined boundaries
    */
   public DexSplitMode(
       boolean shouldSplitDex,
@@ -161,7 +170,8 @@ class DexSplitMode implements AddsToRuleKey {
       boolean isPrimaryDexScenarioOverflowAllowed,
       Optional<SourcePath> secondaryDexHeadClassesFile,
       Optional<SourcePath> secondaryDexTailClassesFile,
-      boolean allowRDotJavaInSecondaryDex) {
+      boolean allowRDotJavaInSecondaryDex,
+      boolean stablePreDexGrouping) {
     this.shouldSplitDex = shouldSplitDex;
     this.dexSplitStrategy = dexSplitStrategy;
     this.dexStore = dexStore;
@@ -174,6 +184,7 @@ class DexSplitMode implements AddsToRuleKey {
     this.secondaryDexHeadClassesFile = secondaryDexHeadClassesFile;
     this.secondaryDexTailClassesFile = secondaryDexTailClassesFile;
     this.allowRDotJavaInSecondaryDex = allowRDotJavaInSecondaryDex;
+    this.stablePreDexGrouping = stablePreDexGrouping;
   }
 
   public DexSplitMode(
@@ -200,7 +211,8 @@ class DexSplitMode implements AddsToRuleKey {
         isPrimaryDexScenarioOverflowAllowed,
         secondaryDexHeadClassesFile,
         secondaryDexTailClassesFile,
-        allowRDotJavaInSecondaryDex);
+        allowRDotJavaInSecondaryDex,
+        /* stablePreDexGrouping */ false);
   }
 
   public DexStore getDexStore() {
@@ -251,4 +263,8 @@ class DexSplitMode implements AddsToRuleKey {
   public boolean isAllowRDotJavaInSecondaryDex() {
     return allowRDotJavaInSecondaryDex;
   }
+
+  public boolean isStablePreDexGrouping() {
+    return stablePreDexGrouping;
+  }
 }
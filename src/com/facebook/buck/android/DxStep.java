@@ -16,6 +16,7 @@
 
 package com.facebook.buck.android;
 
+import com.android.tools.r8.ClassFileResourceProvider;
 import com.android.tools.r8.CompilationFailedException;
 import com.android.tools.r8.CompilationMode;
 import com.android.tools.r8.D8Command;
@@ -336,7 +337,8 @@ public class DxStep extends ShellStep {
 
       D8DiagnosticsHandler diagnosticsHandler = new D8DiagnosticsHandler();
 
-      try {
+      try (D8ClassFileProviders archives =
+          new D8ClassFileProviders(context.getFileHashLoader())) {
         Set<Path> inputs = new HashSet<>();
         for (Path rawFile : filesToDex) {
           Path toDex = filesystem.resolve(rawFile);
@@ -356,7 +358,6 @@ public class DxStep extends ShellStep {
             D8Command.builder(diagnosticsHandler)
                 .addProgramFiles(inputs)
                 .setIntermediate(intermediate)
-                .addLibraryFiles(androidPlatformTarget.getAndroidJar())
                 .setMode(
                     options.contains(Option.NO_OPTIMIZE)
                         ? CompilationMode.DEBUG
@@ -371,13 +372,30 @@ public class DxStep extends ShellStep {
         bucketId.ifPresent(builder::setBucketId);
         minSdkVersion.ifPresent(builder::setMinApiLevel);
 
+        // Archives are indexed once and shared with the other D8 invocations of the build.
+        Path androidJar = androidPlatformTarget.getAndroidJar();
+        Optional<ClassFileResourceProvider> androidJarProvider = archives.forArchive(androidJar);
+        if (androidJarProvider.isPresent()) {
+          builder.addLibraryResourceProvider(androidJarProvider.get());
+        } else {
+          builder.addLibraryFiles(androidJar);
+        }
+
         if (classpathFiles != null && !classpathFiles.isEmpty()) {
           // classpathFiles is needed only for D8 java 8 desugar
           ImmutableSet.Builder<Path> absolutePaths = ImmutableSet.builder();
           for (Path classpathFile : classpathFiles) {
             absolutePaths.add(filesystem.getPathForRelativeExistingPath(classpathFile));
           }
-          builder.addClasspathFiles(absolutePaths.build());
+          // Entries are added one at a time to keep the classpath order.
+          for (Path absolutePath : absolutePaths.build()) {
+            Optional<ClassFileResourceProvider> provider = archives.forArchive(absolutePath);
+            if (provider.isPresent()) {
+              builder.addClasspathResourceProvider(provider.get());
+            } else {
+              builder.addClasspathFiles(absolutePath);
+            }
+          }
         }
         D8Command d8Command = builder.build();
         com.android.tools.r8.D8.run(d8Command);
@@ -32,11 +32,16 @@ import com.facebook.buck.step.StepExecutionResults;
 import com.facebook.buck.util.DefaultFilteredDirectoryCopier;
 import com.facebook.buck.util.Escaper;
 import com.facebook.buck.util.FilteredDirectoryCopier;
+import com.facebook.buck.util.concurrent.MoreFutures;
+import com.facebook.buck.util.concurrent.MostExecutors;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
@@ -50,6 +55,8 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -140,7 +147,8 @@ public class FilterResourcesSteps {
 
   private class CopyStep implements Step {
     @Override
-    public StepExecutionResult execute(ExecutionContext context) throws IOException {
+    public StepExecutionResult execute(ExecutionContext context)
+        throws IOException, InterruptedException {
       LOG.info(
           "FilterResourcesSteps: canDownscale: %s. imageScalar non-null: %s.",
           canDownscale(context), imageScaler != null);
@@ -253,6 +261,9 @@ public class FilterResourcesSteps {
    *
    * <p>Any drawables found by this step didn't have equivalents in the target density. If they are
    * of a higher density, we can replicate what Android does and downscale them at compile-time.
+   *
+   * <p>Drawables are scaled concurrently into temporary files, which are then moved into place one
+   * at a time so that emptied directories can be deleted safely.
    */
   private void scaleUnmatchedDrawables(ExecutionContext context)
       throws IOException, InterruptedException {
@@ -262,6 +273,7 @@ public class FilterResourcesSteps {
     Objects.requireNonNull(drawableFinder);
     Collection<Path> drawables =
         drawableFinder.findDrawables(inResDirToOutResDirMap.values(), filesystem);
+    List<Path> drawablesToScale = new ArrayList<>();
     for (Path drawable : drawables) {
       String drawableFileName = drawable.getFileName().toString();
       if (drawableFileName.endsWith(".xml")) {
@@ -289,45 +301,105 @@ public class FilterResourcesSteps {
           // There is no point in up-scaling, or converting between drawable and drawable-mdpi.
           continue;
         }
+        drawablesToScale.add(drawable);
+      }
+    }
 
-        Path tmpFile = filesystem.createTempFile("scaled_", drawableFileName);
-        Objects.requireNonNull(imageScaler);
-        imageScaler.scale(factor, drawable, tmpFile, context);
+    List<Optional<Path>> scaledDrawables =
+        scaleDrawables(drawablesToScale, targetDensity, context);
 
-        long oldSize = filesystem.getFileSize(drawable);
-        long newSize = filesystem.getFileSize(tmpFile);
-        if (newSize > oldSize) {
-          // Don't keep the new one if it is larger than the old one.
-          filesystem.deleteFileAtPath(tmpFile);
-          continue;
-        }
+    for (int i = 0; i < drawablesToScale.size(); i++) {
+      Path drawable = drawablesToScale.get(i);
+      Optional<Path> tmpFile = scaledDrawables.get(i);
+      if (!tmpFile.isPresent()) {
+        continue;
+      }
 
-        // Replace density qualifier with target density using regular expression to match
-        // the qualifier in the context of a path to a drawable.
-        String fromDensity = (density == ResourceFilters.Density.NO_QUALIFIER ? "" : "-") + density;
-        Path destination =
-            Paths.get(
-                PathFormatter.pathWithUnixSeparators(drawable)
-                    .replaceFirst(
-                        "((?:^|/)drawable[^/]*)" + Pattern.quote(fromDensity) + "(-|$|/)",
-                        "$1-" + targetDensity + "$2"));
-
-        // Make sure destination folder exists and perform downscaling.
-        filesystem.createParentDirs(destination);
-        filesystem.move(tmpFile, destination);
-
-        // Delete source file.
-        filesystem.deleteFileAtPath(drawable);
-
-        // Delete newly-empty directories to prevent missing resources errors in apkbuilder.
-        Path parent = drawable.getParent();
-        if (filesystem.getDirectoryContents(parent).isEmpty()) {
-          filesystem.deleteFileAtPath(parent);
-        }
+      // Replace density qualifier with target density using regular expression to match
+      // the qualifier in the context of a path to a drawable.
+      ResourceFilters.Qualifiers qualifiers = ResourceFilters.Qualifiers.from(drawable.getParent());
+      ResourceFilters.Density density = qualifiers.density;
+      String fromDensity = (density == ResourceFilters.Density.NO_QUALIFIER ? "" : "-") + density;
+      Path destination =
+          Paths.get(
+              PathFormatter.pathWithUnixSeparators(drawable)
+                  .replaceFirst(
+                      "((?:^|/)drawable[^/]*)" + Pattern.quote(fromDensity) + "(-|$|/)",
+                      "$1-" + targetDensity + "$2"));
+
+      // Make sure destination folder exists and perform downscaling.
+      filesystem.createParentDirs(destination);
+      filesystem.move(tmpFile.get(), destination);
+
+      // Delete source file.
+      filesystem.deleteFileAtPath(drawable);
+
+      // Delete newly-empty directories to prevent missing resources errors in apkbuilder.
+      Path parent = drawable.getParent();
+      if (filesystem.getDirectoryContents(parent).isEmpty()) {
+        filesystem.deleteFileAtPath(parent);
       }
     }
   }
 
+  /**
+   * Scales {@code drawables} concurrently on a pool bounded by the build's thread limit. The image
+   * scaler blocks on a subprocess, so this deliberately avoids the common fork-join pool.
+   *
+   * @return the result of {@link #scaleDrawable} for each drawable, in order.
+   */
+  private List<Optional<Path>> scaleDrawables(
+      List<Path> drawables, ResourceFilters.Density targetDensity, ExecutionContext context)
+      throws IOException, InterruptedException {
+    List<Callable<Optional<Path>>> tasks = new ArrayList<>(drawables.size());
+    for (Path drawable : drawables) {
+      tasks.add(() -> scaleDrawable(drawable, targetDensity, context));
+    }
+    if (tasks.isEmpty()) {
+      return ImmutableList.of();
+    }
+
+    int threads = Math.min(tasks.size(), context.getConcurrencyLimit().threadLimit);
+    ListeningExecutorService executor =
+        MoreExecutors.listeningDecorator(
+            MostExecutors.newMultiThreadExecutor("resource_filtering-scale", threads));
+    try {
+      return MoreFutures.getAll(executor, tasks);
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.throwIfInstanceOf(e.getCause(), InterruptedException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Scales {@code drawable} down to {@code targetDensity} into a temporary file.
+   *
+   * @return the scaled drawable, or {@link Optional#empty()} if it would be larger than the
+   *     original.
+   */
+  private Optional<Path> scaleDrawable(
+      Path drawable, ResourceFilters.Density targetDensity, ExecutionContext context)
+      throws IOException, InterruptedException {
+    ResourceFilters.Qualifiers qualifiers = ResourceFilters.Qualifiers.from(drawable.getParent());
+    double factor = targetDensity.value() / qualifiers.density.value();
+    Path tmpFile = filesystem.createTempFile("scaled_", drawable.getFileName().toString());
+    Objects.requireNonNull(imageScaler);
+    imageScaler.scale(factor, drawable, tmpFile, context);
+
+    long oldSize = filesystem.getFileSize(drawable);
+    long newSize = filesystem.getFileSize(tmpFile);
+    if (newSize > oldSize) {
+      // Don't keep the new one if it is larger than the old one.
+      filesystem.deleteFileAtPath(tmpFile);
+      return Optional.empty();
+    }
+    return Optional.of(tmpFile);
+  }
+
   public interface DrawableFinder {
     ImmutableSet<Path> findDrawables(Collection<Path> dirs, ProjectFilesystem filesystem)
         throws IOException;
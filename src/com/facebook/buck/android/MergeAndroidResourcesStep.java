@@ -43,11 +43,15 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import com.google.common.collect.SortedSetMultimap;
 import com.google.common.collect.TreeMultimap;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -69,6 +73,9 @@ import java.util.stream.Collectors;
 public class MergeAndroidResourcesStep implements Step {
   private static final Logger LOG = Logger.get(MergeAndroidResourcesStep.class);
 
+  /** Number of symbols files parsed concurrently and held in memory at once. */
+  private static final int SYMBOLS_FILES_BATCH_SIZE = 64;
+
   private final ProjectFilesystem filesystem;
   private final SourcePathResolverAdapter pathResolver;
   private final ImmutableList<HasAndroidResourceDeps> androidResourceDeps;
@@ -334,70 +341,94 @@ public class MergeAndroidResourcesStep implements Step {
   void writePerPackageRDotJava(
       SortedSetMultimap<String, RDotTxtEntry> packageToResources, ProjectFilesystem filesystem)
       throws IOException {
-    for (String rDotJavaPackage : packageToResources.keySet()) {
-      Path outputFile = getPathToRDotJava(rDotJavaPackage);
-      filesystem.mkdirs(outputFile.getParent());
-      try (ThrowingPrintWriter writer =
-          new ThrowingPrintWriter(filesystem.newFileOutputStream(outputFile))) {
-        writer.format("package %s;\n\n", rDotJavaPackage);
-        writer.format("public class %s {\n", rName);
-
-        ImmutableList.Builder<String> customDrawablesBuilder = ImmutableList.builder();
-        ImmutableList.Builder<String> grayscaleImagesBuilder = ImmutableList.builder();
-        RType lastType = null;
-
-        for (RDotTxtEntry res : packageToResources.get(rDotJavaPackage)) {
-          RType type = res.type;
-          if (!type.equals(lastType)) {
-            // If the previous type needs to be closed, close it.
-            if (lastType != null) {
-              writer.println("  }\n");
-            }
+    // Every package is written to its own file, so the packages are written concurrently.
+    try {
+      packageToResources.keySet().parallelStream()
+          .forEach(
+              rDotJavaPackage -> {
+                try {
+                  writeRDotJava(
+                      rDotJavaPackage, packageToResources.get(rDotJavaPackage), filesystem);
+                } catch (IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
 
-            // Now start the block for the new type.
-            writer.format("  public static class %s {\n", type);
-            lastType = type;
+  private void writeRDotJava(
+      String rDotJavaPackage, Collection<RDotTxtEntry> resources, ProjectFilesystem filesystem)
+      throws IOException {
+    Path outputFile = getPathToRDotJava(rDotJavaPackage);
+    filesystem.mkdirs(outputFile.getParent());
+    try (ThrowingPrintWriter writer =
+        new ThrowingPrintWriter(filesystem.newFileOutputStream(outputFile))) {
+      writer.format("package %s;\n\n", rDotJavaPackage);
+      writer.format("public class %s {\n", rName);
+
+      ImmutableList.Builder<String> customDrawablesBuilder = ImmutableList.builder();
+      ImmutableList.Builder<String> grayscaleImagesBuilder = ImmutableList.builder();
+      RType lastType = null;
+
+      for (RDotTxtEntry res : resources) {
+        RType type = res.type;
+        if (!type.equals(lastType)) {
+          // If the previous type needs to be closed, close it.
+          if (lastType != null) {
+            writer.println("  }\n");
           }
 
-          // Write out the resource.
-          // Write as an int.
-          writer.format(
-              "    public static%s%s %s=%s;\n",
-              forceFinalResourceIds ? " final " : " ", res.idType, res.name, res.idValue);
-
-          if (type == RType.DRAWABLE && res.customType == RDotTxtEntry.CustomDrawableType.CUSTOM) {
-            customDrawablesBuilder.add(res.idValue);
-          } else if (type == RType.DRAWABLE
-              && res.customType == RDotTxtEntry.CustomDrawableType.GRAYSCALE_IMAGE) {
-            grayscaleImagesBuilder.add(res.idValue);
-          }
+          // Now start the block for the new type.
+          writer.format("  public static class %s {\n", type);
+          lastType = type;
         }
 
-        // If some type was written (e.g., the for loop was entered), then the last type needs to be
-        // closed.
-        if (lastType != null) {
-          writer.println("  }\n");
+        // Write out the resource.
+        // Write as an int. This is the bulk of the output, so it is not formatted with a pattern.
+        writer.write(
+            "    public static"
+                + (forceFinalResourceIds ? " final " : " ")
+                + res.idType
+                + " "
+                + res.name
+                + "="
+                + res.idValue
+                + ";\n");
+
+        if (type == RType.DRAWABLE && res.customType == RDotTxtEntry.CustomDrawableType.CUSTOM) {
+          customDrawablesBuilder.add(res.idValue);
+        } else if (type == RType.DRAWABLE
+            && res.customType == RDotTxtEntry.CustomDrawableType.GRAYSCALE_IMAGE) {
+          grayscaleImagesBuilder.add(res.idValue);
         }
+      }
 
-        ImmutableList<String> customDrawables = customDrawablesBuilder.build();
-        if (customDrawables.size() > 0) {
-          // Add a new field for the custom drawables.
-          writer.format("  public static final int[] custom_drawables = ");
-          writer.format("{ %s };\n", Joiner.on(",").join(customDrawables));
-          writer.format("\n");
-        }
+      // If some type was written (e.g., the for loop was entered), then the last type needs to be
+      // closed.
+      if (lastType != null) {
+        writer.println("  }\n");
+      }
 
-        ImmutableList<String> grayscaleImages = grayscaleImagesBuilder.build();
-        if (grayscaleImages.size() > 0) {
-          // Add a new field for the custom drawables.
-          writer.format("  public static final int[] grayscale_images = ");
-          writer.format("{ %s };\n", Joiner.on(",").join(grayscaleImages));
-          writer.format("\n");
-        }
+      ImmutableList<String> customDrawables = customDrawablesBuilder.build();
+      if (customDrawables.size() > 0) {
+        // Add a new field for the custom drawables.
+        writer.format("  public static final int[] custom_drawables = ");
+        writer.format("{ %s };\n", Joiner.on(",").join(customDrawables));
+        writer.format("\n");
+      }
 
-        // Close the class definition.
-        writer.println("}");
+      ImmutableList<String> grayscaleImages = grayscaleImagesBuilder.build();
+      if (grayscaleImages.size() > 0) {
+        // Add a new field for the custom drawables.
+        writer.format("  public static final int[] grayscale_images = ");
+        writer.format("{ %s };\n", Joiner.on(",").join(grayscaleImages));
+        writer.format("\n");
       }
+
+      // Close the class definition.
+      writer.println("}");
     }
   }
 
@@ -444,19 +475,21 @@ public class MergeAndroidResourcesStep implements Step {
                   ovr.put(pkg, entries.stream().collect(Collectors.toMap(k -> k, v -> v))));
     }
 
+    // Symbols files are parsed in bounded batches, in the same order they are merged in, so only
+    // one batch of parsed files is held in memory at a time.
+    Iterator<List<Path>> symbolsFileBatches =
+        Iterables.partition(symbolsFileToRDotJavaPackage.keySet(), SYMBOLS_FILES_BATCH_SIZE)
+            .iterator();
+    Interner<String> names = Interners.newStrongInterner();
+    Map<Path, List<RDotTxtEntry>> symbolsFileToEntries = new HashMap<>();
+
     for (Map.Entry<Path, String> entry : symbolsFileToRDotJavaPackage.entrySet()) {
-      Path symbolsFile = entry.getKey();
-      // Read the symbols file and parse each line as a Resource.
-      List<RDotTxtEntry> linesInSymbolsFile;
-      try {
-        linesInSymbolsFile =
-            filesystem.readLines(symbolsFile).stream()
-                .filter(input -> !Strings.isNullOrEmpty(input))
-                .map(MergeAndroidResourcesStep::parseEntryOrThrow)
-                .collect(Collectors.toList());
-      } catch (IOException e) {
-        throw new RuntimeException(e);
+      if (symbolsFileToEntries.isEmpty()) {
+        symbolsFileToEntries = readSymbolsFiles(symbolsFileBatches.next(), filesystem, names);
       }
+      Path symbolsFile = entry.getKey();
+      List<RDotTxtEntry> linesInSymbolsFile =
+          Objects.requireNonNull(symbolsFileToEntries.remove(symbolsFile));
 
       String packageName = entry.getValue();
       Map<RDotTxtEntry, RDotTxtEntry> packageOverrides =
@@ -487,7 +520,7 @@ public class MergeAndroidResourcesStep implements Step {
         } else if (useOldStyleableFormat) {
           if (resource.idValue.startsWith("0x7f")) {
             Objects.requireNonNull(enumerator);
-            resource = resource.copyWithNewIdValue(String.format("0x%08x", enumerator.next()));
+            resource = resource.copyWithNewIdValue(enumerator.nextId());
           }
         } else {
           if (resourceToIdValuesMap.containsKey(resource)) {
@@ -515,7 +548,7 @@ public class MergeAndroidResourcesStep implements Step {
             // which should not be assigned a custom R value.
             if (!resource.idValue.startsWith("0x01")) {
               Objects.requireNonNull(enumerator);
-              resource = resource.copyWithNewIdValue(String.format("0x%08x", enumerator.next()));
+              resource = resource.copyWithNewIdValue(enumerator.nextId());
             }
 
             // Add resource to cache so that the id value is consistent across all R.txt
@@ -581,6 +614,32 @@ public class MergeAndroidResourcesStep implements Step {
     return rDotJavaPackageToSymbolsFiles;
   }
 
+  /**
+   * Reads a batch of symbols files and parses each line as a Resource, concurrently. Ids are
+   * assigned afterwards in the order of the symbols files, so they do not depend on the order the
+   * files are read in.
+   *
+   * @param names interner shared across batches; libraries declare many of the same resources,
+   *     attributes in particular, so a single copy of each name is kept.
+   */
+  private static Map<Path, List<RDotTxtEntry>> readSymbolsFiles(
+      Collection<Path> symbolsFiles, ProjectFilesystem filesystem, Interner<String> names) {
+    return symbolsFiles.parallelStream()
+        .collect(
+            Collectors.toConcurrentMap(
+                symbolsFile -> symbolsFile,
+                symbolsFile -> {
+                  try {
+                    return filesystem.readLines(symbolsFile).stream()
+                        .filter(input -> !Strings.isNullOrEmpty(input))
+                        .map(line -> parseEntryOrThrow(line, RDotTxtEntry.parse(line, names)))
+                        .collect(Collectors.toList());
+                  } catch (IOException e) {
+                    throw new RuntimeException(e);
+                  }
+                }));
+  }
+
   private static boolean duplicateIsWhitelisted(RDotTxtEntry resource, Set<String> whitelist) {
     return whitelist.contains(resource.type.toString().toLowerCase() + " " + resource.name);
   }
@@ -662,7 +721,10 @@ public class MergeAndroidResourcesStep implements Step {
   }
 
   private static RDotTxtEntry parseEntryOrThrow(String line) {
-    Optional<RDotTxtEntry> parsedEntry = RDotTxtEntry.parse(line);
+    return parseEntryOrThrow(line, RDotTxtEntry.parse(line));
+  }
+
+  private static RDotTxtEntry parseEntryOrThrow(String line, Optional<RDotTxtEntry> parsedEntry) {
     Preconditions.checkState(parsedEntry.isPresent(), "Should be able to match '%s'.", line);
 
     return parsedEntry.get();
@@ -700,6 +762,11 @@ public class MergeAndroidResourcesStep implements Step {
       Preconditions.checkState(value < Integer.MAX_VALUE, "Stop goofing off");
       return value++;
     }
+
+    /** @return the next value formatted as a resource id, i.e. like {@code 0x%08x}. */
+    public String nextId() {
+      return "0x" + Strings.padStart(Integer.toHexString(next()), 8, '0');
+    }
   }
 
   @VisibleForTesting
@@ -191,7 +191,8 @@ public class PreDexSplitDexGroup extends AbstractBuildRuleWithDeclaredAndExtraDe
             dexSplitMode.getLinearAllocHardLimit(),
             dexSplitMode.getDexStore(),
             secondaryDexDir,
-            groupIndex);
+            groupIndex,
+            dexSplitMode.isStablePreDexGrouping());
     PreDexedFilesSorter.Result result =
         preDexedFilesSorter.sortIntoPrimaryAndSecondaryDexes(getProjectFilesystem(), steps);
 
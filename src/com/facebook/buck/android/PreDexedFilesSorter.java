@@ -65,6 +65,7 @@ public class PreDexedFilesSorter {
   private final DexStore dexStore;
   private final Path secondaryDexJarFilesDir;
   private final Optional<Integer> groupIndex;
+  private final boolean stableGrouping;
 
   /**
    * Directory under the project filesystem where this step may write temporary data. This directory
@@ -81,7 +82,8 @@ public class PreDexedFilesSorter {
       long dexWeightLimit,
       DexStore dexStore,
       Path secondaryDexJarFilesDir,
-      Optional<Integer> groupIndex) {
+      Optional<Integer> groupIndex,
+      boolean stableGrouping) {
     this.dexFilesToMerge = dexFilesToMerge;
     this.primaryDexFilter = ClassNameFilter.fromConfiguration(primaryDexPatterns);
     this.apkModuleGraph = apkModuleGraph;
@@ -92,6 +94,7 @@ public class PreDexedFilesSorter {
     this.dexStore = dexStore;
     this.secondaryDexJarFilesDir = secondaryDexJarFilesDir;
     this.groupIndex = groupIndex;
+    this.stableGrouping = stableGrouping;
   }
 
   /**
@@ -168,9 +171,20 @@ public class PreDexedFilesSorter {
       return target.getFullyQualifiedName().replaceAll("[/:]", "_") + "_dex.jar";
     }
 
+    private String getStableName(DexWithClasses dexWithClasses) {
+      BuildTarget target = dexWithClasses.getSourceBuildTarget();
+      return target != null
+          ? target.getFullyQualifiedName()
+          : dexWithClasses.getSourcePathToDexFile().toString();
+    }
+
     public void addDex(DexWithClasses dexWithClasses) {
-      // If we're over the size threshold, start writing to a new dex
-      if (dexWithClasses.getWeightEstimate() + currentSecondaryDexSize > dexWeightLimit) {
+      // If we're over the size threshold, or at a stable boundary, start writing to a new dex
+      if (dexWithClasses.getWeightEstimate() + currentSecondaryDexSize > dexWeightLimit
+          || (stableGrouping
+              && !currentSecondaryDexContents.isEmpty()
+              && StableDexGrouping.shouldStartNewGroup(
+                  getStableName(dexWithClasses), currentSecondaryDexSize, dexWeightLimit))) {
         currentSecondaryDexSize = 0;
         currentSecondaryDexContents = new ArrayList<>();
       }
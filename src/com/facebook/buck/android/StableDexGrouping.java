@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.android;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+/**
+ * Picks content-defined boundaries when packing an ordered list of pre-dexed libraries into
+ * groups of limited size.
+ *
+ * <p>Packing greedily up to the limit means that adding or growing a single library shifts the
+ * boundaries of every following group, so all of them have to be re-merged. Instead, once a group
+ * is at least half full, a new group is started at any library whose name hashes to a boundary.
+ * Boundaries then only depend on the libraries around them, so a small change only alters the
+ * group it falls into, at the cost of groups being less full on average.
+ */
+final class StableDexGrouping {
+
+  /** On average, one in this many libraries is a boundary. */
+  private static final int BOUNDARY_MODULUS = 8;
+
+  private StableDexGrouping() {}
+
+  /**
+   * @param name stable name of the library about to be added, e.g. its build target
+   * @param currentSize size of the group built so far, in the same unit as {@code limit}
+   * @param limit maximum size of a group, or 0 if groups are unbounded, in which case there is a
+   *     single group and no boundaries are picked
+   * @return whether the library should start a new group rather than be added to the current one
+   */
+  static boolean shouldStartNewGroup(String name, long currentSize, long limit) {
+    return limit > 0 && currentSize * 2 >= limit && isBoundary(name);
+  }
+
+  private static boolean isBoundary(String name) {
+    int hash = Hashing.murmur3_32().hashString(name, Charsets.UTF_8).asInt();
+    return Math.floorMod(hash, BOUNDARY_MODULUS) == 0;
+  }
+}
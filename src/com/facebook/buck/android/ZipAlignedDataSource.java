@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.android;
+
+import com.android.apksig.util.DataSink;
+import com.android.apksig.util.DataSource;
+import com.android.apksig.util.DataSources;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.ZipEntry;
+
+/**
+ * A view of a zip file in which the data of every stored entry starts at a multiple of {@value
+ * #ALIGNMENT} bytes, as {@code zipalign -f 4} would write it.
+ *
+ * <p>Only the local file headers, the central directory and the end of central directory record
+ * are rewritten, in memory. The data of the entries is read from the original file as it is
+ * stored, so compressed entries are neither inflated nor deflated again. Padding is added with the
+ * same extra field that apksig uses, so {@link com.android.apksig.ApkSigner} keeps the data
+ * aligned when it signs this view, which avoids writing a zipaligned copy of the APK first.
+ */
+final class ZipAlignedDataSource implements DataSource, Closeable {
+
+  static final int ALIGNMENT = 4;
+
+  private static final int ALIGNMENT_EXTRA_FIELD_ID = 0xd935;
+  private static final int EXTRA_FIELD_HEADER_SIZE = 4;
+  private static final int ALIGNMENT_EXTRA_FIELD_MIN_SIZE = EXTRA_FIELD_HEADER_SIZE + 2;
+  private static final int DATA_DESCRIPTOR_FLAG = 1 << 3;
+  private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+  private static final int DATA_DESCRIPTOR_SIZE = 12;
+  private static final int MAX_COMMENT_SIZE = 0xffff;
+  private static final long ZIP64_MAGIC_VALUE = 0xffffffffL;
+  private static final int ZIP64_MAGIC_COUNT = 0xffff;
+
+  private final RandomAccessFile file;
+  private final DataSource[] segments;
+  private final long[] segmentOffsets;
+  private final long size;
+
+  private ZipAlignedDataSource(RandomAccessFile file, List<DataSource> segments) {
+    this.file = file;
+    this.segments = segments.toArray(new DataSource[0]);
+    this.segmentOffsets = new long[this.segments.length];
+    long offset = 0;
+    for (int i = 0; i < this.segments.length; i++) {
+      segmentOffsets[i] = offset;
+      offset += this.segments[i].size();
+    }
+    this.size = offset;
+  }
+
+  /** Opens a view of {@code zipPath} with all stored entries aligned. */
+  static ZipAlignedDataSource open(Path zipPath) throws IOException {
+    RandomAccessFile file = new RandomAccessFile(zipPath.toFile(), "r");
+    try {
+      return new ZipAlignedDataSource(file, layOut(zipPath, file));
+    } catch (IOException | RuntimeException e) {
+      file.close();
+      throw e;
+    }
+  }
+
+  private static List<DataSource> layOut(Path zipPath, RandomAccessFile file) throws IOException {
+    long fileSize = file.length();
+    ByteBuffer endRecord = readEndOfCentralDirectory(zipPath, file, fileSize);
+    if (Short.toUnsignedInt(endRecord.getShort(ZipEntry.ENDTOT)) == ZIP64_MAGIC_COUNT
+        || Integer.toUnsignedLong(endRecord.getInt(ZipEntry.ENDOFF)) == ZIP64_MAGIC_VALUE
+        || Integer.toUnsignedLong(endRecord.getInt(ZipEntry.ENDSIZ)) == ZIP64_MAGIC_VALUE) {
+      throw new IOException("ZIP64 archives are not supported: " + zipPath);
+    }
+    if (endRecord.getShort(4) != 0 || endRecord.getShort(6) != 0) {
+      throw new IOException("Multi-disk archives are not supported: " + zipPath);
+    }
+    int count = Short.toUnsignedInt(endRecord.getShort(ZipEntry.ENDTOT));
+    long centralDirectoryOffset = Integer.toUnsignedLong(endRecord.getInt(ZipEntry.ENDOFF));
+    long centralDirectorySize = Integer.toUnsignedLong(endRecord.getInt(ZipEntry.ENDSIZ));
+    if (centralDirectoryOffset + centralDirectorySize > fileSize - endRecord.limit()) {
+      throw new IOException("Central directory out of bounds in " + zipPath);
+    }
+
+    ByteBuffer centralDirectory = read(file, centralDirectoryOffset, (int) centralDirectorySize);
+    List<Entry> entries = new ArrayList<>(count);
+    int recordOffset = 0;
+    for (int i = 0; i < count; i++) {
+      if (recordOffset + ZipEntry.CENHDR > centralDirectory.limit()
+          || centralDirectory.getInt(recordOffset) != ZipEntry.CENSIG) {
+        throw new IOException("Malformed central directory in " + zipPath);
+      }
+      long localHeaderOffset =
+          Integer.toUnsignedLong(centralDirectory.getInt(recordOffset + ZipEntry.CENOFF));
+      long compressedSize =
+          Integer.toUnsignedLong(centralDirectory.getInt(recordOffset + ZipEntry.CENSIZ));
+      if (localHeaderOffset == ZIP64_MAGIC_VALUE || compressedSize == ZIP64_MAGIC_VALUE) {
+        throw new IOException("ZIP64 archives are not supported: " + zipPath);
+      }
+      entries.add(
+          new Entry(
+              recordOffset,
+              Short.toUnsignedInt(centralDirectory.getShort(recordOffset + ZipEntry.CENHOW)),
+              compressedSize,
+              localHeaderOffset));
+      recordOffset +=
+          ZipEntry.CENHDR
+              + Short.toUnsignedInt(centralDirectory.getShort(recordOffset + ZipEntry.CENNAM))
+              + Short.toUnsignedInt(centralDirectory.getShort(recordOffset + ZipEntry.CENEXT))
+              + Short.toUnsignedInt(centralDirectory.getShort(recordOffset + ZipEntry.CENCOM));
+    }
+
+    // Entries are laid out in the order they are stored in, which is not necessarily the order of
+    // the central directory.
+    List<Entry> entriesInFileOrder = new ArrayList<>(entries);
+    entriesInFileOrder.sort(Comparator.comparingLong(entry -> entry.localHeaderOffset));
+
+    List<DataSource> segments = new ArrayList<>(entries.size() * 2 + 2);
+    long outputOffset = 0;
+    for (Entry entry : entriesInFileOrder) {
+      ByteBuffer header = read(file, entry.localHeaderOffset, ZipEntry.LOCHDR);
+      if (header.getInt(0) != ZipEntry.LOCSIG) {
+        throw new IOException("Malformed local file header in " + zipPath);
+      }
+      int nameLength = Short.toUnsignedInt(header.getShort(ZipEntry.LOCNAM));
+      int extraLength = Short.toUnsignedInt(header.getShort(ZipEntry.LOCEXT));
+      long dataOffset = entry.localHeaderOffset + ZipEntry.LOCHDR + nameLength + extraLength;
+      long recordEnd = dataOffset + entry.compressedSize;
+      if ((Short.toUnsignedInt(header.getShort(ZipEntry.LOCFLG)) & DATA_DESCRIPTOR_FLAG) != 0) {
+        recordEnd += DATA_DESCRIPTOR_SIZE;
+        if (recordEnd <= centralDirectoryOffset
+            && read(file, recordEnd - DATA_DESCRIPTOR_SIZE, 4).getInt(0)
+                == DATA_DESCRIPTOR_SIGNATURE) {
+          recordEnd += 4;
+        }
+      }
+      if (recordEnd > centralDirectoryOffset) {
+        throw new IOException("Entry data overlaps the central directory in " + zipPath);
+      }
+
+      entry.outputOffset = outputOffset;
+      long headerSize = ZipEntry.LOCHDR + nameLength + extraLength;
+      if (entry.method == ZipEntry.STORED
+          && (outputOffset + headerSize) % ALIGNMENT != 0) {
+        ByteBuffer nameAndExtra =
+            read(file, entry.localHeaderOffset + ZipEntry.LOCHDR, nameLength + extraLength);
+        ByteBuffer alignedHeader =
+            alignHeader(header, nameAndExtra, nameLength, extraLength, outputOffset);
+        segments.add(DataSources.asDataSource(alignedHeader));
+        headerSize = alignedHeader.remaining();
+        addSegment(segments, file, dataOffset, recordEnd - dataOffset);
+      } else {
+        addSegment(segments, file, entry.localHeaderOffset, recordEnd - entry.localHeaderOffset);
+      }
+      outputOffset += headerSize + (recordEnd - dataOffset);
+    }
+
+    for (Entry entry : entries) {
+      centralDirectory.putInt(
+          entry.centralDirectoryRecordOffset + ZipEntry.CENOFF, (int) entry.outputOffset);
+    }
+    endRecord.putInt(ZipEntry.ENDOFF, (int) outputOffset);
+    segments.add(DataSources.asDataSource(centralDirectory));
+    segments.add(DataSources.asDataSource(endRecord));
+    return segments;
+  }
+
+  /**
+   * Rewrites the local file header of a stored entry that starts at {@code outputOffset} so that
+   * its data is aligned, replacing any padding that a previous alignment left in the extra field.
+   */
+  private static ByteBuffer alignHeader(
+      ByteBuffer header,
+      ByteBuffer nameAndExtra,
+      int nameLength,
+      int extraLength,
+      long outputOffset) {
+    ByteBuffer extra = nameAndExtra.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    extra.position(nameLength);
+    ByteBuffer keptExtra = ByteBuffer.allocate(extraLength).order(ByteOrder.LITTLE_ENDIAN);
+    while (extra.remaining() >= EXTRA_FIELD_HEADER_SIZE) {
+      int fieldStart = extra.position();
+      int id = Short.toUnsignedInt(extra.getShort());
+      int fieldSize = Short.toUnsignedInt(extra.getShort());
+      if (fieldSize > extra.remaining()) {
+        break;
+      }
+      extra.position(extra.position() + fieldSize);
+      // Fields with a zero id and size are the zero bytes older versions of zipalign pad with.
+      if (id == ALIGNMENT_EXTRA_FIELD_ID || (id == 0 && fieldSize == 0)) {
+        continue;
+      }
+      ByteBuffer field = extra.duplicate();
+      field.position(fieldStart).limit(extra.position());
+      keptExtra.put(field);
+    }
+    keptExtra.flip();
+
+    long dataOffset =
+        outputOffset
+            + ZipEntry.LOCHDR
+            + nameLength
+            + keptExtra.remaining()
+            + ALIGNMENT_EXTRA_FIELD_MIN_SIZE;
+    int padding = (int) ((ALIGNMENT - dataOffset % ALIGNMENT) % ALIGNMENT);
+    int newExtraLength = keptExtra.remaining() + ALIGNMENT_EXTRA_FIELD_MIN_SIZE + padding;
+
+    ByteBuffer result =
+        ByteBuffer.allocate(ZipEntry.LOCHDR + nameLength + newExtraLength)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    ByteBuffer fixedHeader = header.duplicate();
+    fixedHeader.position(0).limit(ZipEntry.LOCHDR);
+    result.put(fixedHeader);
+    result.putShort(ZipEntry.LOCEXT, (short) newExtraLength);
+    ByteBuffer name = nameAndExtra.duplicate();
+    name.position(0).limit(nameLength);
+    result.put(name);
+    result.put(keptExtra);
+    result.putShort((short) ALIGNMENT_EXTRA_FIELD_ID);
+    result.putShort((short) (2 + padding));
+    result.putShort((short) ALIGNMENT);
+    result.put(new byte[padding]);
+    result.flip();
+    return result;
+  }
+
+  private static ByteBuffer readEndOfCentralDirectory(
+      Path zipPath, RandomAccessFile file, long fileSize) throws IOException {
+    if (fileSize < ZipEntry.ENDHDR) {
+      throw new IOException("Not a zip file: " + zipPath);
+    }
+    int tailSize = (int) Math.min(fileSize, ZipEntry.ENDHDR + MAX_COMMENT_SIZE);
+    ByteBuffer tail = read(file, fileSize - tailSize, tailSize);
+    for (int offset = tailSize - ZipEntry.ENDHDR; offset >= 0; offset--) {
+      if (tail.getInt(offset) == ZipEntry.ENDSIG
+          && offset + ZipEntry.ENDHDR + Short.toUnsignedInt(tail.getShort(offset + ZipEntry.ENDCOM))
+              == tailSize) {
+        ByteBuffer endRecord = tail.slice().order(ByteOrder.LITTLE_ENDIAN);
+        endRecord.position(offset);
+        return endRecord.slice().order(ByteOrder.LITTLE_ENDIAN);
+      }
+    }
+    throw new IOException("End of central directory not found in " + zipPath);
+  }
+
+  private static void addSegment(
+      List<DataSource> segments, RandomAccessFile file, long offset, long size) {
+    if (size > 0) {
+      segments.add(DataSources.asDataSource(file, offset, size));
+    }
+  }
+
+  private static ByteBuffer read(RandomAccessFile file, long position, int length)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (file.getChannel().read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of zip file");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public void feed(long offset, long size, DataSink sink) throws IOException {
+    checkRange(offset, size);
+    long remaining = size;
+    for (int i = findSegment(offset); remaining > 0; i++) {
+      long position = Math.max(0, offset - segmentOffsets[i]);
+      long chunk = Math.min(remaining, segments[i].size() - position);
+      segments[i].feed(position, chunk, sink);
+      remaining -= chunk;
+    }
+  }
+
+  @Override
+  public ByteBuffer getByteBuffer(long offset, int size) throws IOException {
+    checkRange(offset, size);
+    if (size > 0) {
+      int index = findSegment(offset);
+      long position = offset - segmentOffsets[index];
+      if (position + size <= segments[index].size()) {
+        return segments[index].getByteBuffer(position, size);
+      }
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    copyTo(offset, size, buffer);
+    buffer.flip();
+    return buffer;
+  }
+
+  @Override
+  public void copyTo(long offset, int size, ByteBuffer dest) throws IOException {
+    checkRange(offset, size);
+    long remaining = size;
+    for (int i = findSegment(offset); remaining > 0; i++) {
+      long position = Math.max(0, offset - segmentOffsets[i]);
+      int chunk = (int) Math.min(remaining, segments[i].size() - position);
+      segments[i].copyTo(position, chunk, dest);
+      remaining -= chunk;
+    }
+  }
+
+  @Override
+  public DataSource slice(long offset, long size) {
+    checkRange(offset, size);
+    return new Slice(this, offset, size);
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+  private int findSegment(long offset) {
+    int index = Arrays.binarySearch(segmentOffsets, offset);
+    return index >= 0 ? index : -index - 2;
+  }
+
+  private void checkRange(long offset, long size) {
+    if (offset < 0 || size < 0 || offset + size > this.size) {
+      throw new IndexOutOfBoundsException(
+          String.format("Range [%d, %d) out of bounds of %d", offset, offset + size, this.size));
+    }
+  }
+
+  /** An entry of the central directory and where it is laid out in the aligned view. */
+  private static class Entry {
+    private final int centralDirectoryRecordOffset;
+    private final int method;
+    private final long compressedSize;
+    private final long localHeaderOffset;
+    private long outputOffset;
+
+    private Entry(
+        int centralDirectoryRecordOffset, int method, long compressedSize, long localHeaderOffset) {
+      this.centralDirectoryRecordOffset = centralDirectoryRecordOffset;
+      this.method = method;
+      this.compressedSize = compressedSize;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+  }
+
+  /** A range of another data source. */
+  private static class Slice implements DataSource {
+    private final DataSource source;
+    private final long start;
+    private final long size;
+
+    private Slice(DataSource source, long start, long size) {
+      this.source = source;
+      this.start = start;
+      this.size = size;
+    }
+
+    @Override
+    public long size() {
+      return size;
+    }
+
+    @Override
+    public void feed(long offset, long size, DataSink sink) throws IOException {
+      checkRange(offset, size);
+      source.feed(start + offset, size, sink);
+    }
+
+    @Override
+    public ByteBuffer getByteBuffer(long offset, int size) throws IOException {
+      checkRange(offset, size);
+      return source.getByteBuffer(start + offset, size);
+    }
+
+    @Override
+    public void copyTo(long offset, int size, ByteBuffer dest) throws IOException {
+      checkRange(offset, size);
+      source.copyTo(start + offset, size, dest);
+    }
+
+    @Override
+    public DataSource slice(long offset, long size) {
+      checkRange(offset, size);
+      return new Slice(source, start + offset, size);
+    }
+
+    private void checkRange(long offset, long size) {
+      if (offset < 0 || size < 0 || offset + size > this.size) {
+        throw new IndexOutOfBoundsException(
+            String.format("Range [%d, %d) out of bounds of %d", offset, offset + size, this.size));
+      }
+    }
+  }
+}
@@ -22,6 +22,7 @@ import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.Interner;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
@@ -223,6 +224,20 @@ public class RDotTxtEntry implements Comparable<RDotTxtEntry> {
   }
 
   public static Optional<RDotTxtEntry> parse(String rDotTxtLine) {
+    return parse(rDotTxtLine, Function.identity());
+  }
+
+  /**
+   * Same as {@link #parse(String)}, but interns the name of the resource with {@code names}, so
+   * that entries parsed from the R.txt files of many libraries share the names they have in
+   * common.
+   */
+  public static Optional<RDotTxtEntry> parse(String rDotTxtLine, Interner<String> names) {
+    return parse(rDotTxtLine, (Function<String, String>) names::intern);
+  }
+
+  private static Optional<RDotTxtEntry> parse(
+      String rDotTxtLine, Function<String, String> nameInterner) {
     Matcher matcher = TEXT_SYMBOLS_LINE.matcher(rDotTxtLine);
     if (!matcher.matches()) {
       return Optional.empty();
@@ -231,7 +246,7 @@ public class RDotTxtEntry implements Comparable<RDotTxtEntry> {
     CustomDrawableType customType = CustomDrawableType.NONE;
     IdType idType = IdType.from(matcher.group(1));
     RType type = RType.valueOf(matcher.group(2).toUpperCase());
-    String name = matcher.group(3);
+    String name = nameInterner.apply(matcher.group(3));
     String idValue = matcher.group(4);
     String custom = matcher.group(5);
 
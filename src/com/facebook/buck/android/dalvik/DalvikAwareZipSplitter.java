@@ -34,10 +34,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -60,6 +58,9 @@ import javax.annotation.Nullable;
  *   <li>During the third pass, classes that were not matched during the earlier passes are added to
  *       zips as space allows. This is a simple, greedy algorithm.
  * </ul>
+ *
+ * <p>Entries are read into memory once before they are measured and written, so that a class is
+ * only inflated from its jar once per traversal.
  */
 public class DalvikAwareZipSplitter implements ZipSplitter {
   private static final Logger LOG = Logger.get(DalvikAwareZipSplitter.class);
@@ -174,7 +175,7 @@ public class DalvikAwareZipSplitter implements ZipSplitter {
     secondaryDexWriter.reset();
 
     ImmutableMap.Builder<String, FileLike> entriesBuilder = ImmutableMap.builder();
-    List<String> additionalDexStoreEntries = new ArrayList<>();
+    Set<String> additionalDexStoreEntries = new HashSet<>();
 
     // Iterate over all of the inFiles and add all entries that match the requiredInPrimaryZip
     // predicate.
@@ -197,7 +198,7 @@ public class DalvikAwareZipSplitter implements ZipSplitter {
             Objects.requireNonNull(classPathToDexStore);
 
             if (requiredInPrimaryZip.test(relativePath)) {
-              primaryOut.putEntry(entry);
+              primaryOut.putEntry(new BufferedFileLike(entry));
             } else if (wantedInPrimaryZip.contains(relativePath)
                 || (secondaryHeadSet != null && secondaryHeadSet.contains(relativePath))) {
               entriesBuilder.put(relativePath, new BufferedFileLike(entry));
@@ -217,7 +218,8 @@ public class DalvikAwareZipSplitter implements ZipSplitter {
                 if (!dexStore.equals(rootModule)) {
                   MySecondaryDexHelper dexHelper = additionalDexWriters.get(dexStore);
                   Objects.requireNonNull(dexHelper);
-                  dexHelper.getOutputToWriteTo(entry).putEntry(entry);
+                  FileLike bufferedEntry = new BufferedFileLike(entry);
+                  dexHelper.getOutputToWriteTo(bufferedEntry).putEntry(bufferedEntry);
                   additionalDexStoreEntries.add(relativePath);
                 }
               }
@@ -250,17 +252,18 @@ public class DalvikAwareZipSplitter implements ZipSplitter {
     classpathTraverser.traverse(
         new ClasspathTraversal(inFiles, filesystem) {
           @Override
-          public void visit(FileLike entry) throws IOException {
+          public void visit(FileLike originalEntry) throws IOException {
             Objects.requireNonNull(primaryOut);
-            String relativePath = entry.getRelativePath();
+            String relativePath = originalEntry.getRelativePath();
 
             // skip if it is the primary dex, is part of a modular dex store, or is not a class file
-            if (primaryOut.containsEntry(entry)
+            if (primaryOut.containsEntry(originalEntry)
                 || additionalDexStoreEntries.contains(relativePath)) {
               return;
             }
 
-            LOG.verbose("Visiting " + entry.getRelativePath());
+            LOG.verbose("Visiting " + relativePath);
+            FileLike entry = new BufferedFileLike(originalEntry);
 
             // Even if we have started writing a secondary dex, we still check if there is any
             // leftover
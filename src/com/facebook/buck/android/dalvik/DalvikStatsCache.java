@@ -17,14 +17,42 @@
 package com.facebook.buck.android.dalvik;
 
 import com.facebook.buck.jvm.java.classes.FileLike;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.MapMaker;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 
-/** Cache to memoize results from DalvikStatsTool. */
+/**
+ * Cache to memoize results from DalvikStatsTool.
+ *
+ * <p>Results are memoized per entry for the lifetime of the cache, and per class file content for
+ * the lifetime of the process, so that splitting an app again in the same daemon only analyzes
+ * the classes that changed. The process-wide cache is bounded by the number of member references
+ * it holds, since they make up most of its memory. It is an in-memory memo only: nothing is
+ * persisted, so a new daemon analyzes every class again.
+ *
+ * <p>Every {@link DalvikAwareZipSplitter}, and so every {@code SplitZipStep}, shares the memo.
+ * {@link EstimateDexWeightStep} does not use it, as it estimates by class file size without
+ * analyzing classes.
+ */
 class DalvikStatsCache {
 
+  private static final long MAX_CACHED_REFERENCES = 2_000_000;
+
+  private static final Cache<HashCode, DalvikStatsTool.Stats> STATS_BY_CONTENT =
+      CacheBuilder.newBuilder()
+          .maximumWeight(MAX_CACHED_REFERENCES)
+          .<HashCode, DalvikStatsTool.Stats>weigher(
+              (hash, stats) -> 1 + stats.methodReferences.size() + stats.fieldReferences.size())
+          .build();
+
   private final ConcurrentMap<FileLike, DalvikStatsTool.Stats> cache;
 
   DalvikStatsCache() {
@@ -45,10 +73,14 @@ class DalvikStatsCache {
     }
 
     try (InputStream is = entry.getInput()) {
-      stats = DalvikStatsTool.getEstimate(is);
+      byte[] classBytes = ByteStreams.toByteArray(is);
+      stats =
+          STATS_BY_CONTENT.get(
+              Hashing.murmur3_128().hashBytes(classBytes),
+              () -> DalvikStatsTool.getEstimate(new ByteArrayInputStream(classBytes)));
       cache.put(entry, stats);
       return stats;
-    } catch (IOException e) {
+    } catch (IOException | ExecutionException e) {
       throw new RuntimeException(String.format("Error calculating size for %s.", name), e);
     } catch (RuntimeException e) {
       throw new RuntimeException(String.format("Error calculating size for %s.", name), e);
@@ -18,7 +18,10 @@ package com.facebook.buck.android.dalvik.firstorder;
 
 import com.google.common.collect.ImmutableSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.ClassNode;
 
@@ -44,11 +47,13 @@ public class FirstOrderHelper {
   }
 
   private void addDependencies(Iterable<ClassNode> allClasses) {
-    for (ClassNode classNode : allClasses) {
-      FirstOrderVisitorContext context = new FirstOrderVisitorContext();
-      classNode.accept(context.classVisitor);
-
-      FirstOrderTypeInfo info = context.builder.build();
+    // Classes are visited concurrently, but their infos are collected in order so that the last of
+    // several classes with the same name wins, as it would when visiting them one by one.
+    List<FirstOrderTypeInfo> infos =
+        StreamSupport.stream(allClasses.spliterator(), /* parallel */ true)
+            .map(FirstOrderHelper::getTypeInfo)
+            .collect(Collectors.toList());
+    for (FirstOrderTypeInfo info : infos) {
       knownTypes.put(info.type, info);
     }
 
@@ -64,6 +69,12 @@ public class FirstOrderHelper {
     }
   }
 
+  private static FirstOrderTypeInfo getTypeInfo(ClassNode classNode) {
+    FirstOrderVisitorContext context = new FirstOrderVisitorContext();
+    classNode.accept(context.classVisitor);
+    return context.builder.build();
+  }
+
   private void addFirstOrderTypes(Type type) {
     addTypeAndSupers(type);
 
@@ -59,6 +59,7 @@ public class ExopackageInstaller {
   public static final String SECONDARY_DEX_TYPE = "secondary_dex";
   public static final String NATIVE_LIBRARY_TYPE = "native_library";
   public static final String RESOURCES_TYPE = "resources";
+  public static final String MODULAR_DEX_TYPE = "modular_dex";
 
   private final ProjectFilesystem projectFilesystem;
   private final BuckEventBus eventBus;
@@ -208,7 +209,7 @@ public class ExopackageInstaller {
     if (exoInfo.getModuleInfo().isPresent()) {
       ModuleExoHelper moduleExoHelper =
           new ModuleExoHelper(pathResolver, projectFilesystem, exoInfo.getModuleInfo().get());
-      installMissingFiles(presentFiles, moduleExoHelper.getFilesToInstall(), "modular_dex");
+      installMissingFiles(presentFiles, moduleExoHelper.getFilesToInstall(), MODULAR_DEX_TYPE);
     }
   }
 
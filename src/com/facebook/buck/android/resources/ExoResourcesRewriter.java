@@ -29,6 +29,7 @@ import com.google.common.io.ByteStreams;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -324,8 +325,18 @@ public class ExoResourcesRewriter {
     }
 
     private byte[] extractContent(String path) {
-      try {
-        return ByteStreams.toByteArray(zipFile.getInputStream(entries.get(path)));
+      ZipEntry entry = entries.get(path);
+      try (InputStream input = zipFile.getInputStream(entry)) {
+        // The size is known for the entries of an apk, so they are read straight into an array of
+        // the right size rather than through a growing buffer. For the resource table, which is
+        // the largest entry and is stored uncompressed, this avoids copying it more than once.
+        long size = entry.getSize();
+        if (size < 0 || size > Integer.MAX_VALUE) {
+          return ByteStreams.toByteArray(input);
+        }
+        byte[] content = new byte[(int) size];
+        ByteStreams.readFully(input, content);
+        return content;
       } catch (IOException e) {
         throw new RuntimeException(e);
       }
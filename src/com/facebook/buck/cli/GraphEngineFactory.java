@@ -23,11 +23,14 @@ import com.facebook.buck.core.cell.name.CanonicalCellName;
 import com.facebook.buck.core.exceptions.DependencyStack;
 import com.facebook.buck.core.files.DirectoryListComputation;
 import com.facebook.buck.core.files.FileTreeComputation;
+import com.facebook.buck.core.graph.transformation.GraphEngineCache;
 import com.facebook.buck.core.graph.transformation.GraphTransformationEngine;
 import com.facebook.buck.core.graph.transformation.composition.ComposedComputation;
 import com.facebook.buck.core.graph.transformation.composition.Composition;
 import com.facebook.buck.core.graph.transformation.impl.DefaultGraphTransformationEngine;
+import com.facebook.buck.core.graph.transformation.impl.DirectoryPersistentCacheStorage;
 import com.facebook.buck.core.graph.transformation.impl.GraphComputationStage;
+import com.facebook.buck.core.graph.transformation.impl.PersistentGraphEngineCache;
 import com.facebook.buck.core.graph.transformation.model.ComputeKey;
 import com.facebook.buck.core.model.BuildTarget;
 import com.facebook.buck.core.model.UnconfiguredTargetConfiguration;
@@ -44,6 +47,7 @@ import com.facebook.buck.core.select.SelectorList;
 import com.facebook.buck.core.select.SelectorListResolver;
 import com.facebook.buck.core.select.impl.SelectorFactory;
 import com.facebook.buck.core.select.impl.SelectorListFactory;
+import com.facebook.buck.io.filesystem.ProjectFilesystem;
 import com.facebook.buck.parser.BuiltTargetVerifier;
 import com.facebook.buck.parser.DefaultProjectBuildFileParserFactory;
 import com.facebook.buck.parser.DefaultUnconfiguredTargetNodeFactory;
@@ -51,9 +55,12 @@ import com.facebook.buck.parser.NoopPackageBoundaryChecker;
 import com.facebook.buck.parser.ParserPythonInterpreterProvider;
 import com.facebook.buck.parser.ProjectBuildFileParserFactory;
 import com.facebook.buck.parser.UnconfiguredTargetNodeToTargetNodeFactory;
+import com.facebook.buck.parser.api.BuildFileManifest;
 import com.facebook.buck.parser.api.ProjectBuildFileParser;
 import com.facebook.buck.parser.config.ParserConfig;
+import com.facebook.buck.parser.manifest.BuildFileManifestCacheCodec;
 import com.facebook.buck.parser.manifest.BuildPackagePathToBuildFileManifestComputation;
+import com.facebook.buck.parser.manifest.BuildPackagePathToBuildFileManifestKey;
 import com.facebook.buck.parser.targetnode.BuildPackagePathToUnconfiguredTargetNodePackageComputation;
 import com.facebook.buck.parser.targetnode.BuildPackagePathToUnconfiguredTargetNodePackageKey;
 import com.facebook.buck.parser.targetnode.BuildTargetToUnconfiguredTargetNodeComputation;
@@ -61,6 +68,7 @@ import com.facebook.buck.parser.targetnode.UnconfiguredTargetNodeToUnconfiguredT
 import com.facebook.buck.rules.coercer.DefaultConstructorArgMarshaller;
 import com.facebook.buck.rules.coercer.DefaultTypeCoercerFactory;
 import com.facebook.buck.rules.coercer.concat.Concatable;
+import com.facebook.buck.rules.keys.config.impl.BuckVersion;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Closer;
@@ -219,6 +227,31 @@ public class GraphEngineFactory {
                         .map(path -> BuildPackagePathToUnconfiguredTargetNodePackageKey.of(path))
                         .collect(ImmutableSet.toImmutableSet()));
 
+    // CACHE: build file manifests are optionally backed by a persistent tier, so they can be
+    // reused by the next daemon if files they were computed from did not change
+    GraphEngineCache<BuildPackagePathToBuildFileManifestKey, BuildFileManifest> manifestCache =
+        params.getGlobalState().getBuildFileManifestCaches().getUnchecked(cell.getRoot().getPath());
+    if (parserConfig.getEnablePersistentGraphEngineCache()
+        && parserConfig.getEnforceBuckPackageBoundary()) {
+      ProjectFilesystem rootFilesystem = cells.getRootCell().getFilesystem();
+      manifestCache =
+          PersistentGraphEngineCache.of(
+              manifestCache,
+              BuildFileManifestCacheCodec.of(
+                  cells.getSuperRootPath().getPath(),
+                  cell.getRoot().getPath(),
+                  cell.getFilesystem().getPath(parserConfig.getBuildFileName()),
+                  cell.getFilesystemViewForSourceFiles(),
+                  params.getFileHashCache(),
+                  buildFileParser,
+                  cell.getBuckConfig().getConfig().getOrderIndependentHashCode(),
+                  BuckVersion.getVersion(),
+                  cell.getBuckConfig().getEnvironment()),
+              DirectoryPersistentCacheStorage.of(
+                  rootFilesystem.resolve(
+                      rootFilesystem.getBuckPaths().getBuckOut().resolve("graph_engine_cache"))));
+    }
+
     // ENGINE: bind computations to caches and feed them to Graph Engine
 
     // TODO: pass caches from global state
@@ -239,12 +272,7 @@ public class GraphEngineFactory {
                         .getFileTreeCaches()
                         .getUnchecked(cell.getRoot().getPath())),
                 patternToPathComputation.asStage(),
-                new GraphComputationStage<>(
-                    packagePathToManifestComputation,
-                    params
-                        .getGlobalState()
-                        .getBuildFileManifestCaches()
-                        .getUnchecked(cell.getRoot().getPath())),
+                new GraphComputationStage<>(packagePathToManifestComputation, manifestCache),
                 new GraphComputationStage<>(buildTargetToUnconfiguredTargetNodeComputation),
                 new GraphComputationStage<>(
                     unconfiguredTargetNodeToUnconfiguredTargetNodeWithDepsComputation),
@@ -88,6 +88,7 @@ import com.facebook.buck.event.listener.ChromeTraceBuildListener;
 import com.facebook.buck.event.listener.CriticalPathEventListener;
 import com.facebook.buck.event.listener.FileSerializationEventBusListener;
 import com.facebook.buck.event.listener.JavaUtilsLoggingBuildListener;
+import com.facebook.buck.event.listener.JavacProfilerLoggerListener;
 import com.facebook.buck.event.listener.LoadBalancerEventsListener;
 import com.facebook.buck.event.listener.LogUploaderListener;
 import com.facebook.buck.event.listener.LoggingBuildListener;
@@ -1283,6 +1284,8 @@ public final class MainRunner {
                   remoteExecutionListener.isPresent()
                       ? Optional.of(remoteExecutionListener.get())
                       : Optional.empty(),
+                  command.subcommand instanceof AbstractCommand
+                      && ((AbstractCommand) command.subcommand).getEnableParserProfiling(),
                   managerScope);
           consoleListener.register(buildEventBus);
           fileLoggerConsoleListener.register(buildEventBus);
@@ -1435,7 +1438,8 @@ public final class MainRunner {
             if (eventsOutputPath.isPresent()) {
               BuckEventListener listener =
                   new FileSerializationEventBusListener(eventsOutputPath.get());
-              buildEventBus.register(listener);
+              // serializes and writes every event, so keep it from delaying other listeners
+              buildEventBus.registerWithDedicatedThread(listener);
             }
           }
 
@@ -2200,6 +2204,7 @@ public final class MainRunner {
       CounterRegistry counterRegistry,
       Iterable<BuckEventListener> commandSpecificEventListeners,
       Optional<RemoteExecutionStatsProvider> reStatsProvider,
+      boolean parserProfilingEnabled,
       TaskManagerCommandScope managerScope)
       throws IOException {
     ImmutableList.Builder<BuckEventListener> eventListenersBuilder =
@@ -2317,7 +2322,10 @@ public final class MainRunner {
       }
     }
 
-    eventListenersBuilder.add(new ParserProfilerLoggerListener(invocationInfo, projectFilesystem));
+    eventListenersBuilder.add(
+        new ParserProfilerLoggerListener(
+            invocationInfo, projectFilesystem, parserProfilingEnabled));
+    eventListenersBuilder.add(new JavacProfilerLoggerListener(invocationInfo, projectFilesystem));
 
     eventListenersBuilder.add(new LoadBalancerEventsListener(counterRegistry));
     eventListenersBuilder.add(new CacheRateStatsListener(buckEventBus));
@@ -2325,7 +2333,15 @@ public final class MainRunner {
     eventListenersBuilder.addAll(commandSpecificEventListeners);
 
     ImmutableList<BuckEventListener> eventListeners = eventListenersBuilder.build();
-    eventListeners.forEach(buckEventBus::register);
+    for (BuckEventListener listener : eventListeners) {
+      // machine readable log subscribes to most events and does not depend on other listeners, so
+      // it is delivered events on its own thread to keep it from delaying other listeners
+      if (listener instanceof MachineReadableLoggerListener) {
+        buckEventBus.registerWithDedicatedThread(listener);
+      } else {
+        buckEventBus.register(listener);
+      }
+    }
 
     return eventListeners;
   }
@@ -2470,16 +2486,19 @@ public final class MainRunner {
     }
     eventBus.post(
         new ExperimentEvent("depsaware_executor", resolvedExecutorType.toString(), "", null, null));
+    int parallelism = config.getView(ResourcesConfig.class).getMaximumResourceAmounts().getCpu();
     return getDepsAwareExecutorSupplier(
         resolvedExecutorType,
-        config.getView(ResourcesConfig.class).getMaximumResourceAmounts().getCpu());
+        parallelism,
+        config.getView(DepsAwareExecutorConfig.class).getIoParallelism().orElse(parallelism));
   }
 
   static CloseableMemoizedSupplier<DepsAwareExecutor<? super ComputeResult, ?>>
-      getDepsAwareExecutorSupplier(DepsAwareExecutorType executorType, int parallelism) {
+      getDepsAwareExecutorSupplier(
+          DepsAwareExecutorType executorType, int parallelism, int ioParallelism) {
     return CloseableMemoizedSupplier.of(
         (Supplier<DepsAwareExecutor<? super ComputeResult, ?>>)
-            () -> DepsAwareExecutorFactory.create(executorType, parallelism),
+            () -> DepsAwareExecutorFactory.create(executorType, parallelism, ioParallelism),
         DepsAwareExecutor::close);
   }
 
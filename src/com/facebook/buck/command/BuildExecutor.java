@@ -94,7 +94,10 @@ public class BuildExecutor {
             args.getArtifactCacheFactory().newInstance(),
             args.getBuckConfig().getView(JavaBuckConfig.class).createDefaultJavaPackageFinder(),
             args.getClock(),
-            executionContext,
+            ExecutionContext.builder()
+                .from(executionContext)
+                .setFileHashLoader(cachingBuildEngineDelegate.getFileHashCache())
+                .build(),
             keepGoing);
   }
 
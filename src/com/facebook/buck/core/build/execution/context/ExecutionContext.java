@@ -38,6 +38,7 @@ import com.facebook.buck.util.concurrent.ExecutorPool;
 import com.facebook.buck.util.concurrent.ResourceAllocationFairness;
 import com.facebook.buck.util.concurrent.ResourceAmountsEstimator;
 import com.facebook.buck.util.environment.Platform;
+import com.facebook.buck.util.hashing.FileHashLoader;
 import com.facebook.buck.worker.WorkerProcessPool;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Closer;
@@ -88,6 +89,12 @@ public abstract class ExecutionContext implements Closeable {
 
   public abstract ProjectFilesystemFactory getProjectFilesystemFactory();
 
+  /**
+   * Hashes of files kept by the build engine, so steps can tell whether their inputs changed
+   * without hashing them again. Only present while building.
+   */
+  public abstract Optional<FileHashLoader> getFileHashLoader();
+
   @Value.Default
   public long getDefaultTestTimeoutMillis() {
     return 0L;
@@ -18,6 +18,9 @@ package com.facebook.buck.core.files;
 
 import com.facebook.buck.core.graph.transformation.ComputationEnvironment;
 import com.facebook.buck.core.graph.transformation.GraphComputation;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint.Lane;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint.Priority;
 import com.facebook.buck.core.graph.transformation.model.ComputationIdentifier;
 import com.facebook.buck.core.graph.transformation.model.ComputeKey;
 import com.facebook.buck.core.graph.transformation.model.ComputeResult;
@@ -95,4 +98,10 @@ public class DirectoryListComputation implements GraphComputation<DirectoryListK
       DirectoryListKey key) {
     return ImmutableSet.of();
   }
+
+  @Override
+  public TaskSchedulingHint getSchedulingHint() {
+    // Lists directories on the file system, so it is I/O bound.
+    return TaskSchedulingHint.of(Lane.IO, Priority.NORMAL);
+  }
 }
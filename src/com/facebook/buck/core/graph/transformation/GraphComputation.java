@@ -16,6 +16,7 @@
 
 package com.facebook.buck.core.graph.transformation;
 
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint;
 import com.facebook.buck.core.graph.transformation.model.ComputationIdentifier;
 import com.facebook.buck.core.graph.transformation.model.ComputeKey;
 import com.facebook.buck.core.graph.transformation.model.ComputeResult;
@@ -86,4 +87,12 @@ public interface GraphComputation<Key extends ComputeKey<Result>, Result extends
    */
   ImmutableSet<? extends ComputeKey<? extends ComputeResult>> discoverPreliminaryDeps(Key key)
       throws Exception;
+
+  /**
+   * @return how executors should schedule computations of this transformation. Transformations that
+   *     spend most of their time blocked on I/O should use {@link TaskSchedulingHint.Lane#IO}.
+   */
+  default TaskSchedulingHint getSchedulingHint() {
+    return TaskSchedulingHint.DEFAULT;
+  }
 }
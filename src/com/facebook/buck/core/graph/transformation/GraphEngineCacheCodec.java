@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.core.graph.transformation;
+
+import com.facebook.buck.core.graph.transformation.model.ComputeKey;
+import com.facebook.buck.core.graph.transformation.model.ComputeResult;
+import com.google.common.hash.HashCode;
+import java.io.IOException;
+
+/**
+ * Describes how results of a computation are written to and read from a {@link
+ * PersistentCacheStorage}, and how to tell if a stored result is still valid.
+ *
+ * <p>Validation is content based: {@link #fingerprintInputs(ComputeKey, ComputeResult)} is computed
+ * when a result is stored and again when it is loaded, and the stored result is only reused if both
+ * fingerprints match. This makes stored results safe to reuse after daemon restarts, when file
+ * system change notifications that happened in between are not available. Inputs that are too
+ * expensive to fingerprint on every store can be checked by {@link
+ * #inputsMatchCurrentState(ComputeKey, ComputeResult)} instead, which only runs on load.
+ *
+ * @param <Key> Key of the computation
+ * @param <Value> Result of the computation
+ */
+public interface GraphEngineCacheCodec<Key extends ComputeKey<Value>, Value extends ComputeResult> {
+
+  /**
+   * @return hash identifying the key in {@link PersistentCacheStorage}. It should be stable between
+   *     runs and should include everything that can change the result of the computation that is
+   *     not covered by {@link #fingerprintInputs(ComputeKey, ComputeResult)}, like configuration.
+   */
+  HashCode hashKey(Key key);
+
+  /** Serializes a result to bytes */
+  byte[] serialize(Value value) throws IOException;
+
+  /** Deserializes a result from bytes produced by {@link #serialize(ComputeResult)} */
+  Value deserialize(byte[] data) throws IOException;
+
+  /**
+   * @return fingerprint of the current state of the inputs the result was computed from, usually
+   *     contents of files the computation has read
+   */
+  HashCode fingerprintInputs(Key key, Value value) throws IOException;
+
+  /**
+   * Checks inputs of a loaded result that are not covered by {@link #fingerprintInputs(ComputeKey,
+   * ComputeResult)}. Only called after the fingerprints matched.
+   *
+   * @return {@code true} if the result can be reused
+   */
+  @SuppressWarnings("unused")
+  default boolean inputsMatchCurrentState(Key key, Value value)
+      throws IOException, InterruptedException {
+    return true;
+  }
+}
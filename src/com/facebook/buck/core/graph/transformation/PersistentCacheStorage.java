@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.core.graph.transformation;
+
+import com.google.common.hash.HashCode;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Storage for serialized computation results that outlives the daemon, used by persistent {@link
+ * GraphEngineCache} tiers.
+ *
+ * <p>Storage only deals with opaque bytes addressed by a key hash, so implementations can be backed
+ * by a local directory or by a store that is shared between machines. Implementations should be
+ * thread safe.
+ */
+public interface PersistentCacheStorage {
+
+  /** @return bytes previously stored for the given key, or an empty Optional if there are none */
+  Optional<byte[]> load(HashCode key) throws IOException;
+
+  /** Stores bytes for the given key, replacing anything previously stored for it */
+  void store(HashCode key, byte[] data) throws IOException;
+}
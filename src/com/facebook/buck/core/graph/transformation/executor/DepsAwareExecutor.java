@@ -18,6 +18,7 @@ package com.facebook.buck.core.graph.transformation.executor;
 
 import com.facebook.buck.util.function.ThrowingSupplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import java.util.Collection;
 import java.util.concurrent.Callable;
@@ -58,6 +59,20 @@ public interface DepsAwareExecutor<ResultType, TaskType extends DepsAwareTask<Re
       ThrowingSupplier<ImmutableSet<TaskType>, Exception> prereqSupplier,
       ThrowingSupplier<ImmutableSet<TaskType>, Exception> depsSupplier);
 
+  /**
+   * @return a new {@link DepsAwareTask} with two stages of dependency computation that is scheduled
+   *     according to {@code schedulingHint}. {@code category} groups tasks of the same kind in
+   *     {@link #getQueueTimeStats()}.
+   */
+  default TaskType createThrowingTask(
+      Callable<ResultType> callable,
+      ThrowingSupplier<ImmutableSet<TaskType>, Exception> prereqSupplier,
+      ThrowingSupplier<ImmutableSet<TaskType>, Exception> depsSupplier,
+      @SuppressWarnings("unused") String category,
+      @SuppressWarnings("unused") TaskSchedulingHint schedulingHint) {
+    return createThrowingTask(callable, prereqSupplier, depsSupplier);
+  }
+
   /** @return a new {@link DepsAwareTask} that can be executed in this executor */
   TaskType createTask(Callable<ResultType> callable);
 
@@ -69,4 +84,12 @@ public interface DepsAwareExecutor<ResultType, TaskType extends DepsAwareTask<Re
 
   /** Same as {@link #submit(DepsAwareTask)} except for multiple tasks. */
   ImmutableList<Future<ResultType>> submitAll(Collection<TaskType> tasks);
+
+  /**
+   * @return time tasks spent waiting to be started, by task category. Empty if the executor does
+   *     not collect it.
+   */
+  default ImmutableMap<String, TaskQueueTimeStats> getQueueTimeStats() {
+    return ImmutableMap.of();
+  }
 }
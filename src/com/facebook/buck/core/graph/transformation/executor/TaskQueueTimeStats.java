@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.core.graph.transformation.executor;
+
+import com.facebook.buck.core.util.immutables.BuckStyleValue;
+
+/**
+ * Time spent by tasks of a single category waiting in the queue of a {@link DepsAwareExecutor}
+ * before being started.
+ */
+@BuckStyleValue
+public abstract class TaskQueueTimeStats {
+
+  /** @return the number of times tasks were taken off the queue */
+  public abstract long getCount();
+
+  /** @return the total time tasks spent in the queue */
+  public abstract long getTotalNanos();
+
+  /** @return the longest time a task spent in the queue */
+  public abstract long getMaxNanos();
+
+  public static TaskQueueTimeStats of(long count, long totalNanos, long maxNanos) {
+    return ImmutableTaskQueueTimeStats.of(count, totalNanos, maxNanos);
+  }
+}
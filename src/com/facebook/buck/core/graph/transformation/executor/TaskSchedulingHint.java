@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.core.graph.transformation.executor;
+
+import com.facebook.buck.core.util.immutables.BuckStyleValue;
+
+/**
+ * Describes how a {@link DepsAwareTask} should be scheduled by {@link DepsAwareExecutor}s that
+ * support prioritization. Executors without such support ignore the hint.
+ */
+@BuckStyleValue
+public abstract class TaskSchedulingHint {
+
+  /** Hint for regular CPU bound work. */
+  public static final TaskSchedulingHint DEFAULT = of(Lane.CPU, Priority.NORMAL);
+
+  /** @return the lane that tasks should be executed in */
+  public abstract Lane getLane();
+
+  /** @return the priority of tasks relative to other tasks in the same lane */
+  public abstract Priority getPriority();
+
+  public static TaskSchedulingHint of(Lane lane, Priority priority) {
+    return ImmutableTaskSchedulingHint.of(lane, priority);
+  }
+
+  /** The kind of resources a task mostly spends its time on. */
+  public enum Lane {
+    /** Tasks that are bound by CPU. */
+    CPU,
+    /**
+     * Tasks that spend most of their time blocked on I/O, like reading the file system or waiting
+     * for external processes. These are executed by a separate, bounded set of threads, so they
+     * cannot starve CPU bound tasks.
+     */
+    IO,
+  }
+
+  /** Priority of a task in its lane. Tasks with higher priorities are started first. */
+  public enum Priority {
+    HIGH,
+    NORMAL,
+    LOW,
+  }
+}
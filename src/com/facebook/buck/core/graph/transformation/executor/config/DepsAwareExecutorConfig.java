@@ -21,6 +21,7 @@ import com.facebook.buck.core.config.ConfigView;
 import com.facebook.buck.core.graph.transformation.executor.factory.DepsAwareExecutorType;
 import com.facebook.buck.core.util.immutables.BuckStyleValue;
 import java.util.Map;
+import java.util.OptionalInt;
 
 /**
  * Configuration for {@link com.facebook.buck.core.graph.transformation.executor.DepsAwareExecutor}s
@@ -41,4 +42,12 @@ public abstract class DepsAwareExecutorConfig implements ConfigView<BuckConfig>
   public Map<DepsAwareExecutorType, Double> getExecutorType() {
     return getDelegate().getExperimentGroups(SECTION, "type", DepsAwareExecutorType.class);
   }
+
+  /**
+   * @return the number of threads used for I/O bound tasks by executors that run them separately
+   *     from CPU bound tasks, if configured.
+   */
+  public OptionalInt getIoParallelism() {
+    return getDelegate().getInteger(SECTION, "io_parallelism");
+  }
 }
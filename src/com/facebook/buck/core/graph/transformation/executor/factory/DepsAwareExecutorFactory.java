@@ -20,6 +20,7 @@ import com.facebook.buck.core.graph.transformation.executor.DepsAwareExecutor;
 import com.facebook.buck.core.graph.transformation.executor.impl.DefaultDepsAwareExecutor;
 import com.facebook.buck.core.graph.transformation.executor.impl.DefaultDepsAwareExecutorWithLocalStack;
 import com.facebook.buck.core.graph.transformation.executor.impl.JavaExecutorBackedDefaultDepsAwareExecutor;
+import com.facebook.buck.core.graph.transformation.executor.impl.PrioritizedDepsAwareExecutor;
 import com.facebook.buck.core.graph.transformation.executor.impl.ToposortBasedDepsAwareExecutor;
 
 /**
@@ -41,6 +42,21 @@ public class DepsAwareExecutorFactory {
    *     based on {@link DepsAwareExecutorType}
    */
   public static <U> DepsAwareExecutor<U, ?> create(DepsAwareExecutorType type, int parallelism) {
+    return create(type, parallelism, parallelism);
+  }
+
+  /**
+   * @param type the {@link DepsAwareExecutorType} used to indicate which specific implementation of
+   *     {@link DepsAwareExecutor} to return
+   * @param parallelism the number of threads in parallel
+   * @param ioParallelism the number of threads in parallel for I/O bound tasks, for
+   *     implementations that execute them separately
+   * @param <U> the type supported by the {@link DepsAwareExecutor}
+   * @return a {@link DepsAwareExecutor} of the given parallelism with the specific implementation
+   *     based on {@link DepsAwareExecutorType}
+   */
+  public static <U> DepsAwareExecutor<U, ?> create(
+      DepsAwareExecutorType type, int parallelism, int ioParallelism) {
     switch (type) {
       case DEFAULT:
         return DefaultDepsAwareExecutor.of(parallelism);
@@ -50,6 +66,8 @@ public class DepsAwareExecutorFactory {
         return JavaExecutorBackedDefaultDepsAwareExecutor.of(parallelism);
       case TOPOSORT_BASED:
         return ToposortBasedDepsAwareExecutor.of(parallelism);
+      case PRIORITIZED:
+        return PrioritizedDepsAwareExecutor.of(parallelism, ioParallelism);
       default:
         throw new IllegalArgumentException(
             String.format("Unknown DepsAwareExecutorType: %s", type));
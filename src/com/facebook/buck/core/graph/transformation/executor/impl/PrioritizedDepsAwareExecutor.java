@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.core.graph.transformation.executor.impl;
+
+import com.facebook.buck.core.graph.transformation.executor.DepsAwareExecutor;
+import com.facebook.buck.core.graph.transformation.executor.DepsAwareTask;
+import com.facebook.buck.core.graph.transformation.executor.DepsAwareTask.DepsSupplier;
+import com.facebook.buck.core.graph.transformation.executor.TaskQueueTimeStats;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint.Lane;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint.Priority;
+import com.facebook.buck.core.graph.transformation.executor.impl.AbstractDepsAwareTask.TaskStatus;
+import com.facebook.buck.core.util.log.Logger;
+import com.facebook.buck.util.function.ThrowingSupplier;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Verify;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A specialized Executor that executes {@link DepsAwareTask}. This executor will attempt to
+ * maintain maximum concurrency, while completing dependencies of each supplied work first.
+ *
+ * <p>Unlike the other implementations, tasks are executed according to their {@link
+ * TaskSchedulingHint}. Tasks in the {@link Lane#IO} lane are executed by a separate set of threads,
+ * so that tasks blocked on I/O cannot starve CPU bound tasks and vice versa. Within a lane, tasks
+ * with higher {@link Priority} are started first. Dependencies inherit the priority of the task
+ * waiting on them if it is higher than their own, and are started ahead of other tasks of the same
+ * priority.
+ *
+ * <p>Tasks whose dependencies are not complete yet do not occupy a thread or get requeued
+ * repeatedly. Instead they are resubmitted once all of their pending dependencies complete.
+ *
+ * <p>The executor also keeps track of the time tasks spend waiting in the queue per task category,
+ * which is available from {@link #getQueueTimeStats()}.
+ */
+public class PrioritizedDepsAwareExecutor<T>
+    implements DepsAwareExecutor<T, PrioritizedDepsAwareTask<T>> {
+
+  private static final Logger LOG = Logger.get(PrioritizedDepsAwareExecutor.class);
+
+  private static final String DEFAULT_CATEGORY = "default";
+
+  private final ThreadPoolExecutor cpuExecutor;
+  private final ThreadPoolExecutor ioExecutor;
+  // dependencies are placed in front of the other tasks with the same priority, similar to the
+  // LIFO scheduling of dependencies in DefaultDepsAwareExecutor
+  private final AtomicLong firstSequence = new AtomicLong();
+  private final AtomicLong lastSequence = new AtomicLong();
+  private final Map<String, QueueTimeAccumulator> queueTimes = new ConcurrentHashMap<>();
+
+  private volatile boolean isShutdown = false;
+
+  private PrioritizedDepsAwareExecutor(
+      ThreadPoolExecutor cpuExecutor, ThreadPoolExecutor ioExecutor) {
+    this.cpuExecutor = cpuExecutor;
+    this.ioExecutor = ioExecutor;
+  }
+
+  /**
+   * Creates a {@link PrioritizedDepsAwareExecutor} with {@code cpuParallelism} threads for CPU
+   * bound tasks and {@code ioParallelism} threads for I/O bound tasks.
+   */
+  public static <U> PrioritizedDepsAwareExecutor<U> of(int cpuParallelism, int ioParallelism) {
+    Preconditions.checkArgument(cpuParallelism > 0, "CPU parallelism must be positive");
+    Preconditions.checkArgument(ioParallelism > 0, "I/O parallelism must be positive");
+    return new PrioritizedDepsAwareExecutor<>(
+        newPrioritizedThreadPool(cpuParallelism), newPrioritizedThreadPool(ioParallelism));
+  }
+
+  /**
+   * Creates a {@link PrioritizedDepsAwareExecutor} with {@code numberOfThreads} threads for CPU
+   * bound tasks and the same number of threads for I/O bound tasks.
+   */
+  public static <U> PrioritizedDepsAwareExecutor<U> of(int numberOfThreads) {
+    return of(numberOfThreads, numberOfThreads);
+  }
+
+  private static ThreadPoolExecutor newPrioritizedThreadPool(int numberOfThreads) {
+    return new ThreadPoolExecutor(
+        numberOfThreads,
+        numberOfThreads,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new PriorityBlockingQueue<>());
+  }
+
+  @Override
+  public void close() {
+    isShutdown = true;
+    cpuExecutor.shutdownNow();
+    ioExecutor.shutdownNow();
+    LOG.debug("Queue time of tasks: %s", getQueueTimeStats());
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return isShutdown;
+  }
+
+  @Override
+  public PrioritizedDepsAwareTask<T> createThrowingTask(
+      Callable<T> callable,
+      ThrowingSupplier<ImmutableSet<PrioritizedDepsAwareTask<T>>, Exception> prereqSupplier,
+      ThrowingSupplier<ImmutableSet<PrioritizedDepsAwareTask<T>>, Exception> depsSupplier) {
+    return createThrowingTask(
+        callable, prereqSupplier, depsSupplier, DEFAULT_CATEGORY, TaskSchedulingHint.DEFAULT);
+  }
+
+  @Override
+  public PrioritizedDepsAwareTask<T> createThrowingTask(
+      Callable<T> callable,
+      ThrowingSupplier<ImmutableSet<PrioritizedDepsAwareTask<T>>, Exception> prereqSupplier,
+      ThrowingSupplier<ImmutableSet<PrioritizedDepsAwareTask<T>>, Exception> depsSupplier,
+      String category,
+      TaskSchedulingHint schedulingHint) {
+    return PrioritizedDepsAwareTask.of(
+        callable, DepsSupplier.of(prereqSupplier, depsSupplier), category, schedulingHint);
+  }
+
+  @Override
+  public PrioritizedDepsAwareTask<T> createTask(Callable<T> callable) {
+    return PrioritizedDepsAwareTask.of(
+        callable, DepsSupplier.of(), DEFAULT_CATEGORY, TaskSchedulingHint.DEFAULT);
+  }
+
+  @Override
+  public Future<T> submit(PrioritizedDepsAwareTask<T> task) {
+    if (isShutdown) {
+      throw new RejectedExecutionException("Executor has already been shutdown");
+    }
+    submitTask(task, task.getSchedulingHint().getPriority(), false);
+    return task.getResultFuture();
+  }
+
+  @Override
+  public ImmutableList<Future<T>> submitAll(Collection<PrioritizedDepsAwareTask<T>> tasks) {
+    ImmutableList.Builder<Future<T>> futures = ImmutableList.builderWithExpectedSize(tasks.size());
+    for (PrioritizedDepsAwareTask<T> w : tasks) {
+      futures.add(submit(w));
+    }
+    return futures.build();
+  }
+
+  @Override
+  public ImmutableMap<String, TaskQueueTimeStats> getQueueTimeStats() {
+    ImmutableSortedMap.Builder<String, TaskQueueTimeStats> stats =
+        ImmutableSortedMap.naturalOrder();
+    queueTimes.forEach((category, accumulator) -> stats.put(category, accumulator.toStats()));
+    return stats.build();
+  }
+
+  /**
+   * Schedules the task for execution with the given {@code priority}, unless it is already
+   * scheduled or running.
+   *
+   * <p>This executor uses {@link TaskStatus#SCHEDULED} to indicate that the task has been added to
+   * the queue of one of the lanes. {@link TaskStatus#NOT_SCHEDULED} is set while the task waits for
+   * its dependencies, so that whichever of its dependents or dependencies gets to it first
+   * schedules it again.
+   */
+  private void submitTask(PrioritizedDepsAwareTask<T> task, Priority priority, boolean first) {
+    if (!task.compareAndSetStatus(TaskStatus.NOT_SCHEDULED, TaskStatus.SCHEDULED)) {
+      return;
+    }
+    long sequence = first ? firstSequence.decrementAndGet() : lastSequence.incrementAndGet();
+    ThreadPoolExecutor executor =
+        task.getSchedulingHint().getLane() == Lane.IO ? ioExecutor : cpuExecutor;
+    try {
+      executor.execute(new ScheduledTask(task, priority, sequence));
+    } catch (RejectedExecutionException e) {
+      Verify.verify(task.compareAndSetStatus(TaskStatus.SCHEDULED, TaskStatus.NOT_SCHEDULED));
+      if (!isShutdown) {
+        throw e;
+      }
+    }
+  }
+
+  private void runTask(ScheduledTask scheduledTask) {
+    PrioritizedDepsAwareTask<T> task = scheduledTask.task;
+    queueTimes
+        .computeIfAbsent(task.getCategory(), category -> new QueueTimeAccumulator())
+        .record(System.nanoTime() - scheduledTask.enqueuedNanos);
+    Verify.verify(task.compareAndSetStatus(TaskStatus.SCHEDULED, TaskStatus.STARTED));
+
+    try {
+      if (!checkTasksReadyOrWait(task, task.getPrereqs(), scheduledTask.priority)) {
+        return;
+      }
+      if (!checkTasksReadyOrWait(task, task.getDependencies(), scheduledTask.priority)) {
+        return;
+      }
+    } catch (Throwable e) {
+      completeWithException(task, e);
+      return;
+    }
+    task.call();
+  }
+
+  /**
+   * Schedules incomplete tasks from {@code tasksToCheck}. If there are any, {@code task} is
+   * resubmitted once all of them complete.
+   *
+   * @return true iff all of {@code tasksToCheck} are complete and {@code task} can proceed
+   */
+  private boolean checkTasksReadyOrWait(
+      PrioritizedDepsAwareTask<T> task,
+      ImmutableSet<PrioritizedDepsAwareTask<T>> tasksToCheck,
+      Priority priority)
+      throws InterruptedException, ExecutionException {
+    List<CompletableFuture<T>> pending = new ArrayList<>();
+    for (PrioritizedDepsAwareTask<T> dep : tasksToCheck) {
+      CompletableFuture<T> depResult = dep.getFuture();
+      if (depResult.isDone()) {
+        propagateException(depResult);
+        continue;
+      }
+      pending.add(depResult);
+      Priority depPriority = dep.getSchedulingHint().getPriority();
+      submitTask(dep, priority.compareTo(depPriority) < 0 ? priority : depPriority, true);
+    }
+    if (pending.isEmpty()) {
+      return true;
+    }
+
+    Verify.verify(task.compareAndSetStatus(TaskStatus.STARTED, TaskStatus.NOT_SCHEDULED));
+    CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+        .whenComplete((ignored, e) -> submitTask(task, priority, true));
+    return false;
+  }
+
+  /** propagate an exception for the dependency to the current task by throwing it */
+  private static void propagateException(CompletableFuture<?> depResult)
+      throws InterruptedException, ExecutionException {
+    if (!depResult.isCompletedExceptionally()) {
+      return;
+    }
+    depResult.get();
+    Verify.verify(false, "Should have completed exceptionally");
+  }
+
+  private static void completeWithException(PrioritizedDepsAwareTask<?> task, Throwable e) {
+    if (e instanceof ExecutionException) {
+      e = e.getCause();
+    }
+    task.getFuture().completeExceptionally(e);
+    Verify.verify(task.compareAndSetStatus(TaskStatus.STARTED, TaskStatus.DONE));
+  }
+
+  /** A task in the queue of one of the lanes. */
+  private class ScheduledTask implements Runnable, Comparable<ScheduledTask> {
+    private final PrioritizedDepsAwareTask<T> task;
+    private final Priority priority;
+    private final long sequence;
+    private final long enqueuedNanos = System.nanoTime();
+
+    private ScheduledTask(PrioritizedDepsAwareTask<T> task, Priority priority, long sequence) {
+      this.task = task;
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public void run() {
+      runTask(this);
+    }
+
+    @Override
+    public int compareTo(ScheduledTask other) {
+      int result = priority.compareTo(other.priority);
+      if (result != 0) {
+        return result;
+      }
+      return Long.compare(sequence, other.sequence);
+    }
+  }
+
+  /** Thread-safe accumulator of queue times of a single task category. */
+  private static class QueueTimeAccumulator {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    private void record(long nanos) {
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+    }
+
+    private TaskQueueTimeStats toStats() {
+      return TaskQueueTimeStats.of(count.sum(), totalNanos.sum(), maxNanos.get());
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.core.graph.transformation.executor.impl;
+
+import com.facebook.buck.core.graph.transformation.executor.DepsAwareTask;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint;
+import java.util.concurrent.Callable;
+
+/**
+ * Task to be ran in a {@link PrioritizedDepsAwareExecutor}. In addition to the callable and its
+ * dependencies, the task carries the lane and priority it should be executed with, and the category
+ * its queue time is accounted to.
+ */
+class PrioritizedDepsAwareTask<T>
+    extends AbstractDepsAwareTask<T, PrioritizedDepsAwareTask<T>> {
+
+  private final String category;
+  private final TaskSchedulingHint schedulingHint;
+
+  private PrioritizedDepsAwareTask(
+      Callable<T> callable,
+      DepsAwareTask.DepsSupplier<PrioritizedDepsAwareTask<T>> depsSupplier,
+      String category,
+      TaskSchedulingHint schedulingHint) {
+    super(callable, depsSupplier);
+    this.category = category;
+    this.schedulingHint = schedulingHint;
+  }
+
+  /** @return a new Task to be ran */
+  static <U> PrioritizedDepsAwareTask<U> of(
+      Callable<U> callable,
+      DepsAwareTask.DepsSupplier<PrioritizedDepsAwareTask<U>> depsSupplier,
+      String category,
+      TaskSchedulingHint schedulingHint) {
+    return new PrioritizedDepsAwareTask<>(callable, depsSupplier, category, schedulingHint);
+  }
+
+  String getCategory() {
+    return category;
+  }
+
+  TaskSchedulingHint getSchedulingHint() {
+    return schedulingHint;
+  }
+}
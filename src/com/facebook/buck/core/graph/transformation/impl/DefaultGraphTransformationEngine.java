@@ -236,7 +236,9 @@ public final class DefaultGraphTransformationEngine implements GraphTransformati
             return executor.createThrowingTask(
                 () -> computeForKey(key, stage, collectDeps(depResults.build())),
                 preliminaryDepsSupplier,
-                depsSupplier);
+                depsSupplier,
+                stage.getCategory(),
+                stage.getSchedulingHint());
           });
     }
 
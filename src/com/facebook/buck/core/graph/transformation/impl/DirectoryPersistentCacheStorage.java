@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.core.graph.transformation.impl;
+
+import com.facebook.buck.core.graph.transformation.PersistentCacheStorage;
+import com.google.common.hash.HashCode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * {@link PersistentCacheStorage} that keeps every entry in a separate file under a directory.
+ *
+ * <p>Entries are sharded by the first two characters of the key hash to keep directories small.
+ * Entries are written to a temporary file first and atomically moved in place, so concurrent
+ * readers, including other Buck processes, never observe partially written entries.
+ */
+public class DirectoryPersistentCacheStorage implements PersistentCacheStorage {
+
+  private final Path root;
+
+  private DirectoryPersistentCacheStorage(Path root) {
+    this.root = root;
+  }
+
+  /** @param root Absolute path to the directory to keep entries in, created on demand */
+  public static DirectoryPersistentCacheStorage of(Path root) {
+    return new DirectoryPersistentCacheStorage(root);
+  }
+
+  @Override
+  public Optional<byte[]> load(HashCode key) throws IOException {
+    try {
+      return Optional.of(Files.readAllBytes(getEntryPath(key)));
+    } catch (NoSuchFileException e) {
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public void store(HashCode key, byte[] data) throws IOException {
+    Path entryPath = getEntryPath(key);
+    Files.createDirectories(entryPath.getParent());
+    Path tempPath = Files.createTempFile(entryPath.getParent(), key.toString(), ".tmp");
+    try {
+      Files.write(tempPath, data);
+      Files.move(
+          tempPath,
+          entryPath,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempPath);
+    }
+  }
+
+  private Path getEntryPath(HashCode key) {
+    String name = key.toString();
+    return root.resolve(name.substring(0, 2)).resolve(name);
+  }
+}
@@ -20,6 +20,7 @@ import com.facebook.buck.core.graph.transformation.ComputationEnvironment;
 import com.facebook.buck.core.graph.transformation.GraphComputation;
 import com.facebook.buck.core.graph.transformation.GraphEngineCache;
 import com.facebook.buck.core.graph.transformation.GraphTransformationEngine;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint;
 import com.facebook.buck.core.graph.transformation.model.ComputationIdentifier;
 import com.facebook.buck.core.graph.transformation.model.ComputeKey;
 import com.facebook.buck.core.graph.transformation.model.ComputeResult;
@@ -39,6 +40,7 @@ public class GraphComputationStage<
 
   private final GraphComputation<KeyType, ResultType> transformer;
   private final GraphEngineCache<KeyType, ResultType> cache;
+  private final String category;
 
   public GraphComputationStage(GraphComputation<KeyType, ResultType> transformer) {
     this(
@@ -63,6 +65,7 @@ public class GraphComputationStage<
       GraphEngineCache<KeyType, ResultType> cache) {
     this.transformer = transformer;
     this.cache = cache;
+    this.category = transformer.getClass().getSimpleName();
   }
 
   GraphComputation<KeyType, ResultType> getTransformer() {
@@ -73,6 +76,15 @@ public class GraphComputationStage<
     return transformer.getIdentifier();
   }
 
+  /** @return the category that executors account tasks of this stage to */
+  String getCategory() {
+    return category;
+  }
+
+  TaskSchedulingHint getSchedulingHint() {
+    return transformer.getSchedulingHint();
+  }
+
   GraphEngineCache<KeyType, ResultType> getCache() {
     return cache;
   }
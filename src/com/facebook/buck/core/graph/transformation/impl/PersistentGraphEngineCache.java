@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.core.graph.transformation.impl;
+
+import com.facebook.buck.core.graph.transformation.GraphEngineCache;
+import com.facebook.buck.core.graph.transformation.GraphEngineCacheCodec;
+import com.facebook.buck.core.graph.transformation.PersistentCacheStorage;
+import com.facebook.buck.core.graph.transformation.model.ComputeKey;
+import com.facebook.buck.core.graph.transformation.model.ComputeResult;
+import com.facebook.buck.core.util.log.Logger;
+import com.google.common.hash.HashCode;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Graph Engine cache that backs another (usually in-memory) cache with a {@link
+ * PersistentCacheStorage}, so results can be reused across daemon restarts.
+ *
+ * <p>Results are looked up in the persistent tier only when the delegate cache does not have them.
+ * A persisted result is reused only if the fingerprint of its inputs, as computed by {@link
+ * GraphEngineCacheCodec}, did not change since it was stored; it is then promoted to the delegate
+ * cache. Failures to read or write the persistent tier are logged and treated as cache misses.
+ */
+public class PersistentGraphEngineCache<Key extends ComputeKey<Value>, Value extends ComputeResult>
+    implements GraphEngineCache<Key, Value> {
+
+  private static final Logger LOG = Logger.get(PersistentGraphEngineCache.class);
+
+  /** Bump when the layout of stored entries changes */
+  private static final int FORMAT_VERSION = 1;
+
+  private final GraphEngineCache<Key, Value> delegate;
+  private final GraphEngineCacheCodec<Key, Value> codec;
+  private final PersistentCacheStorage storage;
+
+  private PersistentGraphEngineCache(
+      GraphEngineCache<Key, Value> delegate,
+      GraphEngineCacheCodec<Key, Value> codec,
+      PersistentCacheStorage storage) {
+    this.delegate = delegate;
+    this.codec = codec;
+    this.storage = storage;
+  }
+
+  /**
+   * Create a new instance of {@link PersistentGraphEngineCache}
+   *
+   * @param delegate Cache that is consulted first and that persisted results are promoted to
+   * @param codec Serializes results and fingerprints their inputs
+   * @param storage Storage for serialized results
+   */
+  public static <Key extends ComputeKey<Value>, Value extends ComputeResult>
+      PersistentGraphEngineCache<Key, Value> of(
+          GraphEngineCache<Key, Value> delegate,
+          GraphEngineCacheCodec<Key, Value> codec,
+          PersistentCacheStorage storage) {
+    return new PersistentGraphEngineCache<>(delegate, codec, storage);
+  }
+
+  @Override
+  public Optional<Value> get(Key key) {
+    Optional<Value> cached = delegate.get(key);
+    if (cached.isPresent()) {
+      return cached;
+    }
+
+    Optional<Value> persisted;
+    try {
+      persisted = load(key);
+    } catch (IOException e) {
+      LOG.warn(e, "Failed to load persisted result for %s", key);
+      return Optional.empty();
+    }
+    persisted.ifPresent(value -> delegate.put(key, value));
+    return persisted;
+  }
+
+  @Override
+  public void put(Key key, Value value) {
+    delegate.put(key, value);
+    try {
+      store(key, value);
+    } catch (IOException e) {
+      LOG.warn(e, "Failed to persist result for %s", key);
+    }
+  }
+
+  private Optional<Value> load(Key key) throws IOException {
+    Optional<byte[]> data = storage.load(codec.hashKey(key));
+    if (!data.isPresent()) {
+      return Optional.empty();
+    }
+
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(data.get()));
+    if (input.readInt() != FORMAT_VERSION) {
+      return Optional.empty();
+    }
+    byte[] fingerprint = new byte[input.readInt()];
+    input.readFully(fingerprint);
+    byte[] payload = new byte[input.readInt()];
+    input.readFully(payload);
+
+    Value value = codec.deserialize(payload);
+    if (!HashCode.fromBytes(fingerprint).equals(codec.fingerprintInputs(key, value))) {
+      LOG.verbose("Persisted result for %s is stale", key);
+      return Optional.empty();
+    }
+    try {
+      if (!codec.inputsMatchCurrentState(key, value)) {
+        LOG.verbose("Persisted result for %s is stale", key);
+        return Optional.empty();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Optional.empty();
+    }
+    return Optional.of(value);
+  }
+
+  private void store(Key key, Value value) throws IOException {
+    byte[] fingerprint = codec.fingerprintInputs(key, value).asBytes();
+    byte[] payload = codec.serialize(value);
+
+    ByteArrayOutputStream bytes =
+        new ByteArrayOutputStream(fingerprint.length + payload.length + 3 * Integer.BYTES);
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeInt(FORMAT_VERSION);
+      output.writeInt(fingerprint.length);
+      output.write(fingerprint);
+      output.writeInt(payload.length);
+      output.write(payload);
+    }
+    storage.store(codec.hashKey(key), bytes.toByteArray());
+  }
+}
@@ -19,6 +19,9 @@ package com.facebook.buck.core.parser;
 import com.facebook.buck.core.filesystems.AbsPath;
 import com.facebook.buck.core.graph.transformation.ComputationEnvironment;
 import com.facebook.buck.core.graph.transformation.GraphComputation;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint.Lane;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint.Priority;
 import com.facebook.buck.core.graph.transformation.model.ComputationIdentifier;
 import com.facebook.buck.core.graph.transformation.model.ComputeKey;
 import com.facebook.buck.core.graph.transformation.model.ComputeResult;
@@ -236,4 +239,10 @@ public class WatchmanBuildPackageComputation
       BuildTargetPatternToBuildPackagePathKey key) {
     return ImmutableSet.of();
   }
+
+  @Override
+  public TaskSchedulingHint getSchedulingHint() {
+    // Waits on queries to Watchman, so it is I/O bound.
+    return TaskSchedulingHint.of(Lane.IO, Priority.NORMAL);
+  }
 }
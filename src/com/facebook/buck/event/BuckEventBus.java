@@ -30,6 +30,15 @@ public interface BuckEventBus extends Closeable, EventDispatcher {
   /** Register a listener to process events */
   void register(Object object);
 
+  /**
+   * Register a listener that is slow to process events, so it is delivered events on its own thread
+   * and does not delay delivery to other listeners. The listener still receives events in the order
+   * they were posted.
+   */
+  default void registerWithDedicatedThread(Object object) {
+    register(object);
+  }
+
   /** Remove a listener previously specified with {@code register()} */
   void unregister(Object object);
 
@@ -26,31 +26,61 @@ import com.facebook.buck.util.timing.Clock;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.eventbus.EventBus;
-import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
-/** Thin wrapper around guava event bus. */
+/**
+ * Thin wrapper around guava event bus.
+ *
+ * <p>In asynchronous mode posted events are put on a lock-free queue and delivered to listeners in
+ * batches by a single event bus thread, so posting never blocks on listeners or on other posters.
+ * Listeners registered with {@link #registerWithDedicatedThread(Object)} get their own queue and
+ * thread, which are fed with batches from the event bus thread. Every listener receives events in
+ * the order they were posted.
+ */
 public class DefaultBuckEventBus implements com.facebook.buck.event.BuckEventBus {
 
   private static final Logger LOG = Logger.get(BuckEventBus.class);
 
   public static final int DEFAULT_SHUTDOWN_TIMEOUT_MS = 15000;
 
+  /** Maximum number of events delivered to listeners of a single lane in one go */
+  private static final int MAX_BATCH_SIZE = 1024;
+
+  private static final String SHARED_LANE_NAME = "shared";
+
   private static final Supplier<Long> DEFAULT_THREAD_ID_SUPPLIER =
       () -> Thread.currentThread().getId();
 
   private final Clock clock;
-  private final ExecutorService executorService;
   private final EventBus eventBus;
   private final Supplier<Long> threadIdSupplier;
   private final BuildId buildId;
   private final int shutdownTimeoutMillis;
 
-  // synchronization variables to ensure proper shutdown
-  private volatile int activeTasks = 0;
+  /** Lane of listeners sharing the event bus thread, absent in synchronous mode */
+  private final Optional<EventLane> sharedLane;
+
+  /** Lanes of listeners registered with a dedicated thread, keyed by listener */
+  private final Map<Object, EventLane> dedicatedLanes = new ConcurrentHashMap<>();
+
+  // synchronization variables to ensure proper shutdown; posters never take the lock, it is only
+  // used to wake up threads waiting for the events to be delivered
+  private final AtomicInteger pendingEvents = new AtomicInteger();
   private final Object lock = new Object();
 
   public DefaultBuckEventBus(Clock clock, BuildId buildId) {
@@ -65,43 +95,43 @@ public class DefaultBuckEventBus implements com.facebook.buck.event.BuckEventBus
         buildId,
         shutdownTimeoutMillis,
         async
-            ? MostExecutors.newSingleThreadExecutor(
-                new CommandThreadFactory(
-                    BuckEventBus.class.getSimpleName(),
-                    GlobalStateManager.singleton().getThreadToCommandRegister()))
-            : MoreExecutors.newDirectExecutorService());
+            ? Optional.of(newLaneExecutor(BuckEventBus.class.getSimpleName()))
+            : Optional.empty());
   }
 
   @VisibleForTesting
   public DefaultBuckEventBus(
       Clock clock, BuildId buildId, int shutdownTimeoutMillis, ExecutorService executorService) {
+    this(clock, buildId, shutdownTimeoutMillis, Optional.of(executorService));
+  }
+
+  private DefaultBuckEventBus(
+      Clock clock,
+      BuildId buildId,
+      int shutdownTimeoutMillis,
+      Optional<ExecutorService> executorService) {
     this.clock = clock;
-    this.executorService = executorService;
     this.eventBus = new EventBus("buck-build-events");
     this.threadIdSupplier = DEFAULT_THREAD_ID_SUPPLIER;
     this.buildId = buildId;
     this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    this.sharedLane =
+        executorService.map(
+            executor -> new EventLane(SHARED_LANE_NAME, eventBus, executor, /* shared */ true));
+  }
+
+  private static ExecutorService newLaneExecutor(String name) {
+    return MostExecutors.newSingleThreadExecutor(
+        new CommandThreadFactory(
+            name, GlobalStateManager.singleton().getThreadToCommandRegister()));
   }
 
   private void dispatch(BuckEvent event) {
-    // keep track the number of active tasks so we can do proper shutdown
-    synchronized (lock) {
-      activeTasks++;
+    if (sharedLane.isPresent()) {
+      sharedLane.get().enqueue(new QueuedEvent(event, System.nanoTime()));
+    } else {
+      eventBus.post(event);
     }
-
-    executorService.execute(
-        () -> {
-          try {
-            eventBus.post(event);
-          } finally {
-            // event bus should not throw but just in case wrap with try-finally
-            synchronized (lock) {
-              activeTasks--;
-              // notify about task completion; shutdown may wait for it
-              lock.notifyAll();
-            }
-          }
-        });
   }
 
   @Override
@@ -127,9 +157,43 @@ public class DefaultBuckEventBus implements com.facebook.buck.event.BuckEventBus
     eventBus.register(object);
   }
 
+  @Override
+  public void registerWithDedicatedThread(Object object) {
+    if (!sharedLane.isPresent()) {
+      // there is no thread to offload from in synchronous mode
+      register(object);
+      return;
+    }
+    String name = object.getClass().getSimpleName();
+    EventBus listenerEventBus = new EventBus("buck-build-events-" + name);
+    listenerEventBus.register(object);
+    dedicatedLanes.computeIfAbsent(
+        object,
+        o ->
+            new EventLane(
+                name,
+                listenerEventBus,
+                newLaneExecutor(BuckEventBus.class.getSimpleName() + "-" + name),
+                /* shared */ false));
+  }
+
   @Override
   public void unregister(Object object) {
-    eventBus.unregister(object);
+    EventLane lane = dedicatedLanes.remove(object);
+    if (lane == null) {
+      eventBus.unregister(object);
+      return;
+    }
+    // events that are already queued are still delivered, the thread terminates after that
+    lane.executor.shutdown();
+  }
+
+  /** @return Lag of the shared event bus thread and of every listener with a dedicated thread */
+  public ImmutableList<EventListenerLagStats> getListenerLagStats() {
+    ImmutableList.Builder<EventListenerLagStats> stats = ImmutableList.builder();
+    sharedLane.ifPresent(lane -> stats.add(lane.getStats()));
+    dedicatedLanes.values().forEach(lane -> stats.add(lane.getStats()));
+    return stats.build();
   }
 
   @Override
@@ -172,18 +236,28 @@ public class DefaultBuckEventBus implements com.facebook.buck.event.BuckEventBus
     // which immediately stops accepting new tasks, that's why we have some wrapper on top of it
     waitEvents(shutdownTimeoutMillis);
 
-    executorService.shutdown();
+    List<EventLane> lanes = new ArrayList<>(dedicatedLanes.values());
+    sharedLane.ifPresent(lanes::add);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Event listener lag: %s", getListenerLagStats());
+    }
+    for (EventLane lane : lanes) {
+      lane.executor.shutdown();
+    }
     try {
-      long waitTime = timeoutTime - System.currentTimeMillis();
-      if (waitTime <= 0 || !executorService.awaitTermination(waitTime, TimeUnit.MILLISECONDS)) {
-        LOG.warn(
-            Joiner.on(System.lineSeparator())
-                .join(
-                    "The BuckEventBus failed to shut down within the standard timeout.",
-                    "Your build might have succeeded, but some messages were probably lost.",
-                    "Here's some debugging information:",
-                    executorService.toString()));
-        executorService.shutdownNow();
+      for (EventLane lane : lanes) {
+        long waitTime = timeoutTime - System.currentTimeMillis();
+        if (waitTime <= 0 || !lane.executor.awaitTermination(waitTime, TimeUnit.MILLISECONDS)) {
+          LOG.warn(
+              Joiner.on(System.lineSeparator())
+                  .join(
+                      "The BuckEventBus failed to shut down within the standard timeout.",
+                      "Your build might have succeeded, but some messages were probably lost.",
+                      "Here's some debugging information:",
+                      lane.executor.toString()));
+          lanes.forEach(l -> l.executor.shutdownNow());
+          return;
+        }
       }
     } catch (InterruptedException e) {
       Threads.interruptCurrentThread();
@@ -194,7 +268,7 @@ public class DefaultBuckEventBus implements com.facebook.buck.event.BuckEventBus
   public boolean waitEvents(long timeout) {
     long startWaitTime = System.nanoTime();
     synchronized (lock) {
-      while (activeTasks > 0) {
+      while (pendingEvents.get() > 0) {
 
         long waitTime = 0;
         if (timeout > 0) {
@@ -208,7 +282,7 @@ public class DefaultBuckEventBus implements com.facebook.buck.event.BuckEventBus
           lock.wait(waitTime);
         } catch (InterruptedException e) {
           Threads.interruptCurrentThread();
-          return activeTasks == 0;
+          return pendingEvents.get() == 0;
         }
       }
     }
@@ -229,4 +303,125 @@ public class DefaultBuckEventBus implements com.facebook.buck.event.BuckEventBus
         threadId,
         buildId);
   }
+
+  /** Event waiting for delivery, with the time it was posted at */
+  private static class QueuedEvent {
+    private final BuckEvent event;
+    private final long postedNanos;
+
+    private QueuedEvent(BuckEvent event, long postedNanos) {
+      this.event = event;
+      this.postedNanos = postedNanos;
+    }
+  }
+
+  /**
+   * Queue of events delivered to a group of listeners by a single thread.
+   *
+   * <p>Producers add events to a lock-free queue and schedule a drain on the lane executor if one
+   * is not already scheduled, so at most one thread delivers events of a lane at a time and events
+   * are delivered in the order they were queued.
+   */
+  private class EventLane {
+    private final String name;
+    private final EventBus listeners;
+    private final ExecutorService executor;
+    private final boolean shared;
+    private final Queue<QueuedEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicInteger queuedEvents = new AtomicInteger();
+    private final AtomicLong deliveredEvents = new AtomicLong();
+    private final AtomicLong totalLagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    private EventLane(String name, EventBus listeners, ExecutorService executor, boolean shared) {
+      this.name = name;
+      this.listeners = listeners;
+      this.executor = executor;
+      this.shared = shared;
+    }
+
+    private void enqueue(QueuedEvent event) {
+      pendingEvents.incrementAndGet();
+      queuedEvents.incrementAndGet();
+      queue.add(event);
+      scheduleDrain();
+    }
+
+    private void enqueue(List<QueuedEvent> batch) {
+      pendingEvents.addAndGet(batch.size());
+      queuedEvents.addAndGet(batch.size());
+      queue.addAll(batch);
+      scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+      if (!drainScheduled.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        executor.execute(this::drain);
+      } catch (RejectedExecutionException e) {
+        // the lane was shut down, either because the bus was closed or because the listener was
+        // unregistered while a batch was handed over to it
+        int discarded = 0;
+        while (queue.poll() != null) {
+          discarded++;
+        }
+        queuedEvents.addAndGet(-discarded);
+        eventsDone(discarded);
+        if (shared) {
+          throw e;
+        }
+      }
+    }
+
+    private void drain() {
+      List<QueuedEvent> batch = new ArrayList<>();
+      try {
+        QueuedEvent queued;
+        while (batch.size() < MAX_BATCH_SIZE && (queued = queue.poll()) != null) {
+          batch.add(queued);
+        }
+        queuedEvents.addAndGet(-batch.size());
+        if (shared) {
+          // hand the batch over to listeners with dedicated threads first so they are not held
+          // back by listeners on this thread
+          dedicatedLanes.values().forEach(lane -> lane.enqueue(batch));
+        }
+        for (QueuedEvent event : batch) {
+          long lagNanos = System.nanoTime() - event.postedNanos;
+          totalLagNanos.addAndGet(lagNanos);
+          maxLagNanos.accumulateAndGet(lagNanos, Math::max);
+          deliveredEvents.incrementAndGet();
+          listeners.post(event.event);
+        }
+      } finally {
+        // event bus should not throw but just in case do the bookkeeping in finally
+        drainScheduled.set(false);
+        if (!queue.isEmpty()) {
+          scheduleDrain();
+        }
+        eventsDone(batch.size());
+      }
+    }
+
+    private void eventsDone(int count) {
+      if (pendingEvents.addAndGet(-count) == 0) {
+        synchronized (lock) {
+          // notify about delivery completion; shutdown may wait for it
+          lock.notifyAll();
+        }
+      }
+    }
+
+    private EventListenerLagStats getStats() {
+      return EventListenerLagStats.of(
+          name,
+          deliveredEvents.get(),
+          queuedEvents.get(),
+          totalLagNanos.get(),
+          maxLagNanos.get());
+    }
+  }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.event;
+
+import com.facebook.buck.core.util.immutables.BuckStyleValue;
+
+/**
+ * How far behind posters a group of listeners of {@link DefaultBuckEventBus} is. Lag of an event is
+ * the time between the event being posted and the event being handed to the listeners.
+ */
+@BuckStyleValue
+public abstract class EventListenerLagStats {
+
+  /** @return Name of the listener, or of the group of listeners sharing the event bus thread */
+  public abstract String getListenerName();
+
+  /** @return Number of events delivered to the listener */
+  public abstract long getDeliveredEvents();
+
+  /** @return Number of events posted but not yet delivered to the listener */
+  public abstract int getQueuedEvents();
+
+  /** @return Sum of lags of all delivered events */
+  public abstract long getTotalLagNanos();
+
+  /** @return Largest lag of a delivered event */
+  public abstract long getMaxLagNanos();
+
+  public static EventListenerLagStats of(
+      String listenerName,
+      long deliveredEvents,
+      int queuedEvents,
+      long totalLagNanos,
+      long maxLagNanos) {
+    return ImmutableEventListenerLagStats.of(
+        listenerName, deliveredEvents, queuedEvents, totalLagNanos, maxLagNanos);
+  }
+}
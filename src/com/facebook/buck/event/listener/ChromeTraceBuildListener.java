@@ -514,22 +514,27 @@ public class ChromeTraceBuildListener implements BuckEventListener {
 
   @Subscribe
   public void parseBuckFileFinished(ParseBuckFileEvent.Finished finished) {
-    writeChromeTraceEvent(
-        "buck",
-        "parse_file",
-        ChromeTraceEvent.Phase.END,
-        ImmutableMap.of(
-            "path",
-            finished.getBuckFilePath().toString(),
-            "num_rules",
-            Integer.toString(finished.getNumRules()),
-            "processed_bytes",
-            Long.toString(finished.getProcessedBytes()),
-            "python_profile",
-            finished.getProfile().orElse(""),
-            "parser",
-            finished.getParserClass().getSimpleName()),
-        finished);
+    ImmutableMap.Builder<String, String> args =
+        ImmutableMap.<String, String>builder()
+            .put("path", finished.getBuckFilePath().toString())
+            .put("num_rules", Integer.toString(finished.getNumRules()))
+            .put("processed_bytes", Long.toString(finished.getProcessedBytes()))
+            .put("python_profile", finished.getProfile().orElse(""))
+            .put("parser", finished.getParserClass().getSimpleName());
+    finished
+        .getCost()
+        .ifPresent(
+            cost -> {
+              args.put(
+                  "cpu_time_ms",
+                  Long.toString(TimeUnit.NANOSECONDS.toMillis(cost.getCpuTimeNanos())));
+              args.put("allocated_bytes", Long.toString(cost.getAllocatedBytes()));
+              args.put("glob_count", Integer.toString(cost.getGlobCount()));
+              args.put(
+                  "glob_time_ms",
+                  Long.toString(TimeUnit.NANOSECONDS.toMillis(cost.getGlobTimeNanos())));
+            });
+    writeChromeTraceEvent("buck", "parse_file", ChromeTraceEvent.Phase.END, args.build(), finished);
   }
 
   @Subscribe
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.event.listener;
+
+import com.facebook.buck.core.model.BuildTarget;
+import com.facebook.buck.core.util.log.Logger;
+import com.facebook.buck.event.BuckEventListener;
+import com.facebook.buck.event.EventKey;
+import com.facebook.buck.event.chrome_trace.ChromeTraceEvent;
+import com.facebook.buck.event.chrome_trace.ChromeTraceWriter;
+import com.facebook.buck.io.filesystem.ProjectFilesystem;
+import com.facebook.buck.jvm.java.AnnotationProcessingEvent;
+import com.facebook.buck.jvm.java.tracing.JavacPhaseEvent;
+import com.facebook.buck.log.InvocationInfo;
+import com.facebook.buck.util.json.ObjectMappers;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.eventbus.Subscribe;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a compiler performance report to the log directory of the invocation.
+ *
+ * <p>Time spent in javac phases and in annotation processors is aggregated per target and across
+ * the build, and written on close as {@value #JAVAC_PROFILE_FILE_NAME}, which is sorted to make it
+ * easy to diff between builds, and as {@value #JAVAC_PROFILE_TRACE_FILE_NAME}, which contains
+ * Chrome trace counters of the time accumulated per phase and per annotation processor as the
+ * build progresses. Phase times are inclusive, so annotation processing time is also part of the
+ * time of its enclosing round. Phase events are only reported when {@code
+ * java.track_javac_phase_events} is enabled.
+ */
+public class JavacProfilerLoggerListener implements BuckEventListener {
+
+  private static final Logger LOG = Logger.get(JavacProfilerLoggerListener.class);
+
+  @VisibleForTesting static final String JAVAC_PROFILE_FILE_NAME = "javac-profile.json";
+
+  @VisibleForTesting static final String JAVAC_PROFILE_TRACE_FILE_NAME = "javac-profile.trace";
+
+  private final InvocationInfo info;
+  private final ProjectFilesystem filesystem;
+  private final Map<EventKey, JavacPhaseEvent.Started> startedPhases = new ConcurrentHashMap<>();
+  private final Map<EventKey, AnnotationProcessingEvent.Started> startedProcessors =
+      new ConcurrentHashMap<>();
+  private final Map<BuildTarget, TargetCost> targets = new ConcurrentHashMap<>();
+
+  public JavacProfilerLoggerListener(InvocationInfo info, ProjectFilesystem filesystem) {
+    this.info = info;
+    this.filesystem = filesystem;
+  }
+
+  @Subscribe
+  public void javacPhaseStarted(JavacPhaseEvent.Started started) {
+    startedPhases.put(started.getEventKey(), started);
+  }
+
+  @Subscribe
+  public void javacPhaseFinished(JavacPhaseEvent.Finished finished) {
+    JavacPhaseEvent.Started started = startedPhases.remove(finished.getEventKey());
+    if (started == null) {
+      return;
+    }
+    getTargetCost(finished.getBuildTarget())
+        .recordPhase(finished.getPhase().toString(), started.getNanoTime(), finished.getNanoTime());
+  }
+
+  @Subscribe
+  public void annotationProcessingStarted(AnnotationProcessingEvent.Started started) {
+    startedProcessors.put(started.getEventKey(), started);
+  }
+
+  @Subscribe
+  public void annotationProcessingFinished(AnnotationProcessingEvent.Finished finished) {
+    AnnotationProcessingEvent.Started started = startedProcessors.remove(finished.getEventKey());
+    if (started == null) {
+      return;
+    }
+    getTargetCost(finished.getBuildTarget())
+        .recordProcessor(
+            finished.getAnnotationProcessorName(),
+            finished.getOperation(),
+            started.getNanoTime(),
+            finished.getNanoTime());
+  }
+
+  private TargetCost getTargetCost(BuildTarget target) {
+    return targets.computeIfAbsent(target, t -> new TargetCost());
+  }
+
+  @Override
+  public void close() {
+    if (targets.isEmpty()) {
+      return;
+    }
+    TreeMap<String, TargetCost> sortedTargets = new TreeMap<>();
+    targets.forEach((target, cost) -> sortedTargets.put(target.toString(), cost));
+    try {
+      writeProfile(sortedTargets);
+      writeTrace(sortedTargets);
+    } catch (IOException e) {
+      LOG.warn(e, "Failed to write javac profile.");
+    }
+  }
+
+  private void writeProfile(TreeMap<String, TargetCost> sortedTargets) throws IOException {
+    TreeMap<String, Long> phases = new TreeMap<>();
+    TreeMap<String, TreeMap<String, Long>> processorsByOperation = new TreeMap<>();
+    TreeMap<String, Object> targetsReport = new TreeMap<>();
+    long totalProcessorNanos = 0;
+
+    for (Map.Entry<String, TargetCost> entry : sortedTargets.entrySet()) {
+      TargetCost cost = entry.getValue();
+      synchronized (cost) {
+        cost.phaseNanos.forEach((phase, nanos) -> phases.merge(phase, nanos, Long::sum));
+        cost.processorNanosByOperation.forEach(
+            (processor, byOperation) ->
+                byOperation.forEach(
+                    (operation, nanos) ->
+                        processorsByOperation
+                            .computeIfAbsent(processor, p -> new TreeMap<>())
+                            .merge(operation, nanos, Long::sum)));
+        TreeMap<String, Long> targetProcessors = new TreeMap<>();
+        cost.processorNanosByOperation.forEach(
+            (processor, byOperation) ->
+                targetProcessors.put(
+                    processor, byOperation.values().stream().mapToLong(Long::longValue).sum()));
+        totalProcessorNanos += targetProcessors.values().stream().mapToLong(Long::longValue).sum();
+        targetsReport.put(
+            entry.getKey(),
+            ImmutableMap.of(
+                "phase_nanos",
+                new TreeMap<>(cost.phaseNanos),
+                "annotation_processor_nanos",
+                targetProcessors));
+      }
+    }
+
+    TreeMap<String, Object> processorsReport = new TreeMap<>();
+    processorsByOperation.forEach(
+        (processor, byOperation) ->
+            processorsReport.put(
+                processor,
+                ImmutableMap.of(
+                    "total_nanos",
+                    byOperation.values().stream().mapToLong(Long::longValue).sum(),
+                    "nanos_by_operation",
+                    byOperation)));
+
+    ImmutableMap<String, Object> report =
+        ImmutableMap.of(
+            "totals",
+            ImmutableMap.of(
+                "targets",
+                sortedTargets.size(),
+                "phase_nanos",
+                phases,
+                "annotation_processor_nanos",
+                totalProcessorNanos),
+            "annotation_processors",
+            processorsReport,
+            "targets",
+            targetsReport);
+
+    Path profilePath = info.getLogDirectoryPath().resolve(JAVAC_PROFILE_FILE_NAME);
+    filesystem.createParentDirs(profilePath);
+    try (OutputStream stream = filesystem.newFileOutputStream(profilePath)) {
+      ObjectMappers.WRITER.withDefaultPrettyPrinter().writeValue(stream, report);
+    }
+  }
+
+  private void writeTrace(TreeMap<String, TargetCost> sortedTargets) throws IOException {
+    // Counters are emitted when each target finishes compiling, so the trace shows how compiler
+    // time accumulates over the build.
+    List<TargetCost> costs = new ArrayList<>(sortedTargets.values());
+    costs.sort(Comparator.comparingLong(TargetCost::getLastNanoTime));
+    TreeMap<String, Long> cumulativePhaseNanos = new TreeMap<>();
+    TreeMap<String, Long> cumulativeProcessorNanos = new TreeMap<>();
+
+    Path tracePath = info.getLogDirectoryPath().resolve(JAVAC_PROFILE_TRACE_FILE_NAME);
+    filesystem.createParentDirs(tracePath);
+    try (ChromeTraceWriter writer =
+        new ChromeTraceWriter(filesystem.newFileOutputStream(tracePath))) {
+      writer.writeStart();
+      for (TargetCost cost : costs) {
+        long microTime;
+        synchronized (cost) {
+          cost.phaseNanos.forEach(
+              (phase, nanos) -> cumulativePhaseNanos.merge(phase, nanos, Long::sum));
+          cost.processorNanosByOperation.forEach(
+              (processor, byOperation) ->
+                  byOperation.forEach(
+                      (operation, nanos) ->
+                          cumulativeProcessorNanos.merge(processor, nanos, Long::sum)));
+          microTime = TimeUnit.NANOSECONDS.toMicros(cost.lastNanoTime);
+        }
+        writer.writeEvent(createCounter("javac phases", microTime, cumulativePhaseNanos));
+        if (!cumulativeProcessorNanos.isEmpty()) {
+          writer.writeEvent(
+              createCounter("annotation processors", microTime, cumulativeProcessorNanos));
+        }
+      }
+      writer.writeEnd();
+    }
+  }
+
+  private static ChromeTraceEvent createCounter(
+      String name, long microTime, Map<String, Long> nanosByKey) {
+    ImmutableMap.Builder<String, Object> args = ImmutableMap.builder();
+    nanosByKey.forEach((key, nanos) -> args.put(key, TimeUnit.NANOSECONDS.toMillis(nanos)));
+    return new ChromeTraceEvent(
+        "javac", name, ChromeTraceEvent.Phase.COUNTER, 0, 0, microTime, 0, args.build());
+  }
+
+  /** Compiler time spent on a single target. */
+  private static class TargetCost {
+    private final Map<String, Long> phaseNanos = new TreeMap<>();
+    private final Map<String, Map<String, Long>> processorNanosByOperation = new TreeMap<>();
+    private long lastNanoTime;
+
+    private synchronized void recordPhase(String phase, long startNanoTime, long endNanoTime) {
+      phaseNanos.merge(phase, endNanoTime - startNanoTime, Long::sum);
+      lastNanoTime = Math.max(lastNanoTime, endNanoTime);
+    }
+
+    private synchronized void recordProcessor(
+        String processor,
+        AnnotationProcessingEvent.Operation operation,
+        long startNanoTime,
+        long endNanoTime) {
+      processorNanosByOperation
+          .computeIfAbsent(processor, p -> new TreeMap<>())
+          .merge(operation.toString(), endNanoTime - startNanoTime, Long::sum);
+      lastNanoTime = Math.max(lastNanoTime, endNanoTime);
+    }
+
+    private synchronized long getLastNanoTime() {
+      return lastNanoTime;
+    }
+  }
+}
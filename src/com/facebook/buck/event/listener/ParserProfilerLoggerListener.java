@@ -16,22 +16,63 @@
 
 package com.facebook.buck.event.listener;
 
+import com.facebook.buck.core.util.log.Logger;
 import com.facebook.buck.event.BuckEventListener;
+import com.facebook.buck.event.EventKey;
+import com.facebook.buck.event.chrome_trace.ChromeTraceEvent;
+import com.facebook.buck.event.chrome_trace.ChromeTraceWriter;
 import com.facebook.buck.io.filesystem.ProjectFilesystem;
 import com.facebook.buck.log.InvocationInfo;
+import com.facebook.buck.parser.events.BuildFileParseCost;
+import com.facebook.buck.parser.events.ParseBuckFileEvent;
 import com.facebook.buck.parser.events.ParseBuckProfilerReportEvent;
+import com.facebook.buck.util.json.ObjectMappers;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.eventbus.Subscribe;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Writes parser profiling reports to the log directory of the invocation.
+ *
+ * <p>Reports produced by the Python DSL parser are written as they are reported. When build files
+ * are parsed with profiling enabled, every parsed build file is also recorded and written on close
+ * as {@value #PARSE_PROFILE_FILE_NAME}, which is sorted to make it easy to diff between runs, and
+ * as {@value #PARSE_PROFILE_TRACE_FILE_NAME} that can be opened with Chrome's trace viewer. Files
+ * parsed by the Skylark parser carry their cost, which is also aggregated per top-level macro and
+ * per {@code load()} edge; files parsed by the Python DSL parser are reported with their wall time
+ * and an empty cost.
+ */
 public class ParserProfilerLoggerListener implements BuckEventListener {
 
+  private static final Logger LOG = Logger.get(ParserProfilerLoggerListener.class);
+
+  @VisibleForTesting static final String PARSE_PROFILE_FILE_NAME = "parser-profile.json";
+
+  @VisibleForTesting static final String PARSE_PROFILE_TRACE_FILE_NAME = "parser-profile.trace";
+
   private final InvocationInfo info;
   private final ProjectFilesystem filesystem;
+  private final boolean profilingEnabled;
+  private final Map<EventKey, ParseBuckFileEvent.Started> startedEvents = new ConcurrentHashMap<>();
+  private final ConcurrentLinkedQueue<ParsedFile> parsedFiles = new ConcurrentLinkedQueue<>();
 
-  public ParserProfilerLoggerListener(InvocationInfo info, ProjectFilesystem filesystem) {
+  public ParserProfilerLoggerListener(
+      InvocationInfo info, ProjectFilesystem filesystem, boolean profilingEnabled) {
     this.info = info;
     this.filesystem = filesystem;
+    this.profilingEnabled = profilingEnabled;
   }
 
   @Subscribe
@@ -41,4 +82,192 @@ public class ParserProfilerLoggerListener implements BuckEventListener {
     filesystem.createParentDirs(tracePath);
     filesystem.writeContentsToPath(event.getReport(), tracePath);
   }
+
+  @Subscribe
+  public void parseBuckFileStarted(ParseBuckFileEvent.Started started) {
+    // Files parsed without profiling are not kept around for the lifetime of the command.
+    if (profilingEnabled) {
+      startedEvents.put(started.getEventKey(), started);
+    }
+  }
+
+  @Subscribe
+  public void parseBuckFileFinished(ParseBuckFileEvent.Finished finished) {
+    ParseBuckFileEvent.Started started = startedEvents.remove(finished.getEventKey());
+    if (started != null) {
+      parsedFiles.add(new ParsedFile(started, finished));
+    }
+  }
+
+  @Override
+  public void close() {
+    if (parsedFiles.isEmpty()) {
+      return;
+    }
+    List<ParsedFile> files = new ArrayList<>(parsedFiles);
+    files.sort(Comparator.comparing(file -> file.finished.getBuckFilePath().toString()));
+    try {
+      writeProfile(files);
+      writeTrace(files);
+    } catch (IOException e) {
+      LOG.warn(e, "Failed to write parser profile.");
+    }
+  }
+
+  private void writeProfile(List<ParsedFile> files) throws IOException {
+    TreeMap<String, Object> filesReport = new TreeMap<>();
+    TreeMap<String, MacroCost> macros = new TreeMap<>();
+    TreeMap<String, Long> loadEdges = new TreeMap<>();
+    long totalWallTimeNanos = 0;
+    long totalCpuTimeNanos = 0;
+    long totalAllocatedBytes = 0;
+    long totalGlobTimeNanos = 0;
+    int totalGlobCount = 0;
+    int totalRules = 0;
+
+    for (ParsedFile file : files) {
+      ImmutableMap.Builder<String, Object> fileReport =
+          ImmutableMap.<String, Object>builder()
+              .put("parser", file.finished.getParserKind().toString())
+              .put("rules", file.finished.getNumRules())
+              .put("wall_time_nanos", file.getWallTimeNanos());
+      totalWallTimeNanos += file.getWallTimeNanos();
+      totalRules += file.finished.getNumRules();
+
+      Optional<BuildFileParseCost> maybeCost = file.finished.getCost();
+      if (maybeCost.isPresent()) {
+        BuildFileParseCost cost = maybeCost.get();
+        fileReport
+            .put("cpu_time_nanos", cost.getCpuTimeNanos())
+            .put("allocated_bytes", cost.getAllocatedBytes())
+            .put("glob_count", cost.getGlobCount())
+            .put("glob_time_nanos", cost.getGlobTimeNanos())
+            .put("rules_by_macro", cost.getRulesByMacro())
+            .put("glob_time_nanos_by_macro", cost.getGlobTimeNanosByMacro())
+            .put("extension_evaluation_nanos", cost.getExtensionEvaluationNanosByLoadEdge());
+        totalCpuTimeNanos += Math.max(0, cost.getCpuTimeNanos());
+        totalAllocatedBytes += Math.max(0, cost.getAllocatedBytes());
+        totalGlobTimeNanos += cost.getGlobTimeNanos();
+        totalGlobCount += cost.getGlobCount();
+
+        cost.getRulesByMacro()
+            .forEach(
+                (macro, rules) ->
+                    macros.computeIfAbsent(macro, m -> new MacroCost()).rules += rules);
+        cost.getGlobTimeNanosByMacro()
+            .forEach(
+                (macro, nanos) ->
+                    macros.computeIfAbsent(macro, m -> new MacroCost()).globTimeNanos += nanos);
+        cost.getExtensionEvaluationNanosByLoadEdge()
+            .forEach((edge, nanos) -> loadEdges.merge(edge, nanos, Long::sum));
+      } else {
+        // The Python DSL parser runs out of process and does not measure the cost of a file.
+        fileReport
+            .put("rules_by_macro", ImmutableMap.of())
+            .put("glob_time_nanos_by_macro", ImmutableMap.of())
+            .put("extension_evaluation_nanos", ImmutableMap.of());
+      }
+      filesReport.put(file.finished.getBuckFilePath().toString(), fileReport.build());
+    }
+
+    TreeMap<String, Object> macrosReport = new TreeMap<>();
+    macros.forEach(
+        (macro, cost) ->
+            macrosReport.put(
+                macro,
+                ImmutableMap.of("rules", cost.rules, "glob_time_nanos", cost.globTimeNanos)));
+
+    ImmutableMap<String, Object> report =
+        ImmutableMap.of(
+            "totals",
+            ImmutableMap.<String, Object>builder()
+                .put("files", files.size())
+                .put("rules", totalRules)
+                .put("wall_time_nanos", totalWallTimeNanos)
+                .put("cpu_time_nanos", totalCpuTimeNanos)
+                .put("allocated_bytes", totalAllocatedBytes)
+                .put("glob_count", totalGlobCount)
+                .put("glob_time_nanos", totalGlobTimeNanos)
+                .build(),
+            "files",
+            filesReport,
+            "macros",
+            macrosReport,
+            "load_edges",
+            loadEdges);
+
+    Path profilePath = info.getLogDirectoryPath().resolve(PARSE_PROFILE_FILE_NAME);
+    filesystem.createParentDirs(profilePath);
+    try (OutputStream stream = filesystem.newFileOutputStream(profilePath)) {
+      ObjectMappers.WRITER.withDefaultPrettyPrinter().writeValue(stream, report);
+    }
+  }
+
+  private void writeTrace(List<ParsedFile> files) throws IOException {
+    Path tracePath = info.getLogDirectoryPath().resolve(PARSE_PROFILE_TRACE_FILE_NAME);
+    filesystem.createParentDirs(tracePath);
+    try (ChromeTraceWriter writer =
+        new ChromeTraceWriter(filesystem.newFileOutputStream(tracePath))) {
+      writer.writeStart();
+      for (ParsedFile file : files) {
+        ImmutableMap.Builder<String, Object> args =
+            ImmutableMap.<String, Object>builder()
+                .put("path", file.finished.getBuckFilePath().toString())
+                .put("rules", file.finished.getNumRules());
+        file.finished
+            .getCost()
+            .ifPresent(
+                cost -> {
+                  args.put("cpu_time_nanos", cost.getCpuTimeNanos());
+                  args.put("allocated_bytes", cost.getAllocatedBytes());
+                  args.put("glob_time_nanos", cost.getGlobTimeNanos());
+                  args.put("rules_by_macro", cost.getRulesByMacro());
+                  args.put(
+                      "extension_evaluation_nanos", cost.getExtensionEvaluationNanosByLoadEdge());
+                });
+        writer.writeEvent(
+            createTraceEvent(file.started, ChromeTraceEvent.Phase.BEGIN, ImmutableMap.of()));
+        writer.writeEvent(
+            createTraceEvent(file.finished, ChromeTraceEvent.Phase.END, args.build()));
+      }
+      writer.writeEnd();
+    }
+  }
+
+  private static ChromeTraceEvent createTraceEvent(
+      ParseBuckFileEvent event, ChromeTraceEvent.Phase phase, ImmutableMap<String, Object> args) {
+    return new ChromeTraceEvent(
+        "parser",
+        event.getBuckFilePath().toString(),
+        phase,
+        0,
+        event.getThreadId(),
+        TimeUnit.NANOSECONDS.toMicros(event.getNanoTime()),
+        TimeUnit.NANOSECONDS.toMicros(event.getThreadUserNanoTime()),
+        args);
+  }
+
+  /** Pair of events for a single parsed build file. */
+  private static class ParsedFile {
+    private final ParseBuckFileEvent.Started started;
+    private final ParseBuckFileEvent.Finished finished;
+
+    private ParsedFile(ParseBuckFileEvent.Started started, ParseBuckFileEvent.Finished finished) {
+      this.started = started;
+      this.finished = finished;
+    }
+
+    private long getWallTimeNanos() {
+      return finished
+          .getCost()
+          .map(BuildFileParseCost::getWallTimeNanos)
+          .orElse(finished.getNanoTime() - started.getNanoTime());
+    }
+  }
+
+  /** Cost of a top-level macro aggregated across all build files. */
+  private static class MacroCost {
+    private int rules;
+    private long globTimeNanos;
+  }
 }
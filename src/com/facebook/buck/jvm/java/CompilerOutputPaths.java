@@ -71,6 +71,14 @@ public abstract class CompilerOutputPaths {
         .resolve("used-classes.json");
   }
 
+  /**
+   * @return the directory where incremental compilation keeps the classes of the previous build of
+   *     the library. It is never cleaned by the build.
+   */
+  public static Path getIncrementalStatePath(BuildTarget target, ProjectFilesystem filesystem) {
+    return BuildTargetPaths.getScratchPath(filesystem, target, "lib__%s__incremental");
+  }
+
   public static Path getClassesDir(BuildTarget target, ProjectFilesystem filesystem) {
     return CompilerOutputPaths.of(target, filesystem).getClassesDir();
   }
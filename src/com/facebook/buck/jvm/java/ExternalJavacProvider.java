@@ -77,6 +77,9 @@ public class ExternalJavacProvider implements JavacProvider {
         return new JarBackedJavacProvider(spec.getJavacJarPath().get(), compilerClassName);
       case JDK:
         return new ConstantJavacProvider(new JdkProvidedInMemoryJavac());
+      case WORKER:
+        Preconditions.checkState(spec.getWorkerSettings().isPresent());
+        return new ConstantJavacProvider(new WorkerJavac(spec.getWorkerSettings().get()));
     }
     throw new AssertionError("Unknown javac source: " + javacSource);
   }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+
+/**
+ * What an incremental compilation of a java library remembers about the previous successful
+ * compilation of the same library.
+ *
+ * <p>Sources are keyed by their path relative to the project root, and classes by their path
+ * relative to the classes directory.
+ */
+final class IncrementalCompilationState {
+
+  private final String fingerprint;
+  private final ImmutableSortedMap<String, SourceState> sources;
+  private final ImmutableSortedMap<String, ClassState> classes;
+
+  @JsonCreator
+  IncrementalCompilationState(
+      @JsonProperty("fingerprint") String fingerprint,
+      @JsonProperty("sources") ImmutableSortedMap<String, SourceState> sources,
+      @JsonProperty("classes") ImmutableSortedMap<String, ClassState> classes) {
+    this.fingerprint = fingerprint;
+    this.sources = sources;
+    this.classes = classes;
+  }
+
+  /** @return a hash of the compiler options and of the contents of the classpath. */
+  @JsonProperty("fingerprint")
+  String getFingerprint() {
+    return fingerprint;
+  }
+
+  @JsonProperty("sources")
+  ImmutableSortedMap<String, SourceState> getSources() {
+    return sources;
+  }
+
+  @JsonProperty("classes")
+  ImmutableSortedMap<String, ClassState> getClasses() {
+    return classes;
+  }
+
+  /** A source file and the classes compiled from it. */
+  static final class SourceState {
+    private final String hash;
+    private final ImmutableSortedSet<String> classes;
+    private final ImmutableSortedSet<String> references;
+
+    @JsonCreator
+    SourceState(
+        @JsonProperty("hash") String hash,
+        @JsonProperty("classes") ImmutableSortedSet<String> classes,
+        @JsonProperty("references") ImmutableSortedSet<String> references) {
+      this.hash = hash;
+      this.classes = classes;
+      this.references = references;
+    }
+
+    /** @return a hash of the contents of the source file. */
+    @JsonProperty("hash")
+    String getHash() {
+      return hash;
+    }
+
+    /** @return the class files compiled from the source file. */
+    @JsonProperty("classes")
+    ImmutableSortedSet<String> getClasses() {
+      return classes;
+    }
+
+    /** @return internal names of the classes referenced by the classes of the source file. */
+    @JsonProperty("references")
+    ImmutableSortedSet<String> getReferences() {
+      return references;
+    }
+  }
+
+  /** A class file produced by the compilation. */
+  static final class ClassState {
+    private final String abiHash;
+    private final boolean declaresConstants;
+
+    @JsonCreator
+    ClassState(
+        @JsonProperty("abiHash") String abiHash,
+        @JsonProperty("declaresConstants") boolean declaresConstants) {
+      this.abiHash = abiHash;
+      this.declaresConstants = declaresConstants;
+    }
+
+    /** @return a hash of the ABI stub of the class, or an empty string if it has no stub. */
+    @JsonProperty("abiHash")
+    String getAbiHash() {
+      return abiHash;
+    }
+
+    /**
+     * @return whether the class declares compile-time constants, which javac inlines into the
+     *     classes that use them without leaving a reference behind.
+     */
+    @JsonProperty("declaresConstants")
+    boolean declaresConstants() {
+      return declaresConstants;
+    }
+  }
+}
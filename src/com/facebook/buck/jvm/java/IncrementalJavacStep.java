@@ -0,0 +1,605 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import com.facebook.buck.core.build.execution.context.ExecutionContext;
+import com.facebook.buck.core.model.BuildTarget;
+import com.facebook.buck.core.sourcepath.resolver.SourcePathResolverAdapter;
+import com.facebook.buck.core.util.log.Logger;
+import com.facebook.buck.io.file.MostFiles;
+import com.facebook.buck.io.filesystem.ProjectFilesystem;
+import com.facebook.buck.jvm.java.IncrementalCompilationState.ClassState;
+import com.facebook.buck.jvm.java.IncrementalCompilationState.SourceState;
+import com.facebook.buck.jvm.java.abi.StubJar;
+import com.facebook.buck.step.Step;
+import com.facebook.buck.step.StepExecutionResult;
+import com.facebook.buck.step.StepExecutionResults;
+import com.facebook.buck.util.json.ObjectMappers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.ClassRemapper;
+import org.objectweb.asm.commons.Remapper;
+
+/**
+ * Compiles a java library, recompiling only the sources that changed since the previous successful
+ * compilation of the library and the sources that depend on them.
+ *
+ * <p>The classes of the previous compilation and an {@link IncrementalCompilationState} describing
+ * them are kept in a state directory that outlives the build. A compilation is incremental when
+ * the compiler options and the contents of the classpath are unchanged. The classes of unchanged
+ * sources are then restored into the classes directory and the changed sources are compiled
+ * against them. When the ABI of a recompiled class changes, the sources referencing that class are
+ * recompiled in another round. Everything is recompiled when that is not safe: when a class that
+ * declares compile-time constants changes its ABI (javac inlines constants without leaving a
+ * reference behind), when a later round would need to recompile a source compiled by an earlier
+ * round, or when the compiled classes cannot be mapped back to their source files.
+ */
+public class IncrementalJavacStep implements Step {
+
+  private static final Logger LOG = Logger.get(IncrementalJavacStep.class);
+
+  private static final String STATE_FILE_NAME = "state.json";
+  private static final String CLASSES_DIR_NAME = "classes";
+  private static final String USED_CLASSES_FILE_NAME = "used-classes.json";
+  private static final String CLASS_FILE_EXTENSION = ".class";
+  private static final int MAX_ROUNDS = 5;
+
+  private final Javac javac;
+  private final JavacOptions javacOptions;
+  private final BuildTarget invokingRule;
+  private final SourcePathResolverAdapter resolver;
+  private final ProjectFilesystem filesystem;
+  private final CompilerParameters compilerParameters;
+  private final Path stateDir;
+
+  public IncrementalJavacStep(
+      Javac javac,
+      JavacOptions javacOptions,
+      BuildTarget invokingRule,
+      SourcePathResolverAdapter resolver,
+      ProjectFilesystem filesystem,
+      CompilerParameters compilerParameters,
+      Path stateDir) {
+    this.javac = javac;
+    this.javacOptions = javacOptions;
+    this.invokingRule = invokingRule;
+    this.resolver = resolver;
+    this.filesystem = filesystem;
+    this.compilerParameters = compilerParameters;
+    this.stateDir = stateDir;
+  }
+
+  @Override
+  public StepExecutionResult execute(ExecutionContext context)
+      throws IOException, InterruptedException {
+    Path classesDir = filesystem.resolve(compilerParameters.getOutputPaths().getClassesDir());
+    Path absoluteStateDir = filesystem.resolve(stateDir);
+    ImmutableSortedMap<String, String> sourceHashes = hashSources();
+    Optional<String> fingerprint = computeFingerprint(context);
+    Optional<IncrementalCompilationState> previous =
+        fingerprint.isPresent() ? readState(absoluteStateDir) : Optional.empty();
+
+    if (!previous.isPresent() || !previous.get().getFingerprint().equals(fingerprint.get())) {
+      LOG.debug("%s: previous compilation cannot be reused, compiling all sources", invokingRule);
+      return compileAll(context, classesDir, absoluteStateDir, sourceHashes, fingerprint);
+    }
+
+    IncrementalCompilationState state = previous.get();
+    Set<String> changed = new TreeSet<>();
+    sourceHashes.forEach(
+        (source, hash) -> {
+          SourceState sourceState = state.getSources().get(source);
+          if (sourceState == null || !sourceState.getHash().equals(hash)) {
+            changed.add(source);
+          }
+        });
+    Set<String> removed = Sets.difference(state.getSources().keySet(), sourceHashes.keySet());
+
+    // Restore the classes of the sources that do not have to be recompiled.
+    Path snapshotDir = absoluteStateDir.resolve(CLASSES_DIR_NAME);
+    for (Map.Entry<String, SourceState> entry : state.getSources().entrySet()) {
+      if (changed.contains(entry.getKey()) || removed.contains(entry.getKey())) {
+        continue;
+      }
+      for (String classFile : entry.getValue().getClasses()) {
+        Path target = classesDir.resolve(classFile);
+        Files.createDirectories(target.getParent());
+        Files.copy(snapshotDir.resolve(classFile), target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    }
+
+    Map<String, Set<String>> usedClasses = readUsedClasses(absoluteStateDir);
+    Set<String> compiled = new HashSet<>();
+    Set<String> pending = new TreeSet<>(changed);
+    Set<String> pendingRemoved = new TreeSet<>(removed);
+    Analysis analysis = null;
+    for (int round = 0; ; round++) {
+      if (!pending.isEmpty()) {
+        LOG.debug("%s: round %d recompiles %d sources", invokingRule, round, pending.size());
+        StepExecutionResult result = compile(context, pending, true);
+        if (!result.isSuccess()) {
+          return result;
+        }
+        mergeUsedClasses(usedClasses);
+        compiled.addAll(pending);
+      }
+
+      analysis = analyze(classesDir, sourceHashes);
+      if (analysis == null) {
+        return recompileAll(context, classesDir, absoluteStateDir, sourceHashes, fingerprint);
+      }
+
+      Set<String> abiChanges = new HashSet<>();
+      for (String source : Sets.union(pending, pendingRemoved)) {
+        if (!collectAbiChanges(state, analysis, source, abiChanges)) {
+          LOG.debug("%s: ABI of a class with constants changed", invokingRule);
+          return recompileAll(context, classesDir, absoluteStateDir, sourceHashes, fingerprint);
+        }
+      }
+
+      Set<String> dependents = new TreeSet<>();
+      for (Map.Entry<String, SourceState> entry : analysis.sources.entrySet()) {
+        if (!pending.contains(entry.getKey())
+            && !Sets.intersection(entry.getValue().getReferences(), abiChanges).isEmpty()) {
+          dependents.add(entry.getKey());
+        }
+      }
+      if (dependents.isEmpty()) {
+        break;
+      }
+      if (!Sets.intersection(dependents, compiled).isEmpty() || round + 1 >= MAX_ROUNDS) {
+        LOG.debug("%s: ABI changes do not converge", invokingRule);
+        return recompileAll(context, classesDir, absoluteStateDir, sourceHashes, fingerprint);
+      }
+      for (String dependent : dependents) {
+        for (String classFile : analysis.sources.get(dependent).getClasses()) {
+          Files.deleteIfExists(classesDir.resolve(classFile));
+        }
+      }
+      pending = dependents;
+      pendingRemoved = ImmutableSortedSet.of();
+    }
+
+    LOG.info(
+        "%s: recompiled %d of %d sources", invokingRule, compiled.size(), sourceHashes.size());
+    writeUsedClasses(usedClasses, absoluteStateDir);
+    writeState(classesDir, absoluteStateDir, fingerprint.get(), analysis);
+    return StepExecutionResults.SUCCESS;
+  }
+
+  private StepExecutionResult recompileAll(
+      ExecutionContext context,
+      Path classesDir,
+      Path absoluteStateDir,
+      ImmutableSortedMap<String, String> sourceHashes,
+      Optional<String> fingerprint)
+      throws IOException, InterruptedException {
+    // The classes directory also holds the resources of the library, so only classes are removed.
+    try (Stream<Path> files = Files.walk(classesDir)) {
+      for (Path file : files.collect(Collectors.toList())) {
+        if (file.toString().endsWith(CLASS_FILE_EXTENSION)) {
+          Files.delete(file);
+        }
+      }
+    }
+    return compileAll(context, classesDir, absoluteStateDir, sourceHashes, fingerprint);
+  }
+
+  private StepExecutionResult compileAll(
+      ExecutionContext context,
+      Path classesDir,
+      Path absoluteStateDir,
+      ImmutableSortedMap<String, String> sourceHashes,
+      Optional<String> fingerprint)
+      throws IOException, InterruptedException {
+    // The state is dropped first so that a failed compilation can never be mistaken for a
+    // successful one by the next build.
+    MostFiles.deleteRecursivelyIfExists(absoluteStateDir);
+    StepExecutionResult result = compile(context, sourceHashes.keySet(), false);
+    if (!result.isSuccess() || !fingerprint.isPresent()) {
+      return result;
+    }
+    Analysis analysis = analyze(classesDir, sourceHashes);
+    if (analysis == null) {
+      LOG.debug("%s: classes cannot be mapped to sources, not saving state", invokingRule);
+      return result;
+    }
+    Map<String, Set<String>> usedClasses = new TreeMap<>();
+    mergeUsedClasses(usedClasses);
+    writeUsedClasses(usedClasses, absoluteStateDir);
+    writeState(classesDir, absoluteStateDir, fingerprint.get(), analysis);
+    return result;
+  }
+
+  private StepExecutionResult compile(
+      ExecutionContext context, Set<String> sources, boolean againstClassesDir)
+      throws IOException, InterruptedException {
+    ImmutableSortedSet.Builder<Path> classpath =
+        ImmutableSortedSet.<Path>naturalOrder()
+            .addAll(compilerParameters.getClasspathEntries());
+    if (againstClassesDir) {
+      classpath.add(filesystem.resolve(compilerParameters.getOutputPaths().getClassesDir()));
+    }
+    CompilerParameters parameters =
+        CompilerParameters.builder()
+            .from(compilerParameters)
+            .setSourceFilePaths(
+                sources.stream()
+                    .map(filesystem::getPath)
+                    .collect(ImmutableSortedSet.toImmutableSortedSet(Path::compareTo)))
+            .setClasspathEntries(classpath.build())
+            .build();
+    return createJavacStep(parameters).execute(context);
+  }
+
+  private JavacStep createJavacStep(CompilerParameters parameters) {
+    return new JavacStep(
+        javac,
+        javacOptions,
+        invokingRule,
+        resolver,
+        filesystem,
+        new ClasspathChecker(),
+        parameters,
+        null,
+        null);
+  }
+
+  private ImmutableSortedMap<String, String> hashSources() throws IOException {
+    ImmutableSortedMap.Builder<String, String> hashes = ImmutableSortedMap.naturalOrder();
+    for (Path source : compilerParameters.getSourceFilePaths()) {
+      hashes.put(source.toString(), filesystem.computeSha1(source).getHash());
+    }
+    return hashes.build();
+  }
+
+  /**
+   * @return a hash of everything other than the sources that affects the compiled classes, or
+   *     {@link Optional#empty()} if that cannot be determined cheaply. Classpath jars are hashed
+   *     with the hashes the build engine already keeps for them, when available.
+   */
+  private Optional<String> computeFingerprint(ExecutionContext context) throws IOException {
+    Hasher hasher = Hashing.sha1().newHasher();
+    hasher.putString(javac.getShortName(), StandardCharsets.UTF_8);
+    for (String option :
+        createJavacStep(compilerParameters)
+            .getOptions(context, compilerParameters.getClasspathEntries())) {
+      hasher.putString(option, StandardCharsets.UTF_8).putByte((byte) 0);
+    }
+    for (Path entry : compilerParameters.getClasspathEntries()) {
+      if (Files.isDirectory(entry)) {
+        return Optional.empty();
+      }
+      hasher.putString(entry.toString(), StandardCharsets.UTF_8);
+      if (Files.exists(entry)) {
+        hasher.putBytes(
+            context.getFileHashLoader().isPresent()
+                ? context.getFileHashLoader().get().get(filesystem, entry).asBytes()
+                : filesystem.computeSha1(entry).asHashCode().asBytes());
+      }
+    }
+    return Optional.of(hasher.hash().toString());
+  }
+
+  /**
+   * Adds the classes of {@code source} whose ABI differs from the previous compilation to {@code
+   * abiChanges}.
+   *
+   * @return false if one of those classes declares compile-time constants
+   */
+  private static boolean collectAbiChanges(
+      IncrementalCompilationState state, Analysis analysis, String source, Set<String> abiChanges) {
+    Set<String> classFiles = new HashSet<>();
+    SourceState previousSource = state.getSources().get(source);
+    if (previousSource != null) {
+      classFiles.addAll(previousSource.getClasses());
+    }
+    SourceState currentSource = analysis.sources.get(source);
+    if (currentSource != null) {
+      classFiles.addAll(currentSource.getClasses());
+    }
+    for (String classFile : classFiles) {
+      ClassState before = state.getClasses().get(classFile);
+      ClassState after = analysis.classes.get(classFile);
+      if (before != null && after != null && before.getAbiHash().equals(after.getAbiHash())) {
+        continue;
+      }
+      if ((before != null && before.declaresConstants())
+          || (after != null && after.declaresConstants())) {
+        return false;
+      }
+      abiChanges.add(getInternalName(classFile));
+    }
+    return true;
+  }
+
+  /**
+   * Reads every class in the classes directory and attributes it to one of the sources.
+   *
+   * @return the result, or null if a class cannot be attributed to exactly one source
+   */
+  @Nullable
+  private Analysis analyze(Path classesDir, ImmutableSortedMap<String, String> sourceHashes)
+      throws IOException {
+    Map<String, List<String>> sourcesByFileName =
+        sourceHashes.keySet().stream()
+            .collect(
+                Collectors.groupingBy(
+                    source -> filesystem.getPath(source).getFileName().toString()));
+
+    ImmutableSortedMap<Path, HashCode> abiHashes = new StubJar(classesDir).hashEntries();
+    SortedMap<String, SortedSet<String>> classesBySource = new TreeMap<>();
+    SortedMap<String, SortedSet<String>> referencesBySource = new TreeMap<>();
+    ImmutableSortedMap.Builder<String, ClassState> classes = ImmutableSortedMap.naturalOrder();
+    List<Path> classFiles;
+    try (Stream<Path> files = Files.walk(classesDir)) {
+      classFiles =
+          files
+              .filter(file -> file.toString().endsWith(CLASS_FILE_EXTENSION))
+              .sorted()
+              .collect(Collectors.toList());
+    }
+    for (Path classFile : classFiles) {
+      Path relativePath = classesDir.relativize(classFile);
+      String relativeName = relativePath.toString().replace('\\', '/');
+      ClassFileInfo info;
+      try (InputStream stream = Files.newInputStream(classFile)) {
+        info = ClassFileInfo.read(stream);
+      }
+      String source = findSource(sourcesByFileName, info);
+      if (source == null) {
+        return null;
+      }
+      classesBySource.computeIfAbsent(source, s -> new TreeSet<>()).add(relativeName);
+      referencesBySource.computeIfAbsent(source, s -> new TreeSet<>()).addAll(info.references);
+      HashCode abiHash = abiHashes.get(relativePath);
+      classes.put(
+          relativeName,
+          new ClassState(abiHash == null ? "" : abiHash.toString(), info.declaresConstants));
+    }
+
+    ImmutableSortedMap.Builder<String, SourceState> sources = ImmutableSortedMap.naturalOrder();
+    sourceHashes.forEach(
+        (source, hash) ->
+            sources.put(
+                source,
+                new SourceState(
+                    hash,
+                    ImmutableSortedSet.copyOf(
+                        classesBySource.getOrDefault(source, ImmutableSortedSet.of())),
+                    ImmutableSortedSet.copyOf(
+                        referencesBySource.getOrDefault(source, ImmutableSortedSet.of())))));
+    return new Analysis(sources.build(), classes.build());
+  }
+
+  @Nullable
+  private static String findSource(
+      Map<String, List<String>> sourcesByFileName, ClassFileInfo info) {
+    if (info.sourceFile == null) {
+      return null;
+    }
+    List<String> candidates = sourcesByFileName.get(info.sourceFile);
+    if (candidates == null) {
+      return null;
+    }
+    if (candidates.size() == 1) {
+      return candidates.get(0);
+    }
+    int lastSlash = info.internalName.lastIndexOf('/');
+    String packagePath = lastSlash < 0 ? "" : info.internalName.substring(0, lastSlash + 1);
+    List<String> inPackage =
+        candidates.stream()
+            .filter(
+                candidate ->
+                    candidate.replace('\\', '/').endsWith(packagePath + info.sourceFile))
+            .collect(Collectors.toList());
+    return inPackage.size() == 1 ? inPackage.get(0) : null;
+  }
+
+  private void writeState(
+      Path classesDir, Path absoluteStateDir, String fingerprint, Analysis analysis)
+      throws IOException {
+    Path stateFile = absoluteStateDir.resolve(STATE_FILE_NAME);
+    Files.deleteIfExists(stateFile);
+    Path snapshotDir = absoluteStateDir.resolve(CLASSES_DIR_NAME);
+    MostFiles.deleteRecursivelyIfExists(snapshotDir);
+    for (String classFile : analysis.classes.keySet()) {
+      Path target = snapshotDir.resolve(classFile);
+      Files.createDirectories(target.getParent());
+      Files.copy(classesDir.resolve(classFile), target);
+    }
+    ObjectMappers.WRITER.writeValue(
+        stateFile.toFile(),
+        new IncrementalCompilationState(fingerprint, analysis.sources, analysis.classes));
+  }
+
+  private static Optional<IncrementalCompilationState> readState(Path absoluteStateDir) {
+    Path stateFile = absoluteStateDir.resolve(STATE_FILE_NAME);
+    if (!Files.isRegularFile(stateFile)) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(ObjectMappers.readValue(stateFile, IncrementalCompilationState.class));
+    } catch (IOException e) {
+      LOG.warn(e, "Unable to read incremental compilation state from %s", stateFile);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * The class usage file written by javac only covers the sources it compiled, so the usage of
+   * earlier compilations is merged into it.
+   */
+  private void mergeUsedClasses(Map<String, Set<String>> usedClasses) throws IOException {
+    if (!compilerParameters.shouldTrackClassUsage()) {
+      return;
+    }
+    Path depFile = filesystem.resolve(CompilerOutputPaths.getDepFilePath(invokingRule, filesystem));
+    if (!Files.isRegularFile(depFile)) {
+      return;
+    }
+    Map<String, Set<String>> written =
+        ObjectMappers.readValue(depFile, new TypeReference<Map<String, Set<String>>>() {});
+    written.forEach(
+        (jar, classes) -> usedClasses.computeIfAbsent(jar, j -> new TreeSet<>()).addAll(classes));
+  }
+
+  private Map<String, Set<String>> readUsedClasses(Path absoluteStateDir) throws IOException {
+    Map<String, Set<String>> usedClasses = new TreeMap<>();
+    Path saved = absoluteStateDir.resolve(USED_CLASSES_FILE_NAME);
+    if (compilerParameters.shouldTrackClassUsage() && Files.isRegularFile(saved)) {
+      ObjectMappers.readValue(saved, new TypeReference<Map<String, Set<String>>>() {})
+          .forEach((jar, classes) -> usedClasses.put(jar, new TreeSet<>(classes)));
+    }
+    return usedClasses;
+  }
+
+  private void writeUsedClasses(Map<String, Set<String>> usedClasses, Path absoluteStateDir)
+      throws IOException {
+    if (!compilerParameters.shouldTrackClassUsage()) {
+      return;
+    }
+    Map<String, Set<String>> sorted = new TreeMap<>();
+    usedClasses.forEach((jar, classes) -> sorted.put(jar, new TreeSet<>(classes)));
+    Path depFile = filesystem.resolve(CompilerOutputPaths.getDepFilePath(invokingRule, filesystem));
+    ObjectMappers.WRITER.writeValue(depFile.toFile(), sorted);
+    Files.createDirectories(absoluteStateDir);
+    Files.copy(
+        depFile,
+        absoluteStateDir.resolve(USED_CLASSES_FILE_NAME),
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  private static String getInternalName(String classFile) {
+    return classFile.substring(0, classFile.length() - CLASS_FILE_EXTENSION.length());
+  }
+
+  @Override
+  public String getShortName() {
+    return "javac_incremental";
+  }
+
+  @Override
+  public String getDescription(ExecutionContext context) {
+    return String.format(
+        "%s (incremental, state in %s)",
+        createJavacStep(compilerParameters).getDescription(context), stateDir);
+  }
+
+  /** Sources and classes found in the classes directory after a compilation round. */
+  private static class Analysis {
+    private final ImmutableSortedMap<String, SourceState> sources;
+    private final ImmutableSortedMap<String, ClassState> classes;
+
+    private Analysis(
+        ImmutableSortedMap<String, SourceState> sources,
+        ImmutableSortedMap<String, ClassState> classes) {
+      this.sources = sources;
+      this.classes = classes;
+    }
+  }
+
+  /** What is needed from a single class file. */
+  private static class ClassFileInfo extends ClassVisitor {
+    private final Set<String> references = new TreeSet<>();
+    private String internalName = "";
+    @Nullable private String sourceFile;
+    private boolean declaresConstants;
+
+    private ClassFileInfo() {
+      super(Opcodes.ASM7);
+    }
+
+    static ClassFileInfo read(InputStream stream) throws IOException {
+      ClassFileInfo info = new ClassFileInfo();
+      Remapper referenceCollector =
+          new Remapper() {
+            @Override
+            public String map(String internalName) {
+              info.references.add(internalName);
+              return internalName;
+            }
+          };
+      new ClassReader(stream)
+          .accept(new ClassRemapper(info, referenceCollector), ClassReader.SKIP_FRAMES);
+      info.references.remove(info.internalName);
+      return info;
+    }
+
+    @Override
+    public void visit(
+        int version,
+        int access,
+        String name,
+        String signature,
+        String superName,
+        String[] interfaces) {
+      internalName = name;
+    }
+
+    @Override
+    public void visitSource(String source, String debug) {
+      sourceFile = source;
+    }
+
+    @Override
+    public FieldVisitor visitField(
+        int access, String name, String descriptor, String signature, Object value) {
+      int constantAccess = Opcodes.ACC_STATIC | Opcodes.ACC_FINAL;
+      if (value != null && (access & constantAccess) == constantAccess) {
+        declaresConstants = true;
+      }
+      return new FieldVisitor(Opcodes.ASM7) {};
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        int access, String name, String descriptor, String signature, String[] exceptions) {
+      // A non-null visitor makes the remapper visit the instructions of the method.
+      return new MethodVisitor(Opcodes.ASM7) {};
+    }
+  }
+}
@@ -91,6 +91,15 @@ abstract class JUnitJvmArgs {
     return false;
   }
 
+  /**
+   * @return Number of test classes the test runner runs in parallel in the test JVM.
+   *     <p>Defaults to 1, which runs them serially.
+   */
+  @Value.Default
+  int getTestClassParallelism() {
+    return 1;
+  }
+
   /** @return The filesystem path to a JVM agent (i.e., a profiler). */
   abstract Optional<String> getPathToJavaAgent();
 
@@ -227,6 +236,11 @@ abstract class JUnitJvmArgs {
     long timeout = isDebugEnabled() ? 0 : defaultTestTimeoutMillis;
     args.add("--default-test-timeout", String.valueOf(timeout));
 
+    // Run test classes in parallel, unless the tests are being debugged.
+    if (getTestClassParallelism() > 1 && !isDebugEnabled()) {
+      args.add("--parallel-classes", String.valueOf(getTestClassParallelism()));
+    }
+
     // Add the test selectors, one per line, in a single argument.
     StringBuilder selectorsArgBuilder = new StringBuilder();
     if (getTestSelectorList().isPresent() && !getTestSelectorList().get().isEmpty()) {
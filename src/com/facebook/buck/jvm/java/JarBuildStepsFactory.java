@@ -48,7 +48,6 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Ordering;
 import java.nio.file.Path;
@@ -259,11 +258,7 @@ public class JarBuildStepsFactory
 
   /** Returns a predicate indicating whether a SourcePath is covered by the depfile. */
   public Predicate<SourcePath> getCoveredByDepFilePredicate(SourcePathRuleFinder ruleFinder) {
-    // a hash set is intentionally used to achieve constant time look-up
-    // TODO(cjhopman): This could probably be changed to be a 2-level check of archivepath->inner,
-    // withinarchivepath->boolean.
-    return abiClasspath.getArchiveMembers(ruleFinder).collect(ImmutableSet.toImmutableSet())
-        ::contains;
+    return abiClasspath.getArchiveMembersPredicate(ruleFinder);
   }
 
   public Predicate<SourcePath> getExistenceOfInterestPredicate() {
@@ -28,6 +28,14 @@ import java.nio.file.Path;
 /** Creates a JAR file from a collection of directories/ZIP/JAR files. */
 public class JarDirectoryStep implements Step {
 
+  /**
+   * Entries are read from files and zip files on disk, which is safe to do from several threads.
+   * The number of entries deflated ahead of the writer is kept small since many jars are usually
+   * built at the same time.
+   */
+  private static final int COMPRESSION_PARALLELISM =
+      Math.min(4, Runtime.getRuntime().availableProcessors());
+
   private final ProjectFilesystem filesystem;
 
   private final JarParameters parameters;
@@ -86,6 +94,7 @@ public class JarDirectoryStep implements Step {
             .setShouldDisallowAllDuplicates(parameters.getDisallowAllDuplicates())
             .setShouldHashEntries(parameters.getHashEntries())
             .setRemoveEntryPredicate(parameters.getRemoveEntryPredicate())
+            .setCompressionParallelism(COMPRESSION_PARALLELISM)
             .createJarFile(filesystem.resolve(parameters.getJarPath())));
   }
 }
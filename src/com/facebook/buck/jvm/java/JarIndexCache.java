@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import com.facebook.buck.util.cache.CacheStats;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Enumeration;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Thread-safe cache of the central directories of classpath jars, shared by all in-process javac
+ * invocations of the daemon.
+ *
+ * <p>Reading the central directory of every jar on the classpath is repeated by each compilation
+ * that has the jar on its classpath. This cache indexes each jar once by package, so that listing
+ * a package is a map lookup. Entries are keyed by the identity of the jar on disk (its path, size,
+ * modification time and file key), so a rewritten jar gets a new entry and stale entries are
+ * evicted as the cache fills up. The cache is bounded by the approximate memory used by the
+ * indexed entry names.
+ */
+public final class JarIndexCache {
+
+  /** Default upper bound on the approximate number of bytes retained by the cache. */
+  public static final long DEFAULT_MAXIMUM_WEIGHT = 128L * 1024 * 1024;
+
+  private static final JarIndexCache SHARED = create(DEFAULT_MAXIMUM_WEIGHT);
+
+  private final Cache<JarKey, JarIndex> cache;
+
+  private JarIndexCache(long maximumWeight) {
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maximumWeight)
+            .<JarKey, JarIndex>weigher((key, index) -> index.getWeight())
+            .recordStats()
+            .build();
+  }
+
+  /** @return a new cache that retains approximately {@code maximumWeight} bytes of indexes. */
+  public static JarIndexCache create(long maximumWeight) {
+    return new JarIndexCache(maximumWeight);
+  }
+
+  /** @return the cache shared by all compilations running in this process. */
+  public static JarIndexCache getShared() {
+    return SHARED;
+  }
+
+  /**
+   * @return the index of the jar at {@code jarPath}, reading its central directory if the jar has
+   *     not been indexed yet or has changed since it was indexed.
+   */
+  JarIndex get(Path jarPath) throws IOException {
+    Path absolutePath = jarPath.toAbsolutePath().normalize();
+    JarKey key = JarKey.of(absolutePath);
+    try {
+      return cache.get(key, () -> JarIndex.read(absolutePath));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IllegalStateException("Failed to index " + absolutePath, e.getCause());
+    }
+  }
+
+  /** Drops all cached indexes. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /** @return the stats of the cache */
+  public CacheStats getStats() {
+    com.google.common.cache.CacheStats stats = cache.stats();
+    return CacheStats.builder()
+        .setHitCount(stats.hitCount())
+        .setMissCount(stats.missCount())
+        .setEvictionCount(stats.evictionCount())
+        .setTotalLoadTime(stats.totalLoadTime())
+        .setNumberEntries(cache.size())
+        .build();
+  }
+
+  /** Identity of a jar on disk. */
+  @VisibleForTesting
+  static final class JarKey {
+    private final Path path;
+    private final long size;
+    private final long lastModifiedMillis;
+    private final Object fileKey;
+
+    private JarKey(Path path, long size, long lastModifiedMillis, Object fileKey) {
+      this.path = path;
+      this.size = size;
+      this.lastModifiedMillis = lastModifiedMillis;
+      this.fileKey = fileKey;
+    }
+
+    static JarKey of(Path path) throws IOException {
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      return new JarKey(
+          path,
+          attributes.size(),
+          attributes.lastModifiedTime().toMillis(),
+          attributes.fileKey() == null ? "" : attributes.fileKey());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof JarKey)) {
+        return false;
+      }
+      JarKey that = (JarKey) o;
+      return size == that.size
+          && lastModifiedMillis == that.lastModifiedMillis
+          && path.equals(that.path)
+          && fileKey.equals(that.fileKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(path, size, lastModifiedMillis, fileKey);
+    }
+  }
+
+  /** Entries of a single jar, grouped by package. */
+  static final class JarIndex {
+    /** Rough per-entry overhead of the strings and lists holding an entry name. */
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+
+    private final Path jarPath;
+    private final ImmutableSortedMap<String, ImmutableList<String>> entriesByPackage;
+    private final int weight;
+
+    private JarIndex(
+        Path jarPath, ImmutableSortedMap<String, ImmutableList<String>> entriesByPackage) {
+      this.jarPath = jarPath;
+      this.entriesByPackage = entriesByPackage;
+      long weight = 0;
+      for (ImmutableList<String> entries : entriesByPackage.values()) {
+        for (String entry : entries) {
+          weight += ENTRY_OVERHEAD_BYTES + 2L * entry.length();
+        }
+      }
+      this.weight = (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+
+    static JarIndex read(Path jarPath) throws IOException {
+      SortedMap<String, ImmutableList.Builder<String>> builders = new TreeMap<>();
+      try (ZipFile zipFile = new ZipFile(jarPath.toFile())) {
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+          ZipEntry entry = entries.nextElement();
+          if (entry.isDirectory()) {
+            continue;
+          }
+          String name = entry.getName();
+          int lastSlash = name.lastIndexOf('/');
+          String packageName = lastSlash < 0 ? "" : name.substring(0, lastSlash).replace('/', '.');
+          builders.computeIfAbsent(packageName, p -> ImmutableList.builder()).add(name);
+        }
+      }
+      ImmutableSortedMap.Builder<String, ImmutableList<String>> entriesByPackage =
+          ImmutableSortedMap.naturalOrder();
+      builders.forEach(
+          (packageName, builder) -> entriesByPackage.put(packageName, builder.build()));
+      return new JarIndex(jarPath, entriesByPackage.build());
+    }
+
+    Path getJarPath() {
+      return jarPath;
+    }
+
+    /**
+     * @return names of the entries in {@code packageName}, and in its subpackages if {@code
+     *     recurse} is set.
+     */
+    ImmutableList<String> list(String packageName, boolean recurse) {
+      if (!recurse) {
+        ImmutableList<String> entries = entriesByPackage.get(packageName);
+        return entries == null ? ImmutableList.of() : entries;
+      }
+      ImmutableList.Builder<String> result = ImmutableList.builder();
+      String subpackagePrefix = packageName.isEmpty() ? "" : packageName + ".";
+      entriesByPackage
+          .tailMap(packageName, true)
+          .forEach(
+              (candidate, entries) -> {
+                if (candidate.equals(packageName) || candidate.startsWith(subpackagePrefix)) {
+                  result.addAll(entries);
+                }
+              });
+      return result.build();
+    }
+
+    int getWeight() {
+      return weight;
+    }
+  }
+}
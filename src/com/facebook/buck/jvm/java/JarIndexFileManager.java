@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import com.facebook.buck.core.util.log.Logger;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharStreams;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * A {@link StandardJavaFileManager} that lists the contents of classpath jars from a {@link
+ * JarIndexCache} instead of reading their central directories again for every compilation.
+ *
+ * <p>Only classpaths that consist solely of jars are served from the index; if the classpath
+ * contains a directory, listing is left to the delegate so that the classpath order is preserved.
+ * The file objects handed out produce the same {@code jar:} URIs as javac's own, so that class
+ * usage tracking keeps working. Jars are only opened when a class is actually read, and are closed
+ * when the file manager is closed.
+ */
+class JarIndexFileManager extends ForwardingStandardJavaFileManager {
+
+  private static final Logger LOG = Logger.get(JarIndexFileManager.class);
+
+  private final JarIndexCache jarIndexCache;
+  private final Map<Path, ZipFile> openJars = new HashMap<>();
+  @Nullable private ImmutableList<Path> classPathJars;
+  private int listedPackages;
+
+  JarIndexFileManager(StandardJavaFileManager fileManager, JarIndexCache jarIndexCache) {
+    super(fileManager);
+    this.jarIndexCache = jarIndexCache;
+  }
+
+  @Override
+  public Iterable<JavaFileObject> list(
+      Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse)
+      throws IOException {
+    if (location != StandardLocation.CLASS_PATH) {
+      return super.list(location, packageName, kinds, recurse);
+    }
+    ImmutableList<Path> jars = getClassPathJars();
+    if (jars == null) {
+      return super.list(location, packageName, kinds, recurse);
+    }
+
+    listedPackages++;
+    ImmutableList.Builder<JavaFileObject> result = ImmutableList.builder();
+    for (Path jar : jars) {
+      JarIndexCache.JarIndex index = jarIndexCache.get(jar);
+      for (String entryName : index.list(packageName, recurse)) {
+        JavaFileObject.Kind kind = getKind(entryName);
+        if (kinds.contains(kind)) {
+          result.add(new IndexedJarEntry(index.getJarPath(), entryName, kind));
+        }
+      }
+    }
+    return result.build();
+  }
+
+  @Override
+  public String inferBinaryName(Location location, JavaFileObject file) {
+    if (file instanceof IndexedJarEntry) {
+      return ((IndexedJarEntry) file).getBinaryName();
+    }
+    return super.inferBinaryName(location, file);
+  }
+
+  @Override
+  public boolean isSameFile(FileObject a, FileObject b) {
+    if (a instanceof IndexedJarEntry || b instanceof IndexedJarEntry) {
+      return a.equals(b);
+    }
+    return super.isSameFile(a, b);
+  }
+
+  @Override
+  public void setLocation(Location location, Iterable<? extends File> path) throws IOException {
+    super.setLocation(location, path);
+    if (location == StandardLocation.CLASS_PATH) {
+      classPathJars = null;
+    }
+  }
+
+  @Override
+  public boolean handleOption(String current, Iterator<String> remaining) {
+    boolean handled = super.handleOption(current, remaining);
+    if (handled) {
+      classPathJars = null;
+    }
+    return handled;
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (openJars) {
+      for (ZipFile zipFile : openJars.values()) {
+        zipFile.close();
+      }
+      openJars.clear();
+    }
+    LOG.debug(
+        "Served %d classpath listings from the jar index (%s)",
+        listedPackages, jarIndexCache.getStats());
+    super.close();
+  }
+
+  /**
+   * @return the jars on the classpath, or {@code null} if the classpath has entries that are not
+   *     jars. Missing entries are ignored, as javac does.
+   */
+  @Nullable
+  private ImmutableList<Path> getClassPathJars() {
+    if (classPathJars != null) {
+      return classPathJars;
+    }
+    Iterable<? extends File> classPath = getLocation(StandardLocation.CLASS_PATH);
+    if (classPath == null) {
+      return null;
+    }
+    ImmutableList.Builder<Path> jars = ImmutableList.builder();
+    for (File file : classPath) {
+      Path path = file.toPath();
+      if (Files.isDirectory(path)) {
+        return null;
+      }
+      if (Files.isRegularFile(path)) {
+        jars.add(path);
+      }
+    }
+    classPathJars = jars.build();
+    return classPathJars;
+  }
+
+  private InputStream openEntry(Path jarPath, String entryName) throws IOException {
+    ZipFile zipFile;
+    synchronized (openJars) {
+      zipFile = openJars.get(jarPath);
+      if (zipFile == null) {
+        zipFile = new ZipFile(jarPath.toFile());
+        openJars.put(jarPath, zipFile);
+      }
+    }
+    ZipEntry entry = zipFile.getEntry(entryName);
+    if (entry == null) {
+      throw new IOException(String.format("%s no longer contains %s", jarPath, entryName));
+    }
+    return zipFile.getInputStream(entry);
+  }
+
+  private static JavaFileObject.Kind getKind(String entryName) {
+    for (JavaFileObject.Kind kind : JavaFileObject.Kind.values()) {
+      if (kind != JavaFileObject.Kind.OTHER && entryName.endsWith(kind.extension)) {
+        return kind;
+      }
+    }
+    return JavaFileObject.Kind.OTHER;
+  }
+
+  /** An entry of a classpath jar that is read lazily through the owning file manager. */
+  private class IndexedJarEntry implements JavaFileObject {
+    private final Path jarPath;
+    private final String entryName;
+    private final Kind kind;
+
+    private IndexedJarEntry(Path jarPath, String entryName, Kind kind) {
+      this.jarPath = jarPath;
+      this.entryName = entryName;
+      this.kind = kind;
+    }
+
+    private String getBinaryName() {
+      String name = entryName.substring(0, entryName.length() - kind.extension.length());
+      return name.replace('/', '.');
+    }
+
+    @Override
+    public Kind getKind() {
+      return kind;
+    }
+
+    @Override
+    public boolean isNameCompatible(String simpleName, Kind kind) {
+      String baseName = simpleName + kind.extension;
+      return kind.equals(this.kind)
+          && (baseName.equals(entryName) || entryName.endsWith("/" + baseName));
+    }
+
+    @Override
+    @Nullable
+    public NestingKind getNestingKind() {
+      return null;
+    }
+
+    @Override
+    @Nullable
+    public Modifier getAccessLevel() {
+      return null;
+    }
+
+    @Override
+    public URI toUri() {
+      // Same form as javac's own jar entries, which is what ClassUsageTracker expects.
+      return URI.create("jar:" + jarPath.toUri() + "!/" + entryName);
+    }
+
+    @Override
+    public String getName() {
+      return jarPath + "(" + entryName + ")";
+    }
+
+    @Override
+    public InputStream openInputStream() throws IOException {
+      return openEntry(jarPath, entryName);
+    }
+
+    @Override
+    public OutputStream openOutputStream() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Reader openReader(boolean ignoreEncodingErrors) throws IOException {
+      return new InputStreamReader(openInputStream(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+      try (Reader reader = openReader(ignoreEncodingErrors)) {
+        return CharStreams.toString(reader);
+      }
+    }
+
+    @Override
+    public Writer openWriter() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getLastModified() {
+      return 0L;
+    }
+
+    @Override
+    public boolean delete() {
+      return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof IndexedJarEntry)) {
+        return false;
+      }
+      IndexedJarEntry that = (IndexedJarEntry) o;
+      return jarPath.equals(that.jarPath) && entryName.equals(that.entryName);
+    }
+
+    @Override
+    public int hashCode() {
+      return jarPath.hashCode() * 31 + entryName.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return getClass().getName() + "[" + toUri() + "]";
+    }
+  }
+}
@@ -64,12 +64,19 @@ public class JavaBuckConfig implements ConfigView<BuckConfig> {
   private JavaBuckConfig(BuckConfig delegate) {
     this.delegate = delegate;
     this.javacSpecSupplier =
-        targetConfiguration ->
-            JavacSpec.builder()
-                .setJavacPath(getJavacPath(targetConfiguration))
-                .setJavacJarPath(getJavacJarPath(targetConfiguration))
-                .setCompilerClassName(delegate.getValue("tools", "compiler_class_name"))
-                .build();
+        targetConfiguration -> {
+          Optional<SourcePath> javacPath = getJavacPath(targetConfiguration);
+          Optional<SourcePath> javacJarPath = getJavacJarPath(targetConfiguration);
+          return JavacSpec.builder()
+              .setJavacPath(javacPath)
+              .setJavacJarPath(javacJarPath)
+              .setCompilerClassName(delegate.getValue("tools", "compiler_class_name"))
+              .setWorkerSettings(
+                  javacPath.isPresent() || javacJarPath.isPresent()
+                      ? Optional.empty()
+                      : getJavacWorkerSettings())
+              .build();
+        };
   }
 
   @Override
@@ -113,6 +120,9 @@ public class JavaBuckConfig implements ConfigView<BuckConfig> {
       builder.setTrackJavacPhaseEvents(trackJavacPhaseEvents.get());
     }
 
+    builder.setIncrementalCompilationEnabled(
+        delegate.getBooleanValue(SECTION, "incremental_compilation", false));
+
     Optional<JavacOptions.SpoolMode> spoolMode =
         delegate.getEnum(SECTION, "jar_spool_mode", JavacOptions.SpoolMode.class);
     if (spoolMode.isPresent()) {
@@ -179,6 +189,32 @@ public class JavaBuckConfig implements ConfigView<BuckConfig> {
     return javacSpecSupplier.apply(targetConfiguration);
   }
 
+  /**
+   * Settings of the pool of persistent javac processes, present when {@code java.javac_workers} is
+   * set to a positive number of workers. Only used when neither {@code tools.javac} nor {@code
+   * tools.javac_jar} is set.
+   *
+   * <p>Workers don't report the classes a compilation uses, so they require {@code
+   * java.track_class_usage} to be explicitly disabled rather than silently turning off dep-file
+   * rule keys of Java libraries.
+   */
+  public Optional<JavacWorkerSettings> getJavacWorkerSettings() {
+    int maxWorkers = delegate.getInteger(SECTION, "javac_workers").orElse(0);
+    if (maxWorkers <= 0) {
+      return Optional.empty();
+    }
+    if (delegate.getBoolean(SECTION, "track_class_usage").orElse(true)) {
+      throw new HumanReadableException(
+          "java.javac_workers requires java.track_class_usage = false: javac workers do not "
+              + "report the classes a compilation uses, which dep-file rule keys depend on.");
+    }
+    return Optional.of(
+        JavacWorkerSettings.of(
+            maxWorkers,
+            delegate.getValue(SECTION, "javac_worker_max_heap").orElse("1g"),
+            delegate.getInteger(SECTION, "javac_worker_max_compilations").orElse(500)));
+  }
+
   @VisibleForTesting
   Optional<SourcePath> getJavacPath(TargetConfiguration targetConfiguration) {
     Optional<SourcePath> sourcePath = delegate.getSourcePath("tools", "javac", targetConfiguration);
@@ -269,6 +305,14 @@ public class JavaBuckConfig implements ConfigView<BuckConfig> {
     return delegate.getValue("java", "test_temp_dir");
   }
 
+  /**
+   * Number of test classes of a java test to run in parallel in the same JVM. Tests run this way
+   * share static state, so this is only safe for tests that don't depend on it.
+   */
+  public int getTestClassParallelism() {
+    return Math.max(1, delegate.getInteger(SECTION, "test_class_parallelism").orElse(1));
+  }
+
   public Level getDuplicatesLogLevel() {
     return delegate
         .getEnum(SECTION, "duplicates_log_level", DuplicatesLogLevel.class)
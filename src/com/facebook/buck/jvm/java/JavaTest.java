@@ -74,6 +74,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -221,6 +223,11 @@ public class JavaTest extends AbstractBuildRuleWithDeclaredAndExtraDeps
 
     Iterable<String> reorderedTestClasses =
         reorderClasses(testClassNames, options.isShufflingTests());
+    int testClassParallelism =
+        testType == TestType.JUNIT ? options.getJavaTestClassParallelism() : 1;
+    if (testClassParallelism > 1 && testClassNames.size() > 1 && !options.isShufflingTests()) {
+      reorderedTestClasses = orderByPreviousRunTime(reorderedTestClasses);
+    }
 
     ImmutableList<String> properVmArgs =
         amendVmArgs(
@@ -253,6 +260,7 @@ public class JavaTest extends AbstractBuildRuleWithDeclaredAndExtraDeps
             .setStdErrLogLevel(stdErrLogLevel)
             .setRobolectricLogPath(robolectricLogPath)
             .setExtraJvmArgs(properVmArgs)
+            .setTestClassParallelism(testClassParallelism)
             .addAllTestClasses(reorderedTestClasses)
             .setShouldExplainTestSelectorList(options.shouldExplainTestSelectorList())
             .setTestSelectorList(testSelectorList)
@@ -349,6 +357,34 @@ public class JavaTest extends AbstractBuildRuleWithDeclaredAndExtraDeps
     return reorderedClassNames;
   }
 
+  /**
+   * Orders test classes so that the ones that ran longest in the previous run of this test start
+   * first, which keeps the test runner threads busy until the end when classes run in parallel.
+   * Classes that have no previous result start before all others, in their original order.
+   */
+  private Iterable<String> orderByPreviousRunTime(Iterable<String> testClassNames) {
+    Map<String, Long> previousRunTimes = new HashMap<>();
+    for (String testClass : testClassNames) {
+      Path resultFile =
+          getProjectFilesystem()
+              .getPathForRelativePath(getPathToTestOutputDirectory().resolve(testClass + ".xml"));
+      if (!Files.isRegularFile(resultFile)) {
+        continue;
+      }
+      try {
+        previousRunTimes.put(testClass, XmlTestResultParser.parse(resultFile).getTotalTime());
+      } catch (IOException | RuntimeException e) {
+        LOG.debug(e, "Failed to read the previous result of %s.", testClass);
+      }
+    }
+    List<String> orderedClassNames = Lists.newArrayList(testClassNames);
+    orderedClassNames.sort(
+        Comparator.comparingLong(
+                (String testClass) -> previousRunTimes.getOrDefault(testClass, Long.MAX_VALUE))
+            .reversed());
+    return orderedClassNames;
+  }
+
   ImmutableList<String> amendVmArgs(
       ImmutableList<String> existingVmArgs,
       SourcePathResolverAdapter pathResolver,
@@ -66,6 +66,8 @@ public interface Javac extends Tool {
     JAR,
     /** Run javac in-process, loading it from the JRE in which Buck is running. */
     JDK,
+    /** Run javac from the JRE in which Buck is running in a pool of persistent processes. */
+    WORKER,
   }
 
   interface Invocation extends AutoCloseable {
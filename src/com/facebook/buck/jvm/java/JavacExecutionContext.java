@@ -24,8 +24,11 @@ import com.facebook.buck.jvm.core.JavaPackageFinder;
 import com.facebook.buck.util.ClassLoaderCache;
 import com.facebook.buck.util.ProcessExecutor;
 import com.facebook.buck.util.Verbosity;
+import com.facebook.buck.worker.WorkerProcessParams;
+import com.facebook.buck.worker.WorkerProcessPool;
 import com.google.common.collect.ImmutableMap;
 import java.io.PrintStream;
+import java.util.function.Function;
 
 @BuckStyleValue
 public interface JavacExecutionContext {
@@ -48,4 +51,7 @@ public interface JavacExecutionContext {
   ImmutableMap<String, String> getEnvironment();
 
   ProcessExecutor getProcessExecutor();
+
+  /** Returns the pool of worker processes for the given params, creating it if necessary. */
+  Function<WorkerProcessParams, WorkerProcessPool> getWorkerProcessPoolProvider();
 }
@@ -131,6 +131,16 @@ public abstract class JavacOptions implements AddsToRuleKey {
     return false;
   }
 
+  /**
+   * Whether a library only recompiles the sources that changed since its previous build, and the
+   * sources depending on them, instead of all of its sources.
+   */
+  @Value.Default
+  @AddToRuleKey
+  public boolean isIncrementalCompilationEnabled() {
+    return false;
+  }
+
   public void validateOptions(Function<String, Boolean> classpathChecker) throws IOException {
     if (getBootclasspath().isPresent()) {
       String bootclasspath = getBootclasspath().get();
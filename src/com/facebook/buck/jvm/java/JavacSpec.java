@@ -30,6 +30,8 @@ public abstract class JavacSpec {
 
   public abstract Optional<String> getCompilerClassName();
 
+  public abstract Optional<JavacWorkerSettings> getWorkerSettings();
+
   @Value.Lazy
   public JavacProvider getJavacProvider() {
     return ExternalJavacProvider.getProviderForSpec(this);
@@ -44,6 +46,8 @@ public abstract class JavacSpec {
       return Javac.Source.EXTERNAL;
     } else if (getJavacJarPath().isPresent()) {
       return Javac.Source.JAR;
+    } else if (getWorkerSettings().isPresent()) {
+      return Javac.Source.WORKER;
     } else {
       return Javac.Source.JDK;
     }
@@ -24,6 +24,7 @@ import com.facebook.buck.core.model.BuildTarget;
 import com.facebook.buck.core.rulekey.AddToRuleKey;
 import com.facebook.buck.core.rulekey.AddsToRuleKey;
 import com.facebook.buck.core.util.log.Logger;
+import com.facebook.buck.event.ConsoleEvent;
 import com.facebook.buck.io.BuildCellRelativePath;
 import com.facebook.buck.io.filesystem.ProjectFilesystem;
 import com.facebook.buck.jvm.core.JavaAbis;
@@ -99,6 +100,19 @@ public class JavacToJarStepFactory extends CompileToJarStepFactory implements Ad
 
     addAnnotationGenFolderStep(invokingRule, projectFilesystem, steps, buildableContext, context);
 
+    if (isIncrementalCompilationApplicable(invokingRule)) {
+      steps.add(
+          new IncrementalJavacStep(
+              javac,
+              buildTimeOptions,
+              invokingRule,
+              context.getSourcePathResolver(),
+              projectFilesystem,
+              parameters,
+              CompilerOutputPaths.getIncrementalStatePath(invokingRule, projectFilesystem)));
+      return;
+    }
+
     steps.add(
         new JavacStep(
             javac,
@@ -112,6 +126,32 @@ public class JavacToJarStepFactory extends CompileToJarStepFactory implements Ad
             null));
   }
 
+  /**
+   * Annotation processors and plugins may generate or inspect code across source files, so
+   * libraries using them are always compiled from scratch.
+   */
+  private boolean isIncrementalCompilationApplicable(BuildTarget invokingRule) {
+    return javacOptions.isIncrementalCompilationEnabled()
+        && JavaAbis.isLibraryTarget(invokingRule)
+        && javacOptions.getJavaAnnotationProcessorParams().isEmpty()
+        && javacOptions.getStandardJavacPluginParams().isEmpty();
+  }
+
+  /**
+   * Source ABIs are generated by the same javac invocation that compiles the library straight into
+   * its jar, which leaves no classes directory to compile incrementally against.
+   */
+  private void warnIncrementalCompilationIgnored(BuildContext context, BuildTarget invokingRule) {
+    if (isIncrementalCompilationApplicable(invokingRule)) {
+      context
+          .getEventBus()
+          .post(
+              ConsoleEvent.warning(
+                  "%s: java.incremental_compilation is ignored for libraries with source ABIs.",
+                  invokingRule));
+    }
+  }
+
   public final void createPipelinedCompileToJarStep(
       BuildContext context,
       ProjectFilesystem projectFilesystem,
@@ -125,6 +165,7 @@ public class JavacToJarStepFactory extends CompileToJarStepFactory implements Ad
     CompilerParameters compilerParameters = pipeline.getCompilerParameters();
 
     addAnnotationGenFolderStep(target, projectFilesystem, steps, buildableContext, context);
+    warnIncrementalCompilationIgnored(context, target);
 
     if (!pipeline.isRunning()) {
       addCompilerSetupSteps(
@@ -185,11 +226,13 @@ public class JavacToJarStepFactory extends CompileToJarStepFactory implements Ad
     // (1) It must be enabled through a .buckconfig.
     // (2) The target must have 0 postprocessing steps.
     // (3) Tha compile API must be JSR 199.
+    // (4) The target must not be compiled incrementally, which works on the classes directory.
     boolean isSpoolingToJarEnabled =
         compilerParameters.getAbiGenerationMode().isSourceAbi()
             || (postprocessClassesCommands.isEmpty()
                 && javacOptions.getSpoolMode() == JavacOptions.SpoolMode.DIRECT_TO_JAR
-                && javac instanceof Jsr199Javac);
+                && javac instanceof Jsr199Javac
+                && !isIncrementalCompilationApplicable(invokingRule));
 
     LOG.info(
         "Target: %s SpoolMode: %s Expected SpoolMode: %s Postprocessing steps: %s",
@@ -199,6 +242,7 @@ public class JavacToJarStepFactory extends CompileToJarStepFactory implements Ad
         postprocessClassesCommands.toString());
 
     if (isSpoolingToJarEnabled) {
+      warnIncrementalCompilationIgnored(context, invokingRule);
       JavacOptions buildTimeOptions =
           javacOptions.withBootclasspathFromContext(extraClasspathProvider);
 
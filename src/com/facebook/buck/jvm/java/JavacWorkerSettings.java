@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import com.facebook.buck.core.util.immutables.BuckStyleValue;
+
+/** Configuration of the pool of persistent processes used by {@link WorkerJavac}. */
+@BuckStyleValue
+public abstract class JavacWorkerSettings {
+  /** Maximum number of javac worker processes running at the same time. */
+  public abstract int getMaxWorkers();
+
+  /** Maximum heap of each worker process, in the form accepted by {@code -Xmx}. */
+  public abstract String getMaxHeap();
+
+  /** Number of compilations after which a worker process is replaced by a fresh one. */
+  public abstract int getMaxCompilationsPerWorker();
+
+  public static JavacWorkerSettings of(
+      int maxWorkers, String maxHeap, int maxCompilationsPerWorker) {
+    return ImmutableJavacWorkerSettings.of(maxWorkers, maxHeap, maxCompilationsPerWorker);
+  }
+}
@@ -504,7 +504,8 @@ class Jsr199JavacInvocation implements Javac.Invocation {
           JavaCompiler compiler = compilerConstructor.get();
 
           StandardJavaFileManager standardFileManager =
-              compiler.getStandardFileManager(null, null, null);
+              new JarIndexFileManager(
+                  compiler.getStandardFileManager(null, null, null), JarIndexCache.getShared());
           addCloseable(standardFileManager);
 
           // Ensure plugins are loaded from their own classloader.
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import com.facebook.buck.core.exceptions.HumanReadableException;
+import com.facebook.buck.core.model.BuildTarget;
+import com.facebook.buck.core.sourcepath.resolver.SourcePathResolverAdapter;
+import com.facebook.buck.io.filesystem.ProjectFilesystem;
+import com.facebook.buck.jvm.java.abi.AbiGenerationMode;
+import com.facebook.buck.jvm.java.abi.source.api.SourceOnlyAbiRuleInfoFactory;
+import com.facebook.buck.jvm.java.worker.JavacWorkerJob;
+import com.facebook.buck.jvm.java.worker.JavacWorkerMain;
+import com.facebook.buck.util.env.BuckClasspath;
+import com.facebook.buck.worker.WorkerJobResult;
+import com.facebook.buck.worker.WorkerProcessIdentity;
+import com.facebook.buck.worker.WorkerProcessParams;
+import com.facebook.buck.worker.WorkerProcessPool;
+import com.facebook.buck.worker.WorkerProcessPool.BorrowedWorkerProcess;
+import com.google.common.base.Joiner;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import javax.annotation.Nullable;
+
+/**
+ * javac running in a pool of persistent worker processes.
+ *
+ * <p>Workers are JVMs separate from the daemon, so compilations don't compete with it for heap, and
+ * they are kept alive across builds so the compiler and the indexes of classpath jars stay warm.
+ * Like {@link ExternalJavac}, workers only compile classes to a directory and don't track class
+ * usage. Invocations that need more than that, such as building source ABI jars or spooling
+ * classes directly to a jar, are compiled in-process instead.
+ */
+public class WorkerJavac implements Javac {
+  private static final String PERSISTENT_WORKER_KEY_PREFIX = "javac-worker:";
+
+  private final JavacWorkerSettings settings;
+  private final Javac inProcessJavac = new JdkProvidedInMemoryJavac();
+
+  public WorkerJavac(JavacWorkerSettings settings) {
+    this.settings = settings;
+  }
+
+  @Override
+  public ImmutableList<String> getCommandPrefix(SourcePathResolverAdapter resolver) {
+    throw new UnsupportedOperationException("Worker javac may not be used externally");
+  }
+
+  @Override
+  public ImmutableMap<String, String> getEnvironment(SourcePathResolverAdapter resolver) {
+    throw new UnsupportedOperationException("Worker javac may not be used externally");
+  }
+
+  @Override
+  public String getDescription(
+      ImmutableList<String> options,
+      ImmutableSortedSet<Path> javaSourceFilePaths,
+      Path pathToSrcsList) {
+    StringBuilder builder = new StringBuilder(getShortName());
+    builder.append(" ");
+    Joiner.on(" ").appendTo(builder, options);
+    builder.append(" ");
+    builder.append("@").append(pathToSrcsList);
+
+    return builder.toString();
+  }
+
+  @Override
+  public String getShortName() {
+    return "javac";
+  }
+
+  @Override
+  public Invocation newBuildInvocation(
+      JavacExecutionContext context,
+      SourcePathResolverAdapter sourcePathResolverAdapter,
+      BuildTarget invokingRule,
+      ImmutableList<String> options,
+      ImmutableList<JavacPluginJsr199Fields> annotationProcessors,
+      ImmutableList<JavacPluginJsr199Fields> javacPlugins,
+      ImmutableSortedSet<Path> javaSourceFilePaths,
+      Path pathToSrcsList,
+      Path workingDirectory,
+      boolean trackClassUsage,
+      boolean trackJavacPhaseEvents,
+      @Nullable JarParameters abiJarParameters,
+      @Nullable JarParameters libraryJarParameters,
+      AbiGenerationMode abiGenerationMode,
+      AbiGenerationMode abiCompatibilityMode,
+      @Nullable SourceOnlyAbiRuleInfoFactory ruleInfoFactory) {
+    if (abiJarParameters != null
+        || libraryJarParameters != null
+        || abiGenerationMode != AbiGenerationMode.CLASS
+        || trackClassUsage) {
+      return inProcessJavac.newBuildInvocation(
+          context,
+          sourcePathResolverAdapter,
+          invokingRule,
+          options,
+          annotationProcessors,
+          javacPlugins,
+          javaSourceFilePaths,
+          pathToSrcsList,
+          workingDirectory,
+          trackClassUsage,
+          trackJavacPhaseEvents,
+          abiJarParameters,
+          libraryJarParameters,
+          abiGenerationMode,
+          abiCompatibilityMode,
+          ruleInfoFactory);
+    }
+
+    return new Invocation() {
+      @Override
+      public int buildSourceOnlyAbiJar() {
+        throw new UnsupportedOperationException(
+            "Cannot build source-only ABI jar with worker javac.");
+      }
+
+      @Override
+      public int buildSourceAbiJar() {
+        throw new UnsupportedOperationException("Cannot build source ABI jar with worker javac.");
+      }
+
+      @Override
+      public int buildClasses() throws InterruptedException {
+        Preconditions.checkArgument(
+            abiGenerationMode == AbiGenerationMode.CLASS,
+            "Cannot compile ABI jars with worker javac");
+        ImmutableList<Path> expandedSources;
+        try {
+          expandedSources =
+              JavaPaths.extractArchivesAndGetPaths(
+                  context.getProjectFilesystem(),
+                  context.getProjectFilesystemFactory(),
+                  javaSourceFilePaths,
+                  workingDirectory);
+        } catch (IOException e) {
+          throw new HumanReadableException(
+              "Unable to expand sources for %s into %s", invokingRule, workingDirectory);
+        }
+
+        // See ExternalJavac: kotlin_library() may add a JavacStep with nothing to compile.
+        if (expandedSources.isEmpty()) {
+          return 0;
+        }
+
+        WorkerJobResult result;
+        try {
+          String job =
+              new JavacWorkerJob(
+                      options,
+                      expandedSources.stream()
+                          .map(Object::toString)
+                          .collect(ImmutableList.toImmutableList()))
+                  .toJson();
+          WorkerProcessPool pool =
+              context
+                  .getWorkerProcessPoolProvider()
+                  .apply(getWorkerProcessParams(context.getProjectFilesystem()));
+          try (BorrowedWorkerProcess worker = pool.borrowWorkerProcess()) {
+            result = worker.submitAndWaitForJob(job);
+          }
+        } catch (IOException e) {
+          e.printStackTrace(context.getStdErr());
+          return 1;
+        }
+
+        result.getStderr().ifPresent(context.getStdErr()::print);
+        return result.getExitCode();
+      }
+
+      @Override
+      public void close() {
+        // Nothing to do
+      }
+    };
+  }
+
+  private WorkerProcessParams getWorkerProcessParams(ProjectFilesystem filesystem)
+      throws IOException {
+    ImmutableList<String> startupCommand =
+        ImmutableList.of(
+            Paths.get(Objects.requireNonNull(System.getProperty("java.home")), "bin", "java")
+                .toString(),
+            "-Xmx" + settings.getMaxHeap(),
+            "-cp",
+            Joiner.on(File.pathSeparator).join(BuckClasspath.getClasspath()),
+            JavacWorkerMain.class.getName());
+    // Workers run in the root of the filesystem they were started for, so each cell gets its own
+    // pool. Changing the settings or Buck's classpath restarts the workers.
+    return WorkerProcessParams.of(
+        filesystem.getBuckPaths().getTmpDir().resolve("javac-worker"),
+        startupCommand,
+        ImmutableMap.of(),
+        settings.getMaxWorkers(),
+        Optional.of(
+            WorkerProcessIdentity.of(
+                PERSISTENT_WORKER_KEY_PREFIX + filesystem.getRootPath(),
+                Hashing.sha1()
+                    .hashString(
+                        Joiner.on(' ').join(startupCommand)
+                            + " "
+                            + settings.getMaxCompilationsPerWorker(),
+                        StandardCharsets.UTF_8))),
+        OptionalInt.of(settings.getMaxCompilationsPerWorker()));
+  }
+}
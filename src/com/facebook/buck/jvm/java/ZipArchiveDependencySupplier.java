@@ -16,16 +16,21 @@
 
 package com.facebook.buck.jvm.java;
 
+import com.facebook.buck.core.model.BuildTarget;
 import com.facebook.buck.core.rulekey.AddToRuleKey;
 import com.facebook.buck.core.rules.BuildRule;
 import com.facebook.buck.core.rules.SourcePathRuleFinder;
+import com.facebook.buck.core.sourcepath.ArchiveMemberSourcePath;
 import com.facebook.buck.core.sourcepath.BuildTargetSourcePath;
 import com.facebook.buck.core.sourcepath.SourcePath;
 import com.facebook.buck.jvm.core.HasJavaAbi;
+import com.facebook.buck.jvm.core.JavaAbiInfo;
 import com.facebook.buck.rules.keys.ArchiveDependencySupplier;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSortedSet;
 import java.util.Objects;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 public class ZipArchiveDependencySupplier implements ArchiveDependencySupplier {
@@ -38,13 +43,49 @@ public class ZipArchiveDependencySupplier implements ArchiveDependencySupplier {
   @Override
   public Stream<SourcePath> getArchiveMembers(SourcePathRuleFinder ruleFinder) {
     return zipFiles.stream()
-        .flatMap(
-            zipSourcePath -> {
-              BuildRule rule = ruleFinder.getRule((BuildTargetSourcePath) zipSourcePath);
-              HasJavaAbi hasJavaAbi = (HasJavaAbi) rule;
-              SourcePath ruleOutput = Objects.requireNonNull(rule.getSourcePathToOutput());
-              Preconditions.checkState(ruleOutput.equals(zipSourcePath));
-              return hasJavaAbi.getAbiInfo().getJarContents().stream();
-            });
+        .flatMap(zipSourcePath -> getAbiInfo(ruleFinder, zipSourcePath).getJarContents().stream());
+  }
+
+  /**
+   * Returns a predicate that matches the same source paths as {@link #getArchiveMembers}.
+   *
+   * <p>Rather than collecting the members of every archive into one set, a source path is only
+   * looked up among the contents of the archive it belongs to. This keeps computing dependency file
+   * rule keys cheap for rules with a large classpath, where only a few classes of each archive are
+   * usually recorded as used.
+   */
+  public Predicate<SourcePath> getArchiveMembersPredicate(SourcePathRuleFinder ruleFinder) {
+    ImmutableListMultimap.Builder<BuildTarget, JavaAbiInfo> abiInfosBuilder =
+        ImmutableListMultimap.builder();
+    for (SourcePath zipSourcePath : zipFiles) {
+      abiInfosBuilder.put(
+          ((BuildTargetSourcePath) zipSourcePath).getTarget(),
+          getAbiInfo(ruleFinder, zipSourcePath));
+    }
+    ImmutableListMultimap<BuildTarget, JavaAbiInfo> abiInfos = abiInfosBuilder.build();
+    return sourcePath -> {
+      SourcePath containerSourcePath =
+          sourcePath instanceof ArchiveMemberSourcePath
+              ? ((ArchiveMemberSourcePath) sourcePath).getArchiveSourcePath()
+              : sourcePath;
+      if (!(containerSourcePath instanceof BuildTargetSourcePath)) {
+        return false;
+      }
+      BuildTarget target = ((BuildTargetSourcePath) containerSourcePath).getTarget();
+      for (JavaAbiInfo abiInfo : abiInfos.get(target)) {
+        if (abiInfo.getJarContents().contains(sourcePath)) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+
+  private static JavaAbiInfo getAbiInfo(SourcePathRuleFinder ruleFinder, SourcePath zipSourcePath) {
+    BuildRule rule = ruleFinder.getRule((BuildTargetSourcePath) zipSourcePath);
+    HasJavaAbi hasJavaAbi = (HasJavaAbi) rule;
+    SourcePath ruleOutput = Objects.requireNonNull(rule.getSourcePathToOutput());
+    Preconditions.checkState(ruleOutput.equals(zipSourcePath));
+    return hasJavaAbi.getAbiInfo();
   }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java.abi;
+
+import com.facebook.buck.util.cache.CacheStats;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
+
+/**
+ * Thread-safe cache of the stubs of individual classes, shared by all ABI jars computed from class
+ * files in this process.
+ *
+ * <p>The stub of a class only depends on the bytes of the class and on the compatibility mode, so
+ * stubs are keyed by a hash of both and shared between rules, and between builds run by the same
+ * daemon. When a single class of a large library changes, only that class is stubbed again. Classes
+ * of Kotlin modules are not cached, since their stubs also depend on the inline functions of other
+ * classes of the module.
+ */
+public final class ClassAbiCache {
+
+  /** Default upper bound on the approximate number of bytes retained by the cache. */
+  public static final long DEFAULT_MAXIMUM_WEIGHT = 64L * 1024 * 1024;
+
+  /** Rough overhead of an entry on top of the bytes of its stub. */
+  private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+  private static final ClassAbiCache SHARED = create(DEFAULT_MAXIMUM_WEIGHT);
+
+  private final Cache<HashCode, Optional<byte[]>> cache;
+
+  private ClassAbiCache(long maximumWeight) {
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maximumWeight)
+            .<HashCode, Optional<byte[]>>weigher(
+                (key, stub) -> ENTRY_OVERHEAD_BYTES + stub.map(bytes -> bytes.length).orElse(0))
+            .recordStats()
+            .build();
+  }
+
+  /** @return a new cache that retains approximately {@code maximumWeight} bytes of stubs. */
+  public static ClassAbiCache create(long maximumWeight) {
+    return new ClassAbiCache(maximumWeight);
+  }
+
+  /** @return the cache shared by all ABI jars computed in this process. */
+  public static ClassAbiCache getShared() {
+    return SHARED;
+  }
+
+  /**
+   * @return the stub of the class made of {@code classBytes}, or {@link Optional#empty()} if the
+   *     class is not part of the ABI, computing it with {@code loader} if it is not cached yet.
+   */
+  Optional<byte[]> get(
+      byte[] classBytes,
+      @Nullable AbiGenerationMode compatibilityMode,
+      Callable<Optional<byte[]>> loader)
+      throws IOException {
+    Hasher hasher = Hashing.sha1().newHasher();
+    hasher.putString(String.valueOf(compatibilityMode), StandardCharsets.UTF_8);
+    hasher.putBytes(classBytes);
+    try {
+      return cache.get(hasher.hash(), loader);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /** Drops all cached stubs. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /** @return the stats of the cache */
+  public CacheStats getStats() {
+    com.google.common.cache.CacheStats stats = cache.stats();
+    return CacheStats.builder()
+        .setHitCount(stats.hitCount())
+        .setMissCount(stats.missCount())
+        .setEvictionCount(stats.evictionCount())
+        .setTotalLoadTime(stats.totalLoadTime())
+        .setNumberEntries(cache.size())
+        .build();
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java.abi;
+
+import com.facebook.buck.util.function.ThrowingSupplier;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** A {@link StubJarWriter} that records a hash of every stub instead of writing it out. */
+class HashingStubJarWriter implements StubJarWriter {
+  private final Map<Path, HashCode> hashes = new TreeMap<>();
+
+  @Override
+  public void writeEntry(
+      Path relativePath, ThrowingSupplier<InputStream, IOException> streamSupplier) {
+    try (InputStream stream = streamSupplier.get()) {
+      hashes.put(relativePath, Hashing.sha1().hashBytes(ByteStreams.toByteArray(stream)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public ImmutableSortedMap<Path, HashCode> getHashes() {
+    return ImmutableSortedMap.copyOf(hashes);
+  }
+
+  @Override
+  public void close() {}
+}
@@ -53,6 +53,9 @@ interface LibraryReader extends AutoCloseable {
 
   InputStream openResourceFile(Path relativePath) throws IOException;
 
+  /** Opens the class file at {@code relativePath}, for readers backed by class files. */
+  InputStream openClassFile(Path relativePath) throws IOException;
+
   void visitClass(Path relativePath, ClassVisitor cv, boolean skipCode) throws IOException;
 
   @Override
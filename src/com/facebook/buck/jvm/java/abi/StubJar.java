@@ -19,12 +19,21 @@ package com.facebook.buck.jvm.java.abi;
 import com.facebook.buck.io.filesystem.ProjectFilesystem;
 import com.facebook.buck.jvm.java.lang.model.ElementsExtended;
 import com.facebook.buck.util.zip.JarBuilder;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
@@ -35,10 +44,14 @@ import javax.lang.model.util.Types;
 
 public class StubJar {
   private final Supplier<LibraryReader> libraryReaderSupplier;
+  private final boolean readsClassFiles;
   @Nullable private AbiGenerationMode compatibilityMode = null;
+  @Nullable private ClassAbiCache classAbiCache;
 
   public StubJar(Path toMirror) {
     libraryReaderSupplier = () -> LibraryReader.of(toMirror);
+    readsClassFiles = true;
+    classAbiCache = ClassAbiCache.getShared();
   }
 
   /**
@@ -64,6 +77,7 @@ public class StubJar {
                 messager,
                 topLevelElements,
                 includeParameterMetadata);
+    readsClassFiles = false;
   }
 
   /**
@@ -76,6 +90,16 @@ public class StubJar {
     return this;
   }
 
+  /**
+   * Sets the cache of class stubs to use, or disables caching if {@code null}. Stubs are cached by
+   * default when mirroring class files, and never when stubbing from source.
+   */
+  public StubJar setClassAbiCache(@Nullable ClassAbiCache classAbiCache) {
+    Preconditions.checkState(readsClassFiles || classAbiCache == null);
+    this.classAbiCache = classAbiCache;
+    return this;
+  }
+
   public void writeTo(ProjectFilesystem filesystem, Path path) throws IOException {
     // The order of these declarations is important -- FilesystemStubJarWriter actually uses
     // the LibraryReader in its close method, and try-with-resources closes the items in the
@@ -93,6 +117,21 @@ public class StubJar {
     }
   }
 
+  /**
+   * Computes the stubs without writing them out.
+   *
+   * @return a hash of the stub of every entry, keyed by the path of the entry in the library
+   */
+  public ImmutableSortedMap<Path, HashCode> hashEntries() throws IOException {
+    HashingStubJarWriter writer = new HashingStubJarWriter();
+    try (LibraryReader input = libraryReaderSupplier.get()) {
+      writeTo(input, writer);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return writer.getHashes();
+  }
+
   private void writeTo(LibraryReader input, StubJarWriter writer) throws IOException {
     List<Path> relativePaths = input.getRelativePaths();
     Comparator<Path> visitOuterClassesFirst = Comparator.comparing(StubJar::pathWithoutClassSuffix);
@@ -103,6 +142,11 @@ public class StubJar {
 
     boolean isKotlinModule = isKotlinModule(relativePaths);
     for (Path path : paths) {
+      if (classAbiCache != null && !isKotlinModule && input.isClass(path)) {
+        writeCachedClassEntry(input, path, writer, classAbiCache);
+        continue;
+      }
+
       StubJarEntry entry =
           StubJarEntry.of(input, path, compatibilityMode, isKotlinModule, inlineFunctions);
       if (entry == null) {
@@ -113,6 +157,29 @@ public class StubJar {
     }
   }
 
+  private void writeCachedClassEntry(
+      LibraryReader input, Path path, StubJarWriter writer, ClassAbiCache cache)
+      throws IOException {
+    byte[] classBytes;
+    try (InputStream classFile = input.openClassFile(path)) {
+      classBytes = ByteStreams.toByteArray(classFile);
+    }
+    Optional<byte[]> stub =
+        cache.get(
+            classBytes,
+            compatibilityMode,
+            () -> {
+              StubJarClassEntry entry =
+                  StubJarClassEntry.of(
+                      input, path, compatibilityMode, false, Collections.emptyMap());
+              return entry == null ? Optional.empty() : Optional.of(entry.toByteArray());
+            });
+    if (stub.isPresent()) {
+      byte[] stubBytes = stub.get();
+      writer.writeEntry(path, () -> new ByteArrayInputStream(stubBytes));
+    }
+  }
+
   private boolean isKotlinModule(List<Path> relativePaths) {
     return relativePaths.stream().anyMatch(path -> path.toString().endsWith(".kotlin_module"));
   }
@@ -142,6 +142,11 @@ class StubJarClassEntry extends StubJarEntry {
   }
 
   private InputStream openInputStream() {
+    return new ByteArrayInputStream(toByteArray());
+  }
+
+  /** @return the bytes of the stub class. */
+  byte[] toByteArray() {
     ClassWriter writer = new ClassWriter(0);
     ClassVisitor visitor = writer;
     if (!retainEverything) {
@@ -151,7 +156,7 @@ class StubJarClassEntry extends StubJarEntry {
 
     stub.accept(visitor);
 
-    return new ByteArrayInputStream(writer.toByteArray());
+    return writer.toByteArray();
   }
 
   private static boolean isSyntheticClass(ClassNode node) {
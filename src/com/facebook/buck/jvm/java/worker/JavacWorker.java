@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java.worker;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+
+/**
+ * Compiles {@link JavacWorkerJob}s with a single, long-lived {@link JavaCompiler}.
+ *
+ * <p>The {@link StandardJavaFileManager} is shared between compilations so that the indexes of
+ * classpath jars it opened stay warm. The file manager is recreated whenever a jar on the paths
+ * of a job changed since it was last indexed, since it would otherwise serve stale contents, and
+ * whenever a job passes different file manager options, such as {@code -encoding} or {@code
+ * -extdirs}, than the job before it, since javac applies those to the file manager for good.
+ *
+ * <p>Path options are applied to the shared file manager directly rather than passed to the
+ * compiler: some versions of javac ignore path options of a task once the file manager has
+ * computed a location, which would make a job see the paths of the job that ran before it.
+ */
+public class JavacWorker implements Closeable {
+
+  /** Options that set a location of the file manager, and the location they set. */
+  private static final ImmutableMap<String, StandardLocation> LOCATION_OPTIONS =
+      ImmutableMap.<String, StandardLocation>builder()
+          .put("-d", StandardLocation.CLASS_OUTPUT)
+          .put("-s", StandardLocation.SOURCE_OUTPUT)
+          .put("-classpath", StandardLocation.CLASS_PATH)
+          .put("-cp", StandardLocation.CLASS_PATH)
+          .put("--class-path", StandardLocation.CLASS_PATH)
+          .put("-sourcepath", StandardLocation.SOURCE_PATH)
+          .put("--source-path", StandardLocation.SOURCE_PATH)
+          .put("-bootclasspath", StandardLocation.PLATFORM_CLASS_PATH)
+          .put("--boot-class-path", StandardLocation.PLATFORM_CLASS_PATH)
+          .put("-processorpath", StandardLocation.ANNOTATION_PROCESSOR_PATH)
+          .put("--processor-path", StandardLocation.ANNOTATION_PROCESSOR_PATH)
+          .build();
+
+  /** Locations whose jars are indexed, and cached, by the file manager. */
+  private static final ImmutableSet<StandardLocation> INDEXED_LOCATIONS =
+      ImmutableSet.of(
+          StandardLocation.CLASS_PATH,
+          StandardLocation.PLATFORM_CLASS_PATH,
+          StandardLocation.ANNOTATION_PROCESSOR_PATH);
+
+  private final JavaCompiler compiler;
+  @Nullable private StandardJavaFileManager fileManager;
+  private ImmutableMap<Path, String> indexedJars = ImmutableMap.of();
+  private ImmutableList<String> fileManagerOptions = ImmutableList.of();
+  private int fileManagerRecreations = 0;
+
+  public JavacWorker(JavaCompiler compiler) {
+    this.compiler = compiler;
+  }
+
+  /**
+   * Runs a single compilation and writes its diagnostics to {@code diagnostics}.
+   *
+   * @return the exit code of the compilation, {@code 0} on success.
+   */
+  public int compile(JavacWorkerJob job, Writer diagnostics) throws IOException {
+    Map<StandardLocation, ImmutableList<File>> locations = new EnumMap<>(StandardLocation.class);
+    ImmutableList.Builder<String> options = ImmutableList.builder();
+    ImmutableList<String> jobOptions = job.getOptions();
+    for (int i = 0; i < jobOptions.size(); i++) {
+      StandardLocation location = LOCATION_OPTIONS.get(jobOptions.get(i));
+      if (location == null || i == jobOptions.size() - 1) {
+        options.add(jobOptions.get(i));
+        continue;
+      }
+      locations.put(location, splitPath(jobOptions.get(++i)));
+    }
+
+    StandardJavaFileManager fileManager = getFileManager(locations, options.build());
+    for (StandardLocation location : ImmutableSet.copyOf(LOCATION_OPTIONS.values())) {
+      // Locations that the job doesn't set go back to javac's defaults.
+      fileManager.setLocation(location, locations.get(location));
+    }
+
+    if (job.getSources().isEmpty()) {
+      return 0;
+    }
+
+    Iterable<? extends JavaFileObject> compilationUnits =
+        fileManager.getJavaFileObjectsFromStrings(job.getSources());
+    Boolean success =
+        compiler
+            .getTask(diagnostics, fileManager, null, options.build(), null, compilationUnits)
+            .call();
+    diagnostics.flush();
+    return Boolean.TRUE.equals(success) ? 0 : 1;
+  }
+
+  /**
+   * Number of times the shared file manager was dropped because a jar it indexed changed or a job
+   * passed different file manager options.
+   */
+  public int getFileManagerRecreations() {
+    return fileManagerRecreations;
+  }
+
+  private StandardJavaFileManager getFileManager(
+      Map<StandardLocation, ImmutableList<File>> locations, ImmutableList<String> options)
+      throws IOException {
+    boolean created = fileManager == null;
+    if (created) {
+      fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+    }
+    ImmutableList<String> jobFileManagerOptions = getFileManagerOptions(fileManager, options);
+
+    Map<Path, String> jars = new LinkedHashMap<>(indexedJars);
+    boolean changed = false;
+    for (StandardLocation location : INDEXED_LOCATIONS) {
+      for (File entry : locations.getOrDefault(location, ImmutableList.of())) {
+        if (!entry.getName().endsWith(".jar")) {
+          continue;
+        }
+        Path jar = entry.toPath().toAbsolutePath();
+        String stamp = stamp(jar);
+        String previous = jars.put(jar, stamp);
+        changed |= previous != null && !previous.equals(stamp);
+      }
+    }
+
+    if (!created && (changed || !jobFileManagerOptions.equals(fileManagerOptions))) {
+      fileManager.close();
+      fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+      fileManagerRecreations++;
+    }
+    indexedJars = ImmutableMap.copyOf(jars);
+    fileManagerOptions = jobFileManagerOptions;
+    return fileManager;
+  }
+
+  /** Returns the options, with their arguments, that javac hands to the file manager. */
+  private static ImmutableList<String> getFileManagerOptions(
+      StandardJavaFileManager fileManager, ImmutableList<String> options) {
+    ImmutableList.Builder<String> fileManagerOptions = ImmutableList.builder();
+    for (int i = 0; i < options.size(); i++) {
+      int arguments = fileManager.isSupportedOption(options.get(i));
+      if (arguments < 0) {
+        continue;
+      }
+      int end = Math.min(options.size(), i + arguments + 1);
+      fileManagerOptions.addAll(options.subList(i, end));
+      i = end - 1;
+    }
+    return fileManagerOptions.build();
+  }
+
+  private static ImmutableList<File> splitPath(String path) {
+    ImmutableList.Builder<File> files = ImmutableList.builder();
+    for (String entry : Splitter.on(File.pathSeparatorChar).omitEmptyStrings().split(path)) {
+      files.add(new File(entry));
+    }
+    return files.build();
+  }
+
+  private static String stamp(Path jar) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+      return attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+    } catch (IOException e) {
+      return "missing";
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (fileManager != null) {
+      fileManager.close();
+      fileManager = null;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java.worker;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.util.Objects;
+
+/**
+ * A single compilation submitted to a {@link JavacWorkerMain} process.
+ *
+ * <p>Jobs are passed to the worker as the contents of the args file of a worker command, in this
+ * form:
+ *
+ * <pre>
+ *   {
+ *     options: [<javac option>, ...],
+ *     sources: [<source path>, ...]
+ *   }
+ * </pre>
+ */
+public class JavacWorkerJob {
+  private final ImmutableList<String> options;
+  private final ImmutableList<String> sources;
+
+  public JavacWorkerJob(ImmutableList<String> options, ImmutableList<String> sources) {
+    this.options = options;
+    this.sources = sources;
+  }
+
+  public ImmutableList<String> getOptions() {
+    return options;
+  }
+
+  public ImmutableList<String> getSources() {
+    return sources;
+  }
+
+  /** Serializes the job into the form expected by {@link #fromJson(Reader)}. */
+  public String toJson() throws IOException {
+    StringWriter stringWriter = new StringWriter();
+    try (JsonWriter writer = new JsonWriter(stringWriter)) {
+      writer.beginObject();
+      writeArray(writer, "options", options);
+      writeArray(writer, "sources", sources);
+      writer.endObject();
+    }
+    return stringWriter.toString();
+  }
+
+  /** Reads a job written by {@link #toJson()}. */
+  public static JavacWorkerJob fromJson(Reader reader) throws IOException {
+    ImmutableList<String> options = ImmutableList.of();
+    ImmutableList<String> sources = ImmutableList.of();
+    try (JsonReader jsonReader = new JsonReader(reader)) {
+      jsonReader.beginObject();
+      while (jsonReader.hasNext()) {
+        String property = jsonReader.nextName();
+        if (property.equals("options")) {
+          options = readArray(jsonReader);
+        } else if (property.equals("sources")) {
+          sources = readArray(jsonReader);
+        } else {
+          jsonReader.skipValue();
+        }
+      }
+      jsonReader.endObject();
+    }
+    return new JavacWorkerJob(options, sources);
+  }
+
+  private static void writeArray(JsonWriter writer, String name, ImmutableList<String> values)
+      throws IOException {
+    writer.name(name).beginArray();
+    for (String value : values) {
+      writer.value(value);
+    }
+    writer.endArray();
+  }
+
+  private static ImmutableList<String> readArray(JsonReader reader) throws IOException {
+    ImmutableList.Builder<String> values = ImmutableList.builder();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      values.add(reader.nextString());
+    }
+    reader.endArray();
+    return values.build();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof JavacWorkerJob)) {
+      return false;
+    }
+    JavacWorkerJob that = (JavacWorkerJob) other;
+    return options.equals(that.options) && sources.equals(that.sources);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(options, sources);
+  }
+}
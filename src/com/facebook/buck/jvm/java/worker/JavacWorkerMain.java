@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java.worker;
+
+import com.facebook.buck.worker.WorkerProcessCommand;
+import com.facebook.buck.worker.WorkerProcessProtocol;
+import com.facebook.buck.worker.WorkerProcessProtocolZero;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+/**
+ * Entry point of a persistent javac worker process.
+ *
+ * <p>The process speaks the worker protocol on stdin and stdout and runs every command it receives
+ * as a {@link JavacWorkerJob}. Diagnostics of a job are written to the stderr file of its command.
+ */
+public class JavacWorkerMain {
+
+  private JavacWorkerMain() {}
+
+  public static void main(String[] args) throws IOException {
+    // The protocol owns stdout. Anything else printing to it would corrupt the stream.
+    PrintStream protocolStream = System.out;
+    System.setOut(System.err);
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    if (compiler == null) {
+      System.err.println("No system compiler found. Did you install the JRE instead of the JDK?");
+      System.exit(1);
+    }
+
+    try (JavacWorker worker = new JavacWorker(compiler);
+        WorkerProcessProtocol.CommandReceiver receiver =
+            new WorkerProcessProtocolZero.CommandReceiver(System.in, protocolStream)) {
+      int messageId = 0;
+      receiver.handshake(messageId++);
+      while (!receiver.shouldClose()) {
+        WorkerProcessCommand command = receiver.receiveCommand(messageId);
+        receiver.sendResponse(
+            messageId, WorkerProcessProtocolZero.TYPE_RESULT, runCommand(worker, command));
+        messageId++;
+      }
+    }
+  }
+
+  private static int runCommand(JavacWorker worker, WorkerProcessCommand command)
+      throws IOException {
+    try (Writer stderr =
+        Files.newBufferedWriter(command.getStdErrPath(), StandardCharsets.UTF_8)) {
+      try (Reader args = Files.newBufferedReader(command.getArgsPath(), StandardCharsets.UTF_8)) {
+        return worker.compile(JavacWorkerJob.fromJson(args), stderr);
+      } catch (IOException | RuntimeException e) {
+        // Report the failure as a failed compilation so that the worker stays usable.
+        PrintWriter printWriter = new PrintWriter(stderr);
+        e.printStackTrace(printWriter);
+        printWriter.flush();
+        return 1;
+      }
+    }
+  }
+}
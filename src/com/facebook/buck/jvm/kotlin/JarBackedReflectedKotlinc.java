@@ -35,7 +35,6 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import java.io.File;
 import java.io.PrintStream;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -43,6 +42,7 @@ import java.nio.file.Path;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -65,17 +65,24 @@ public class JarBackedReflectedKotlinc implements Kotlinc {
   // Used to hang onto the KotlinDaemonShim for the life of the buckd process
   private static final Map<Set<String>, Object> kotlinShims = new ConcurrentHashMap<>();
 
+  // Environments kept alive across compilations, keyed like the shims they belong to
+  private static final Map<Set<String>, Optional<KotlinCompilerEnvironment>> kotlinEnvironments =
+      new ConcurrentHashMap<>();
+
   @AddToRuleKey private final ImmutableSet<SourcePath> compilerClassPath;
   private final Path annotationProcessingClassPath;
   private final Path standardLibraryClasspath;
+  private final boolean keepCompilerEnvironment;
 
   JarBackedReflectedKotlinc(
       ImmutableSet<SourcePath> compilerClassPath,
       Path annotationProcessingClassPath,
-      Path standardLibraryClasspath) {
+      Path standardLibraryClasspath,
+      boolean keepCompilerEnvironment) {
     this.compilerClassPath = compilerClassPath;
     this.annotationProcessingClassPath = annotationProcessingClassPath;
     this.standardLibraryClasspath = standardLibraryClasspath;
+    this.keepCompilerEnvironment = keepCompilerEnvironment;
   }
 
   @Override
@@ -161,11 +168,10 @@ public class JarBackedReflectedKotlinc implements Kotlinc {
             .map(Path::toFile)
             .collect(Collectors.toSet());
 
+    Set<String> shimKey =
+        compilerIdPaths.stream().map(File::getAbsolutePath).collect(Collectors.toSet());
     try {
-      Object compilerShim =
-          kotlinShims.computeIfAbsent(
-              compilerIdPaths.stream().map(File::getAbsolutePath).collect(Collectors.toSet()),
-              k -> loadCompilerShim(context));
+      Object compilerShim = kotlinShims.computeIfAbsent(shimKey, k -> loadCompilerShim(context));
 
       Method compile = compilerShim.getClass().getMethod("exec", PrintStream.class, String[].class);
 
@@ -173,16 +179,36 @@ public class JarBackedReflectedKotlinc implements Kotlinc {
 
       Method getCode = exitCodeClass.getMethod("getCode");
 
-      try (UncloseablePrintStream stdErr = new UncloseablePrintStream(context.getStdErr())) {
-        Object exitCode = compile.invoke(compilerShim, stdErr, args.toArray(new String[0]));
-
-        return (Integer) getCode.invoke(exitCode);
+      Callable<Integer> compilation =
+          () -> {
+            try (UncloseablePrintStream stdErr = new UncloseablePrintStream(context.getStdErr())) {
+              Object exitCode = compile.invoke(compilerShim, stdErr, args.toArray(new String[0]));
+
+              return (Integer) getCode.invoke(exitCode);
+            }
+          };
+
+      Optional<KotlinCompilerEnvironment> environment =
+          keepCompilerEnvironment
+              ? kotlinEnvironments.computeIfAbsent(
+                  shimKey,
+                  k ->
+                      Optional.ofNullable(
+                          KotlinCompilerEnvironment.keepAlive(
+                              compilerShim.getClass().getClassLoader())))
+              : Optional.empty();
+      if (environment.isPresent()) {
+        return environment
+            .get()
+            .compile(
+                KotlinCompilerEnvironment.getClasspath(options),
+                context.getFileHashLoader(),
+                compilation);
       }
-
-    } catch (IllegalAccessException
-        | InvocationTargetException
-        | NoSuchMethodException
-        | ClassNotFoundException ex) {
+      return compilation.call();
+    } catch (RuntimeException ex) {
+      throw ex;
+    } catch (Exception ex) {
       throw new RuntimeException(ex);
     }
   }
@@ -62,7 +62,10 @@ public class KotlinBuckConfig implements ConfigView<BuckConfig> {
               delegate.getPathSourcePath(getPathToCompilerJar()));
 
       return new JarBackedReflectedKotlinc(
-          classpathEntries, getPathToAnnotationProcessingJar(), getPathToStdlibJar());
+          classpathEntries,
+          getPathToAnnotationProcessingJar(),
+          getPathToStdlibJar(),
+          shouldKeepCompilerEnvironment());
     }
   }
 
@@ -197,6 +200,14 @@ public class KotlinBuckConfig implements ConfigView<BuckConfig> {
     }
   }
 
+  /**
+   * Whether the in-process compiler should keep its application environment, including the jars
+   * it has opened, alive between compilations instead of recreating it for every rule.
+   */
+  private boolean shouldKeepCompilerEnvironment() {
+    return delegate.getBooleanValue(SECTION, "keep_compiler_environment", false);
+  }
+
   /**
    * Determine whether external Kotlin compilation is being forced. The default is internal
    * (in-process) execution, but this can be overridden in .buckconfig by setting the "external"
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.kotlin;
+
+import com.facebook.buck.core.util.log.Logger;
+import com.facebook.buck.util.hashing.FileHashLoader;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the application environment of an in-memory Kotlin compiler alive between compilations.
+ *
+ * <p>By default the compiler disposes of its IntelliJ application environment, and with it the
+ * indexes of every jar it has opened, as soon as no compilation is running. Keeping it alive lets
+ * subsequent compilations in the same buckd reuse the already opened classpath jars. Since Buck
+ * rewrites jars in place, the jar caches of the environment are cleared whenever a classpath jar
+ * has changed since it was last seen; compilations share the environment, so clearing is done
+ * under a write lock while compilations hold the read lock. Stamps of changed jars are only
+ * recorded once their caches were cleared, so a failed clear is retried by the next compilation.
+ *
+ * <p>Jars are stamped with the content hashes kept by the build engine when they are available.
+ * Jars fetched from the artifact cache all share the same modification time, so otherwise the
+ * stamp also includes the file key, which changes when a jar is replaced rather than rewritten.
+ *
+ * <p>The compiler reads the keep-alive system property when its last compilation finishes, so the
+ * property is only set while compilations using a kept-alive environment are running and its
+ * previous value is restored afterwards.
+ */
+class KotlinCompilerEnvironment {
+
+  private static final Logger LOG = Logger.get(KotlinCompilerEnvironment.class);
+
+  private static final String KEEPALIVE_PROPERTY = "kotlin.environment.keepalive";
+  private static final String CORE_ENVIRONMENT_CLASS =
+      "org.jetbrains.kotlin.cli.jvm.compiler.KotlinCoreEnvironment";
+  private static final ImmutableList<String> JAR_FILE_SYSTEM_GETTERS =
+      ImmutableList.of("getJarFileSystem", "getFastJarFileSystem");
+
+  /** Guards the keep-alive system property, which is shared by all environments. */
+  private static final Object KEEPALIVE_LOCK = new Object();
+
+  private static int keepAliveCompilations = 0;
+  @Nullable private static String previousKeepAlive;
+
+  private final Object companion;
+  private final Method getApplicationEnvironment;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final ConcurrentMap<String, JarStamp> jarStamps = new ConcurrentHashMap<>();
+
+  @VisibleForTesting
+  KotlinCompilerEnvironment(Object companion, Method getApplicationEnvironment) {
+    this.companion = companion;
+    this.getApplicationEnvironment = getApplicationEnvironment;
+  }
+
+  /**
+   * Enables keeping the environment alive for the compiler loaded by {@code compilerClassLoader}.
+   *
+   * @return the environment, or {@code null} if the compiler does not expose what is needed to
+   *     invalidate its jar caches, in which case the environment is not kept alive.
+   */
+  @Nullable
+  static KotlinCompilerEnvironment keepAlive(ClassLoader compilerClassLoader) {
+    try {
+      Class<?> coreEnvironment = compilerClassLoader.loadClass(CORE_ENVIRONMENT_CLASS);
+      Object companion = coreEnvironment.getField("Companion").get(null);
+      Method getApplicationEnvironment =
+          companion.getClass().getMethod("getApplicationEnvironment");
+      return new KotlinCompilerEnvironment(companion, getApplicationEnvironment);
+    } catch (ReflectiveOperationException e) {
+      LOG.warn(e, "Kotlin compiler does not support keeping its environment alive.");
+      return null;
+    }
+  }
+
+  /**
+   * Runs a compilation against {@code classpath}, first clearing the jar caches of the environment
+   * if any of its jars changed since the last compilation that used it.
+   *
+   * @param fileHashLoader hashes of files kept by the build engine, used to stamp the jars
+   */
+  <T> T compile(
+      List<String> classpath, Optional<FileHashLoader> fileHashLoader, Callable<T> compilation)
+      throws Exception {
+    Map<String, JarStamp> stamps = stampJars(classpath, fileHashLoader);
+    if (hasChangedJars(stamps)) {
+      lock.writeLock().lock();
+      try {
+        // Another compilation may have cleared the caches for the same change while this one was
+        // waiting for the lock.
+        if (hasChangedJars(stamps)) {
+          clearJarCaches();
+        }
+        jarStamps.putAll(stamps);
+      } finally {
+        lock.writeLock().unlock();
+      }
+    } else {
+      // Jars that were never seen before can't be in the caches yet.
+      stamps.forEach(jarStamps::putIfAbsent);
+    }
+    lock.readLock().lock();
+    try {
+      enableKeepAlive();
+      try {
+        return compilation.call();
+      } finally {
+        restoreKeepAlive();
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static void enableKeepAlive() {
+    synchronized (KEEPALIVE_LOCK) {
+      if (keepAliveCompilations++ == 0) {
+        previousKeepAlive = System.setProperty(KEEPALIVE_PROPERTY, "true");
+      }
+    }
+  }
+
+  private static void restoreKeepAlive() {
+    synchronized (KEEPALIVE_LOCK) {
+      if (--keepAliveCompilations == 0) {
+        if (previousKeepAlive == null) {
+          System.clearProperty(KEEPALIVE_PROPERTY);
+        } else {
+          System.setProperty(KEEPALIVE_PROPERTY, previousKeepAlive);
+        }
+      }
+    }
+  }
+
+  private static Map<String, JarStamp> stampJars(
+      List<String> classpath, Optional<FileHashLoader> fileHashLoader) throws IOException {
+    Map<String, JarStamp> stamps = new HashMap<>();
+    for (String entry : classpath) {
+      Path path = Paths.get(entry);
+      if (!Files.isRegularFile(path)) {
+        continue;
+      }
+      BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+      HashCode contentHash = null;
+      if (fileHashLoader.isPresent() && path.isAbsolute()) {
+        try {
+          contentHash = fileHashLoader.get().get(path);
+        } catch (NoSuchFileException e) {
+          // jars outside of the cells are not hashed by the build engine
+        }
+      }
+      stamps.put(
+          entry,
+          new JarStamp(
+              attributes.size(),
+              attributes.lastModifiedTime().toMillis(),
+              attributes.fileKey(),
+              contentHash));
+    }
+    return stamps;
+  }
+
+  private boolean hasChangedJars(Map<String, JarStamp> stamps) {
+    for (Map.Entry<String, JarStamp> stamp : stamps.entrySet()) {
+      JarStamp previous = jarStamps.get(stamp.getKey());
+      if (previous != null && !previous.equals(stamp.getValue())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void clearJarCaches() throws IllegalAccessException, InvocationTargetException {
+    Object applicationEnvironment = getApplicationEnvironment.invoke(companion);
+    if (applicationEnvironment == null) {
+      return;
+    }
+    for (String getter : JAR_FILE_SYSTEM_GETTERS) {
+      Object jarFileSystem;
+      try {
+        jarFileSystem =
+            applicationEnvironment.getClass().getMethod(getter).invoke(applicationEnvironment);
+      } catch (NoSuchMethodException e) {
+        continue;
+      }
+      if (jarFileSystem == null) {
+        continue;
+      }
+      try {
+        jarFileSystem.getClass().getMethod("clearHandlersCache").invoke(jarFileSystem);
+      } catch (NoSuchMethodException e) {
+        LOG.debug("%s does not support clearing its caches.", jarFileSystem.getClass());
+      }
+    }
+  }
+
+  /** Extracts the entries of the {@code -classpath} option of a kotlinc invocation. */
+  static ImmutableList<String> getClasspath(List<String> options) {
+    int index = options.indexOf("-classpath");
+    if (index < 0 || index + 1 >= options.size()) {
+      return ImmutableList.of();
+    }
+    return ImmutableList.copyOf(
+        Splitter.on(File.pathSeparatorChar).omitEmptyStrings().split(options.get(index + 1)));
+  }
+
+  private static class JarStamp {
+    private final long size;
+    private final long lastModified;
+    @Nullable private final Object fileKey;
+    @Nullable private final HashCode contentHash;
+
+    private JarStamp(
+        long size, long lastModified, @Nullable Object fileKey, @Nullable HashCode contentHash) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.fileKey = fileKey;
+      this.contentHash = contentHash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof JarStamp)) {
+        return false;
+      }
+      JarStamp that = (JarStamp) other;
+      return size == that.size
+          && lastModified == that.lastModified
+          && Objects.equals(fileKey, that.fileKey)
+          && Objects.equals(contentHash, that.contentHash);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(size, lastModified, fileKey, contentHash);
+    }
+  }
+}
@@ -41,6 +41,7 @@ import com.facebook.buck.parser.api.PackageFileManifest;
 import com.facebook.buck.parser.config.ParserConfig;
 import com.facebook.buck.parser.exceptions.BuildFileParseException;
 import com.facebook.buck.parser.exceptions.BuildTargetException;
+import com.facebook.buck.skylark.parser.SkylarkExtensionCache;
 import com.facebook.buck.util.concurrent.AutoCloseableLock;
 import com.facebook.buck.util.concurrent.AutoCloseableReadWriteLock;
 import com.google.common.annotations.VisibleForTesting;
@@ -355,6 +356,12 @@ public class DaemonicParserState {
 
   private final DaemonicPackageCache packageFileCache;
 
+  /**
+   * Extensions evaluated by Skylark parsers. Entries are keyed by content fingerprints of their
+   * transitive load graphs, so they stay valid across invocations and don't need invalidation.
+   */
+  private final SkylarkExtensionCache skylarkExtensionCache;
+
   private final int parsingThreads;
 
   private final LoadingCache<Cell, BuildFileTree> buildFileTrees;
@@ -410,6 +417,7 @@ public class DaemonicParserState {
 
     this.rawNodeCache = new DaemonicRawCacheView();
     this.packageFileCache = new DaemonicPackageCache();
+    this.skylarkExtensionCache = SkylarkExtensionCache.create();
 
     this.cachedStateLock = new AutoCloseableReadWriteLock();
     this.cellStateLock = new AutoCloseableReadWriteLock();
@@ -451,6 +459,10 @@ public class DaemonicParserState {
     return packageFileCache;
   }
 
+  public SkylarkExtensionCache getSkylarkExtensionCache() {
+    return skylarkExtensionCache;
+  }
+
   @VisibleForTesting
   PipelineNodeCache.Cache<BuildTarget, TargetNodeMaybeIncompatible> getTargetNodeCache() {
     return targetNodeCache;
@@ -20,6 +20,9 @@ import com.facebook.buck.core.graph.transformation.model.ComputeResult;
 import com.facebook.buck.core.util.immutables.BuckStyleValue;
 import com.facebook.buck.parser.exceptions.ParsingError;
 import com.facebook.buck.skylark.io.GlobSpecWithResult;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
@@ -27,23 +30,32 @@ import java.util.Optional;
 
 /** Describes the content of a build file, which includes defined targets and their metadata. */
 @BuckStyleValue
+@JsonDeserialize
 public abstract class BuildFileManifest implements ComputeResult, FileManifest {
   /** @return a list of targets defined in the build file. */
+  @JsonProperty("targets")
   public abstract ImmutableMap<String, ImmutableMap<String, Object>> getTargets();
 
   @Override
+  @JsonProperty("includes")
   public abstract ImmutableSortedSet<String> getIncludes();
 
   @Override
+  @JsonProperty("configs")
   public abstract ImmutableMap<String, Object> getConfigs();
 
   @Override
+  @JsonProperty("env")
+  // keep variables that were read but not set, so setting them later invalidates the manifest
+  @JsonInclude(content = JsonInclude.Include.ALWAYS)
   public abstract Optional<ImmutableMap<String, Optional<String>>> getEnv();
 
   /** @return A list of the glob operations performed with their results. */
+  @JsonProperty("globManifest")
   public abstract ImmutableList<GlobSpecWithResult> getGlobManifest();
 
   @Override
+  @JsonProperty("errors")
   public abstract ImmutableList<ParsingError> getErrors();
 
   public static BuildFileManifest of(
@@ -471,6 +471,15 @@ public abstract class ParserConfig implements ConfigView<BuckConfig> {
     return getDelegate().getBooleanValue("parser", "enable_package_files", false);
   }
 
+  /**
+   * @return Whether build file manifests computed by Graph Engine should also be stored in {@code
+   *     buck-out} and reused by later daemons if the files they were computed from did not change.
+   */
+  @Value.Lazy
+  public boolean getEnablePersistentGraphEngineCache() {
+    return getDelegate().getBooleanValue("parser", "enable_persistent_graph_engine_cache", false);
+  }
+
   @Value.Lazy
   public int getMissingTargetLevenshteinDistance() {
     return getDelegate().getInteger("parser", "missing_target_levenshtein_distance").orElse(5);
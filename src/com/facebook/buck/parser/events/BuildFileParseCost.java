@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.parser.events;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSortedMap;
+
+/**
+ * Resources spent while parsing a single build file, attributed to the build file itself, to the
+ * macros it invokes and to the {@code load()} edges it triggered.
+ *
+ * <p>Macros are identified by the function invoked at the top level of the build file, so the cost
+ * of helper functions is attributed to the macro that called them.
+ */
+public final class BuildFileParseCost {
+  private final long wallTimeNanos;
+  private final long cpuTimeNanos;
+  private final long allocatedBytes;
+  private final long globTimeNanos;
+  private final int globCount;
+  private final int rulesCount;
+  private final ImmutableSortedMap<String, Integer> rulesByMacro;
+  private final ImmutableSortedMap<String, Long> globTimeNanosByMacro;
+  private final ImmutableSortedMap<String, Long> extensionEvaluationNanosByLoadEdge;
+
+  public BuildFileParseCost(
+      long wallTimeNanos,
+      long cpuTimeNanos,
+      long allocatedBytes,
+      long globTimeNanos,
+      int globCount,
+      int rulesCount,
+      ImmutableSortedMap<String, Integer> rulesByMacro,
+      ImmutableSortedMap<String, Long> globTimeNanosByMacro,
+      ImmutableSortedMap<String, Long> extensionEvaluationNanosByLoadEdge) {
+    this.wallTimeNanos = wallTimeNanos;
+    this.cpuTimeNanos = cpuTimeNanos;
+    this.allocatedBytes = allocatedBytes;
+    this.globTimeNanos = globTimeNanos;
+    this.globCount = globCount;
+    this.rulesCount = rulesCount;
+    this.rulesByMacro = rulesByMacro;
+    this.globTimeNanosByMacro = globTimeNanosByMacro;
+    this.extensionEvaluationNanosByLoadEdge = extensionEvaluationNanosByLoadEdge;
+  }
+
+  /** @return Wall time spent parsing the build file, including loading of extensions. */
+  public long getWallTimeNanos() {
+    return wallTimeNanos;
+  }
+
+  /** @return CPU time of the parsing thread, or {@code -1} if the JVM does not report it. */
+  public long getCpuTimeNanos() {
+    return cpuTimeNanos;
+  }
+
+  /** @return Bytes allocated by the parsing thread, or {@code -1} if the JVM does not report it. */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /** @return Wall time spent in {@code glob()} calls. */
+  public long getGlobTimeNanos() {
+    return globTimeNanos;
+  }
+
+  /** @return Number of {@code glob()} calls. */
+  public int getGlobCount() {
+    return globCount;
+  }
+
+  /** @return Number of rules produced by the build file. */
+  public int getRulesCount() {
+    return rulesCount;
+  }
+
+  /** @return Number of rules produced by each top-level macro. */
+  public ImmutableSortedMap<String, Integer> getRulesByMacro() {
+    return rulesByMacro;
+  }
+
+  /** @return Wall time spent in {@code glob()} calls made by each top-level macro. */
+  public ImmutableSortedMap<String, Long> getGlobTimeNanosByMacro() {
+    return globTimeNanosByMacro;
+  }
+
+  /**
+   * @return Wall time spent evaluating extensions, keyed by {@code load()} edge in {@code
+   *     <loading file> -> <extension>} form. Evaluation time of an extension does not include the
+   *     time spent evaluating extensions it loads, and extensions that were already evaluated by
+   *     an earlier parse are not included.
+   */
+  public ImmutableSortedMap<String, Long> getExtensionEvaluationNanosByLoadEdge() {
+    return extensionEvaluationNanosByLoadEdge;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("wallTimeNanos", wallTimeNanos)
+        .add("cpuTimeNanos", cpuTimeNanos)
+        .add("allocatedBytes", allocatedBytes)
+        .add("globTimeNanos", globTimeNanos)
+        .add("globCount", globCount)
+        .add("rulesCount", rulesCount)
+        .toString();
+  }
+}
@@ -74,7 +74,25 @@ public abstract class ParseBuckFileEvent extends AbstractBuckEvent implements Wo
    */
   public static Finished finished(
       Started started, int rulesCount, long processedBytes, Optional<String> profile) {
-    return new Finished(started, rulesCount, processedBytes, profile);
+    return finished(started, rulesCount, processedBytes, profile, Optional.empty());
+  }
+
+  /**
+   * Create an event when parsing of build file finishes
+   *
+   * @param started Event created when corresponding build file parsing was started
+   * @param rulesCount Total number of rules parsed from this build file
+   * @param processedBytes Total number of bytes read while parsing this build file, if applicable
+   * @param profile This is the value of getProfile() from PythonDSL parser result.
+   * @param cost Resources spent while parsing this build file, if parser profiling is enabled
+   */
+  public static Finished finished(
+      Started started,
+      int rulesCount,
+      long processedBytes,
+      Optional<String> profile,
+      Optional<BuildFileParseCost> cost) {
+    return new Finished(started, rulesCount, processedBytes, profile, cost);
   }
 
   /** The event raised when build file parsing is started */
@@ -103,14 +121,20 @@ public abstract class ParseBuckFileEvent extends AbstractBuckEvent implements Wo
     private final int rulesCount;
     private final long processedBytes;
     private final Optional<String> profile;
+    private final Optional<BuildFileParseCost> cost;
     private final ParserKind parserKind;
 
     protected Finished(
-        Started started, int rulesCount, long processedBytes, Optional<String> profile) {
+        Started started,
+        int rulesCount,
+        long processedBytes,
+        Optional<String> profile,
+        Optional<BuildFileParseCost> cost) {
       super(started.getEventKey(), started.getBuckFilePath(), started.getParserClass());
       this.rulesCount = rulesCount;
       this.processedBytes = processedBytes;
       this.profile = profile;
+      this.cost = cost;
       this.parserKind = started.getParserKind();
     }
 
@@ -133,6 +157,11 @@ public abstract class ParseBuckFileEvent extends AbstractBuckEvent implements Wo
       return profile;
     }
 
+    /** @return Resources spent while parsing this build file, if parser profiling is enabled */
+    public Optional<BuildFileParseCost> getCost() {
+      return cost;
+    }
+
     /** @return The {@link ParserKind} that was used to parse this file. */
     public ParserKind getParserKind() {
       return parserKind;
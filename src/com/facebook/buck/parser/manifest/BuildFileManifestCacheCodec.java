@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.parser.manifest;
+
+import com.facebook.buck.core.graph.transformation.GraphEngineCacheCodec;
+import com.facebook.buck.io.filesystem.ProjectFilesystemView;
+import com.facebook.buck.parser.api.BuildFileManifest;
+import com.facebook.buck.parser.api.ProjectBuildFileParser;
+import com.facebook.buck.parser.cache.json.BuildFileManifestSerializer;
+import com.facebook.buck.skylark.io.GlobSpec;
+import com.facebook.buck.skylark.io.GlobSpecWithResult;
+import com.facebook.buck.util.hashing.FileHashLoader;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Allows {@link BuildFileManifest} to be stored in a persistent Graph Engine cache tier.
+ *
+ * <p>A stored manifest is valid as long as the contents of the build file, of all files it includes
+ * and of the {@code PACKAGE} files of the package and its parents did not change, the environment
+ * variables read by the build file still have the values it saw, and the {@code glob()} calls
+ * recorded in the manifest still produce the same results. File contents are hashed with the
+ * {@link FileHashLoader} of the build, and globs are re-evaluated by the parser only when a stored
+ * manifest is loaded. Parsers that do not record globs (the Python DSL parser) fall back to the set
+ * of files and directories in the package, which is walked up to nested packages, so this relies on
+ * globs not crossing package boundaries. Keys include the Buck version, so manifests are not shared
+ * between Buck versions.
+ *
+ * <p>Manifests reference included files by absolute path, so keys include the absolute cell root
+ * and entries are only shared between checkouts located at the same path.
+ */
+public class BuildFileManifestCacheCodec
+    implements GraphEngineCacheCodec<BuildPackagePathToBuildFileManifestKey, BuildFileManifest> {
+
+  private static final String PACKAGE_FILE_NAME = "PACKAGE";
+
+  private final Path superRootPath;
+  private final Path rootPath;
+  private final Path buildFileName;
+  private final ProjectFilesystemView fileSystemView;
+  private final FileHashLoader fileHashLoader;
+  private final ProjectBuildFileParser parser;
+  private final HashCode configHash;
+  private final String buckVersion;
+  private final ImmutableMap<String, String> environment;
+
+  private BuildFileManifestCacheCodec(
+      Path superRootPath,
+      Path rootPath,
+      Path buildFileName,
+      ProjectFilesystemView fileSystemView,
+      FileHashLoader fileHashLoader,
+      ProjectBuildFileParser parser,
+      HashCode configHash,
+      String buckVersion,
+      ImmutableMap<String, String> environment) {
+    this.superRootPath = superRootPath;
+    this.rootPath = rootPath;
+    this.buildFileName = buildFileName;
+    this.fileSystemView = fileSystemView;
+    this.fileHashLoader = fileHashLoader;
+    this.parser = parser;
+    this.configHash = configHash;
+    this.buckVersion = buckVersion;
+    this.environment = environment;
+  }
+
+  /**
+   * Create a new instance of {@link BuildFileManifestCacheCodec}
+   *
+   * @param superRootPath Absolute path to the cell root folder which contains all other cells
+   * @param rootPath Absolute path to the root of the cell the manifests belong to
+   * @param buildFileName File name of the build file (for example, BUCK) in a form of a {@link
+   *     Path}
+   * @param fileSystemView {@link ProjectFilesystemView} of the cell that is used to list packages
+   *     of build files whose parser does not record globs
+   * @param fileHashLoader Hashes contents of build files, includes and {@code PACKAGE} files
+   * @param parser Parser the manifests are produced with, used to re-evaluate recorded globs
+   * @param configHash Hash of the configuration that affects parsing of build files
+   * @param buckVersion Version of Buck, as the parser and the manifest format change with it
+   * @param environment Environment the build files are parsed with
+   */
+  public static BuildFileManifestCacheCodec of(
+      Path superRootPath,
+      Path rootPath,
+      Path buildFileName,
+      ProjectFilesystemView fileSystemView,
+      FileHashLoader fileHashLoader,
+      ProjectBuildFileParser parser,
+      HashCode configHash,
+      String buckVersion,
+      ImmutableMap<String, String> environment) {
+    return new BuildFileManifestCacheCodec(
+        superRootPath,
+        rootPath,
+        buildFileName,
+        fileSystemView,
+        fileHashLoader,
+        parser,
+        configHash,
+        buckVersion,
+        environment);
+  }
+
+  @Override
+  public HashCode hashKey(BuildPackagePathToBuildFileManifestKey key) {
+    return Hashing.sha1()
+        .newHasher()
+        .putString(BuildFileManifest.class.getName(), StandardCharsets.UTF_8)
+        .putString(buckVersion, StandardCharsets.UTF_8)
+        .putString(rootPath.toString(), StandardCharsets.UTF_8)
+        .putString(buildFileName.toString(), StandardCharsets.UTF_8)
+        .putBytes(configHash.asBytes())
+        .putString(key.getPath().toString(), StandardCharsets.UTF_8)
+        .hash();
+  }
+
+  @Override
+  public byte[] serialize(BuildFileManifest value) throws IOException {
+    return BuildFileManifestSerializer.serialize(value);
+  }
+
+  @Override
+  public BuildFileManifest deserialize(byte[] data) throws IOException {
+    return BuildFileManifestSerializer.deserialize(data);
+  }
+
+  @Override
+  public HashCode fingerprintInputs(
+      BuildPackagePathToBuildFileManifestKey key, BuildFileManifest value) throws IOException {
+    Hasher hasher = Hashing.sha1().newHasher();
+
+    // includes usually contain the build file itself, but it is added explicitly in case parser
+    // does not report it
+    Path buildFile = getBuildFile(key);
+    SortedSet<Path> files = new TreeSet<>();
+    files.add(buildFile);
+    for (String include : value.getIncludes()) {
+      files.add(superRootPath.resolve(include));
+    }
+    // PACKAGE files of the package and all of its parents apply to the package
+    files.add(rootPath.resolve(PACKAGE_FILE_NAME));
+    for (Path dir = key.getPath(); dir != null; dir = dir.getParent()) {
+      files.add(rootPath.resolve(dir).resolve(PACKAGE_FILE_NAME));
+    }
+    for (Path file : files) {
+      hasher.putString(superRootPath.relativize(file).toString(), StandardCharsets.UTF_8);
+      if (Files.isRegularFile(file)) {
+        hasher.putBytes(fileHashLoader.get(file).asBytes());
+      } else {
+        hasher.putBoolean(false);
+      }
+    }
+
+    if (parserValidatesGlobs(buildFile)) {
+      // results are checked against the file system by inputsMatchCurrentState() on load
+      hasher.putBoolean(true);
+      for (GlobSpecWithResult glob : value.getGlobManifest()) {
+        GlobSpec spec = glob.getGlobSpec();
+        putStrings(hasher, spec.getInclude());
+        putStrings(hasher, spec.getExclude());
+        hasher.putBoolean(spec.getExcludeDirectories());
+        putStrings(hasher, new TreeSet<>(glob.getFilePaths()));
+      }
+    } else {
+      hasher.putBoolean(false);
+      putStrings(hasher, listPackage(key.getPath()));
+    }
+
+    // Fingerprints computed when the manifest is stored see the environment it was parsed with, so
+    // this only matches as long as the variables it read keep those values
+    for (Map.Entry<String, Optional<String>> variable :
+        value.getEnv().orElse(ImmutableMap.of()).entrySet()) {
+      hasher.putString(variable.getKey(), StandardCharsets.UTF_8);
+      hasher.putBoolean(
+          variable.getValue().equals(Optional.ofNullable(environment.get(variable.getKey()))));
+    }
+    return hasher.hash();
+  }
+
+  @Override
+  public boolean inputsMatchCurrentState(
+      BuildPackagePathToBuildFileManifestKey key, BuildFileManifest value)
+      throws IOException, InterruptedException {
+    Path buildFile = getBuildFile(key);
+    return !parserValidatesGlobs(buildFile)
+        || parser.globResultsMatchCurrentState(buildFile, value.getGlobManifest());
+  }
+
+  private Path getBuildFile(BuildPackagePathToBuildFileManifestKey key) {
+    return rootPath.resolve(key.getPath()).resolve(buildFileName);
+  }
+
+  /** @return whether the parser of the build file can check recorded glob results */
+  private boolean parserValidatesGlobs(Path buildFile) throws IOException {
+    try {
+      return parser.globResultsMatchCurrentState(buildFile, ImmutableList.of());
+    } catch (UnsupportedOperationException e) {
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while checking globs of " + buildFile);
+    }
+  }
+
+  private static void putStrings(Hasher hasher, Iterable<String> strings) {
+    for (String string : strings) {
+      hasher.putString(string, StandardCharsets.UTF_8);
+      hasher.putByte((byte) 0);
+    }
+    hasher.putByte((byte) 1);
+  }
+
+  /** @return sorted cell relative paths of files and directories that belong to a package */
+  private SortedSet<String> listPackage(Path packagePath) throws IOException {
+    SortedSet<String> entries = new TreeSet<>();
+    fileSystemView.walkRelativeFileTree(
+        packagePath,
+        EnumSet.noneOf(FileVisitOption.class),
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            entries.add(dir + "/");
+            if (!dir.equals(packagePath) && fileSystemView.isFile(dir.resolve(buildFileName))) {
+              // nested package, its files can not be globbed from this package
+              return FileVisitResult.SKIP_SUBTREE;
+            }
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            entries.add(file.toString());
+            return FileVisitResult.CONTINUE;
+          }
+        });
+    return entries;
+  }
+}
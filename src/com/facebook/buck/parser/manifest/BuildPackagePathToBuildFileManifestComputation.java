@@ -18,6 +18,9 @@ package com.facebook.buck.parser.manifest;
 
 import com.facebook.buck.core.graph.transformation.ComputationEnvironment;
 import com.facebook.buck.core.graph.transformation.GraphComputation;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint.Lane;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint.Priority;
 import com.facebook.buck.core.graph.transformation.model.ComputationIdentifier;
 import com.facebook.buck.core.graph.transformation.model.ComputeKey;
 import com.facebook.buck.core.graph.transformation.model.ComputeResult;
@@ -100,4 +103,10 @@ public class BuildPackagePathToBuildFileManifestComputation
       BuildPackagePathToBuildFileManifestKey key) {
     return ImmutableSet.of();
   }
+
+  @Override
+  public TaskSchedulingHint getSchedulingHint() {
+    // Mostly waits on reading build files and on out-of-process parsers.
+    return TaskSchedulingHint.of(Lane.IO, Priority.NORMAL);
+  }
 }
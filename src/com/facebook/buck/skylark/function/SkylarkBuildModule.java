@@ -164,6 +164,7 @@ public class SkylarkBuildModule extends AbstractSkylarkFunctions implements Skyl
           ast.getLocation(), "Recursive globs are prohibited at top-level directory");
     }
 
+    long globStartNanos = System.nanoTime();
     try {
       return SkylarkList.MutableList.copyOf(
           env,
@@ -179,6 +180,8 @@ public class SkylarkBuildModule extends AbstractSkylarkFunctions implements Skyl
       throw new EvalException(ast.getLocation(), "Cannot find " + e.getMessage());
     } catch (Exception e) {
       throw new EvalException.EvalExceptionWithJavaCause(ast.getLocation(), e);
+    } finally {
+      parseContext.recordGlob(System.nanoTime() - globStartNanos);
     }
   }
 
@@ -30,6 +30,7 @@ import com.facebook.buck.parser.options.ProjectBuildFileParserOptions;
 import com.facebook.buck.skylark.io.Globber;
 import com.facebook.buck.skylark.packages.PackageContext;
 import com.facebook.buck.skylark.parser.context.ParseContext;
+import com.facebook.buck.skylark.parser.context.ParseCostTracker;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
@@ -43,6 +44,9 @@ import com.google.common.collect.ImmutableMap.Builder;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.devtools.build.lib.cmdline.Label;
 import com.google.devtools.build.lib.cmdline.PackageIdentifier;
@@ -70,10 +74,12 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.immutables.value.Value;
@@ -89,21 +95,28 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
 
   private final Cache<com.google.devtools.build.lib.vfs.Path, BuildFileAST> astCache;
   private final Cache<com.google.devtools.build.lib.vfs.Path, ExtensionData> extensionDataCache;
+  private final Cache<com.google.devtools.build.lib.vfs.Path, HashCode> fileContentHashCache;
+  private final Cache<com.google.devtools.build.lib.vfs.Path, HashCode> extensionFingerprintCache;
   private final LoadingCache<LoadImport, IncludesData> includesDataCache;
   private final PackageImplicitIncludesFinder packageImplicitIncludeFinder;
+  protected final SkylarkExtensionCache sharedExtensionCache;
 
   AbstractSkylarkFileParser(
       ProjectBuildFileParserOptions options,
       FileSystem fileSystem,
       BuckGlobals buckGlobals,
-      EventHandler eventHandler) {
+      EventHandler eventHandler,
+      SkylarkExtensionCache sharedExtensionCache) {
     this.options = options;
     this.fileSystem = fileSystem;
     this.eventHandler = eventHandler;
     this.buckGlobals = buckGlobals;
+    this.sharedExtensionCache = sharedExtensionCache;
 
     this.astCache = CacheBuilder.newBuilder().build();
     this.extensionDataCache = CacheBuilder.newBuilder().build();
+    this.fileContentHashCache = CacheBuilder.newBuilder().build();
+    this.extensionFingerprintCache = CacheBuilder.newBuilder().build();
 
     this.includesDataCache =
         CacheBuilder.newBuilder()
@@ -127,7 +140,8 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
 
   abstract Globber getGlobber(Path parseFile);
 
-  private ImplicitlyLoadedExtension loadImplicitExtension(Path basePath, Label containingLabel)
+  private ImplicitlyLoadedExtension loadImplicitExtension(
+      Path basePath, Label containingLabel, ParseCostTracker costTracker)
       throws IOException, InterruptedException {
     Optional<ImplicitInclude> implicitInclude =
         packageImplicitIncludeFinder.findIncludeForBuildFile(basePath);
@@ -137,7 +151,9 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
 
     // Only export requested symbols, and ensure that all requsted symbols are present.
     ExtensionData data =
-        loadExtension(ImmutableLoadImport.of(containingLabel, implicitInclude.get().getLoadPath()));
+        loadExtension(
+            ImmutableLoadImport.of(containingLabel, implicitInclude.get().getLoadPath()),
+            costTracker);
     ImmutableMap<String, Object> symbols = data.getExtension().getBindings();
     ImmutableMap<String, String> expectedSymbols = implicitInclude.get().getSymbols();
     Builder<String, Object> loaded = ImmutableMap.builderWithExpectedSize(expectedSymbols.size());
@@ -157,18 +173,28 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
   /** @return The parsed result defined in {@code parseFile}. */
   protected ParseResult parse(Path parseFile)
       throws IOException, BuildFileParseException, InterruptedException {
+    return parse(parseFile, ParseCostTracker.disabled());
+  }
+
+  /**
+   * @return The parsed result defined in {@code parseFile}. Cost of parsing is recorded into {@code
+   *     costTracker}.
+   */
+  protected ParseResult parse(Path parseFile, ParseCostTracker costTracker)
+      throws IOException, BuildFileParseException, InterruptedException {
     com.google.devtools.build.lib.vfs.Path buildFilePath = fileSystem.getPath(parseFile.toString());
 
     String basePath = getBasePath(parseFile);
     Label containingLabel = createContainingLabel(basePath);
     ImplicitlyLoadedExtension implicitLoad =
-        loadImplicitExtension(parseFile.getFileSystem().getPath(basePath), containingLabel);
+        loadImplicitExtension(
+            parseFile.getFileSystem().getPath(basePath), containingLabel, costTracker);
 
     BuildFileAST buildFileAst = parseFile(buildFilePath, containingLabel);
     Globber globber = getGlobber(parseFile);
     PackageContext packageContext =
         createPackageContext(basePath, globber, implicitLoad.getLoadedSymbols());
-    ParseContext parseContext = new ParseContext(packageContext);
+    ParseContext parseContext = new ParseContext(packageContext, costTracker);
     try (Mutability mutability = Mutability.create("parsing " + parseFile)) {
       EnvironmentData envData =
           createBuildFileEvaluationEnvironment(
@@ -177,7 +203,8 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
               buildFileAst,
               mutability,
               parseContext,
-              implicitLoad.getExtensionData());
+              implicitLoad.getExtensionData(),
+              costTracker);
       if (!ValidationEnvironment.checkBuildSyntax(
           buildFileAst.getStatements(), eventHandler, envData.getEnvironment())) {
         throw BuildFileParseException.createForUnknownParseError("Cannot parse file " + parseFile);
@@ -225,10 +252,11 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
       BuildFileAST buildFileAst,
       Mutability mutability,
       ParseContext parseContext,
-      @Nullable ExtensionData implicitLoadExtensionData)
+      @Nullable ExtensionData implicitLoadExtensionData,
+      ParseCostTracker costTracker)
       throws IOException, InterruptedException, BuildFileParseException {
     ImmutableList<ExtensionData> dependencies =
-        loadExtensions(containingLabel, buildFileAst.getImports());
+        loadExtensions(containingLabel, buildFileAst.getImports(), costTracker);
     ImmutableMap<String, Environment.Extension> importMap =
         toImportMap(dependencies, implicitLoadExtensionData);
     Environment env =
@@ -307,9 +335,9 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
   @VisibleForTesting
   protected BuildFileAST readSkylarkAST(
       com.google.devtools.build.lib.vfs.Path path, FileKind fileKind) throws IOException {
-    ParserInputSource input =
-        ParserInputSource.create(
-            FileSystemUtils.readContent(path, StandardCharsets.UTF_8), path.asFragment());
+    String content = FileSystemUtils.readContent(path, StandardCharsets.UTF_8);
+    fileContentHashCache.put(path, hashContent(content));
+    ParserInputSource input = ParserInputSource.create(content, path.asFragment());
     switch (fileKind) {
       case BUCK:
         return BuildFileAST.parseBuildFile(input, eventHandler);
@@ -322,6 +350,22 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
     }
   }
 
+  private static HashCode hashContent(String content) {
+    return Hashing.murmur3_128().hashString(content, StandardCharsets.UTF_8);
+  }
+
+  /** @return The hash of the content of the file at {@code path}. */
+  private HashCode getFileContentHash(com.google.devtools.build.lib.vfs.Path path)
+      throws IOException {
+    try {
+      return fileContentHashCache.get(
+          path, () -> hashContent(FileSystemUtils.readContent(path, StandardCharsets.UTF_8)));
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
   private BuildFileAST parseSkylarkFile(
       com.google.devtools.build.lib.vfs.Path path, Label containingLabel, FileKind fileKind)
       throws BuildFileParseException, IOException {
@@ -407,6 +451,18 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
   protected ImmutableList<ExtensionData> loadExtensions(
       Label containingLabel, ImmutableList<SkylarkImport> skylarkImports)
       throws BuildFileParseException, IOException, InterruptedException {
+    return loadExtensions(containingLabel, skylarkImports, ParseCostTracker.disabled());
+  }
+
+  /**
+   * Loads all extensions identified by corresponding {@link SkylarkImport}s and records their
+   * evaluation cost into {@code costTracker}.
+   */
+  private ImmutableList<ExtensionData> loadExtensions(
+      Label containingLabel,
+      ImmutableList<SkylarkImport> skylarkImports,
+      ParseCostTracker costTracker)
+      throws BuildFileParseException, IOException, InterruptedException {
     Set<SkylarkImport> processed = new HashSet<>(skylarkImports.size());
     ImmutableList.Builder<ExtensionData> extensions =
         ImmutableList.builderWithExpectedSize(skylarkImports.size());
@@ -416,7 +472,8 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
       // sometimes users include the same extension multiple times...
       if (!processed.add(skylarkImport)) continue;
       try {
-        extensions.add(loadExtension(ImmutableLoadImport.of(containingLabel, skylarkImport)));
+        extensions.add(
+            loadExtension(ImmutableLoadImport.of(containingLabel, skylarkImport), costTracker));
       } catch (UncheckedExecutionException e) {
         propagateRootCause(e);
       }
@@ -682,6 +739,75 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
         toLoadedPaths(load.getPath(), dependencies, null));
   }
 
+  /**
+   * Computes the fingerprint of the transitive load graph of a fully loaded extension.
+   *
+   * <p>The fingerprint covers the extension's label and content, the fingerprints of all its
+   * dependencies and the configuration of the globals it is evaluated with, so equal fingerprints
+   * imply equal evaluation results.
+   *
+   * @param load {@link ExtensionLoadState} representing loaded extension with satisfied
+   *     dependencies
+   */
+  private HashCode computeExtensionFingerprint(ExtensionLoadState load) throws IOException {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    hasher.putBytes(buckGlobals.getExtensionEnvironmentFingerprint().asBytes());
+    hasher.putString(load.getLabel().toString(), StandardCharsets.UTF_8);
+    hasher.putString(load.getPath().toString(), StandardCharsets.UTF_8);
+    hasher.putBytes(getFileContentHash(load.getPath()).asBytes());
+
+    ImmutableList<com.google.devtools.build.lib.vfs.Path> dependencyPaths =
+        load.getDependencies().stream()
+            .map(dependency -> getImportPath(dependency.getLabel(), dependency.getImport()))
+            .distinct()
+            .sorted(Comparator.comparing(com.google.devtools.build.lib.vfs.Path::toString))
+            .collect(ImmutableList.toImmutableList());
+    for (com.google.devtools.build.lib.vfs.Path dependencyPath : dependencyPaths) {
+      HashCode dependencyFingerprint = extensionFingerprintCache.getIfPresent(dependencyPath);
+      Preconditions.checkState(
+          dependencyFingerprint != null,
+          "Dependency %s of %s must be loaded before its fingerprint is computed",
+          dependencyPath,
+          load.getLabel());
+      hasher.putBytes(dependencyFingerprint.asBytes());
+    }
+    return hasher.hash();
+  }
+
+  /**
+   * Returns an extension evaluated by this or any other parser sharing {@link
+   * #sharedExtensionCache}, evaluating it if no parser has done it yet.
+   */
+  private ExtensionData getOrBuildExtensionData(
+      ExtensionLoadState load, ParseCostTracker costTracker)
+      throws IOException, InterruptedException {
+    HashCode fingerprint = computeExtensionFingerprint(load);
+    extensionFingerprintCache.put(load.getPath(), fingerprint);
+
+    ExtensionData extension = sharedExtensionCache.getIfPresent(fingerprint);
+    if (extension == null) {
+      long evaluationStartNanos = System.nanoTime();
+      extension = buildExtensionData(load);
+      // dependencies are always evaluated before dependents, so this excludes their evaluation time
+      costTracker.recordExtensionEvaluation(
+          load.getParentLabel() + " -> " + load.getLabel(),
+          System.nanoTime() - evaluationStartNanos);
+      sharedExtensionCache.put(fingerprint, extension);
+      return extension;
+    }
+
+    // Extension was evaluated by another parser, so rules it exports may not be registered with
+    // rule types known to this parser yet.
+    buckGlobals.getKnownUserDefinedRuleTypes().invalidateExtension(load.getLabel());
+    for (Object value : extension.getExtension().getBindings().values()) {
+      if (value instanceof SkylarkUserDefinedRule
+          && ((SkylarkUserDefinedRule) value).isExported()) {
+        buckGlobals.getKnownUserDefinedRuleTypes().addRule((SkylarkUserDefinedRule) value);
+      }
+    }
+    return extension.withImportString(load.getSkylarkImport().getImportString());
+  }
+
   /**
    * Call {@link com.google.devtools.build.lib.packages.SkylarkExportable#export(Label, String)} on
    * any objects that are assigned to
@@ -722,8 +848,9 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
    * Creates an extension from a {@code path}.
    *
    * @param loadImport an import label representing an extension to load.
+   * @param costTracker tracker that records the evaluation cost of loaded extensions.
    */
-  private ExtensionData loadExtension(LoadImport loadImport)
+  private ExtensionData loadExtension(LoadImport loadImport, ParseCostTracker costTracker)
       throws IOException, BuildFileParseException, InterruptedException {
     ExtensionData extension = null;
     ArrayDeque<ExtensionLoadState> work = new ArrayDeque<>();
@@ -754,7 +881,7 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
       if (!haveUnsatisfiedDeps) {
         // We are done with this load; build it and cache it.
         work.removeFirst();
-        extension = buildExtensionData(load);
+        extension = getOrBuildExtensionData(load, costTracker);
         extensionDataCache.put(load.getPath(), extension);
       }
     }
@@ -817,7 +944,10 @@ abstract class AbstractSkylarkFileParser<T extends FileManifest> implements File
     String basePath = getBasePath(parseFile);
     Label containingLabel = createContainingLabel(basePath);
     ImplicitlyLoadedExtension implicitLoad =
-        loadImplicitExtension(parseFile.getFileSystem().getPath(basePath), containingLabel);
+        loadImplicitExtension(
+            parseFile.getFileSystem().getPath(basePath),
+            containingLabel,
+            ParseCostTracker.disabled());
     BuildFileAST buildFileAst = parseFile(buildFilePath, containingLabel);
     ImmutableList<IncludesData> dependencies =
         loadIncludes(containingLabel, buildFileAst.getImports());
@@ -31,6 +31,9 @@ import com.facebook.buck.skylark.function.attr.AttrModule;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.devtools.build.lib.cmdline.Label;
 import com.google.devtools.build.lib.packages.StructProvider;
 import com.google.devtools.build.lib.syntax.BaseFunction;
@@ -41,6 +44,7 @@ import com.google.devtools.build.lib.syntax.Environment.GlobalFrame;
 import com.google.devtools.build.lib.syntax.FuncallExpression;
 import com.google.devtools.build.lib.syntax.MethodLibrary;
 import com.google.devtools.build.lib.syntax.Runtime;
+import java.nio.charset.StandardCharsets;
 import java.util.function.Function;
 import org.immutables.value.Value.Lazy;
 
@@ -122,6 +126,25 @@ public abstract class BuckGlobals {
     return GlobalFrame.createForBuiltins(builder.build());
   }
 
+  /**
+   * @return A fingerprint of the configuration that affects evaluation of extension files. Two
+   *     instances with equal fingerprints produce identical extension environments, so evaluated
+   *     extensions can be shared between them.
+   */
+  @Lazy
+  HashCode getExtensionEnvironmentFingerprint() {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    hasher.putString(getImplicitNativeRulesState().name(), StandardCharsets.UTF_8);
+    hasher.putString(getUserDefinedRulesState().name(), StandardCharsets.UTF_8);
+    getBuckRuleFunctions().keySet().stream()
+        .sorted()
+        .forEach(name -> hasher.putString(name, StandardCharsets.UTF_8).putByte((byte) 0));
+    getPerFeatureProvidersForBuildFile().keySet().stream()
+        .sorted()
+        .forEach(name -> hasher.putString(name, StandardCharsets.UTF_8).putByte((byte) 0));
+    return hasher.hash();
+  }
+
   /**
    * @return The list of functions supporting all native Buck functions like {@code java_library}.
    */
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.skylark.parser;
+
+import com.facebook.buck.util.cache.CacheStats;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import javax.annotation.Nullable;
+
+/**
+ * Thread-safe cache of evaluated extensions that can be shared by multiple Skylark parsers.
+ *
+ * <p>Entries are keyed by a fingerprint of the transitive load graph of an extension, which
+ * includes the contents of the extension file, the contents of every file it loads (directly or
+ * transitively) and the configuration of the globals used to evaluate it. Since the key changes
+ * whenever any of the inputs change, entries never have to be explicitly invalidated and the cache
+ * can safely outlive individual parsers and commands.
+ */
+public final class SkylarkExtensionCache {
+
+  /** Default upper bound on the number of extensions kept by the cache. */
+  public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+  private final Cache<HashCode, ExtensionData> cache;
+
+  private SkylarkExtensionCache(long maximumSize) {
+    this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+  }
+
+  /** @return a new cache that keeps at most {@code maximumSize} evaluated extensions. */
+  public static SkylarkExtensionCache create(long maximumSize) {
+    return new SkylarkExtensionCache(maximumSize);
+  }
+
+  /** @return a new cache with {@link #DEFAULT_MAXIMUM_SIZE} bound. */
+  public static SkylarkExtensionCache create() {
+    return create(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  @Nullable
+  ExtensionData getIfPresent(HashCode fingerprint) {
+    return cache.getIfPresent(fingerprint);
+  }
+
+  void put(HashCode fingerprint, ExtensionData extensionData) {
+    cache.put(fingerprint, extensionData);
+  }
+
+  /** Drops all cached extensions. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /** @return the stats of the cache */
+  public CacheStats getStats() {
+    com.google.common.cache.CacheStats stats = cache.stats();
+    return CacheStats.builder()
+        .setHitCount(stats.hitCount())
+        .setMissCount(stats.missCount())
+        .setEvictionCount(stats.evictionCount())
+        .setNumberEntries(cache.size())
+        .build();
+  }
+}
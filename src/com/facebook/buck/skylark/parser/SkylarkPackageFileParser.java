@@ -52,7 +52,7 @@ public class SkylarkPackageFileParser extends AbstractSkylarkFileParser<PackageF
       FileSystem fileSystem,
       BuckGlobals buckGlobals,
       EventHandler eventHandler) {
-    super(options, fileSystem, buckGlobals, eventHandler);
+    super(options, fileSystem, buckGlobals, eventHandler, SkylarkExtensionCache.create());
     Preconditions.checkArgument(
         options.getDescriptions().isEmpty(), "Packages do not support build rules.");
     this.buckEventBus = buckEventBus;
@@ -35,6 +35,7 @@ import com.facebook.buck.skylark.io.Globber;
 import com.facebook.buck.skylark.io.GlobberFactory;
 import com.facebook.buck.skylark.io.impl.CachingGlobber;
 import com.facebook.buck.skylark.parser.context.ParseContext;
+import com.facebook.buck.skylark.parser.context.ParseCostTracker;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
@@ -71,8 +72,9 @@ public class SkylarkProjectBuildFileParser extends AbstractSkylarkFileParser<Bui
       FileSystem fileSystem,
       BuckGlobals buckGlobals,
       EventHandler eventHandler,
-      GlobberFactory globberFactory) {
-    super(options, fileSystem, buckGlobals, eventHandler);
+      GlobberFactory globberFactory,
+      SkylarkExtensionCache sharedExtensionCache) {
+    super(options, fileSystem, buckGlobals, eventHandler, sharedExtensionCache);
     this.buckEventBus = buckEventBus;
     this.globberFactory = globberFactory;
   }
@@ -85,8 +87,36 @@ public class SkylarkProjectBuildFileParser extends AbstractSkylarkFileParser<Bui
       BuckGlobals buckGlobals,
       EventHandler eventHandler,
       GlobberFactory globberFactory) {
+    return using(
+        options,
+        buckEventBus,
+        fileSystem,
+        buckGlobals,
+        eventHandler,
+        globberFactory,
+        SkylarkExtensionCache.create());
+  }
+
+  /**
+   * Create an instance of Skylark project build file parser using provided options, that shares
+   * evaluated extensions with all other parsers using the same {@code sharedExtensionCache}.
+   */
+  public static SkylarkProjectBuildFileParser using(
+      ProjectBuildFileParserOptions options,
+      BuckEventBus buckEventBus,
+      FileSystem fileSystem,
+      BuckGlobals buckGlobals,
+      EventHandler eventHandler,
+      GlobberFactory globberFactory,
+      SkylarkExtensionCache sharedExtensionCache) {
     return new SkylarkProjectBuildFileParser(
-        options, buckEventBus, fileSystem, buckGlobals, eventHandler, globberFactory);
+        options,
+        buckEventBus,
+        fileSystem,
+        buckGlobals,
+        eventHandler,
+        globberFactory,
+        sharedExtensionCache);
   }
 
   @VisibleForTesting
@@ -97,7 +127,8 @@ public class SkylarkProjectBuildFileParser extends AbstractSkylarkFileParser<Bui
         other.fileSystem,
         other.buckGlobals,
         other.eventHandler,
-        other.globberFactory);
+        other.globberFactory,
+        other.sharedExtensionCache);
   }
 
   @Override
@@ -137,8 +168,10 @@ public class SkylarkProjectBuildFileParser extends AbstractSkylarkFileParser<Bui
             buildFile, ParseBuckFileEvent.ParserKind.SKYLARK, this.getClass());
     buckEventBus.post(startEvent);
     int rulesParsed = 0;
+    ParseCostTracker costTracker =
+        options.getEnableProfiling() ? ParseCostTracker.start() : ParseCostTracker.disabled();
     try {
-      ParseResult parseResult = parse(buildFile);
+      ParseResult parseResult = parse(buildFile, costTracker);
 
       ImmutableMap<String, Map<String, Object>> rawRules = parseResult.getRawRules();
       rulesParsed = rawRules.size();
@@ -162,7 +195,9 @@ public class SkylarkProjectBuildFileParser extends AbstractSkylarkFileParser<Bui
           ImmutableList.of());
     } finally {
       LOG.verbose("Finished parsing build file %s", buildFile);
-      buckEventBus.post(ParseBuckFileEvent.finished(startEvent, rulesParsed, 0L, Optional.empty()));
+      buckEventBus.post(
+          ParseBuckFileEvent.finished(
+              startEvent, rulesParsed, 0L, Optional.empty(), costTracker.finish(rulesParsed)));
     }
   }
 
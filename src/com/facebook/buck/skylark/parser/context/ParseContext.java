@@ -20,9 +20,12 @@ import com.facebook.buck.parser.api.PackageMetadata;
 import com.facebook.buck.skylark.packages.PackageContext;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
+import com.google.devtools.build.lib.events.Location;
+import com.google.devtools.build.lib.syntax.BaseFunction;
 import com.google.devtools.build.lib.syntax.Environment;
 import com.google.devtools.build.lib.syntax.EvalException;
 import com.google.devtools.build.lib.syntax.FuncallExpression;
+import com.google.devtools.build.lib.util.Pair;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -41,6 +44,8 @@ public class ParseContext {
   // internal variable exposed to rules that is used to track parse events. This allows us to
   // remove parse state from rules and as such makes rules reusable across parse invocations
   private static final String PARSE_CONTEXT = "$parse_context";
+  // name used for cost attribution of rules and globs invoked directly from the build file
+  private static final String TOP_LEVEL_MACRO = "<top-level>";
 
   private @Nullable PackageMetadata pkg;
 
@@ -49,11 +54,18 @@ public class ParseContext {
   // the schema is: section->key->value
   private final Map<String, Map<String, Optional<String>>> readConfigOptions;
   private final PackageContext packageContext;
+  private final ParseCostTracker costTracker;
+  private @Nullable Environment env;
 
   public ParseContext(PackageContext packageContext) {
+    this(packageContext, ParseCostTracker.disabled());
+  }
+
+  public ParseContext(PackageContext packageContext, ParseCostTracker costTracker) {
     this.rawRules = new HashMap<>();
     this.readConfigOptions = new ConcurrentHashMap<>();
     this.packageContext = packageContext;
+    this.costTracker = costTracker;
   }
 
   /** Records the parsed {@code rawPackage}. */
@@ -87,6 +99,37 @@ public class ParseContext {
           String.format("Cannot register rule %s with content %s again.", name, rawRule));
     }
     rawRules.put(name, rawRule);
+    if (costTracker.isEnabled()) {
+      costTracker.recordRule(getCurrentMacro());
+    }
+  }
+
+  /** Records a {@code glob()} invocation that took {@code nanos} to evaluate. */
+  public void recordGlob(long nanos) {
+    if (costTracker.isEnabled()) {
+      costTracker.recordGlob(getCurrentMacro(), nanos);
+    }
+  }
+
+  /**
+   * Returns the name of the function invoked from the top level of the build file that is
+   * currently being evaluated. User-defined functions are qualified with the location of their
+   * definition, so rules invoked directly from the build file are attributed to themselves.
+   */
+  private String getCurrentMacro() {
+    if (env == null) {
+      return TOP_LEVEL_MACRO;
+    }
+    @Nullable Pair<FuncallExpression, BaseFunction> topCall = env.getTopCall();
+    if (topCall == null || topCall.getSecond() == null) {
+      return TOP_LEVEL_MACRO;
+    }
+    BaseFunction function = topCall.getSecond();
+    Location location = function.getLocation();
+    if (location == null || location == Location.BUILTIN || location.getPath() == null) {
+      return function.getName();
+    }
+    return function.getName() + " (" + location.getPath() + ")";
   }
 
   /**
@@ -151,6 +194,7 @@ public class ParseContext {
   }
 
   public void setup(Environment env) {
+    this.env = env;
     env.setupDynamic(PARSE_CONTEXT, this);
   }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.skylark.parser.context;
+
+import com.facebook.buck.parser.events.BuildFileParseCost;
+import com.google.common.collect.ImmutableSortedMap;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Accumulates the cost of parsing a single build file.
+ *
+ * <p>Instances are not thread-safe and are expected to be used by the thread parsing the build
+ * file. CPU time and allocations are measured for that thread only.
+ */
+public class ParseCostTracker {
+
+  private static final ParseCostTracker DISABLED = new ParseCostTracker(false);
+
+  private final boolean enabled;
+  private final long startWallTimeNanos;
+  private final long startCpuTimeNanos;
+  private final long startAllocatedBytes;
+  private final Map<String, Integer> rulesByMacro = new HashMap<>();
+  private final Map<String, Long> globTimeNanosByMacro = new HashMap<>();
+  private final Map<String, Long> extensionEvaluationNanosByLoadEdge = new HashMap<>();
+  private long globTimeNanos;
+  private int globCount;
+
+  private ParseCostTracker(boolean enabled) {
+    this.enabled = enabled;
+    this.startWallTimeNanos = enabled ? System.nanoTime() : 0;
+    this.startCpuTimeNanos = enabled ? currentThreadCpuTimeNanos() : -1;
+    this.startAllocatedBytes = enabled ? currentThreadAllocatedBytes() : -1;
+  }
+
+  /** @return a tracker that starts measuring the cost of parsing on the calling thread. */
+  public static ParseCostTracker start() {
+    return new ParseCostTracker(true);
+  }
+
+  /** @return a tracker that records nothing. */
+  public static ParseCostTracker disabled() {
+    return DISABLED;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Records a {@code glob()} call made by {@code macro} that took {@code nanos}. */
+  public void recordGlob(String macro, long nanos) {
+    if (!enabled) {
+      return;
+    }
+    globCount++;
+    globTimeNanos += nanos;
+    globTimeNanosByMacro.merge(macro, nanos, Long::sum);
+  }
+
+  /** Records a rule created by {@code macro}. */
+  public void recordRule(String macro) {
+    if (!enabled) {
+      return;
+    }
+    rulesByMacro.merge(macro, 1, Integer::sum);
+  }
+
+  /** Records evaluation of an extension loaded through the {@code loadEdge}. */
+  public void recordExtensionEvaluation(String loadEdge, long nanos) {
+    if (!enabled) {
+      return;
+    }
+    extensionEvaluationNanosByLoadEdge.merge(loadEdge, nanos, Long::sum);
+  }
+
+  /**
+   * Stops measuring and returns the accumulated cost, or {@link Optional#empty()} if the tracker is
+   * disabled.
+   */
+  public Optional<BuildFileParseCost> finish(int rulesCount) {
+    if (!enabled) {
+      return Optional.empty();
+    }
+    long cpuTimeNanos = currentThreadCpuTimeNanos();
+    long allocatedBytes = currentThreadAllocatedBytes();
+    return Optional.of(
+        new BuildFileParseCost(
+            System.nanoTime() - startWallTimeNanos,
+            delta(startCpuTimeNanos, cpuTimeNanos),
+            delta(startAllocatedBytes, allocatedBytes),
+            globTimeNanos,
+            globCount,
+            rulesCount,
+            ImmutableSortedMap.copyOf(rulesByMacro),
+            ImmutableSortedMap.copyOf(globTimeNanosByMacro),
+            ImmutableSortedMap.copyOf(extensionEvaluationNanosByLoadEdge)));
+  }
+
+  private static long delta(long start, long end) {
+    return start < 0 || end < 0 ? -1 : end - start;
+  }
+
+  private static long currentThreadCpuTimeNanos() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (!threadMXBean.isCurrentThreadCpuTimeSupported() || !threadMXBean.isThreadCpuTimeEnabled()) {
+      return -1;
+    }
+    return threadMXBean.getCurrentThreadCpuTime();
+  }
+
+  private static long currentThreadAllocatedBytes() {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    com.sun.management.ThreadMXBean sunThreadMXBean =
+        (com.sun.management.ThreadMXBean) threadMXBean;
+    if (!sunThreadMXBean.isThreadAllocatedMemorySupported()
+        || !sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
@@ -74,6 +74,15 @@ public abstract class TestRunningOptions {
 
   public abstract Optional<String> getJavaTempDir();
 
+  /**
+   * Number of test classes of a single java test that are run in parallel in its test JVM. Only
+   * applies to JUnit tests that are not forked per test class.
+   */
+  @Value.Default
+  public int getJavaTestClassParallelism() {
+    return 1;
+  }
+
   public static Builder builder() {
     return new Builder();
   }
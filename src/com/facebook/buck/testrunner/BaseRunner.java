@@ -72,6 +72,7 @@ public abstract class BaseRunner {
   protected TestSelectorList testSelectorList;
   protected boolean isDryRun;
   protected boolean shouldExplainTestSelectors;
+  protected int parallelClasses;
 
   private final TestXmlEscaper attributeEscaper = TestXmlEscaper.ATTRIBUTE_ESCAPER;
   private final TestXmlEscaper contentEscaper = TestXmlEscaper.CONTENT_ESCAPER;
@@ -221,6 +222,7 @@ public abstract class BaseRunner {
    *   <li>(string) output directory
    *   <li>(long) default timeout in milliseconds (0 for no timeout)
    *   <li>(string) newline separated list of test selectors
+   *   <li>(int) number of test classes to run in parallel (1 to run them serially)
    *   <li>(string...) fully-qualified names of test classes
    * </ul>
    */
@@ -230,6 +232,7 @@ public abstract class BaseRunner {
     TestSelectorList.Builder testSelectorListBuilder = TestSelectorList.builder();
     boolean isDryRun = false;
     boolean shouldExplainTestSelectors = false;
+    int parallelClasses = 1;
 
     List<String> testClassNames = new ArrayList<>();
 
@@ -264,6 +267,9 @@ public abstract class BaseRunner {
         case "--dry-run":
           isDryRun = true;
           break;
+        case "--parallel-classes":
+          parallelClasses = Math.max(1, Integer.parseInt(args[++i]));
+          break;
         case "--output":
           outputDirectory = new File(args[++i]);
           if (!outputDirectory.exists()) {
@@ -284,6 +290,7 @@ public abstract class BaseRunner {
     this.outputDirectory = outputDirectory;
     this.defaultTestTimeoutMillis = defaultTestTimeoutMillis;
     this.isDryRun = isDryRun;
+    this.parallelClasses = parallelClasses;
     this.testClassNames = testClassNames;
     this.testSelectorList = testSelectorListBuilder.build();
     if (!testSelectorList.isEmpty() && !shouldExplainTestSelectors) {
@@ -27,6 +27,11 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Formatter;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -84,25 +89,92 @@ public final class JUnitRunner extends BaseRunner {
       stdErrLogLevel = Level.parse(unparsedStdErrLogLevel);
     }
 
-    for (String className : testClassNames) {
-      Class<?> testClass = Class.forName(className);
-
-      List<TestResult> results = new ArrayList<>();
-      RecordingFilter filter = new RecordingFilter();
-      if (mightBeATestClass(testClass)) {
-        JUnitCore jUnitCore = new JUnitCore();
-        Runner suite = new Computer().getSuite(createRunnerBuilder(), new Class<?>[] {testClass});
-        Request request = Request.runner(suite);
-        request = request.filterWith(filter);
-        jUnitCore.addListener(new TestListener(results, stdOutLogLevel, stdErrLogLevel));
-        jUnitCore.run(request);
+    if (parallelClasses > 1 && testClassNames.size() > 1) {
+      runTestClassesInParallel(stdOutLogLevel, stdErrLogLevel);
+    } else {
+      for (String className : testClassNames) {
+        runTestClass(className, stdOutLogLevel, stdErrLogLevel, null, null);
       }
-      // Combine the results with the tests we filtered out
-      List<TestResult> actualResults = combineResults(results, filter.filteredOut);
-      writeResult(className, actualResults);
     }
   }
 
+  /**
+   * Runs the test classes on a pool of {@link #parallelClasses} threads, in the order in which
+   * they were given. Output written to {@link System#out}, {@link System#err} and java.util.logging
+   * is attributed to the test running on the thread that wrote it.
+   */
+  private void runTestClassesInParallel(Level stdOutLogLevel, Level stdErrLogLevel)
+      throws Throwable {
+    PrintStream originalOut = System.out;
+    PrintStream originalErr = System.err;
+    PerThreadOutputStream stdOut = new PerThreadOutputStream(originalOut);
+    PerThreadOutputStream stdErr = new PerThreadOutputStream(originalErr);
+    System.setOut(new PrintStream(stdOut, true /* autoFlush */, ENCODING));
+    System.setErr(new PrintStream(stdErr, true /* autoFlush */, ENCODING));
+
+    AtomicInteger threadCount = new AtomicInteger();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(parallelClasses, testClassNames.size()),
+            runnable -> {
+              Thread thread = new Thread(runnable, "test-runner-" + threadCount.incrementAndGet());
+              // Tests that leave threads behind must not keep the JVM alive.
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (String className : testClassNames) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  // JUnit may start the thread that runs the tests of a class before the test
+                  // starts, so it needs to share the stream that the test is going to set.
+                  stdOut.shareWithNewThreads();
+                  stdErr.shareWithNewThreads();
+                  runTestClass(className, stdOutLogLevel, stdErrLogLevel, stdOut, stdErr);
+                  return null;
+                }));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          throw e.getCause();
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+      System.setOut(originalOut);
+      System.setErr(originalErr);
+    }
+  }
+
+  private void runTestClass(
+      String className,
+      Level stdOutLogLevel,
+      Level stdErrLogLevel,
+      /* @Nullable */ PerThreadOutputStream stdOut,
+      /* @Nullable */ PerThreadOutputStream stdErr)
+      throws Exception {
+    Class<?> testClass = Class.forName(className);
+
+    List<TestResult> results = new ArrayList<>();
+    RecordingFilter filter = new RecordingFilter();
+    if (mightBeATestClass(testClass)) {
+      JUnitCore jUnitCore = new JUnitCore();
+      Runner suite = new Computer().getSuite(createRunnerBuilder(), new Class<?>[] {testClass});
+      Request request = Request.runner(suite);
+      request = request.filterWith(filter);
+      jUnitCore.addListener(
+          new TestListener(results, stdOutLogLevel, stdErrLogLevel, stdOut, stdErr));
+      jUnitCore.run(request);
+    }
+    // Combine the results with the tests we filtered out
+    List<TestResult> actualResults = combineResults(results, filter.filteredOut);
+    writeResult(className, actualResults);
+  }
+
   /** Guessing whether or not a class is a test class is an imperfect art form. */
   private boolean mightBeATestClass(Class<?> klass) {
     if (klass.getAnnotation(RunWith.class) != null) {
@@ -249,6 +321,7 @@ public final class JUnitRunner extends BaseRunner {
     private final List<TestResult> results;
     private final Level stdErrLogLevel;
     private final Level stdOutLogLevel;
+    /* @Nullable */ private final PerThreadOutputStream stdOutRouter, stdErrRouter;
     /* @Nullable */ private PrintStream originalOut, originalErr, stdOutStream, stdErrStream;
     /* @Nullable */ private ByteArrayOutputStream rawStdOutBytes, rawStdErrBytes;
     /* @Nullable */ private ByteArrayOutputStream julLogBytes, julErrLogBytes;
@@ -261,10 +334,17 @@ public final class JUnitRunner extends BaseRunner {
     // To help give a reasonable (though imprecise) guess at the runtime for unpaired failures
     private long startTime = System.currentTimeMillis();
 
-    TestListener(List<TestResult> results, Level stdOutLogLevel, Level stdErrLogLevel) {
+    TestListener(
+        List<TestResult> results,
+        Level stdOutLogLevel,
+        Level stdErrLogLevel,
+        /* @Nullable */ PerThreadOutputStream stdOutRouter,
+        /* @Nullable */ PerThreadOutputStream stdErrRouter) {
       this.results = results;
       this.stdOutLogLevel = stdOutLogLevel;
       this.stdErrLogLevel = stdErrLogLevel;
+      this.stdOutRouter = stdOutRouter;
+      this.stdErrRouter = stdErrRouter;
     }
 
     @Override
@@ -277,10 +357,19 @@ public final class JUnitRunner extends BaseRunner {
       rawStdErrBytes = new ByteArrayOutputStream();
       julLogBytes = new ByteArrayOutputStream();
       julErrLogBytes = new ByteArrayOutputStream();
-      stdOutStream = new PrintStream(rawStdOutBytes, true /* autoFlush */, ENCODING);
-      stdErrStream = new PrintStream(rawStdErrBytes, true /* autoFlush */, ENCODING);
-      System.setOut(stdOutStream);
-      System.setErr(stdErrStream);
+      if (stdOutRouter != null && stdErrRouter != null) {
+        // Other test classes are running in parallel, so rather than replacing the streams, route
+        // what this thread writes to them.
+        stdOutRouter.setStreamForCurrentThread(rawStdOutBytes);
+        stdErrRouter.setStreamForCurrentThread(rawStdErrBytes);
+        stdOutStream = originalOut;
+        stdErrStream = originalErr;
+      } else {
+        stdOutStream = new PrintStream(rawStdOutBytes, true /* autoFlush */, ENCODING);
+        stdErrStream = new PrintStream(rawStdErrBytes, true /* autoFlush */, ENCODING);
+        System.setOut(stdOutStream);
+        System.setErr(stdErrStream);
+      }
 
       // Listen to any java.util.logging messages reported by the test and write them to
       // julLogBytes / julErrLogBytes.
@@ -293,6 +382,15 @@ public final class JUnitRunner extends BaseRunner {
       JulLogFormatter formatter = new JulLogFormatter();
       julLogHandler = addStreamHandler(rootLogger, julLogBytes, formatter, stdOutLogLevel);
       julErrLogHandler = addStreamHandler(rootLogger, julErrLogBytes, formatter, stdErrLogLevel);
+      if (stdOutRouter != null) {
+        // Only keep the logs written by this test, the other threads are running other tests.
+        PerThreadOutputStream router = stdOutRouter;
+        ByteArrayOutputStream testStdOutBytes = rawStdOutBytes;
+        java.util.logging.Filter testFilter =
+            record -> router.isCurrentThreadWritingTo(testStdOutBytes);
+        setFilter(julLogHandler, testFilter);
+        setFilter(julErrLogHandler, testFilter);
+      }
 
       // Prepare single-test result.
       result = new Result();
@@ -309,8 +407,15 @@ public final class JUnitRunner extends BaseRunner {
       resultListener = null;
 
       // Restore the original stdout/stderr.
-      System.setOut(originalOut);
-      System.setErr(originalErr);
+      if (stdOutRouter != null && stdErrRouter != null) {
+        stdOutStream.flush();
+        stdErrStream.flush();
+        stdOutRouter.setStreamForCurrentThread(null);
+        stdErrRouter.setStreamForCurrentThread(null);
+      } else {
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+      }
 
       // Flush any debug logs and remove the handlers.
       Logger rootLogger = LogManager.getLogManager().getLogger("");
@@ -458,6 +563,12 @@ public final class JUnitRunner extends BaseRunner {
       return result;
     }
 
+    private void setFilter(/* @Nullable */ Handler handler, java.util.logging.Filter filter) {
+      if (handler != null) {
+        handler.setFilter(filter);
+      }
+    }
+
     private void flushAndRemoveLogHandler(Logger rootLogger, Handler handler) {
       if (handler != null) {
         handler.flush();
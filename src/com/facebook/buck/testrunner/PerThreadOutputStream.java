@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.testrunner;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An {@link OutputStream} that writes to the stream set for the current thread, or to a default
+ * stream on threads that have none. This lets test classes that run in parallel in the same JVM
+ * share {@link System#out} and {@link System#err} while their output is still captured per test.
+ *
+ * <p>Threads share the stream of the thread that started them, so output of tests that JUnit runs
+ * on a separate thread to enforce a timeout is captured as well.
+ */
+final class PerThreadOutputStream extends OutputStream {
+  private final OutputStream defaultStream;
+  private final InheritableThreadLocal<AtomicReference<OutputStream>> threadStream =
+      new InheritableThreadLocal<AtomicReference<OutputStream>>() {
+        @Override
+        protected AtomicReference<OutputStream> initialValue() {
+          return new AtomicReference<>();
+        }
+      };
+
+  PerThreadOutputStream(OutputStream defaultStream) {
+    this.defaultStream = defaultStream;
+  }
+
+  /**
+   * Makes threads started by the current thread from now on write wherever the current thread
+   * writes, including when the stream of the current thread changes later.
+   */
+  void shareWithNewThreads() {
+    threadStream.get();
+  }
+
+  /**
+   * Routes the output of the current thread, and of the threads it shares its stream with, to
+   * {@code stream}, or back to the default stream if null.
+   */
+  void setStreamForCurrentThread(/* @Nullable */ OutputStream stream) {
+    threadStream.get().set(stream);
+  }
+
+  /** @return whether the current thread writes to {@code stream}. */
+  boolean isCurrentThreadWritingTo(OutputStream stream) {
+    return threadStream.get().get() == stream;
+  }
+
+  private OutputStream getStream() {
+    OutputStream stream = threadStream.get().get();
+    return stream == null ? defaultStream : stream;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    getStream().write(b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    getStream().write(b, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    getStream().flush();
+  }
+}
@@ -18,12 +18,21 @@ package com.facebook.buck.util;
 
 import com.facebook.buck.io.filesystem.CopySourceMode;
 import com.facebook.buck.io.filesystem.ProjectFilesystem;
+import com.facebook.buck.util.concurrent.MoreFutures;
+import com.facebook.buck.util.concurrent.MostExecutors;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Predicate;
 
 /**
@@ -35,6 +44,8 @@ import java.util.function.Predicate;
  * <ul>
  *   <li>Existing content in destination directories is deleted.
  *   <li>Empty directories will not be created.
+ *   <li>Directories are copied concurrently, so destination directories must not contain each
+ *       other.
  * </ul>
  */
 public class DefaultFilteredDirectoryCopier implements FilteredDirectoryCopier {
@@ -51,9 +62,33 @@ public class DefaultFilteredDirectoryCopier implements FilteredDirectoryCopier {
   @Override
   public void copyDirs(
       ProjectFilesystem filesystem, Map<Path, Path> sourcesToDestinations, Predicate<Path> pred)
-      throws IOException {
+      throws IOException, InterruptedException {
+    List<Callable<Void>> tasks = new ArrayList<>(sourcesToDestinations.size());
     for (Map.Entry<Path, Path> e : sourcesToDestinations.entrySet()) {
-      copyDir(filesystem, e.getKey(), e.getValue(), pred);
+      tasks.add(
+          () -> {
+            copyDir(filesystem, e.getKey(), e.getValue(), pred);
+            return null;
+          });
+    }
+    if (tasks.isEmpty()) {
+      return;
+    }
+
+    // Copying blocks on I/O, so use a dedicated pool rather than the common fork-join pool.
+    int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+    ListeningExecutorService executor =
+        MoreExecutors.listeningDecorator(
+            MostExecutors.newMultiThreadExecutor("filtered-directory-copier", threads));
+    try {
+      MoreFutures.getAll(executor, tasks);
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.throwIfInstanceOf(e.getCause(), InterruptedException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    } finally {
+      executor.shutdownNow();
     }
   }
 
@@ -32,7 +32,7 @@ public interface FilteredDirectoryCopier {
    */
   void copyDirs(
       ProjectFilesystem filesystem, Map<Path, Path> sourcesToDestinations, Predicate<Path> pred)
-      throws IOException;
+      throws IOException, InterruptedException;
 
   /**
    * Creates a filtered copy of a directory.
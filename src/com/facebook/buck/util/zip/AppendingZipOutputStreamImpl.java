@@ -61,6 +61,18 @@ class AppendingZipOutputStreamImpl implements CustomZipOutputStream.Impl {
     currentEntry.write(delegate, b, off, len);
   }
 
+  @Override
+  public void actuallyWriteDeflated(DeflatedEntry deflated) throws IOException {
+    Objects.requireNonNull(currentEntry);
+    currentEntry.writeDeflated(delegate, deflated);
+  }
+
+  @Override
+  public boolean actuallyWriteRawDeflated(RawZipFile source, RawZipFile.Entry sourceEntry)
+      throws IOException {
+    return Objects.requireNonNull(currentEntry).writeRawDeflated(delegate, source, sourceEntry);
+  }
+
   @Override
   public void actuallyPutNextEntry(ZipEntry entry) throws IOException {
     if (throwExceptionsOnDuplicate && !seenNames.add(entry.getName())) {
@@ -94,6 +94,22 @@ public class CustomJarOutputStream extends CustomZipOutputStream {
       }
     }
 
+    @Override
+    public void actuallyWriteDeflated(DeflatedEntry deflated) throws IOException {
+      inner.actuallyWriteDeflated(deflated);
+
+      if (hasher != null) {
+        hasher.putBytes(deflated.getUncompressed());
+      }
+    }
+
+    @Override
+    public boolean actuallyWriteRawDeflated(RawZipFile source, RawZipFile.Entry sourceEntry)
+        throws IOException {
+      // Hashing needs the uncompressed contents.
+      return hasher == null && inner.actuallyWriteRawDeflated(source, sourceEntry);
+    }
+
     @Override
     public void actuallyCloseEntry() throws IOException {
       inner.actuallyCloseEntry();
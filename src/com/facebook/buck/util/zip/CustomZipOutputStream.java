@@ -54,6 +54,27 @@ public class CustomZipOutputStream extends OutputStream {
      */
     void actuallyWrite(byte b[], int off, int len) throws IOException;
 
+    /**
+     * Called by {@link CustomZipOutputStream#writeDeflated(DeflatedEntry)} under the same
+     * conditions as {@link #actuallyWrite(byte[], int, int)}. Impls that can copy the compressed
+     * data as-is should override this, the default compresses the data again.
+     */
+    default void actuallyWriteDeflated(DeflatedEntry deflated) throws IOException {
+      byte[] uncompressed = deflated.getUncompressed();
+      actuallyWrite(uncompressed, 0, uncompressed.length);
+    }
+
+    /**
+     * Called by {@link CustomZipOutputStream#writeRawDeflated(RawZipFile, RawZipFile.Entry)} under
+     * the same conditions as {@link #actuallyWrite(byte[], int, int)}. Returns false, without
+     * writing anything, if the impl can't copy compressed data as-is, which is the default.
+     */
+    @SuppressWarnings("unused")
+    default boolean actuallyWriteRawDeflated(RawZipFile source, RawZipFile.Entry sourceEntry)
+        throws IOException {
+      return false;
+    }
+
     void actuallyClose() throws IOException;
   }
 
@@ -106,6 +127,38 @@ public class CustomZipOutputStream extends OutputStream {
     impl.actuallyWrite(b, off, len);
   }
 
+  /**
+   * Writes the whole contents of the current entry from data that was deflated ahead of time, at
+   * the compression level of the entry.
+   */
+  final void writeDeflated(DeflatedEntry deflated) throws IOException {
+    Preconditions.checkState(state != State.CLOSED, "Stream has been closed.");
+    if (!entryOpen) {
+      throw new ZipException("no current ZIP entry");
+    }
+
+    impl.actuallyWriteDeflated(deflated);
+  }
+
+  /**
+   * Writes the whole contents of the current entry by copying the deflated data of an entry of
+   * another zip file as-is, without inflating and deflating it again.
+   *
+   * @return false, without writing anything, if the data can't be copied as-is, for example because
+   *     the current entry asks for a specific compression level. Callers should write the
+   *     uncompressed contents of the entry instead.
+   */
+  public final boolean writeRawDeflated(RawZipFile source, RawZipFile.Entry sourceEntry)
+      throws IOException {
+    Preconditions.checkState(state != State.CLOSED, "Stream has been closed.");
+    Preconditions.checkArgument(sourceEntry.getMethod() == ZipEntry.DEFLATED);
+    if (!entryOpen) {
+      throw new ZipException("no current ZIP entry");
+    }
+
+    return impl.actuallyWriteRawDeflated(source, sourceEntry);
+  }
+
   // javadocs taken from OutputStream and amended to make it clear what we're doing here.
   /**
    * Writes the specified byte to this output stream. Specifically one byte is written to the output
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.util.zip;
+
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * The contents of a single deflated zip entry, compressed ahead of the time the entry is written.
+ *
+ * <p>This allows entries to be compressed on other threads while a single thread writes them to a
+ * {@link CustomZipOutputStream} in order. The data is deflated with the same settings and the same
+ * sequence of calls as {@link EntryAccounting}, so an entry written from a {@link DeflatedEntry} is
+ * byte-for-byte identical to the same entry written by streaming its contents.
+ */
+final class DeflatedEntry {
+  private static final int BUFFER_SIZE = 8192;
+
+  private final byte[] uncompressed;
+  private final byte[] compressed;
+  private final long crc;
+
+  private DeflatedEntry(byte[] uncompressed, byte[] compressed, long crc) {
+    this.uncompressed = uncompressed;
+    this.compressed = compressed;
+    this.crc = crc;
+  }
+
+  /** Deflates {@code uncompressed} at the given compression level. Safe to call from any thread. */
+  static DeflatedEntry deflate(int compressionLevel, byte[] uncompressed) {
+    // Mirrors EntryAccounting, which creates the deflater with the default level and then sets the
+    // level of the entry.
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      deflater.setLevel(compressionLevel);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(uncompressed.length / 2 + 64);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      for (int offset = 0; offset < uncompressed.length; offset += BUFFER_SIZE) {
+        deflater.setInput(
+            uncompressed, offset, Math.min(BUFFER_SIZE, uncompressed.length - offset));
+        while (!deflater.needsInput()) {
+          out.write(buffer, 0, deflater.deflate(buffer, 0, buffer.length));
+        }
+      }
+      deflater.finish();
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer, 0, buffer.length));
+      }
+      return new DeflatedEntry(
+          uncompressed, out.toByteArray(), Hashing.crc32().hashBytes(uncompressed).padToLong());
+    } finally {
+      deflater.end();
+    }
+  }
+
+  public byte[] getUncompressed() {
+    return uncompressed;
+  }
+
+  public byte[] getCompressed() {
+    return compressed;
+  }
+
+  public long getSize() {
+    return uncompressed.length;
+  }
+
+  public long getCompressedSize() {
+    return compressed.length;
+  }
+
+  public long getCrc() {
+    return crc;
+  }
+}
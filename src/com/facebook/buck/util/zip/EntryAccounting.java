@@ -70,6 +70,7 @@ class EntryAccounting {
 
   @Nullable private Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
   @Nullable private byte[] buffer = new byte[ARBITRARY_SIZE];
+  private boolean precompressed = false;
 
   public EntryAccounting(Clock clock, ZipEntry entry, long currentOffset) {
     this.entry = entry;
@@ -284,6 +285,49 @@ class EntryAccounting {
     }
   }
 
+  /**
+   * Writes the contents of the entry from data deflated ahead of time. Must be the only data
+   * written to the entry.
+   */
+  public void writeDeflated(OutputStream out, DeflatedEntry deflated) throws IOException {
+    checkCanWritePrecompressed();
+    out.write(deflated.getCompressed());
+    setPrecompressed(deflated.getSize(), deflated.getCompressedSize(), deflated.getCrc());
+  }
+
+  /**
+   * Writes the contents of the entry by copying the deflated data of an entry of another zip file
+   * as-is. Must be the only data written to the entry.
+   *
+   * @return false, without writing anything, if the data has to be deflated again because this
+   *     entry asks for a specific compression level.
+   */
+  public boolean writeRawDeflated(OutputStream out, RawZipFile source, RawZipFile.Entry sourceEntry)
+      throws IOException {
+    Preconditions.checkArgument(sourceEntry.getMethod() == ZipEntry.DEFLATED);
+    if (entry instanceof CustomZipEntry
+        && ((CustomZipEntry) entry).getCompressionLevel() != Deflater.DEFAULT_COMPRESSION) {
+      return false;
+    }
+    checkCanWritePrecompressed();
+    source.copyStoredData(sourceEntry, out);
+    setPrecompressed(sourceEntry.getSize(), sourceEntry.getCompressedSize(), sourceEntry.getCrc());
+    return true;
+  }
+
+  private void checkCanWritePrecompressed() {
+    Preconditions.checkState(method == Method.DEFLATE);
+    Preconditions.checkState(deflater != null && deflater.getBytesRead() == 0);
+    Preconditions.checkState(!precompressed);
+  }
+
+  private void setPrecompressed(long size, long compressedSize, long crc) {
+    entry.setSize(size);
+    entry.setCompressedSize(compressedSize);
+    entry.setCrc(crc);
+    precompressed = true;
+  }
+
   /**
    * Finish the entry and return the total number of compressed bytes written (not counting the
    * local file header, but counting the data descriptor if present). Must be called exactly once.
@@ -297,7 +341,7 @@ class EntryAccounting {
       Preconditions.checkState(
           entry.getCrc() == calculateCrc(),
           "CRC of bytes written differs from what is specified in the entry.");
-    } else if (method == Method.DEFLATE) {
+    } else if (method == Method.DEFLATE && !precompressed) {
       deflater.finish();
       while (!deflater.finished()) {
         deflate(out);
@@ -17,6 +17,7 @@
 package com.facebook.buck.util.zip;
 
 import com.facebook.buck.core.exceptions.HumanReadableException;
+import com.facebook.buck.util.function.ThrowingSupplier;
 import com.facebook.buck.util.stream.RichStream;
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
@@ -42,6 +43,7 @@ import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
 import javax.annotation.Nullable;
 
 public class JarBuilder {
@@ -67,6 +69,7 @@ public class JarBuilder {
   private boolean shouldMergeManifests;
   private boolean shouldDisallowAllDuplicates;
   private boolean shouldHashEntries;
+  private int compressionParallelism = 1;
   private Predicate<? super CustomZipEntry> removeEntryPredicate = entry -> false;
   private List<JarEntryContainer> sourceContainers = new ArrayList<>();
   private Set<String> alreadyAddedEntries = new HashSet<>();
@@ -126,6 +129,17 @@ public class JarBuilder {
     return this;
   }
 
+  /**
+   * Sets how many entries may be compressed concurrently while the jar is written. The jar is
+   * identical regardless of the value, but values greater than one require the input stream
+   * suppliers of all entries to be safe to call from other threads.
+   */
+  public JarBuilder setCompressionParallelism(int compressionParallelism) {
+    Preconditions.checkArgument(compressionParallelism > 0);
+    this.compressionParallelism = compressionParallelism;
+    return this;
+  }
+
   public JarBuilder setRemoveEntryPredicate(
       Predicate<? super CustomZipEntry> removeEntryPredicate) {
     this.removeEntryPredicate = removeEntryPredicate;
@@ -226,14 +240,39 @@ public class JarBuilder {
     return entry;
   }
 
-  private void addEntriesToJar(Iterable<JarEntrySupplier> entries, CustomJarOutputStream jar)
+  private void addEntriesToJar(List<JarEntrySupplier> entries, CustomJarOutputStream jar)
       throws IOException {
-    for (JarEntrySupplier entrySupplier : entries) {
-      addEntryToJar(entrySupplier, jar);
+    if (compressionParallelism == 1) {
+      for (JarEntrySupplier entrySupplier : entries) {
+        addEntryToJar(entrySupplier, jar, null);
+      }
+      return;
+    }
+
+    // Entries that will be skipped for certain are not deflated ahead of time. Duplicates can only
+    // be detected while writing, so they are deflated and then dropped.
+    try (ParallelEntryDeflater deflater =
+        new ParallelEntryDeflater(
+            entries,
+            supplier -> {
+              String entryName = supplier.getEntry().getName();
+              return !JarFile.MANIFEST_NAME.equals(entryName)
+                  && !isService(entryName)
+                  && !removeEntryPredicate.test(supplier.getEntry())
+                  && !canCopyRawDeflated(supplier);
+            },
+            compressionParallelism)) {
+      for (int i = 0; i < entries.size(); i++) {
+        int index = i;
+        addEntryToJar(entries.get(i), jar, () -> deflater.take(index));
+      }
     }
   }
 
-  private void addEntryToJar(JarEntrySupplier entrySupplier, CustomJarOutputStream jar)
+  private void addEntryToJar(
+      JarEntrySupplier entrySupplier,
+      CustomJarOutputStream jar,
+      @Nullable ThrowingSupplier<DeflatedEntry, IOException> deflatedEntrySupplier)
       throws IOException {
     CustomZipEntry entry = entrySupplier.getEntry();
     String entryName = entry.getName();
@@ -276,15 +315,40 @@ public class JarBuilder {
     }
 
     jar.putNextEntry(entry);
-    try (InputStream entryInputStream = entrySupplier.getInputStreamSupplier().get()) {
-      if (entryInputStream != null) {
-        // Null stream means a directory
-        ByteStreams.copy(entryInputStream, jar);
+    if (canCopyRawDeflated(entrySupplier)
+        && jar.writeRawDeflated(
+            Objects.requireNonNull(entrySupplier.getRawSource()),
+            Objects.requireNonNull(entrySupplier.getRawSourceEntry()))) {
+      jar.closeEntry();
+      return;
+    }
+    DeflatedEntry deflatedEntry =
+        deflatedEntrySupplier == null ? null : deflatedEntrySupplier.get();
+    if (deflatedEntry != null) {
+      jar.writeDeflated(deflatedEntry);
+    } else {
+      try (InputStream entryInputStream = entrySupplier.getInputStreamSupplier().get()) {
+        if (entryInputStream != null) {
+          // Null stream means a directory
+          ByteStreams.copy(entryInputStream, jar);
+        }
       }
     }
     jar.closeEntry();
   }
 
+  /**
+   * Entries of other zip files that are already deflated are copied as-is, unless the contents of
+   * the entries have to be hashed.
+   */
+  private boolean canCopyRawDeflated(JarEntrySupplier entrySupplier) {
+    RawZipFile.Entry rawSourceEntry = entrySupplier.getRawSourceEntry();
+    return !shouldHashEntries
+        && rawSourceEntry != null
+        && rawSourceEntry.getMethod() == ZipEntry.DEFLATED
+        && entrySupplier.getEntry().getMethod() == ZipEntry.DEFLATED;
+  }
+
   private boolean isService(String entryName) {
     return entryName.startsWith("META-INF/services/") && !entryName.endsWith("/");
   }
@@ -19,6 +19,7 @@ package com.facebook.buck.util.zip;
 import com.facebook.buck.util.function.ThrowingSupplier;
 import java.io.IOException;
 import java.io.InputStream;
+import javax.annotation.Nullable;
 
 /**
  * Encapsulates a file or directory to be added as a single entry to a jar by {@link JarBuilder}.
@@ -27,14 +28,31 @@ public class JarEntrySupplier {
   private final CustomZipEntry entry;
   private final String owner;
   private final ThrowingSupplier<InputStream, IOException> inputStreamSupplier;
+  @Nullable private final RawZipFile rawSource;
+  @Nullable private final RawZipFile.Entry rawSourceEntry;
 
   public JarEntrySupplier(
       CustomZipEntry entry,
       String owner,
       ThrowingSupplier<InputStream, IOException> inputStreamSupplier) {
+    this(entry, owner, inputStreamSupplier, null, null);
+  }
+
+  /**
+   * Creates a supplier for an entry of another zip file whose stored data can also be copied as-is
+   * from {@code rawSourceEntry}.
+   */
+  JarEntrySupplier(
+      CustomZipEntry entry,
+      String owner,
+      ThrowingSupplier<InputStream, IOException> inputStreamSupplier,
+      @Nullable RawZipFile rawSource,
+      @Nullable RawZipFile.Entry rawSourceEntry) {
     this.entry = entry;
     this.owner = owner;
     this.inputStreamSupplier = inputStreamSupplier;
+    this.rawSource = rawSource;
+    this.rawSourceEntry = rawSourceEntry;
   }
 
   public CustomZipEntry getEntry() {
@@ -48,4 +66,14 @@ public class JarEntrySupplier {
   public ThrowingSupplier<InputStream, IOException> getInputStreamSupplier() {
     return inputStreamSupplier;
   }
+
+  @Nullable
+  RawZipFile getRawSource() {
+    return rawSource;
+  }
+
+  @Nullable
+  RawZipFile.Entry getRawSourceEntry() {
+    return rawSourceEntry;
+  }
 }
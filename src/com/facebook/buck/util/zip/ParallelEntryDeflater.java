@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.util.zip;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * Deflates the entries of a jar on a shared pool of threads ahead of {@link JarBuilder} writing
+ * them in order.
+ *
+ * <p>Entries are deflated in the order they are going to be written, at most a window of {@code 2 *
+ * parallelism} entries ahead of the writer. Entries larger than {@link #MAX_BUFFERED_ENTRY_SIZE}
+ * are left for the writer to stream, so the memory used does not depend on the size of the jar.
+ */
+class ParallelEntryDeflater implements AutoCloseable {
+
+  static final int MAX_BUFFERED_ENTRY_SIZE = 4 * 1024 * 1024;
+
+  private final List<JarEntrySupplier> entries;
+  private final Predicate<JarEntrySupplier> shouldDeflate;
+  private final int window;
+  private final Future<?>[] pending;
+  private int nextToSubmit = 0;
+  private int nextToTake = 0;
+
+  ParallelEntryDeflater(
+      List<JarEntrySupplier> entries, Predicate<JarEntrySupplier> shouldDeflate, int parallelism) {
+    Preconditions.checkArgument(parallelism > 0);
+    this.entries = entries;
+    this.shouldDeflate = shouldDeflate;
+    this.window = 2 * parallelism;
+    this.pending = new Future<?>[entries.size()];
+  }
+
+  /**
+   * Returns the deflated contents of the entry at {@code index}, or {@code null} if the entry was
+   * not deflated ahead of time and has to be streamed by the caller. Indices must be increasing.
+   */
+  @Nullable
+  DeflatedEntry take(int index) throws IOException {
+    Preconditions.checkArgument(index >= nextToTake);
+    // Entries that were skipped by the writer won't be needed anymore.
+    for (; nextToTake < index; nextToTake++) {
+      cancel(nextToTake);
+    }
+    nextToTake = index + 1;
+
+    for (; nextToSubmit < entries.size() && nextToSubmit <= index + window; nextToSubmit++) {
+      JarEntrySupplier supplier = entries.get(nextToSubmit);
+      if (supplier.getEntry().getMethod() == CustomZipEntry.DEFLATED
+          && !supplier.getEntry().isDirectory()
+          && shouldDeflate.test(supplier)) {
+        int compressionLevel = supplier.getEntry().getCompressionLevel();
+        pending[nextToSubmit] = Pool.EXECUTOR.submit(() -> deflate(supplier, compressionLevel));
+      }
+    }
+
+    Future<?> future = pending[index];
+    if (future == null) {
+      return null;
+    }
+    pending[index] = null;
+    try {
+      return (DeflatedEntry) future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(
+          "Interrupted while deflating " + entries.get(index).getEntry().getName());
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  @Override
+  public void close() {
+    for (int i = nextToTake; i < nextToSubmit; i++) {
+      cancel(i);
+    }
+  }
+
+  private void cancel(int index) {
+    Future<?> future = pending[index];
+    if (future != null) {
+      future.cancel(false);
+      pending[index] = null;
+    }
+  }
+
+  @Nullable
+  private static DeflatedEntry deflate(JarEntrySupplier supplier, int compressionLevel)
+      throws IOException {
+    try (InputStream inputStream = supplier.getInputStreamSupplier().get()) {
+      if (inputStream == null) {
+        return null;
+      }
+      byte[] data =
+          ByteStreams.toByteArray(ByteStreams.limit(inputStream, MAX_BUFFERED_ENTRY_SIZE + 1));
+      if (data.length > MAX_BUFFERED_ENTRY_SIZE) {
+        return null;
+      }
+      return DeflatedEntry.deflate(compressionLevel, data);
+    }
+  }
+
+  /** Lazily created pool shared by all jars being built, sized to the number of cores. */
+  private static class Pool {
+    private static final ExecutorService EXECUTOR =
+        Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("jar-deflater-%d").setDaemon(true).build());
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.util.zip;
+
+import com.google.common.collect.ImmutableList;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+
+/**
+ * Gives access to the entries of a zip file as they are stored, so that compressed entries can be
+ * copied to another zip file without inflating and deflating them again.
+ *
+ * <p>Only the central directory is read up front. Zip64 archives, archives with a comment that
+ * hides the end of central directory record and archives spanning several disks are not supported
+ * and {@link #open(Path)} returns {@link Optional#empty()} for them, in which case callers should
+ * read the entries with {@link java.util.zip.ZipFile}.
+ */
+public class RawZipFile implements Closeable {
+
+  private static final int ENCRYPTED_FLAG = 1;
+
+  private final FileChannel channel;
+  private final ImmutableList<Entry> entries;
+
+  private RawZipFile(FileChannel channel, ImmutableList<Entry> entries) {
+    this.channel = channel;
+    this.entries = entries;
+  }
+
+  /** Opens the zip file, or returns {@link Optional#empty()} if its layout is not supported. */
+  public static Optional<RawZipFile> open(Path zipPath) throws IOException {
+    FileChannel channel = FileChannel.open(zipPath, StandardOpenOption.READ);
+    try {
+      Optional<ImmutableList<Entry>> entries = readCentralDirectory(channel);
+      if (entries.isPresent()) {
+        return Optional.of(new RawZipFile(channel, entries.get()));
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    channel.close();
+    return Optional.empty();
+  }
+
+  /** @return the entries in the order of the central directory. */
+  public ImmutableList<Entry> getEntries() {
+    return entries;
+  }
+
+  /**
+   * @return whether the central directory lists the entries in the order they are stored in the
+   *     file, which is the order {@link java.util.zip.ZipInputStream} reads them in.
+   */
+  public boolean isCentralDirectoryInFileOrder() {
+    for (int i = 1; i < entries.size(); i++) {
+      if (entries.get(i).localHeaderOffset <= entries.get(i - 1).localHeaderOffset) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes the data of {@code entry} as it is stored, i.e. deflated for {@link ZipEntry#DEFLATED}
+   * entries, to {@code out}.
+   */
+  public void copyStoredData(Entry entry, OutputStream out) throws IOException {
+    ByteBuffer localHeader = read(entry.localHeaderOffset, ZipEntry.LOCHDR);
+    if (localHeader.getInt(0) != ZipEntry.LOCSIG) {
+      throw new IOException("Expected local header signature for " + entry.getName());
+    }
+    long dataOffset =
+        entry.localHeaderOffset
+            + ZipEntry.LOCHDR
+            + Short.toUnsignedInt(localHeader.getShort(ZipEntry.LOCNAM))
+            + Short.toUnsignedInt(localHeader.getShort(ZipEntry.LOCEXT));
+
+    WritableByteChannel target = Channels.newChannel(out);
+    long position = dataOffset;
+    long end = dataOffset + entry.getCompressedSize();
+    while (position < end) {
+      long transferred = channel.transferTo(position, end - position, target);
+      if (transferred <= 0) {
+        throw new IOException("Unexpected end of data for " + entry.getName());
+      }
+      position += transferred;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private static Optional<ImmutableList<Entry>> readCentralDirectory(FileChannel channel)
+      throws IOException {
+    long size = channel.size();
+    if (size < ZipEntry.ENDHDR) {
+      return Optional.empty();
+    }
+    ByteBuffer end = read(channel, size - ZipEntry.ENDHDR, ZipEntry.ENDHDR);
+    if (end.getInt(0) != ZipEntry.ENDSIG
+        || end.getShort(4) != 0
+        || end.getShort(6) != 0
+        || end.getShort(ZipEntry.ENDCOM) != 0) {
+      return Optional.empty();
+    }
+    int count = Short.toUnsignedInt(end.getShort(ZipEntry.ENDTOT));
+    long centralDirectorySize = Integer.toUnsignedLong(end.getInt(ZipEntry.ENDSIZ));
+    long centralDirectoryOffset = Integer.toUnsignedLong(end.getInt(ZipEntry.ENDOFF));
+    if (count == ZipConstants.ZIP64_MAGICCOUNT
+        || centralDirectoryOffset == ZipConstants.ZIP64_MAGICVAL
+        || centralDirectoryOffset + centralDirectorySize > size - ZipEntry.ENDHDR) {
+      return Optional.empty();
+    }
+
+    ByteBuffer directory = read(channel, centralDirectoryOffset, (int) centralDirectorySize);
+    ImmutableList.Builder<Entry> entries = ImmutableList.builderWithExpectedSize(count);
+    int offset = 0;
+    for (int i = 0; i < count; i++) {
+      if (offset + ZipEntry.CENHDR > directory.limit()
+          || directory.getInt(offset) != ZipEntry.CENSIG) {
+        return Optional.empty();
+      }
+      int nameLength = Short.toUnsignedInt(directory.getShort(offset + ZipEntry.CENNAM));
+      int extraLength = Short.toUnsignedInt(directory.getShort(offset + ZipEntry.CENEXT));
+      int commentLength = Short.toUnsignedInt(directory.getShort(offset + ZipEntry.CENCOM));
+      byte[] name = new byte[nameLength];
+      ByteBuffer nameBuffer = directory.duplicate();
+      nameBuffer.position(offset + ZipEntry.CENHDR);
+      nameBuffer.get(name);
+
+      long compressedSize = Integer.toUnsignedLong(directory.getInt(offset + ZipEntry.CENSIZ));
+      long uncompressedSize = Integer.toUnsignedLong(directory.getInt(offset + ZipEntry.CENLEN));
+      long localHeaderOffset = Integer.toUnsignedLong(directory.getInt(offset + ZipEntry.CENOFF));
+      if (compressedSize == ZipConstants.ZIP64_MAGICVAL
+          || uncompressedSize == ZipConstants.ZIP64_MAGICVAL
+          || localHeaderOffset == ZipConstants.ZIP64_MAGICVAL) {
+        return Optional.empty();
+      }
+
+      entries.add(
+          new Entry(
+              new String(name, StandardCharsets.UTF_8),
+              Short.toUnsignedInt(directory.getShort(offset + ZipEntry.CENFLG)),
+              Short.toUnsignedInt(directory.getShort(offset + ZipEntry.CENHOW)),
+              Integer.toUnsignedLong(directory.getInt(offset + ZipEntry.CENCRC)),
+              compressedSize,
+              uncompressedSize,
+              localHeaderOffset));
+      offset += ZipEntry.CENHDR + nameLength + extraLength + commentLength;
+    }
+    return Optional.of(entries.build());
+  }
+
+  private ByteBuffer read(long position, int length) throws IOException {
+    return read(channel, position, length);
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int length)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of zip file");
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /** An entry of the central directory. */
+  public static class Entry {
+    private final String name;
+    private final int flags;
+    private final int method;
+    private final long crc;
+    private final long compressedSize;
+    private final long size;
+    private final long localHeaderOffset;
+
+    private Entry(
+        String name,
+        int flags,
+        int method,
+        long crc,
+        long compressedSize,
+        long size,
+        long localHeaderOffset) {
+      this.name = name;
+      this.flags = flags;
+      this.method = method;
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getMethod() {
+      return method;
+    }
+
+    public long getCrc() {
+      return crc;
+    }
+
+    public long getCompressedSize() {
+      return compressedSize;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    /** @return whether the data of this entry can be copied as-is into another zip file. */
+    public boolean isRawCopyable() {
+      return (flags & ENCRYPTED_FLAG) == 0
+          && (method == ZipEntry.DEFLATED || method == ZipEntry.STORED);
+    }
+  }
+}
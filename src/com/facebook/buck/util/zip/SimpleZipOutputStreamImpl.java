@@ -47,6 +47,12 @@ class SimpleZipOutputStreamImpl implements CustomZipOutputStream.Impl {
     Objects.requireNonNull(currentEntry).write(delegate, b, off, len);
   }
 
+  @Override
+  public boolean actuallyWriteRawDeflated(RawZipFile source, RawZipFile.Entry sourceEntry)
+      throws IOException {
+    return Objects.requireNonNull(currentEntry).writeRawDeflated(delegate, source, sourceEntry);
+  }
+
   @Override
   public void actuallyPutNextEntry(ZipEntry entry) throws IOException {
     currentEntry = new EntryAccounting(clock, entry, currentOffset);
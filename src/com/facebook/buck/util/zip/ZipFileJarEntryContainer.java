@@ -16,9 +16,13 @@
 
 package com.facebook.buck.util.zip;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Streams;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.stream.Stream;
@@ -30,6 +34,7 @@ class ZipFileJarEntryContainer implements JarEntryContainer {
   private final String owner;
   private final Path jarFilePath;
   @Nullable private JarFile jar;
+  @Nullable private RawZipFile rawZipFile;
 
   public ZipFileJarEntryContainer(Path jarFilePath) {
     this.jarFilePath = jarFilePath;
@@ -44,11 +49,27 @@ class ZipFileJarEntryContainer implements JarEntryContainer {
 
   @Override
   public Stream<JarEntrySupplier> stream() throws IOException {
-    return getJarFile().stream()
-        .map(
-            entry ->
-                new JarEntrySupplier(
-                    makeCustomEntry(entry), owner, () -> getJarFile().getInputStream(entry)));
+    JarFile jarFile = getJarFile();
+    // ZipFile lists entries in the order of the central directory, so the raw entry at the same
+    // index describes the same entry. Deflated entries can then be copied without inflating them.
+    List<RawZipFile.Entry> rawEntries =
+        getRawZipFile().map(RawZipFile::getEntries).orElse(ImmutableList.of());
+    return Streams.mapWithIndex(
+        jarFile.stream(),
+        (entry, index) -> {
+          RawZipFile.Entry rawEntry = null;
+          if (index < rawEntries.size()
+              && rawEntries.get((int) index).getName().equals(entry.getName())
+              && rawEntries.get((int) index).isRawCopyable()) {
+            rawEntry = rawEntries.get((int) index);
+          }
+          return new JarEntrySupplier(
+              makeCustomEntry(entry),
+              owner,
+              () -> jarFile.getInputStream(entry),
+              rawEntry == null ? null : rawZipFile,
+              rawEntry);
+        });
   }
 
   @Override
@@ -57,6 +78,17 @@ class ZipFileJarEntryContainer implements JarEntryContainer {
       jar.close();
       jar = null;
     }
+    if (rawZipFile != null) {
+      rawZipFile.close();
+      rawZipFile = null;
+    }
+  }
+
+  private Optional<RawZipFile> getRawZipFile() throws IOException {
+    if (rawZipFile == null) {
+      rawZipFile = RawZipFile.open(jarFilePath).orElse(null);
+    }
+    return Optional.ofNullable(rawZipFile);
   }
 
   private JarFile getJarFile() throws IOException {
@@ -20,8 +20,10 @@ import com.facebook.buck.io.filesystem.ProjectFilesystem;
 import com.facebook.buck.io.pathformat.PathFormatter;
 import com.facebook.buck.util.zip.CustomZipEntry;
 import com.facebook.buck.util.zip.CustomZipOutputStream;
+import com.facebook.buck.util.zip.RawZipFile;
 import com.facebook.buck.util.zip.ZipOutputStreams;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
 import com.google.common.io.ByteStreams;
 import java.io.BufferedInputStream;
@@ -36,7 +38,10 @@ import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -130,6 +135,19 @@ public class ZipEntrySourceCollectionWriter {
       Set<Path> seenFiles,
       Multimap<String, Integer> allowedEntries)
       throws IOException {
+    Optional<RawZipFile> rawZipFile = RawZipFile.open(from);
+    if (rawZipFile.isPresent()) {
+      try (RawZipFile zip = rawZipFile.get()) {
+        // Entries must be copied in the order they are stored to produce the same archive as
+        // ZipInputStream does.
+        if (zip.isCentralDirectoryInFileOrder()
+            && zip.getEntries().stream().allMatch(RawZipFile.Entry::isRawCopyable)) {
+          copyRawZip(out, zip, seenFiles, allowedEntries);
+          return;
+        }
+      }
+    }
+
     try (ZipInputStream in =
         new ZipInputStream(new BufferedInputStream(Files.newInputStream(from)))) {
       int position = 0;
@@ -153,4 +171,47 @@ public class ZipEntrySourceCollectionWriter {
       }
     }
   }
+
+  /** Copies entries using their stored data, so that deflated entries are not deflated again. */
+  private static void copyRawZip(
+      CustomZipOutputStream out,
+      RawZipFile zip,
+      Set<Path> seenFiles,
+      Multimap<String, Integer> allowedEntries)
+      throws IOException {
+    ImmutableList<RawZipFile.Entry> entries = zip.getEntries();
+    for (int position = 0; position < entries.size(); position++) {
+      RawZipFile.Entry entry = entries.get(position);
+      if (!allowedEntries.get(entry.getName()).contains(position)) {
+        continue;
+      }
+      if (entry.getName().endsWith("/")) {
+        seenFiles.add(Paths.get(entry.getName()));
+      }
+      ZipEntry zipEntry = new ZipEntry(entry.getName());
+      zipEntry.setMethod(entry.getMethod());
+      if (entry.getMethod() == ZipEntry.STORED) {
+        zipEntry.setSize(entry.getSize());
+        zipEntry.setCompressedSize(entry.getCompressedSize());
+        zipEntry.setCrc(entry.getCrc());
+      }
+      CustomZipEntry customEntry = new CustomZipEntry(zipEntry);
+      customEntry.setFakeTime();
+      out.putNextEntry(customEntry);
+      if (entry.getMethod() == ZipEntry.STORED) {
+        zip.copyStoredData(entry, out);
+      } else if (!out.writeRawDeflated(zip, entry)) {
+        Inflater inflater = new Inflater(true);
+        try {
+          InflaterOutputStream inflating = new InflaterOutputStream(out, inflater);
+          zip.copyStoredData(entry, inflating);
+          // Closing the stream would close the zip.
+          inflating.finish();
+        } finally {
+          inflater.end();
+        }
+      }
+      out.closeEntry();
+    }
+  }
 }
@@ -20,7 +20,7 @@ import com.facebook.buck.core.util.immutables.BuckStyleValue;
 import java.nio.file.Path;
 
 @BuckStyleValue
-interface WorkerProcessCommand {
+public interface WorkerProcessCommand {
   /**
    * Path to file which contains the arguments of the command. This content should be considered as
    * an input for the command.
@@ -21,6 +21,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import java.nio.file.Path;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 @BuckStyleValue
 public interface WorkerProcessParams {
@@ -53,13 +54,40 @@ public interface WorkerProcessParams {
    */
   Optional<WorkerProcessIdentity> getWorkerProcessIdentity();
 
+  /**
+   * Number of jobs after which a worker process is shut down and replaced by a fresh one. Workers
+   * are never recycled if this value is absent.
+   */
+  OptionalInt getMaxJobsPerWorker();
+
   static WorkerProcessParams of(
       Path tempDir,
       ImmutableList<String> startupCommand,
       ImmutableMap<String, String> startupEnvironment,
       int maxWorkers,
       Optional<WorkerProcessIdentity> workerProcessIdentity) {
+    return of(
+        tempDir,
+        startupCommand,
+        startupEnvironment,
+        maxWorkers,
+        workerProcessIdentity,
+        OptionalInt.empty());
+  }
+
+  static WorkerProcessParams of(
+      Path tempDir,
+      ImmutableList<String> startupCommand,
+      ImmutableMap<String, String> startupEnvironment,
+      int maxWorkers,
+      Optional<WorkerProcessIdentity> workerProcessIdentity,
+      OptionalInt maxJobsPerWorker) {
     return ImmutableWorkerProcessParams.of(
-        tempDir, startupCommand, startupEnvironment, maxWorkers, workerProcessIdentity);
+        tempDir,
+        startupCommand,
+        startupEnvironment,
+        maxWorkers,
+        workerProcessIdentity,
+        maxJobsPerWorker);
   }
 }
@@ -29,6 +29,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -54,6 +55,19 @@ public class WorkerProcessPool implements Closeable {
       int maxWorkers,
       HashCode poolHash,
       ThrowingSupplier<WorkerProcess, IOException> startWorkerProcess) {
+    this(maxWorkers, poolHash, OptionalInt.empty(), startWorkerProcess);
+  }
+
+  /**
+   * @param maxJobsPerWorker if present, a worker process is shut down once it has run that many
+   *     jobs, and a fresh one is started the next time the worker is borrowed. This bounds the
+   *     memory that long-lived workers may accumulate.
+   */
+  public WorkerProcessPool(
+      int maxWorkers,
+      HashCode poolHash,
+      OptionalInt maxJobsPerWorker,
+      ThrowingSupplier<WorkerProcess, IOException> startWorkerProcess) {
     capacity = maxWorkers;
     availableWorkers = new LinkedBlockingStack<>();
     workerLifecycles = new WorkerLifecycle[maxWorkers];
@@ -61,7 +75,8 @@ public class WorkerProcessPool implements Closeable {
 
     Arrays.setAll(
         workerLifecycles,
-        ignored -> new WorkerLifecycle(startWorkerProcess, availableWorkers::add));
+        ignored ->
+            new WorkerLifecycle(startWorkerProcess, maxJobsPerWorker, availableWorkers::add));
     Collections.addAll(availableWorkers, workerLifecycles);
   }
 
@@ -125,14 +140,18 @@ public class WorkerProcessPool implements Closeable {
       implements Closeable, ThrowingSupplier<WorkerProcess, IOException> {
 
     private final ThrowingSupplier<WorkerProcess, IOException> startWorkerProcess;
+    private final OptionalInt maxJobsPerWorker;
     private final Consumer<WorkerLifecycle> onWorkerProcessReturn;
     private boolean isClosed = false;
+    private int jobsSinceStart = 0;
     @Nullable private WorkerProcess workerProcess;
 
     private WorkerLifecycle(
         ThrowingSupplier<WorkerProcess, IOException> startWorkerProcess,
+        OptionalInt maxJobsPerWorker,
         Consumer<WorkerLifecycle> onWorkerProcessReturn) {
       this.startWorkerProcess = startWorkerProcess;
+      this.maxJobsPerWorker = maxJobsPerWorker;
       this.onWorkerProcessReturn = onWorkerProcessReturn;
     }
 
@@ -154,15 +173,38 @@ public class WorkerProcessPool implements Closeable {
       // start a worker if necessary, this might throw IOException
       if (workerProcess == null) {
         workerProcess = startWorkerProcess.get();
+        jobsSinceStart = 0;
       }
 
       return workerProcess;
     }
 
+    /** Records a job submitted to the current worker process. */
+    public synchronized void onJobSubmitted() {
+      jobsSinceStart++;
+    }
+
     public void makeAvailable() {
+      recycleIfExhausted();
       onWorkerProcessReturn.accept(this);
     }
 
+    private synchronized void recycleIfExhausted() {
+      if (workerProcess == null
+          || !maxJobsPerWorker.isPresent()
+          || jobsSinceStart < maxJobsPerWorker.getAsInt()) {
+        return;
+      }
+      LOG.debug("Recycling worker process after %d jobs.", jobsSinceStart);
+      try {
+        workerProcess.close();
+      } catch (Exception ex) {
+        LOG.error(ex, "Failed to close recycled worker process; ignoring.");
+      } finally {
+        workerProcess = null;
+      }
+    }
+
     @Override
     public synchronized void close() {
       isClosed = true;
@@ -208,7 +250,9 @@ public class WorkerProcessPool implements Closeable {
      * @throws IOException
      */
     public WorkerJobResult submitAndWaitForJob(String expandedJobArgs) throws IOException {
-      return get().submitAndWaitForJob(expandedJobArgs);
+      WorkerProcess process = get();
+      Objects.requireNonNull(lifecycle).onJobSubmitted();
+      return process.submitAndWaitForJob(expandedJobArgs);
     }
 
     @VisibleForTesting
@@ -118,6 +118,7 @@ public class WorkerProcessPoolFactory {
         new WorkerProcessPool(
             paramsToUse.getMaxWorkers(),
             workerHash,
+            paramsToUse.getMaxJobsPerWorker(),
             () -> {
               Path tmpDir = workerTmpDir.resolve(Integer.toString(workerNumber.getAndIncrement()));
               filesystem.mkdirs(tmpDir);
@@ -32,4 +32,19 @@ public interface WorkerProcessProtocol {
     @Override
     void close() throws IOException;
   }
+
+  /** Worker process side of the protocol, used by tools that act as worker processes. */
+  interface CommandReceiver extends Closeable {
+    void handshake(int messageId) throws IOException;
+
+    WorkerProcessCommand receiveCommand(int messageId) throws IOException;
+
+    void sendResponse(int messageId, String type, int exitCode) throws IOException;
+
+    /** Returns {@code true} once the CommandSender has asked the worker to shut down. */
+    boolean shouldClose() throws IOException;
+
+    @Override
+    void close() throws IOException;
+  }
 }
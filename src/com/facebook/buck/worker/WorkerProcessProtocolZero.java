@@ -30,7 +30,9 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.function.Supplier;
+import javax.annotation.Nullable;
 
 public class WorkerProcessProtocolZero {
 
@@ -199,11 +201,125 @@ public class WorkerProcessProtocolZero {
     }
   }
 
+  public static class CommandReceiver implements WorkerProcessProtocol.CommandReceiver {
+    private final JsonWriter processStdoutWriter;
+    private final JsonReader processStdinReader;
+    private boolean isClosed = false;
+
+    public CommandReceiver(InputStream processStdin, OutputStream processStdout) {
+      this.processStdinReader =
+          new JsonReader(new BufferedReader(new InputStreamReader(processStdin)));
+      this.processStdoutWriter =
+          new JsonWriter(new BufferedWriter(new OutputStreamWriter(processStdout)));
+    }
+
+    @Override
+    public void handshake(int messageId) throws IOException {
+      receiveHandshake(processStdinReader, messageId, null);
+      sendHandshake(processStdoutWriter, messageId);
+    }
+
+    /*
+    Expects a message that looks like this:
+      ,{
+        id: <id>,
+        type: 'command',
+        args_path: <argsPath>,
+        stdout_path: <stdoutPath>,
+        stderr_path: <stderrPath>,
+      }
+    */
+    @Override
+    public WorkerProcessCommand receiveCommand(int messageId) throws IOException {
+      int id = -1;
+      String type = "";
+      String argsPath = null;
+      String stdoutPath = null;
+      String stderrPath = null;
+
+      processStdinReader.beginObject();
+      while (processStdinReader.hasNext()) {
+        String property = processStdinReader.nextName();
+        if (property.equals("id")) {
+          id = processStdinReader.nextInt();
+        } else if (property.equals("type")) {
+          type = processStdinReader.nextString();
+        } else if (property.equals("args_path")) {
+          argsPath = processStdinReader.nextString();
+        } else if (property.equals("stdout_path")) {
+          stdoutPath = processStdinReader.nextString();
+        } else if (property.equals("stderr_path")) {
+          stderrPath = processStdinReader.nextString();
+        } else {
+          processStdinReader.skipValue();
+        }
+      }
+      processStdinReader.endObject();
+
+      if (id != messageId) {
+        throw new HumanReadableException(
+            String.format(
+                "Expected command's \"id\" value to be \"%d\", got \"%d\" instead.",
+                messageId, id));
+      }
+      if (!type.equals(TYPE_COMMAND)) {
+        throw new HumanReadableException(
+            String.format(
+                "Expected command's \"type\" to be \"%s\", got \"%s\" instead.",
+                TYPE_COMMAND, type));
+      }
+      if (argsPath == null || stdoutPath == null || stderrPath == null) {
+        throw new HumanReadableException(
+            "Expected command to have \"args_path\", \"stdout_path\" and \"stderr_path\".");
+      }
+      return ImmutableWorkerProcessCommand.of(
+          Paths.get(argsPath), Paths.get(stdoutPath), Paths.get(stderrPath));
+    }
+
+    /*
+    Sends a message that looks like this:
+      ,{
+        id: <id>,
+        type: <type>,
+        exit_code: <exitCode>
+      }
+    */
+    @Override
+    public void sendResponse(int messageId, String type, int exitCode) throws IOException {
+      processStdoutWriter.beginObject();
+      processStdoutWriter.name("id").value(messageId);
+      processStdoutWriter.name("type").value(type);
+      processStdoutWriter.name("exit_code").value(exitCode);
+      processStdoutWriter.endObject();
+      processStdoutWriter.flush();
+    }
+
+    @Override
+    public boolean shouldClose() throws IOException {
+      return !processStdinReader.hasNext();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+      if (isClosed) {
+        return;
+      }
+      try {
+        processStdinReader.endArray();
+        processStdinReader.close();
+        processStdoutWriter.endArray();
+        processStdoutWriter.close();
+      } finally {
+        isClosed = true;
+      }
+    }
+  }
+
   private static final String TYPE_HANDSHAKE = "handshake";
   private static final String TYPE_COMMAND = "command";
   private static final String PROTOCOL_VERSION = "0";
-  private static final String TYPE_RESULT = "result";
-  private static final String TYPE_ERROR = "error";
+  public static final String TYPE_RESULT = "result";
+  public static final String TYPE_ERROR = "error";
 
   /*
    Sends a message that looks like this:
@@ -236,7 +352,7 @@ public class WorkerProcessProtocolZero {
          capabilities: []
        }
   */
-  private static void receiveHandshake(JsonReader reader, int messageId, Path stdErr)
+  private static void receiveHandshake(JsonReader reader, int messageId, @Nullable Path stdErr)
       throws IOException {
     int id = -1;
     String type = "";
@@ -295,8 +411,11 @@ public class WorkerProcessProtocolZero {
     }
   }
 
-  private static String getStdErrorOutput(Path stdErr) throws IOException {
+  private static String getStdErrorOutput(@Nullable Path stdErr) throws IOException {
     StringBuilder sb = new StringBuilder();
+    if (stdErr == null) {
+      return sb.toString();
+    }
     try (InputStream inputStream = Files.newInputStream(stdErr);
         BufferedReader errorReader = new BufferedReader(new InputStreamReader(inputStream))) {
       while (errorReader.ready()) {
@@ -678,6 +678,7 @@ public class AndroidBinaryGraphEnhancerTest {
             false,
             Optional.empty(),
             Optional.empty(),
+            false,
             false);
 
     AndroidBinaryGraphEnhancer graphEnhancer =
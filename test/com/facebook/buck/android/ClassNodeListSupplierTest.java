@@ -20,6 +20,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.io.ByteStreams;
 import java.io.File;
 import java.io.FileOutputStream;
@@ -60,6 +61,39 @@ public class ClassNodeListSupplierTest {
     assertSame(classNodes, supplier.get());
   }
 
+  @Test
+  public void testClassesKeepJarAndEntryOrder() throws IOException {
+    ImmutableList<Class<?>> firstJarClasses =
+        ImmutableList.of(ClassNodeListSupplierTest.class, ClassNodeListSupplier.class);
+    ImmutableList<Class<?>> secondJarClasses = ImmutableList.of(SplitZipStep.class);
+    File firstJar = writeJar("first.jar", firstJarClasses);
+    File secondJar = writeJar("second.jar", secondJarClasses);
+
+    ImmutableList<ClassNode> classNodes =
+        ClassNodeListSupplier.createMemoized(
+                ImmutableList.of(firstJar.toPath(), secondJar.toPath()))
+            .get();
+
+    ImmutableList.Builder<String> expectedNames = ImmutableList.builder();
+    for (Class<?> type : Iterables.concat(firstJarClasses, secondJarClasses)) {
+      expectedNames.add(Type.getType(type).getInternalName());
+    }
+    assertEquals(
+        expectedNames.build(),
+        classNodes.stream().map(node -> node.name).collect(ImmutableList.toImmutableList()));
+  }
+
+  private File writeJar(String name, Iterable<Class<?>> types) throws IOException {
+    File jar = new File(tmpDir.getRoot(), name);
+    try (ZipOutputStream jarOut = new JarOutputStream(new FileOutputStream(jar))) {
+      for (Class<?> type : types) {
+        jarOut.putNextEntry(new JarEntry(Type.getType(type).getInternalName() + ".class"));
+        writeClassBytes(type, jarOut);
+      }
+    }
+    return jar;
+  }
+
   private void writeClassBytes(Class<?> type, OutputStream outputStream) throws IOException {
     String resourceName = type.getName().replace('.', '/') + ".class";
     InputStream inputStream = ClassLoader.getSystemResourceAsStream(resourceName);
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.android;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.android.tools.r8.ClassFileResourceProvider;
+import com.facebook.buck.util.hashing.FileHashLoader;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class D8ClassFileProvidersTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void providersAreSharedUntilTheArchiveChanges() throws IOException {
+    Path jar = tmp.getRoot().toPath().resolve("lib.jar");
+    writeJar(jar, "a/A.class");
+
+    try (D8ClassFileProviders first = new D8ClassFileProviders(Optional.empty());
+        D8ClassFileProviders second = new D8ClassFileProviders(Optional.empty())) {
+      ClassFileResourceProvider provider = first.forArchive(jar).get();
+      assertSame(provider, second.forArchive(jar).get());
+      assertEquals(ImmutableSet.of("La/A;"), provider.getClassDescriptors());
+
+      rewriteJar(jar, "a/A.class", "b/B.class");
+
+      ClassFileResourceProvider rewrittenProvider = second.forArchive(jar).get();
+      assertNotSame(provider, rewrittenProvider);
+      assertEquals(ImmutableSet.of("La/A;", "Lb/B;"), rewrittenProvider.getClassDescriptors());
+    }
+  }
+
+  @Test
+  public void archiveRewrittenWithTheSameSizeAndModificationTimeGetsAFreshProvider()
+      throws IOException {
+    Path jar = tmp.getRoot().toPath().resolve("lib.jar");
+    writeJar(jar, "a/A.class");
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(1_000));
+    long size = Files.size(jar);
+
+    try (D8ClassFileProviders providers =
+        new D8ClassFileProviders(Optional.of(new ContentHashLoader()))) {
+      ClassFileResourceProvider provider = providers.forArchive(jar).get();
+
+      writeJar(jar, "b/B.class");
+      Files.setLastModifiedTime(jar, FileTime.fromMillis(1_000));
+      assertEquals(size, Files.size(jar));
+
+      ClassFileResourceProvider rewrittenProvider = providers.forArchive(jar).get();
+      assertNotSame(provider, rewrittenProvider);
+      assertEquals(ImmutableSet.of("Lb/B;"), rewrittenProvider.getClassDescriptors());
+    }
+  }
+
+  @Test
+  public void archiveReplacedWithTheSameSizeAndModificationTimeGetsAFreshProvider()
+      throws IOException {
+    Path jar = tmp.getRoot().toPath().resolve("lib.jar");
+    writeJar(jar, "a/A.class");
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(1_000));
+
+    ClassFileResourceProvider provider;
+    try (D8ClassFileProviders providers = new D8ClassFileProviders(Optional.empty())) {
+      provider = providers.forArchive(jar).get();
+    }
+
+    Path replacement = tmp.getRoot().toPath().resolve("replacement.jar");
+    writeJar(replacement, "b/B.class");
+    Files.setLastModifiedTime(replacement, FileTime.fromMillis(1_000));
+    Files.move(replacement, jar, StandardCopyOption.REPLACE_EXISTING);
+
+    try (D8ClassFileProviders providers = new D8ClassFileProviders(Optional.empty())) {
+      ClassFileResourceProvider replacedProvider = providers.forArchive(jar).get();
+      assertNotSame(provider, replacedProvider);
+      assertEquals(ImmutableSet.of("Lb/B;"), replacedProvider.getClassDescriptors());
+    }
+  }
+
+  @Test
+  public void replacedProvidersAreClosedOnceNoLongerUsed() throws IOException {
+    Path jar = tmp.getRoot().toPath().resolve("lib.jar");
+    writeJar(jar, "a/A.class");
+
+    ClassFileResourceProvider provider;
+    try (D8ClassFileProviders user = new D8ClassFileProviders(Optional.empty())) {
+      provider = user.forArchive(jar).get();
+      rewriteJar(jar, "a/A.class", "b/B.class");
+      try (D8ClassFileProviders other = new D8ClassFileProviders(Optional.empty())) {
+        other.forArchive(jar).get();
+      }
+      // Still in use, so it must still be readable.
+      assertNotNull(provider.getProgramResource("La/A;"));
+    }
+
+    try {
+      provider.getProgramResource("La/A;");
+      fail("Provider of the replaced archive should have been closed.");
+    } catch (RuntimeException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void directoriesAreNotShared() throws IOException {
+    try (D8ClassFileProviders providers = new D8ClassFileProviders(Optional.empty())) {
+      assertFalse(providers.forArchive(tmp.newFolder("classes").toPath()).isPresent());
+    }
+  }
+
+  private static void rewriteJar(Path jar, String... entries) throws IOException {
+    writeJar(jar, entries);
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+  }
+
+  private static void writeJar(Path jar, String... entries) throws IOException {
+    try (OutputStream output = Files.newOutputStream(jar);
+        JarOutputStream jarOutput = new JarOutputStream(output)) {
+      for (String entry : entries) {
+        jarOutput.putNextEntry(new ZipEntry(entry));
+        jarOutput.write(new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE});
+        jarOutput.closeEntry();
+      }
+    }
+  }
+
+  /** Hashes file contents on every call, like a file hash cache that saw every change */
+  private static class ContentHashLoader implements FileHashLoader {
+    @Override
+    public HashCode get(Path path) throws IOException {
+      return Hashing.sha1().hashBytes(Files.readAllBytes(path));
+    }
+
+    @Override
+    public long getSize(Path path) throws IOException {
+      return Files.size(path);
+    }
+
+    @Override
+    public HashCode getForArchiveMember(Path relativeArchivePath, Path memberPath) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -28,7 +28,11 @@ import com.facebook.buck.io.filesystem.ProjectFilesystem;
 import com.facebook.buck.io.filesystem.impl.FakeProjectFilesystem;
 import com.facebook.buck.step.TestExecutionContext;
 import com.facebook.buck.util.DefaultFilteredDirectoryCopier;
+import com.facebook.buck.util.concurrent.ConcurrencyLimit;
+import com.facebook.buck.util.concurrent.ResourceAllocationFairness;
+import com.facebook.buck.util.concurrent.ResourceAmounts;
 import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import java.io.IOException;
@@ -36,6 +40,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Iterator;
 import java.util.Optional;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import org.hamcrest.Matchers;
@@ -448,6 +456,119 @@ public class FilterResourcesStepTest {
             resOutDir.resolve(String.format("values-%s", targetDensity)).resolve(file)));
   }
 
+  @Test
+  public void unmatchedDrawablesAreScaledConcurrently() throws IOException, InterruptedException {
+    Path resDir = Paths.get("res");
+    Path resOutDir = Paths.get("res-out");
+    ImmutableList<String> drawables = ImmutableList.of("a.png", "b.png", "c.png", "d.png");
+
+    ProjectFilesystem filesystem = new FakeProjectFilesystem();
+    for (String drawable : drawables) {
+      filesystem.createNewFile(getDrawableFile(resDir.toString(), "xhdpi", drawable));
+    }
+
+    // Every scale call waits for a second one, so this only completes if they run in parallel.
+    CyclicBarrier barrier = new CyclicBarrier(2);
+    FilterResourcesSteps filterResourcesSteps =
+        createScalingSteps(
+            filesystem,
+            resDir,
+            resOutDir,
+            new ImageScaler() {
+              @Override
+              public boolean isAvailable(ExecutionContext context) {
+                return true;
+              }
+
+              @Override
+              public void scale(
+                  double factor, Path source, Path destination, ExecutionContext context)
+                  throws IOException, InterruptedException {
+                try {
+                  barrier.await(30, TimeUnit.SECONDS);
+                } catch (BrokenBarrierException | TimeoutException e) {
+                  throw new IOException(e);
+                }
+              }
+            });
+
+    ExecutionContext context = createContextWithThreadLimit(2);
+    filterResourcesSteps.getCopyStep().execute(context);
+    filterResourcesSteps.getScaleStep().execute(context);
+
+    for (String drawable : drawables) {
+      assertThat(
+          filesystem,
+          ProjectFilesystemMatchers.pathExists(
+              getDrawableFile(resOutDir.toString(), "mdpi", drawable)));
+      assertThat(
+          filesystem,
+          ProjectFilesystemMatchers.pathDoesNotExist(
+              getDrawableFile(resOutDir.toString(), "xhdpi", drawable)));
+    }
+  }
+
+  @Test(expected = InterruptedException.class)
+  public void interruptedScalingIsPropagated() throws IOException, InterruptedException {
+    Path resDir = Paths.get("res");
+    Path resOutDir = Paths.get("res-out");
+
+    ProjectFilesystem filesystem = new FakeProjectFilesystem();
+    filesystem.createNewFile(getDrawableFile(resDir.toString(), "xhdpi", "a.png"));
+    filesystem.createNewFile(getDrawableFile(resDir.toString(), "xhdpi", "b.png"));
+
+    FilterResourcesSteps filterResourcesSteps =
+        createScalingSteps(
+            filesystem,
+            resDir,
+            resOutDir,
+            new ImageScaler() {
+              @Override
+              public boolean isAvailable(ExecutionContext context) {
+                return true;
+              }
+
+              @Override
+              public void scale(
+                  double factor, Path source, Path destination, ExecutionContext context)
+                  throws InterruptedException {
+                throw new InterruptedException();
+              }
+            });
+
+    ExecutionContext context = createContextWithThreadLimit(2);
+    filterResourcesSteps.getCopyStep().execute(context);
+    filterResourcesSteps.getScaleStep().execute(context);
+  }
+
+  private static FilterResourcesSteps createScalingSteps(
+      ProjectFilesystem filesystem, Path resDir, Path resOutDir, ImageScaler imageScaler) {
+    return new FilterResourcesSteps(
+        filesystem,
+        ImmutableBiMap.of(resDir, resOutDir),
+        /* filterByDensity */ true,
+        /* enableStringWhitelisting */ false,
+        /* whitelistedStringDirs */ ImmutableSet.of(),
+        /* locales */ ImmutableSet.of(),
+        /* localizedStringFileName */ Optional.empty(),
+        DefaultFilteredDirectoryCopier.getInstance(),
+        ImmutableSet.of(ResourceFilters.Density.MDPI),
+        FilterResourcesSteps.DefaultDrawableFinder.getInstance(),
+        imageScaler);
+  }
+
+  private static ExecutionContext createContextWithThreadLimit(int threadLimit) {
+    return TestExecutionContext.newBuilder()
+        .setConcurrencyLimit(
+            new ConcurrencyLimit(
+                threadLimit,
+                ResourceAllocationFairness.FAIR,
+                threadLimit,
+                ResourceAmounts.of(1, 1, 1, 1),
+                ResourceAmounts.of(0, 0, 0, 0)))
+        .build();
+  }
+
   private static void assertMatchesRegex(String path, String language, String country) {
     Matcher matcher = FilterResourcesSteps.NON_ENGLISH_STRINGS_FILE_PATH.matcher(path);
     assertTrue(matcher.matches());
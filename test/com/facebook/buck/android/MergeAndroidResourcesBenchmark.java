@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.android;
+
+import com.facebook.buck.android.MergeAndroidResourcesStep.DuplicateResourceException;
+import com.facebook.buck.android.aapt.RDotTxtEntry;
+import com.facebook.buck.android.aapt.RDotTxtEntry.RType;
+import com.facebook.buck.core.rules.resolver.impl.TestActionGraphBuilder;
+import com.facebook.buck.io.filesystem.ProjectFilesystem;
+import com.facebook.buck.io.filesystem.TestProjectFilesystems;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SortedSetMultimap;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Measures merging the R.txt files of many resource libraries and writing their R.java files. The
+ * synthetic libraries declare their own strings and ids and share attributes through styleables,
+ * as libraries of real apps do.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MergeAndroidResourcesBenchmark {
+  private static final int SHARED_ATTRIBUTES = 500;
+
+  @Param({"200", "2000"})
+  private int libraries;
+
+  private Path root;
+  private ProjectFilesystem filesystem;
+  private ImmutableMap<Path, String> symbolsFileToRDotJavaPackage;
+  private MergeAndroidResourcesStep step;
+
+  @Setup
+  public void setUp() throws IOException {
+    root = Files.createTempDirectory("merge-android-resources-benchmark");
+    filesystem = TestProjectFilesystems.createProjectFilesystem(root);
+
+    Random random = new Random(0);
+    ImmutableMap.Builder<Path, String> symbolsFiles = ImmutableMap.builder();
+    for (int library = 0; library < libraries; library++) {
+      Path symbolsFile = Paths.get("lib" + library, "R.txt");
+      filesystem.mkdirs(symbolsFile.getParent());
+      filesystem.writeLinesToPath(createSymbols(library, random), symbolsFile);
+      symbolsFiles.put(symbolsFile, "com.example.lib" + library);
+    }
+    symbolsFileToRDotJavaPackage = symbolsFiles.build();
+
+    step =
+        new MergeAndroidResourcesStep(
+            filesystem,
+            new TestActionGraphBuilder().getSourcePathResolver(),
+            ImmutableList.of(),
+            ImmutableList.of(),
+            Paths.get("output"),
+            /* forceFinalResourceIds */ false,
+            /* bannedDuplicateResourceTypes */ EnumSet.noneOf(RType.class),
+            /* duplicateResourceWhitelistPath */ Optional.empty(),
+            /* overrideSymbolsPath */ ImmutableList.of(),
+            /* unionPackage */ Optional.of("com.example.union"),
+            /* rName */ Optional.empty(),
+            /* useOldStyleableFormat */ false,
+            /* skipNonUnionRDotJava */ false);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    MoreFiles.deleteRecursively(root, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public SortedSetMultimap<String, RDotTxtEntry> sortSymbols() throws DuplicateResourceException {
+    return MergeAndroidResourcesStep.sortSymbols(
+        symbolsFileToRDotJavaPackage,
+        Optional.empty(),
+        ImmutableMap.of(),
+        Optional.empty(),
+        EnumSet.noneOf(RType.class),
+        ImmutableSet.of(),
+        filesystem,
+        false);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public void sortSymbolsAndWriteRDotJava() throws DuplicateResourceException, IOException {
+    step.writePerPackageRDotJava(sortSymbols(), filesystem);
+  }
+
+  private static List<String> createSymbols(int library, Random random) {
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      lines.add(String.format("int string lib%d_string%d 0x7f03%04x", library, i, i));
+    }
+    for (int i = 0; i < 50; i++) {
+      lines.add(String.format("int id lib%d_id%d 0x7f02%04x", library, i, i));
+    }
+    List<Integer> attributes = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      int attribute = random.nextInt(SHARED_ATTRIBUTES);
+      if (!attributes.contains(attribute)) {
+        attributes.add(attribute);
+        lines.add(String.format("int attr shared_attr%d 0x7f01%04x", attribute, attribute));
+      }
+    }
+    List<String> attributeIds = new ArrayList<>();
+    for (int attribute : attributes) {
+      attributeIds.add(String.format("0x7f01%04x", attribute));
+    }
+    lines.add(
+        String.format("int[] styleable Lib%dView { %s }", library, String.join(",", attributeIds)));
+    for (int i = 0; i < attributes.size(); i++) {
+      lines.add(
+          String.format("int styleable Lib%dView_shared_attr%d %d", library, attributes.get(i), i));
+    }
+    return lines;
+  }
+
+  public static void main(String[] args) throws IOException, RunnerException {
+    Main.main(new String[] {MergeAndroidResourcesBenchmark.class.getName()});
+  }
+}
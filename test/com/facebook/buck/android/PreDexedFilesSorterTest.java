@@ -35,10 +35,14 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.hamcrest.Matchers;
 import org.junit.Before;
 import org.junit.Rule;
@@ -178,6 +182,69 @@ public class PreDexedFilesSorterTest {
     }
   }
 
+  @Test
+  public void testStableGroupingOnlyChangesTheSecondaryDexOfAnAddedLibrary() throws IOException {
+    FakeProjectFilesystem filesystem = new FakeProjectFilesystem();
+    List<DexWithClasses> libraries = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      libraries.add(createSmallSecondaryDex(filesystem, String.format("lib%03d", i)));
+    }
+    List<DexWithClasses> librariesWithAddition = new ArrayList<>(libraries);
+    librariesWithAddition.add(createSmallSecondaryDex(filesystem, "lib100_added"));
+
+    Set<Set<SourcePath>> stableGroups = sortIntoSecondaryGroups(filesystem, libraries, true);
+    Set<Set<SourcePath>> changedStableGroups =
+        Sets.difference(
+            sortIntoSecondaryGroups(filesystem, librariesWithAddition, true), stableGroups);
+    assertThat(changedStableGroups.size(), is(1));
+    assertThat(stableGroups.size(), Matchers.greaterThan(5));
+
+    Set<Set<SourcePath>> greedyGroups = sortIntoSecondaryGroups(filesystem, libraries, false);
+    Set<Set<SourcePath>> changedGreedyGroups =
+        Sets.difference(
+            sortIntoSecondaryGroups(filesystem, librariesWithAddition, false), greedyGroups);
+    assertThat(changedGreedyGroups.size(), Matchers.greaterThan(1));
+  }
+
+  private DexWithClasses createSmallSecondaryDex(ProjectFilesystem filesystem, String name) {
+    return createFakeDexWithClasses(
+        filesystem,
+        Paths.get("secondary").resolve(name + ".dex"),
+        ImmutableSet.of(String.format("secondary.%s.class", name)),
+        (int) DEX_WEIGHT_LIMIT / 40);
+  }
+
+  private Set<Set<SourcePath>> sortIntoSecondaryGroups(
+      FakeProjectFilesystem filesystem, List<DexWithClasses> libraries, boolean stableGrouping)
+      throws IOException {
+    Set<SourcePath> librarySourcePaths =
+        libraries.stream()
+            .map(DexWithClasses::getSourcePathToDexFile)
+            .collect(ImmutableSet.toImmutableSet());
+    PreDexedFilesSorter sorter =
+        new PreDexedFilesSorter(
+            libraries,
+            ImmutableSet.of(PRIMARY_DEX_PATTERN),
+            moduleGraph,
+            moduleGraph.getRootAPKModule(),
+            tempDir.newFolder().toPath(),
+            DEX_WEIGHT_LIMIT,
+            DexStore.JAR,
+            tempDir.newFolder().toPath(),
+            Optional.empty(),
+            stableGrouping);
+    PreDexedFilesSorter.Result result =
+        sorter.sortIntoPrimaryAndSecondaryDexes(filesystem, ImmutableList.builder());
+    // Canaries are left out, as their names depend on the index of the secondary dex.
+    return result.secondaryOutputToInputs.asMap().values().stream()
+        .map(
+            inputs ->
+                inputs.stream()
+                    .filter(librarySourcePaths::contains)
+                    .collect(ImmutableSet.toImmutableSet()))
+        .collect(ImmutableSet.toImmutableSet());
+  }
+
   private ImmutableMap<String, PreDexedFilesSorter.Result> generatePreDexSorterResults(
       int numberOfPrimaryDexes, int numberOfSecondaryDexes, int numberOfExtraDexes)
       throws IOException {
@@ -226,7 +293,8 @@ public class PreDexedFilesSorterTest {
               DEX_WEIGHT_LIMIT,
               DexStore.JAR,
               tempDir.newFolder(module.getName(), "secondary").toPath(),
-              Optional.empty());
+              Optional.empty(),
+              false);
       results.put(module.getName(), sorter.sortIntoPrimaryAndSecondaryDexes(filesystem, steps));
     }
     return results.build();
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.android;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class StableDexGroupingTest {
+
+  private static final int LIBRARIES = 100;
+
+  @Test
+  public void unboundedGroupsAreNeverSplit() {
+    for (int i = 0; i < LIBRARIES; i++) {
+      assertFalse(StableDexGrouping.shouldStartNewGroup("//lib:lib" + i, i, 0));
+    }
+  }
+
+  @Test
+  public void groupsLessThanHalfFullAreNeverSplit() {
+    for (int i = 0; i < LIBRARIES; i++) {
+      assertFalse(StableDexGrouping.shouldStartNewGroup("//lib:lib" + i, 4, 10));
+    }
+  }
+
+  @Test
+  public void someLibrariesStartANewGroupOnceHalfFull() {
+    boolean foundBoundary = false;
+    for (int i = 0; i < LIBRARIES; i++) {
+      foundBoundary |= StableDexGrouping.shouldStartNewGroup("//lib:lib" + i, 5, 10);
+    }
+    assertTrue(foundBoundary);
+  }
+}
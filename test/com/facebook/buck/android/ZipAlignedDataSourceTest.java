@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.android;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.facebook.buck.testutil.TemporaryPaths;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ZipAlignedDataSourceTest {
+
+  @Rule public TemporaryPaths tmp = new TemporaryPaths();
+
+  @Test
+  public void storedEntriesAreAlignedAndContentsArePreserved() throws IOException {
+    Path input = tmp.getRoot().resolve("input.apk");
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(input))) {
+      putStored(out, "a", "first");
+      putDeflated(out, "classes.dex", "some compressed contents");
+      putStored(out, "res/raw/bc", "second");
+      putStored(out, "lib/x86/libfoo.so", "third");
+    }
+
+    byte[] aligned;
+    try (ZipAlignedDataSource source = ZipAlignedDataSource.open(input)) {
+      aligned = new byte[(int) source.size()];
+      source.copyTo(0, aligned.length, ByteBuffer.wrap(aligned));
+      // Reads spanning rewritten headers and entry data return the same bytes.
+      for (int offset = 0; offset < aligned.length; offset += 7) {
+        int size = Math.min(13, aligned.length - offset);
+        byte[] chunk = new byte[size];
+        source.getByteBuffer(offset, size).get(chunk);
+        assertArrayEquals(Arrays.copyOfRange(aligned, offset, offset + size), chunk);
+        chunk = new byte[size];
+        source.slice(offset, size).copyTo(0, size, ByteBuffer.wrap(chunk));
+        assertArrayEquals(Arrays.copyOfRange(aligned, offset, offset + size), chunk);
+      }
+    }
+
+    Path output = tmp.getRoot().resolve("aligned.apk");
+    Files.write(output, aligned);
+    try (ZipFile zipFile = new ZipFile(output.toFile())) {
+      assertEquals("first", new String(read(zipFile, "a"), StandardCharsets.UTF_8));
+      assertEquals(
+          "some compressed contents",
+          new String(read(zipFile, "classes.dex"), StandardCharsets.UTF_8));
+      assertEquals("second", new String(read(zipFile, "res/raw/bc"), StandardCharsets.UTF_8));
+      assertEquals(
+          "third", new String(read(zipFile, "lib/x86/libfoo.so"), StandardCharsets.UTF_8));
+      for (ZipEntry entry : Collections.list(zipFile.entries())) {
+        if (entry.getMethod() == ZipEntry.STORED) {
+          assertEquals(
+              entry.getName(),
+              0,
+              getDataOffset(aligned, entry.getName()) % ZipAlignedDataSource.ALIGNMENT);
+        }
+      }
+    }
+  }
+
+  private static void putStored(ZipOutputStream out, String name, String contents)
+      throws IOException {
+    byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+    ZipEntry entry = new ZipEntry(name);
+    entry.setMethod(ZipEntry.STORED);
+    entry.setSize(bytes.length);
+    entry.setCrc(crc.getValue());
+    out.putNextEntry(entry);
+    out.write(bytes);
+    out.closeEntry();
+  }
+
+  private static void putDeflated(ZipOutputStream out, String name, String contents)
+      throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(contents.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+
+  private static byte[] read(ZipFile zipFile, String name) throws IOException {
+    return ByteStreams.toByteArray(zipFile.getInputStream(zipFile.getEntry(name)));
+  }
+
+  private static int getDataOffset(byte[] zip, String name) {
+    ByteBuffer buffer = ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN);
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    for (int offset = 0; offset + ZipEntry.LOCHDR < zip.length; offset++) {
+      if (buffer.getInt(offset) != ZipEntry.LOCSIG) {
+        continue;
+      }
+      int nameLength = Short.toUnsignedInt(buffer.getShort(offset + ZipEntry.LOCNAM));
+      int extraLength = Short.toUnsignedInt(buffer.getShort(offset + ZipEntry.LOCEXT));
+      byte[] entryName =
+          Arrays.copyOfRange(
+              zip, offset + ZipEntry.LOCHDR, offset + ZipEntry.LOCHDR + nameLength);
+      if (Arrays.equals(nameBytes, entryName)) {
+        return offset + ZipEntry.LOCHDR + nameLength + extraLength;
+      }
+    }
+    throw new AssertionError("No local header for " + name);
+  }
+}
@@ -17,10 +17,13 @@
 package com.facebook.buck.android.aapt;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import com.facebook.buck.android.aapt.RDotTxtEntry.IdType;
 import com.facebook.buck.android.aapt.RDotTxtEntry.RType;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Ordering;
 import org.junit.Test;
 
@@ -56,4 +59,15 @@ public class RDotTxtEntryTest {
                 IdType.INT, RType.STYLEABLE, "ActionBarLayout_android", "0", "ActionBarLayout")),
         sortedEntries);
   }
+
+  @Test
+  public void testParseInternsNames() {
+    Interner<String> names = Interners.newStrongInterner();
+    RDotTxtEntry first = RDotTxtEntry.parse("int attr colorAccent 0x7f010001", names).get();
+    RDotTxtEntry second = RDotTxtEntry.parse("int attr colorAccent 0x7f010002", names).get();
+
+    assertEquals(new RDotTxtEntry(IdType.INT, RType.ATTR, "colorAccent", "0x7f010001"), first);
+    assertEquals("0x7f010002", second.idValue);
+    assertSame(first.name, second.name);
+  }
 }
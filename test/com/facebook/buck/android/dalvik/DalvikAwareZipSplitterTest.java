@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.android.dalvik;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.buck.android.apkmodule.APKModule;
+import com.facebook.buck.io.filesystem.ProjectFilesystem;
+import com.facebook.buck.io.filesystem.TestProjectFilesystems;
+import com.facebook.buck.testutil.TemporaryPaths;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class DalvikAwareZipSplitterTest {
+
+  private static final String PRIMARY_CLASS = "com/example/Primary.class";
+  private static final String SECONDARY_CLASS = "com/example/Secondary.class";
+  private static final String STORE_CLASS = "com/example/store/Store.class";
+
+  @Rule public TemporaryPaths tmp = new TemporaryPaths();
+
+  @Test
+  public void classesAreSplitBetweenPrimarySecondaryAndDexStores() throws IOException {
+    ProjectFilesystem filesystem = TestProjectFilesystems.createProjectFilesystem(tmp.getRoot());
+    Path input = Paths.get("input.jar");
+    try (ZipOutputStream out = new ZipOutputStream(filesystem.newFileOutputStream(input))) {
+      for (String name : new String[] {PRIMARY_CLASS, SECONDARY_CLASS, STORE_CLASS}) {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(readClassBytes());
+        out.closeEntry();
+      }
+      out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+      out.closeEntry();
+    }
+    for (String dir : new String[] {"secondary", "stores/store", "report"}) {
+      filesystem.mkdirs(Paths.get(dir));
+    }
+
+    APKModule rootModule = APKModule.of("dex", true);
+    APKModule storeModule = APKModule.of("store", false);
+    ImmutableMultimap<APKModule, Path> outputs =
+        DalvikAwareZipSplitter.splitZip(
+                filesystem,
+                ImmutableSet.of(input),
+                Paths.get("primary.jar"),
+                Paths.get("secondary"),
+                "secondary-%d.jar",
+                Paths.get("stores"),
+                Long.MAX_VALUE,
+                PRIMARY_CLASS::equals,
+                ImmutableSet.of(),
+                ImmutableSet.of(),
+                ImmutableSet.of(),
+                ImmutableMultimap.of(storeModule, STORE_CLASS.replaceAll("\\.class$", "")),
+                rootModule,
+                ZipSplitter.DexSplitStrategy.MINIMIZE_PRIMARY_DEX_SIZE,
+                filesystem.resolve("report"))
+            .execute();
+
+    assertEquals(
+        Collections.singleton(PRIMARY_CLASS),
+        getEntryNames(filesystem.resolve("primary.jar")));
+
+    // Each secondary dex gets a canary class named after its module
+    assertEquals(
+        ImmutableSet.of(SECONDARY_CLASS, "META-INF/MANIFEST.MF", "secondary/dex01/Canary.class"),
+        getEntryNames(filesystem.resolve(Iterables.getOnlyElement(outputs.get(rootModule)))));
+    assertEquals(
+        ImmutableSet.of(STORE_CLASS, storeModule.getCanaryClassName() + "/dex01/Canary.class"),
+        getEntryNames(filesystem.resolve(Iterables.getOnlyElement(outputs.get(storeModule)))));
+  }
+
+  private static byte[] readClassBytes() throws IOException {
+    try (InputStream input =
+        DalvikAwareZipSplitterTest.class.getResourceAsStream("DalvikAwareZipSplitterTest.class")) {
+      return ByteStreams.toByteArray(input);
+    }
+  }
+
+  private static Set<String> getEntryNames(Path zip) throws IOException {
+    assertTrue(Files.exists(zip));
+    try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+      return zipFile.stream().map(ZipEntry::getName).collect(Collectors.toSet());
+    }
+  }
+}
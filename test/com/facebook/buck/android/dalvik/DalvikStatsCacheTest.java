@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.android.dalvik;
+
+import static org.junit.Assert.assertSame;
+
+import com.facebook.buck.jvm.java.classes.AbstractFileLike;
+import com.facebook.buck.jvm.java.classes.FileLike;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Test;
+
+public class DalvikStatsCacheTest {
+
+  @Test
+  public void statsAreSharedBetweenCachesForIdenticalClasses() throws IOException {
+    byte[] classBytes;
+    try (InputStream input =
+        DalvikStatsCacheTest.class.getResourceAsStream("DalvikStatsCacheTest.class")) {
+      classBytes = ByteStreams.toByteArray(input);
+    }
+
+    DalvikStatsTool.Stats stats =
+        new DalvikStatsCache().getStats(newFileLike(Paths.get("first.jar"), classBytes));
+
+    assertSame(
+        stats, new DalvikStatsCache().getStats(newFileLike(Paths.get("second.jar"), classBytes)));
+  }
+
+  private static FileLike newFileLike(Path container, byte[] contents) {
+    return new AbstractFileLike() {
+      @Override
+      public Path getContainer() {
+        return container;
+      }
+
+      @Override
+      public String getRelativePath() {
+        return "com/facebook/buck/android/dalvik/DalvikStatsCacheTest.class";
+      }
+
+      @Override
+      public long getSize() {
+        return contents.length;
+      }
+
+      @Override
+      public InputStream getInput() {
+        return new ByteArrayInputStream(contents);
+      }
+    };
+  }
+}
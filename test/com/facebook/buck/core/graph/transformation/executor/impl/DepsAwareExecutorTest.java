@@ -65,6 +65,10 @@ public class DepsAwareExecutorTest<TaskType extends DepsAwareTask<Object, TaskTy
             (Supplier<DepsAwareExecutor<?, ?>>)
                 () -> ToposortBasedDepsAwareExecutor.of(NUMBER_OF_THREADS)
           },
+          {
+            (Supplier<DepsAwareExecutor<?, ?>>)
+                () -> PrioritizedDepsAwareExecutor.of(NUMBER_OF_THREADS)
+          },
         });
   }
 
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.core.graph.transformation.executor.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.buck.core.graph.transformation.executor.TaskQueueTimeStats;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint.Lane;
+import com.facebook.buck.core.graph.transformation.executor.TaskSchedulingHint.Priority;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrioritizedDepsAwareExecutorTest {
+
+  private PrioritizedDepsAwareExecutor<Object> executor;
+
+  @Before
+  public void setUp() {
+    executor = PrioritizedDepsAwareExecutor.of(1, 1);
+  }
+
+  @After
+  public void cleanUp() {
+    executor.close();
+  }
+
+  private PrioritizedDepsAwareTask<Object> createTask(
+      Callable<Object> callable, String category, Lane lane, Priority priority) {
+    return executor.createThrowingTask(
+        callable,
+        ImmutableSet::of,
+        ImmutableSet::of,
+        category,
+        TaskSchedulingHint.of(lane, priority));
+  }
+
+  @Test(timeout = 5000)
+  public void blockedIoTasksDoNotStarveCpuTasks() throws Exception {
+    CountDownLatch ioTaskStarted = new CountDownLatch(1);
+    CountDownLatch releaseIoTask = new CountDownLatch(1);
+    Future<Object> ioResult =
+        executor.submit(
+            createTask(
+                () -> {
+                  ioTaskStarted.countDown();
+                  releaseIoTask.await();
+                  return "io";
+                },
+                "io",
+                Lane.IO,
+                Priority.NORMAL));
+    ioTaskStarted.await();
+
+    assertEquals(
+        "cpu",
+        executor.submit(createTask(() -> "cpu", "cpu", Lane.CPU, Priority.NORMAL)).get());
+
+    releaseIoTask.countDown();
+    assertEquals("io", ioResult.get());
+  }
+
+  @Test(timeout = 5000)
+  public void startsTasksWithHigherPriorityFirst() throws Exception {
+    CountDownLatch blockerStarted = new CountDownLatch(1);
+    CountDownLatch releaseBlocker = new CountDownLatch(1);
+    executor.submit(
+        createTask(
+            () -> {
+              blockerStarted.countDown();
+              releaseBlocker.await();
+              return null;
+            },
+            "blocker",
+            Lane.CPU,
+            Priority.NORMAL));
+    blockerStarted.await();
+
+    List<Priority> executionOrder = new CopyOnWriteArrayList<>();
+    List<Future<Object>> results =
+        executor.submitAll(
+            ImmutableList.of(
+                createTask(() -> executionOrder.add(Priority.LOW), "low", Lane.CPU, Priority.LOW),
+                createTask(
+                    () -> executionOrder.add(Priority.NORMAL), "normal", Lane.CPU, Priority.NORMAL),
+                createTask(
+                    () -> executionOrder.add(Priority.HIGH), "high", Lane.CPU, Priority.HIGH)));
+    releaseBlocker.countDown();
+    for (Future<Object> result : results) {
+      result.get();
+    }
+
+    assertEquals(ImmutableList.of(Priority.HIGH, Priority.NORMAL, Priority.LOW), executionOrder);
+  }
+
+  @Test(timeout = 5000)
+  public void runsDependenciesInOtherLanesBeforeTask() throws Exception {
+    List<String> executionOrder = new CopyOnWriteArrayList<>();
+    PrioritizedDepsAwareTask<Object> ioDep =
+        createTask(() -> executionOrder.add("io"), "io", Lane.IO, Priority.NORMAL);
+    PrioritizedDepsAwareTask<Object> cpuDep =
+        createTask(() -> executionOrder.add("cpu"), "cpu", Lane.CPU, Priority.NORMAL);
+    PrioritizedDepsAwareTask<Object> task =
+        executor.createThrowingTask(
+            () -> executionOrder.add("task"),
+            () -> ImmutableSet.of(ioDep),
+            () -> ImmutableSet.of(cpuDep),
+            "task",
+            TaskSchedulingHint.DEFAULT);
+
+    executor.submit(task).get();
+
+    assertEquals(ImmutableList.of("io", "cpu", "task"), executionOrder);
+  }
+
+  @Test(timeout = 5000)
+  public void propagatesExceptionOfDependency() throws Exception {
+    IllegalStateException exception = new IllegalStateException();
+    PrioritizedDepsAwareTask<Object> dep =
+        createTask(
+            () -> {
+              throw exception;
+            },
+            "dep",
+            Lane.IO,
+            Priority.NORMAL);
+    PrioritizedDepsAwareTask<Object> task =
+        executor.createThrowingTask(
+            () -> "task",
+            ImmutableSet::of,
+            () -> ImmutableSet.of(dep),
+            "task",
+            TaskSchedulingHint.DEFAULT);
+
+    try {
+      executor.submit(task).get();
+    } catch (ExecutionException e) {
+      assertSame(exception, e.getCause());
+      return;
+    }
+    throw new AssertionError("Expected task to fail");
+  }
+
+  @Test(timeout = 5000)
+  public void recordsQueueTimePerCategory() throws Exception {
+    CountDownLatch blockerStarted = new CountDownLatch(1);
+    CountDownLatch releaseBlocker = new CountDownLatch(1);
+    executor.submit(
+        createTask(
+            () -> {
+              blockerStarted.countDown();
+              releaseBlocker.await();
+              return null;
+            },
+            "blocker",
+            Lane.CPU,
+            Priority.NORMAL));
+    blockerStarted.await();
+
+    Future<Object> queued =
+        executor.submit(createTask(() -> null, "queued", Lane.CPU, Priority.NORMAL));
+    Thread.sleep(10);
+    releaseBlocker.countDown();
+    queued.get();
+
+    TaskQueueTimeStats stats = executor.getQueueTimeStats().get("queued");
+    assertEquals(1, stats.getCount());
+    assertTrue(stats.getTotalNanos() >= TimeUnit.MILLISECONDS.toNanos(10));
+    assertEquals(stats.getTotalNanos(), stats.getMaxNanos());
+    assertEquals(ImmutableSet.of("blocker", "queued"), executor.getQueueTimeStats().keySet());
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.core.graph.transformation.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.facebook.buck.core.graph.transformation.GraphEngineCache;
+import com.facebook.buck.core.graph.transformation.GraphEngineCacheCodec;
+import com.facebook.buck.core.graph.transformation.PersistentCacheStorage;
+import com.facebook.buck.core.graph.transformation.impl.ChildrenAdder.LongNode;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PersistentGraphEngineCacheTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  /** Simulated contents of the inputs, keyed by the key the input belongs to */
+  private final Map<LongNode, Long> inputs = new HashMap<>();
+
+  /** Keys whose inputs changed in a way their fingerprint does not cover */
+  private final Set<LongNode> changedUnfingerprintedInputs = new HashSet<>();
+
+  private PersistentCacheStorage storage;
+
+  @Before
+  public void setUp() {
+    storage = DirectoryPersistentCacheStorage.of(tmp.getRoot().toPath().resolve("cache"));
+  }
+
+  @Test
+  public void persistedResultIsReusedByNewCacheInstance() {
+    inputs.put(LongNode.of(1), 10L);
+    newCache(new InMemoryCache()).put(LongNode.of(1), LongNode.of(42));
+
+    InMemoryCache memoryCache = new InMemoryCache();
+    assertEquals(Optional.of(LongNode.of(42)), newCache(memoryCache).get(LongNode.of(1)));
+    // promoted to the in-memory tier
+    assertEquals(LongNode.of(42), memoryCache.map.get(LongNode.of(1)));
+  }
+
+  @Test
+  public void persistedResultIsNotReusedWhenInputsChange() {
+    inputs.put(LongNode.of(1), 10L);
+    newCache(new InMemoryCache()).put(LongNode.of(1), LongNode.of(42));
+
+    inputs.put(LongNode.of(1), 11L);
+    InMemoryCache memoryCache = new InMemoryCache();
+    assertFalse(newCache(memoryCache).get(LongNode.of(1)).isPresent());
+    assertFalse(memoryCache.map.containsKey(LongNode.of(1)));
+  }
+
+  @Test
+  public void persistedResultIsNotReusedWhenCodecRejectsCurrentState() {
+    inputs.put(LongNode.of(1), 10L);
+    newCache(new InMemoryCache()).put(LongNode.of(1), LongNode.of(42));
+
+    changedUnfingerprintedInputs.add(LongNode.of(1));
+    InMemoryCache memoryCache = new InMemoryCache();
+    assertFalse(newCache(memoryCache).get(LongNode.of(1)).isPresent());
+    assertFalse(memoryCache.map.containsKey(LongNode.of(1)));
+  }
+
+  @Test
+  public void missingOrCorruptedEntryIsTreatedAsMiss() throws IOException {
+    inputs.put(LongNode.of(1), 10L);
+    GraphEngineCache<LongNode, LongNode> cache = newCache(new InMemoryCache());
+    assertFalse(cache.get(LongNode.of(1)).isPresent());
+
+    storage.store(new TestCodec().hashKey(LongNode.of(1)), new byte[] {0, 0, 0, 1, 0});
+    assertFalse(cache.get(LongNode.of(1)).isPresent());
+  }
+
+  @Test
+  public void inMemoryTierIsConsultedFirst() {
+    InMemoryCache memoryCache = new InMemoryCache();
+    memoryCache.put(LongNode.of(1), LongNode.of(7));
+    assertEquals(Optional.of(LongNode.of(7)), newCache(memoryCache).get(LongNode.of(1)));
+  }
+
+  @Test
+  public void storageOverwritesEntries() throws IOException {
+    HashCode key = Hashing.sha1().hashInt(1);
+    storage.store(key, new byte[] {1});
+    storage.store(key, new byte[] {2});
+
+    assertEquals(1, storage.load(key).get().length);
+    assertEquals(2, storage.load(key).get()[0]);
+    Path shard = tmp.getRoot().toPath().resolve("cache").resolve(key.toString().substring(0, 2));
+    try (Stream<Path> entries = Files.list(shard)) {
+      assertEquals(1, entries.count());
+    }
+  }
+
+  private GraphEngineCache<LongNode, LongNode> newCache(InMemoryCache memoryCache) {
+    return PersistentGraphEngineCache.of(memoryCache, new TestCodec(), storage);
+  }
+
+  private static class InMemoryCache implements GraphEngineCache<LongNode, LongNode> {
+    private final Map<LongNode, LongNode> map = new HashMap<>();
+
+    @Override
+    public Optional<LongNode> get(LongNode key) {
+      return Optional.ofNullable(map.get(key));
+    }
+
+    @Override
+    public void put(LongNode key, LongNode value) {
+      map.put(key, value);
+    }
+  }
+
+  private class TestCodec implements GraphEngineCacheCodec<LongNode, LongNode> {
+    @Override
+    public HashCode hashKey(LongNode key) {
+      return Hashing.sha1().hashLong(key.get());
+    }
+
+    @Override
+    public byte[] serialize(LongNode value) {
+      return Longs.toByteArray(value.get());
+    }
+
+    @Override
+    public LongNode deserialize(byte[] data) {
+      return LongNode.of(Longs.fromByteArray(data));
+    }
+
+    @Override
+    public HashCode fingerprintInputs(LongNode key, LongNode value) {
+      return Hashing.sha1().hashLong(inputs.getOrDefault(key, 0L));
+    }
+
+    @Override
+    public boolean inputsMatchCurrentState(LongNode key, LongNode value) {
+      return !changedUnfingerprintedInputs.contains(key);
+    }
+  }
+}
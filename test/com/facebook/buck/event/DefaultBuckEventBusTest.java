@@ -19,6 +19,7 @@ package com.facebook.buck.event;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -27,7 +28,11 @@ import com.facebook.buck.util.concurrent.MostExecutors;
 import com.facebook.buck.util.concurrent.MostExecutors.NamedThreadFactory;
 import com.facebook.buck.util.timing.DefaultClock;
 import com.facebook.buck.util.timing.SettableFakeClock;
+import com.google.common.collect.ImmutableList;
 import com.google.common.eventbus.Subscribe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 
@@ -145,6 +150,88 @@ public class DefaultBuckEventBusTest {
     assertTrue(threadFactory.caught);
   }
 
+  @Test
+  public void dedicatedListenerDoesNotDelayOtherListeners() throws InterruptedException {
+    DefaultBuckEventBus eb =
+        new DefaultBuckEventBus(
+            new DefaultClock(), true, BuckEventBusForTests.BUILD_ID_FOR_TEST, timeoutMillis);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch delivered = new CountDownLatch(1);
+    eb.registerWithDedicatedThread(
+        new Object() {
+          @Subscribe
+          public void block(TestEvent event) throws InterruptedException {
+            release.await();
+          }
+        });
+    eb.register(
+        new Object() {
+          @Subscribe
+          public void deliver(TestEvent event) {
+            delivered.countDown();
+          }
+        });
+
+    try {
+      eb.post(new TestEvent());
+      assertTrue(delivered.await(timeoutMillis, TimeUnit.MILLISECONDS));
+      assertFalse(eb.waitEvents(10));
+      release.countDown();
+      assertTrue(eb.waitEvents(timeoutMillis));
+    } finally {
+      release.countDown();
+      eb.close();
+    }
+  }
+
+  @Test
+  public void everyListenerReceivesEventsInPostOrder() {
+    DefaultBuckEventBus eb =
+        new DefaultBuckEventBus(
+            new DefaultClock(), true, BuckEventBusForTests.BUILD_ID_FOR_TEST, timeoutMillis);
+    OrderRecordingSubscriber shared = new OrderRecordingSubscriber();
+    OrderRecordingSubscriber dedicated = new OrderRecordingSubscriber();
+    eb.register(shared);
+    eb.registerWithDedicatedThread(dedicated);
+
+    List<SequencedEvent> posted = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      SequencedEvent event = new SequencedEvent(i);
+      posted.add(event);
+      eb.post(event);
+    }
+    assertTrue(eb.waitEvents(timeoutMillis * 10));
+    eb.close();
+
+    assertEquals(posted, shared.events);
+    assertEquals(posted, dedicated.events);
+  }
+
+  @Test
+  public void reportsLagOfDedicatedListeners() {
+    DefaultBuckEventBus eb =
+        new DefaultBuckEventBus(
+            new DefaultClock(), true, BuckEventBusForTests.BUILD_ID_FOR_TEST, timeoutMillis);
+    eb.registerWithDedicatedThread(new OrderRecordingSubscriber());
+    for (int i = 0; i < 10; i++) {
+      eb.post(new SequencedEvent(i));
+    }
+    assertTrue(eb.waitEvents(timeoutMillis));
+    ImmutableList<EventListenerLagStats> stats = eb.getListenerLagStats();
+    eb.close();
+
+    assertEquals(2, stats.size());
+    EventListenerLagStats dedicatedStats =
+        stats.stream()
+            .filter(s -> s.getListenerName().equals("OrderRecordingSubscriber"))
+            .findFirst()
+            .get();
+    assertEquals(10, dedicatedStats.getDeliveredEvents());
+    assertEquals(0, dedicatedStats.getQueuedEvents());
+    assertThat(
+        dedicatedStats.getMaxLagNanos(), lessThanOrEqualTo(dedicatedStats.getTotalLagNanos()));
+  }
+
   static class TestError extends Error {}
 
   static class SingleErrorCatchingThreadFactory extends NamedThreadFactory {
@@ -194,6 +281,34 @@ public class DefaultBuckEventBusTest {
     }
   }
 
+  private static class OrderRecordingSubscriber {
+    private final List<SequencedEvent> events = new ArrayList<>();
+
+    @Subscribe
+    public void record(SequencedEvent event) {
+      events.add(event);
+    }
+  }
+
+  private static class SequencedEvent extends AbstractBuckEvent {
+    private final int sequence;
+
+    private SequencedEvent(int sequence) {
+      super(EventKey.unique());
+      this.sequence = sequence;
+    }
+
+    @Override
+    protected String getValueString() {
+      return Integer.toString(sequence);
+    }
+
+    @Override
+    public String getEventName() {
+      return "SequencedEvent";
+    }
+  }
+
   private static class TestEvent extends AbstractBuckEvent {
 
     public TestEvent() {
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.event.listener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.buck.core.model.BuildId;
+import com.facebook.buck.core.model.BuildTarget;
+import com.facebook.buck.core.model.BuildTargetFactory;
+import com.facebook.buck.event.AbstractBuckEvent;
+import com.facebook.buck.io.filesystem.ProjectFilesystem;
+import com.facebook.buck.io.filesystem.TestProjectFilesystems;
+import com.facebook.buck.jvm.java.AnnotationProcessingEvent;
+import com.facebook.buck.jvm.java.tracing.JavacPhaseEvent;
+import com.facebook.buck.log.InvocationInfo;
+import com.facebook.buck.util.json.ObjectMappers;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JavacProfilerLoggerListenerTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private InvocationInfo info;
+  private ProjectFilesystem filesystem;
+  private JavacProfilerLoggerListener listener;
+
+  @Before
+  public void setUp() {
+    filesystem = TestProjectFilesystems.createProjectFilesystem(tmp.getRoot().toPath());
+    info =
+        InvocationInfo.of(
+            new BuildId(),
+            false,
+            false,
+            "build",
+            ImmutableList.of(),
+            ImmutableList.of(),
+            tmp.getRoot().toPath(),
+            false,
+            "repository",
+            "");
+    listener = new JavacProfilerLoggerListener(info, filesystem);
+  }
+
+  @Test
+  public void noReportIsWrittenWithoutCompilerEvents() {
+    listener.close();
+
+    assertFalse(
+        Files.exists(
+            info.getLogDirectoryPath()
+                .resolve(JavacProfilerLoggerListener.JAVAC_PROFILE_FILE_NAME)));
+  }
+
+  @Test
+  public void phasesAndProcessorsAreAggregatedPerTargetAndAcrossTheBuild() throws IOException {
+    BuildTarget first = BuildTargetFactory.newInstance("//a:first");
+    BuildTarget second = BuildTargetFactory.newInstance("//b:second");
+
+    recordPhase(first, JavacPhaseEvent.Phase.PARSE, 0, 10);
+    recordPhase(first, JavacPhaseEvent.Phase.PARSE, 10, 15);
+    recordPhase(first, JavacPhaseEvent.Phase.GENERATE, 20, 40);
+    recordProcessor(first, "com.example.Processor", 15, 18);
+    recordPhase(second, JavacPhaseEvent.Phase.PARSE, 50, 57);
+    recordProcessor(second, "com.example.Processor", 60, 61);
+    listener.close();
+
+    Path profile =
+        info.getLogDirectoryPath().resolve(JavacProfilerLoggerListener.JAVAC_PROFILE_FILE_NAME);
+    JsonNode report = ObjectMappers.READER.readTree(filesystem.readFileIfItExists(profile).get());
+
+    JsonNode totals = report.get("totals");
+    assertEquals(2, totals.get("targets").asInt());
+    assertEquals(millis(22), totals.get("phase_nanos").get("parse").asLong());
+    assertEquals(millis(20), totals.get("phase_nanos").get("generate").asLong());
+    assertEquals(millis(4), totals.get("annotation_processor_nanos").asLong());
+
+    JsonNode processor = report.get("annotation_processors").get("com.example.Processor");
+    assertEquals(millis(4), processor.get("total_nanos").asLong());
+    assertEquals(millis(4), processor.get("nanos_by_operation").get("PROCESS").asLong());
+
+    JsonNode firstReport = report.get("targets").get("//a:first");
+    assertEquals(millis(15), firstReport.get("phase_nanos").get("parse").asLong());
+    assertEquals(
+        millis(3),
+        firstReport.get("annotation_processor_nanos").get("com.example.Processor").asLong());
+
+    assertTrue(
+        Files.exists(
+            info.getLogDirectoryPath()
+                .resolve(JavacProfilerLoggerListener.JAVAC_PROFILE_TRACE_FILE_NAME)));
+  }
+
+  private void recordPhase(
+      BuildTarget target, JavacPhaseEvent.Phase phase, long startMillis, long endMillis) {
+    JavacPhaseEvent.Started started = JavacPhaseEvent.started(target, phase, ImmutableMap.of());
+    configure(started, startMillis);
+    listener.javacPhaseStarted(started);
+    JavacPhaseEvent.Finished finished = JavacPhaseEvent.finished(started, ImmutableMap.of());
+    configure(finished, endMillis);
+    listener.javacPhaseFinished(finished);
+  }
+
+  private void recordProcessor(
+      BuildTarget target, String processor, long startMillis, long endMillis) {
+    AnnotationProcessingEvent.Started started =
+        AnnotationProcessingEvent.started(
+            target, processor, AnnotationProcessingEvent.Operation.PROCESS, 1, false);
+    configure(started, startMillis);
+    listener.annotationProcessingStarted(started);
+    AnnotationProcessingEvent.Finished finished = AnnotationProcessingEvent.finished(started);
+    configure(finished, endMillis);
+    listener.annotationProcessingFinished(finished);
+  }
+
+  private void configure(AbstractBuckEvent event, long millis) {
+    event.configure(millis, millis(millis), 0, 1, info.getBuildId());
+  }
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+}
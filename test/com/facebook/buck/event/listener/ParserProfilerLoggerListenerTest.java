@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.event.listener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.buck.core.model.BuildId;
+import com.facebook.buck.event.AbstractBuckEvent;
+import com.facebook.buck.io.filesystem.ProjectFilesystem;
+import com.facebook.buck.io.filesystem.TestProjectFilesystems;
+import com.facebook.buck.log.InvocationInfo;
+import com.facebook.buck.parser.api.ProjectBuildFileParser;
+import com.facebook.buck.parser.events.BuildFileParseCost;
+import com.facebook.buck.parser.events.ParseBuckFileEvent;
+import com.facebook.buck.util.json.ObjectMappers;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParserProfilerLoggerListenerTest {
+
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private InvocationInfo info;
+  private ProjectFilesystem filesystem;
+
+  @Before
+  public void setUp() {
+    filesystem = TestProjectFilesystems.createProjectFilesystem(tmp.getRoot().toPath());
+    info =
+        InvocationInfo.of(
+            new BuildId(),
+            false,
+            false,
+            "build",
+            ImmutableList.of(),
+            ImmutableList.of(),
+            tmp.getRoot().toPath(),
+            false,
+            "repository",
+            "");
+  }
+
+  @Test
+  public void noReportIsWrittenWithoutProfiling() {
+    ParserProfilerLoggerListener listener =
+        new ParserProfilerLoggerListener(info, filesystem, /* profilingEnabled */ false);
+    recordParse(
+        listener, "a/BUCK", ParseBuckFileEvent.ParserKind.PYTHON_DSL, 0, 10, 1, Optional.empty());
+    listener.close();
+
+    assertFalse(Files.exists(profilePath()));
+    assertFalse(Files.exists(tracePath()));
+  }
+
+  @Test
+  public void filesFromBothParsersAreReported() throws IOException {
+    ParserProfilerLoggerListener listener =
+        new ParserProfilerLoggerListener(info, filesystem, /* profilingEnabled */ true);
+    recordParse(
+        listener, "a/BUCK", ParseBuckFileEvent.ParserKind.PYTHON_DSL, 0, 10, 2, Optional.empty());
+    recordParse(
+        listener,
+        "b/BUCK",
+        ParseBuckFileEvent.ParserKind.SKYLARK,
+        20,
+        25,
+        3,
+        Optional.of(
+            new BuildFileParseCost(
+                millis(5),
+                millis(4),
+                1024,
+                millis(1),
+                1,
+                3,
+                ImmutableSortedMap.of("java_library", 3),
+                ImmutableSortedMap.of("java_library", millis(1)),
+                ImmutableSortedMap.of("b/BUCK -> //defs:defs.bzl", millis(2)))));
+    listener.close();
+
+    JsonNode report =
+        ObjectMappers.READER.readTree(filesystem.readFileIfItExists(profilePath()).get());
+
+    JsonNode totals = report.get("totals");
+    assertEquals(2, totals.get("files").asInt());
+    assertEquals(5, totals.get("rules").asInt());
+    assertEquals(millis(15), totals.get("wall_time_nanos").asLong());
+    assertEquals(millis(4), totals.get("cpu_time_nanos").asLong());
+
+    JsonNode python = report.get("files").get(Paths.get("a/BUCK").toString());
+    assertEquals("PYTHON_DSL", python.get("parser").asText());
+    assertEquals(2, python.get("rules").asInt());
+    assertEquals(millis(10), python.get("wall_time_nanos").asLong());
+    assertEquals(0, python.get("rules_by_macro").size());
+    assertFalse(python.has("cpu_time_nanos"));
+
+    JsonNode skylark = report.get("files").get(Paths.get("b/BUCK").toString());
+    assertEquals("SKYLARK", skylark.get("parser").asText());
+    assertEquals(millis(5), skylark.get("wall_time_nanos").asLong());
+    assertEquals(3, skylark.get("rules_by_macro").get("java_library").asInt());
+
+    assertEquals(3, report.get("macros").get("java_library").get("rules").asInt());
+    assertEquals(millis(2), report.get("load_edges").get("b/BUCK -> //defs:defs.bzl").asLong());
+
+    String trace = filesystem.readFileIfItExists(tracePath()).get();
+    assertTrue(trace.contains(Paths.get("a/BUCK").toString()));
+    assertTrue(trace.contains(Paths.get("b/BUCK").toString()));
+  }
+
+  private void recordParse(
+      ParserProfilerLoggerListener listener,
+      String buildFile,
+      ParseBuckFileEvent.ParserKind parser,
+      long startMillis,
+      long endMillis,
+      int rules,
+      Optional<BuildFileParseCost> cost) {
+    ParseBuckFileEvent.Started started =
+        ParseBuckFileEvent.started(Paths.get(buildFile), parser, ProjectBuildFileParser.class);
+    configure(started, startMillis);
+    listener.parseBuckFileStarted(started);
+    ParseBuckFileEvent.Finished finished =
+        ParseBuckFileEvent.finished(started, rules, 0, Optional.empty(), cost);
+    configure(finished, endMillis);
+    listener.parseBuckFileFinished(finished);
+  }
+
+  private void configure(AbstractBuckEvent event, long millis) {
+    event.configure(millis, millis(millis), 0, 1, info.getBuildId());
+  }
+
+  private Path profilePath() {
+    return info.getLogDirectoryPath()
+        .resolve(ParserProfilerLoggerListener.PARSE_PROFILE_FILE_NAME);
+  }
+
+  private Path tracePath() {
+    return info.getLogDirectoryPath()
+        .resolve(ParserProfilerLoggerListener.PARSE_PROFILE_TRACE_FILE_NAME);
+  }
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.buck.core.build.execution.context.ExecutionContext;
+import com.facebook.buck.core.model.BuildTarget;
+import com.facebook.buck.core.model.BuildTargetFactory;
+import com.facebook.buck.core.rules.resolver.impl.TestActionGraphBuilder;
+import com.facebook.buck.core.sourcepath.resolver.SourcePathResolverAdapter;
+import com.facebook.buck.io.file.MostFiles;
+import com.facebook.buck.io.filesystem.ProjectFilesystem;
+import com.facebook.buck.io.filesystem.TestProjectFilesystems;
+import com.facebook.buck.jvm.java.abi.AbiGenerationMode;
+import com.facebook.buck.jvm.java.abi.source.api.SourceOnlyAbiRuleInfoFactory;
+import com.facebook.buck.step.StepExecutionResult;
+import com.facebook.buck.step.TestExecutionContext;
+import com.facebook.buck.testutil.FakeFileHashCache;
+import com.facebook.buck.testutil.TemporaryPaths;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.hash.HashCode;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarOutputStream;
+import javax.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class IncrementalJavacStepTest {
+
+  @Rule public TemporaryPaths tmp = new TemporaryPaths();
+
+  private ProjectFilesystem filesystem;
+  private BuildTarget target;
+  private RecordingJavac javac;
+  private CompilerParameters compilerParameters;
+
+  @Before
+  public void setUp() throws IOException {
+    filesystem = TestProjectFilesystems.createProjectFilesystem(tmp.getRoot());
+    target = BuildTargetFactory.newInstance("//src:lib");
+    javac = new RecordingJavac();
+
+    writeSource("A", "public class A { public int a() { return 1; } }");
+    writeSource("B", "public class B { int b() { return new A().a() + Constants.X; } }");
+    writeSource("C", "public class C { private int c() { return 1; } }");
+    writeSource("Constants", "public class Constants { public static final int X = 1; }");
+  }
+
+  @Test
+  public void firstBuildCompilesAllSources() throws Exception {
+    build();
+
+    assertEquals(ImmutableList.of(sources("A", "B", "C", "Constants")), javac.rounds);
+    assertTrue(Files.exists(getClassFile("C")));
+  }
+
+  @Test
+  public void changeOutsideOfAbiOnlyRecompilesChangedSource() throws Exception {
+    build();
+    writeSource("C", "public class C { private int c() { return 2; } }");
+    javac.rounds.clear();
+
+    build();
+
+    assertEquals(ImmutableList.of(sources("C")), javac.rounds);
+    assertTrue(Files.exists(getClassFile("A")));
+    assertTrue(Files.exists(getClassFile("B")));
+    assertTrue(Files.exists(getClassFile("Constants")));
+  }
+
+  @Test
+  public void abiChangeRecompilesDependentSources() throws Exception {
+    build();
+    writeSource("A", "public class A { public int a() { return 1; } public void added() {} }");
+    javac.rounds.clear();
+
+    build();
+
+    assertEquals(ImmutableList.of(sources("A"), sources("B")), javac.rounds);
+  }
+
+  @Test
+  public void constantChangeRecompilesAllSources() throws Exception {
+    build();
+    writeSource("Constants", "public class Constants { public static final int X = 2; }");
+    javac.rounds.clear();
+
+    build();
+
+    assertEquals(
+        ImmutableList.of(sources("Constants"), sources("A", "B", "C", "Constants")),
+        javac.rounds);
+  }
+
+  @Test
+  public void removedSourceLeavesNoClassesBehind() throws Exception {
+    build();
+    Files.delete(tmp.getRoot().resolve("src/p/C.java"));
+    compilerParameters =
+        CompilerParameters.builder()
+            .from(compilerParameters)
+            .setSourceFilePaths(sources("A", "B", "Constants"))
+            .build();
+    javac.rounds.clear();
+
+    build();
+
+    assertEquals(ImmutableList.of(), javac.rounds);
+    assertFalse(Files.exists(getClassFile("C")));
+    assertTrue(Files.exists(getClassFile("A")));
+  }
+
+  @Test
+  public void changedCompilerOptionsRecompileAllSources() throws Exception {
+    build();
+    javac.rounds.clear();
+
+    build(
+        JavacOptions.builder(getJavacOptions())
+            .setExtraArguments(ImmutableList.of("-parameters"))
+            .build());
+
+    assertEquals(ImmutableList.of(sources("A", "B", "C", "Constants")), javac.rounds);
+  }
+
+  @Test
+  public void classpathJarsAreFingerprintedWithTheBuildEngineHashes() throws Exception {
+    Path jar = tmp.getRoot().resolve("dep.jar");
+    try (JarOutputStream ignored = new JarOutputStream(Files.newOutputStream(jar))) {
+      // An empty jar is enough to be on the classpath.
+    }
+    compilerParameters =
+        CompilerParameters.builder()
+            .setScratchPaths(target, filesystem)
+            .setSourceFilePaths(sources("A", "B", "C", "Constants"))
+            .setClasspathEntries(ImmutableSortedSet.of(jar))
+            .build();
+
+    build(getJavacOptions(), withJarHash(jar, 1));
+    javac.rounds.clear();
+    build(getJavacOptions(), withJarHash(jar, 1));
+    assertEquals(ImmutableList.of(), javac.rounds);
+
+    build(getJavacOptions(), withJarHash(jar, 2));
+    assertEquals(ImmutableList.of(sources("A", "B", "C", "Constants")), javac.rounds);
+  }
+
+  private static ExecutionContext withJarHash(Path jar, int hash) {
+    return TestExecutionContext.newBuilder()
+        .setFileHashLoader(new FakeFileHashCache(ImmutableMap.of(jar, HashCode.fromInt(hash))))
+        .build();
+  }
+
+  private void build() throws Exception {
+    build(getJavacOptions());
+  }
+
+  private void build(JavacOptions javacOptions) throws Exception {
+    build(javacOptions, TestExecutionContext.newInstance());
+  }
+
+  private void build(JavacOptions javacOptions, ExecutionContext context) throws Exception {
+    if (compilerParameters == null) {
+      compilerParameters =
+          CompilerParameters.builder()
+              .setScratchPaths(target, filesystem)
+              .setSourceFilePaths(sources("A", "B", "C", "Constants"))
+              .build();
+    }
+    // Mirrors the setup steps, which clean the output directories before every build.
+    CompilerOutputPaths outputPaths = compilerParameters.getOutputPaths();
+    MostFiles.deleteRecursivelyIfExists(filesystem.resolve(outputPaths.getClassesDir()));
+    filesystem.mkdirs(outputPaths.getClassesDir());
+    filesystem.mkdirs(outputPaths.getOutputJarDirPath());
+    filesystem.mkdirs(outputPaths.getWorkingDirectory());
+    filesystem.mkdirs(outputPaths.getPathToSourcesList().getParent());
+
+    StepExecutionResult result =
+        new IncrementalJavacStep(
+                javac,
+                javacOptions,
+                target,
+                new TestActionGraphBuilder().getSourcePathResolver(),
+                filesystem,
+                compilerParameters,
+                CompilerOutputPaths.getIncrementalStatePath(target, filesystem))
+            .execute(context);
+    assertTrue(result.getStderr().orElse(""), result.isSuccess());
+  }
+
+  private static JavacOptions getJavacOptions() {
+    return JavacOptions.builder()
+        .setLanguageLevelOptions(
+            JavacLanguageLevelOptions.builder().setSourceLevel("8").setTargetLevel("8").build())
+        .build();
+  }
+
+  private void writeSource(String name, String body) throws IOException {
+    Path source = tmp.getRoot().resolve("src/p/" + name + ".java");
+    Files.createDirectories(source.getParent());
+    Files.write(source, ("package p;\n" + body + "\n").getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Path getClassFile(String name) {
+    return filesystem
+        .resolve(compilerParameters.getOutputPaths().getClassesDir())
+        .resolve("p/" + name + ".class");
+  }
+
+  private static ImmutableSortedSet<Path> sources(String... names) {
+    ImmutableSortedSet.Builder<Path> sources = ImmutableSortedSet.naturalOrder();
+    for (String name : names) {
+      sources.add(Paths.get("src/p/" + name + ".java"));
+    }
+    return sources.build();
+  }
+
+  /** Records the sources of every invocation of the compiler. */
+  private static class RecordingJavac extends JdkProvidedInMemoryJavac {
+    private final List<ImmutableSortedSet<Path>> rounds = new ArrayList<>();
+
+    @Override
+    public Invocation newBuildInvocation(
+        JavacExecutionContext context,
+        SourcePathResolverAdapter resolver,
+        BuildTarget invokingRule,
+        ImmutableList<String> options,
+        ImmutableList<JavacPluginJsr199Fields> annotationProcessors,
+        ImmutableList<JavacPluginJsr199Fields> javacPlugins,
+        ImmutableSortedSet<Path> javaSourceFilePaths,
+        Path pathToSrcsList,
+        Path workingDirectory,
+        boolean trackClassUsage,
+        boolean trackJavacPhaseEvents,
+        @Nullable JarParameters abiJarParameters,
+        @Nullable JarParameters libraryJarParameters,
+        AbiGenerationMode abiGenerationMode,
+        AbiGenerationMode abiCompatibilityMode,
+        @Nullable SourceOnlyAbiRuleInfoFactory ruleInfoFactory) {
+      rounds.add(javaSourceFilePaths);
+      return super.newBuildInvocation(
+          context,
+          resolver,
+          invokingRule,
+          options,
+          annotationProcessors,
+          javacPlugins,
+          javaSourceFilePaths,
+          pathToSrcsList,
+          workingDirectory,
+          trackClassUsage,
+          trackJavacPhaseEvents,
+          abiJarParameters,
+          libraryJarParameters,
+          abiGenerationMode,
+          abiCompatibilityMode,
+          ruleInfoFactory);
+    }
+  }
+}
@@ -19,6 +19,7 @@ package com.facebook.buck.jvm.java;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 import com.facebook.buck.core.build.execution.context.ExecutionContext;
 import com.facebook.buck.core.model.BuildId;
@@ -36,6 +37,7 @@ import com.google.common.collect.ImmutableSet;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -316,4 +318,40 @@ public class JUnitStepTest {
         "Debugging. Suspending JVM. Connect a JDWP debugger to port 5005 to proceed.",
         console.getTextWrittenToStdErr().trim());
   }
+
+  @Test
+  public void testClassParallelismIsPassedToTheTestRunner() {
+    String testClass1 = "com.facebook.buck.shell.JUnitCommandTest";
+    String testClass2 = "com.facebook.buck.shell.InstrumentCommandTest";
+
+    ProjectFilesystem filesystem = FakeProjectFilesystem.createJavaOnlyFilesystem();
+    JUnitJvmArgs args =
+        ImmutableJUnitJvmArgs.builder()
+            .setClasspathFile(filesystem.resolve("foo"))
+            .setBuildId(new BuildId("pretend-build-id"))
+            .setBuckModuleBaseSourceCodePath(Paths.get("module/submodule"))
+            .setTargetJavaVersion(8)
+            .setTestRunnerClasspath(Paths.get("ant-out/classes/junit"))
+            .setTestType(TestType.JUNIT)
+            .setTestClassParallelism(4)
+            .addTestClasses(testClass1, testClass2)
+            .build();
+
+    JUnitStep junit =
+        new JUnitStep(
+            filesystem,
+            ImmutableMap.of(),
+            /* testRuleTimeoutMs */ Optional.empty(),
+            /* testCaseTimeoutMs */ Optional.empty(),
+            ImmutableMap.of(),
+            ImmutableList.of("/foo/bar/custom/java"),
+            args);
+
+    List<String> observedArgs = junit.getShellCommand(TestExecutionContext.newInstance());
+    assertNotEquals(
+        -1,
+        Collections.indexOfSubList(
+            observedArgs,
+            ImmutableList.of("--parallel-classes", "4", testClass1, testClass2)));
+  }
 }
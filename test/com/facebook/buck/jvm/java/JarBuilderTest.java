@@ -16,6 +16,7 @@
 
 package com.facebook.buck.jvm.java;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -27,9 +28,11 @@ import com.facebook.buck.util.zip.JarEntrySupplier;
 import com.facebook.buck.util.zip.ZipConstants;
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
 import com.google.common.io.CharStreams;
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
@@ -39,12 +42,16 @@ import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import javax.annotation.Nullable;
 import org.hamcrest.Matchers;
 import org.junit.Rule;
@@ -179,6 +186,100 @@ public class JarBuilderTest {
     }
   }
 
+  @Test
+  public void testParallelCompressionProducesIdenticalJar() throws IOException {
+    File serialJar = temporaryFolder.newFile();
+    File parallelJar = temporaryFolder.newFile();
+
+    createJarWithManyEntries(1).createJarFile(serialJar.toPath());
+    createJarWithManyEntries(4).createJarFile(parallelJar.toPath());
+
+    assertArrayEquals(
+        Files.readAllBytes(serialJar.toPath()), Files.readAllBytes(parallelJar.toPath()));
+  }
+
+  @Test
+  public void testDeflatedEntriesOfJarsAreCopiedAsIs() throws IOException {
+    File inputJar = temporaryFolder.newFile();
+    StringBuilder contents = new StringBuilder();
+    Random random = new Random(0);
+    for (int i = 0; i < 2000; i++) {
+      contents.append(Integer.toString(random.nextInt(1000), 36)).append(' ');
+    }
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(inputJar))) {
+      // A level that differs from the one used by JarBuilder, so that deflating the entry again
+      // would be noticed.
+      out.setLevel(Deflater.BEST_SPEED);
+      out.putNextEntry(new ZipEntry("com/example/A.class"));
+      out.write(contents.toString().getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+    }
+
+    for (boolean shouldHashEntries : new boolean[] {false, true}) {
+      File outputJar = temporaryFolder.newFile();
+      new JarBuilder()
+          .setEntriesToJar(ImmutableList.of(inputJar.toPath()))
+          .setShouldHashEntries(shouldHashEntries)
+          .createJarFile(outputJar.toPath());
+
+      try (JarFile input = new JarFile(inputJar);
+          JarFile output = new JarFile(outputJar)) {
+        ZipEntry inputEntry = input.getEntry("com/example/A.class");
+        ZipEntry outputEntry = output.getEntry("com/example/A.class");
+        assertEquals(inputEntry.getCrc(), outputEntry.getCrc());
+        assertEquals(
+            shouldHashEntries,
+            inputEntry.getCompressedSize() != outputEntry.getCompressedSize());
+        assertEquals(
+            contents.toString(),
+            CharStreams.toString(
+                new InputStreamReader(output.getInputStream(outputEntry), Charsets.UTF_8)));
+      }
+    }
+  }
+
+  private JarBuilder createJarWithManyEntries(int compressionParallelism) {
+    JarBuilder builder =
+        new JarBuilder()
+            .setShouldHashEntries(true)
+            .setCompressionParallelism(compressionParallelism)
+            .setRemoveEntryPredicate(entry -> entry.getName().startsWith("removed/"));
+    Random random = new Random(0);
+    for (int i = 0; i < 200; i++) {
+      StringBuilder contents = new StringBuilder();
+      int words = random.nextInt(500);
+      for (int j = 0; j < words; j++) {
+        contents.append(Integer.toString(random.nextInt(1000), 36)).append(' ');
+      }
+      addEntry(builder, String.format("com/example/p%d/C%d.class", i % 7, i), contents.toString());
+    }
+    byte[] large = new byte[5 * 1024 * 1024];
+    random.nextBytes(large);
+    builder.addEntry(
+        new JarEntrySupplier(
+            new CustomZipEntry("large.bin"), "owner", () -> new ByteArrayInputStream(large)));
+    CustomZipEntry stored = new CustomZipEntry("stored.txt");
+    stored.setCompressionLevel(0);
+    byte[] storedContents = "stored".getBytes(StandardCharsets.UTF_8);
+    stored.setSize(storedContents.length);
+    stored.setCompressedSize(storedContents.length);
+    stored.setCrc(Hashing.crc32().hashBytes(storedContents).padToLong());
+    builder.addEntry(
+        new JarEntrySupplier(stored, "owner", () -> new ByteArrayInputStream(storedContents)));
+    CustomZipEntry fastest = new CustomZipEntry("fastest.txt");
+    fastest.setCompressionLevel(1);
+    builder.addEntry(
+        new JarEntrySupplier(
+            fastest,
+            "owner",
+            () -> new ByteArrayInputStream("fastest fastest".getBytes(StandardCharsets.UTF_8))));
+    addEntry(builder, "empty.txt", "");
+    addEntry(builder, "com/example/p1/C1.class", "duplicate");
+    addEntry(builder, "removed/Removed.class", "removed");
+    addEntry(builder, "META-INF/services/com.example.Service", "com.example.Impl");
+    return builder;
+  }
+
   private void addEntry(JarBuilder builder, String name, String contents) {
     builder.addEntry(
         new JarEntrySupplier(
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JarIndexFileManagerTest {
+
+  @Rule public TemporaryFolder temp = new TemporaryFolder();
+
+  private JavaCompiler compiler;
+  private JarIndexCache jarIndexCache;
+
+  @Before
+  public void setUp() {
+    compiler = ToolProvider.getSystemJavaCompiler();
+    jarIndexCache = JarIndexCache.create(JarIndexCache.DEFAULT_MAXIMUM_WEIGHT);
+  }
+
+  @Test
+  public void listsClassesOfClasspathJarsInClasspathOrder() throws IOException {
+    Path first = writeJar("first.jar", "a/A.class", "a/b/B.class", "a/A.txt");
+    Path second = writeJar("second.jar", "a/A.class", "a/C.class");
+
+    try (JarIndexFileManager fileManager = newFileManager()) {
+      fileManager.setLocation(
+          StandardLocation.CLASS_PATH, ImmutableList.of(first.toFile(), second.toFile()));
+
+      List<String> listed = new ArrayList<>();
+      for (JavaFileObject file : listClasses(fileManager, "a", false)) {
+        listed.add(
+            file.toUri() + " " + fileManager.inferBinaryName(StandardLocation.CLASS_PATH, file));
+      }
+
+      assertEquals(
+          ImmutableList.of(
+              "jar:" + first.toUri() + "!/a/A.class a.A",
+              "jar:" + second.toUri() + "!/a/A.class a.A",
+              "jar:" + second.toUri() + "!/a/C.class a.C"),
+          listed);
+    }
+  }
+
+  @Test
+  public void listsSubpackagesWhenRecursing() throws IOException {
+    Path jar = writeJar("lib.jar", "a/A.class", "a/b/B.class", "ab/C.class");
+
+    try (JarIndexFileManager fileManager = newFileManager()) {
+      fileManager.setLocation(StandardLocation.CLASS_PATH, ImmutableList.of(jar.toFile()));
+
+      List<String> listed = new ArrayList<>();
+      for (JavaFileObject file : listClasses(fileManager, "a", true)) {
+        listed.add(fileManager.inferBinaryName(StandardLocation.CLASS_PATH, file));
+      }
+
+      assertEquals(ImmutableList.of("a.A", "a.b.B"), listed);
+    }
+  }
+
+  @Test
+  public void compilesAgainstIndexedJars() throws IOException {
+    Path classes = temp.newFolder("classes").toPath();
+    Path source = temp.getRoot().toPath().resolve("Dep.java");
+    Files.write(source, "package dep; public class Dep {}".getBytes(StandardCharsets.UTF_8));
+    assertEquals(0, compiler.run(null, null, null, "-d", classes.toString(), source.toString()));
+    Path jar = temp.getRoot().toPath().resolve("dep.jar");
+    try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+      out.putNextEntry(new JarEntry("dep/Dep.class"));
+      Files.copy(classes.resolve("dep/Dep.class"), out);
+    }
+
+    Path user = temp.getRoot().toPath().resolve("User.java");
+    Files.write(user, "class User { dep.Dep dep; }".getBytes(StandardCharsets.UTF_8));
+    Path output = temp.newFolder("output").toPath();
+    try (JarIndexFileManager fileManager = newFileManager()) {
+      fileManager.setLocation(StandardLocation.CLASS_PATH, ImmutableList.of(jar.toFile()));
+      fileManager.setLocation(StandardLocation.CLASS_OUTPUT, ImmutableList.of(output.toFile()));
+
+      boolean success =
+          compiler
+              .getTask(
+                  null,
+                  fileManager,
+                  null,
+                  null,
+                  null,
+                  fileManager.getJavaFileObjects(user.toFile()))
+              .call();
+
+      assertTrue(success);
+      assertTrue(Files.exists(output.resolve("User.class")));
+    }
+    assertEquals(1L, (long) jarIndexCache.getStats().getMissCount().get());
+    assertTrue(jarIndexCache.getStats().getHitCount().get() > 0);
+  }
+
+  @Test
+  public void directoriesOnClasspathAreListedByDelegate() throws IOException {
+    Path jar = writeJar("lib.jar", "a/A.class");
+    File directory = temp.newFolder("dir");
+    Files.createDirectories(directory.toPath().resolve("a"));
+    Files.write(directory.toPath().resolve("a/B.class"), new byte[] {0});
+
+    try (JarIndexFileManager fileManager = newFileManager()) {
+      fileManager.setLocation(
+          StandardLocation.CLASS_PATH, ImmutableList.of(directory, jar.toFile()));
+
+      List<String> listed = new ArrayList<>();
+      for (JavaFileObject file : listClasses(fileManager, "a", false)) {
+        listed.add(fileManager.inferBinaryName(StandardLocation.CLASS_PATH, file));
+      }
+
+      assertEquals(ImmutableList.of("a.B", "a.A"), listed);
+      assertEquals(0L, (long) jarIndexCache.getStats().getRequestCount().get());
+    }
+  }
+
+  @Test
+  public void rewrittenJarsAreIndexedAgain() throws IOException {
+    Path jar = writeJar("lib.jar", "a/A.class");
+    assertEquals(
+        ImmutableList.of("a/A.class"), jarIndexCache.get(jar).list("a", /* recurse */ false));
+    assertEquals(
+        ImmutableList.of("a/A.class"), jarIndexCache.get(jar).list("a", /* recurse */ false));
+
+    writeJar("lib.jar", "a/A.class", "a/B.class");
+    Files.setLastModifiedTime(
+        jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 10_000));
+
+    assertEquals(
+        ImmutableList.of("a/A.class", "a/B.class"),
+        jarIndexCache.get(jar).list("a", /* recurse */ false));
+    assertEquals(1L, (long) jarIndexCache.getStats().getHitCount().get());
+    assertEquals(2L, (long) jarIndexCache.getStats().getMissCount().get());
+  }
+
+  private static Iterable<JavaFileObject> listClasses(
+      JarIndexFileManager fileManager, String packageName, boolean recurse) throws IOException {
+    return fileManager.list(
+        StandardLocation.CLASS_PATH,
+        packageName,
+        ImmutableSet.of(JavaFileObject.Kind.CLASS),
+        recurse);
+  }
+
+  private JarIndexFileManager newFileManager() {
+    return new JarIndexFileManager(
+        compiler.getStandardFileManager(null, null, null), jarIndexCache);
+  }
+
+  private Path writeJar(String name, String... entries) throws IOException {
+    Path jar = temp.getRoot().toPath().resolve(name);
+    try (OutputStream stream = Files.newOutputStream(jar);
+        JarOutputStream out = new JarOutputStream(stream)) {
+      for (String entry : entries) {
+        out.putNextEntry(new JarEntry(entry));
+        out.write(entry.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    return jar;
+  }
+}
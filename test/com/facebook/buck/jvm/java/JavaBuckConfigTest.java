@@ -366,6 +366,27 @@ public class JavaBuckConfigTest {
     assertTrue(config.shouldDesugarInterfaceMethods());
   }
 
+  @Test
+  public void incrementalCompilationCanBeEnabled() {
+    JavaBuckConfig config =
+        FakeBuckConfig.builder()
+            .setSections(
+                ImmutableMap.of("java", ImmutableMap.of("incremental_compilation", "true")))
+            .build()
+            .getView(JavaBuckConfig.class);
+
+    assertTrue(
+        config
+            .getDefaultJavacOptions(UnconfiguredTargetConfiguration.INSTANCE)
+            .isIncrementalCompilationEnabled());
+    assertFalse(
+        FakeBuckConfig.builder()
+            .build()
+            .getView(JavaBuckConfig.class)
+            .getDefaultJavacOptions(UnconfiguredTargetConfiguration.INSTANCE)
+            .isIncrementalCompilationEnabled());
+  }
+
   @Test
   public void doNotTrackClassUsageByDefaultForExternJavac() throws IOException {
     JavaBuckConfig config =
@@ -435,6 +456,63 @@ public class JavaBuckConfigTest {
     assertTrue(config.trackClassUsage(UnconfiguredTargetConfiguration.INSTANCE));
   }
 
+  @Test
+  public void javacWorkersAreUsedWhenConfigured() {
+    JavaBuckConfig config =
+        FakeBuckConfig.builder()
+            .setSections(
+                ImmutableMap.of(
+                    "java",
+                    ImmutableMap.of(
+                        "javac_workers", "4",
+                        "javac_worker_max_heap", "2g",
+                        "track_class_usage", "false")))
+            .build()
+            .getView(JavaBuckConfig.class);
+
+    JavacSpec spec = config.getJavacSpec(UnconfiguredTargetConfiguration.INSTANCE);
+    assertEquals(Javac.Source.WORKER, spec.getJavacSource());
+    assertEquals(Optional.of(JavacWorkerSettings.of(4, "2g", 500)), spec.getWorkerSettings());
+    assertFalse(config.trackClassUsage(UnconfiguredTargetConfiguration.INSTANCE));
+  }
+
+  @Test
+  public void javacWorkersRequireClassUsageTrackingToBeDisabled() {
+    JavaBuckConfig config =
+        FakeBuckConfig.builder()
+            .setSections(ImmutableMap.of("java", ImmutableMap.of("javac_workers", "4")))
+            .build()
+            .getView(JavaBuckConfig.class);
+
+    try {
+      config.getJavacSpec(UnconfiguredTargetConfiguration.INSTANCE);
+      fail("Should throw exception as class usage tracking is not disabled.");
+    } catch (HumanReadableException e) {
+      assertThat(
+          e.getHumanReadableErrorMessage(),
+          Matchers.containsString("java.track_class_usage = false"));
+    }
+  }
+
+  @Test
+  public void configuredJavacTakesPrecedenceOverJavacWorkers() throws IOException {
+    JavaBuckConfig config =
+        FakeBuckConfig.builder()
+            .setFilesystem(defaultFilesystem)
+            .setSections(
+                ImmutableMap.of(
+                    "tools",
+                    ImmutableMap.of("javac", temporaryFolder.newExecutableFile().toString()),
+                    "java",
+                    ImmutableMap.of("javac_workers", "4")))
+            .build()
+            .getView(JavaBuckConfig.class);
+
+    assertEquals(
+        Javac.Source.EXTERNAL,
+        config.getJavacSpec(UnconfiguredTargetConfiguration.INSTANCE).getJavacSource());
+  }
+
   @Test
   public void testCompileFullJarsByDefault() throws IOException {
     JavaBuckConfig config = createWithDefaultFilesystem(new StringReader(""));
@@ -128,7 +128,10 @@ public class Jsr199JavacIntegrationTest {
             createProjectFilesystem(),
             executionContext.getProjectFilesystemFactory(),
             executionContext.getEnvironment(),
-            executionContext.getProcessExecutor());
+            executionContext.getProcessExecutor(),
+            params -> {
+              throw new UnsupportedOperationException("In memory javac doesn't use workers");
+            });
 
     int exitCode =
         javac
@@ -183,7 +186,10 @@ public class Jsr199JavacIntegrationTest {
             createProjectFilesystem(),
             executionContext.getProjectFilesystemFactory(),
             executionContext.getEnvironment(),
-            executionContext.getProcessExecutor());
+            executionContext.getProcessExecutor(),
+            params -> {
+              throw new UnsupportedOperationException("In memory javac doesn't use workers");
+            });
 
     int exitCode =
         javac
@@ -290,7 +296,10 @@ public class Jsr199JavacIntegrationTest {
             createProjectFilesystem(),
             executionContext.getProjectFilesystemFactory(),
             executionContext.getEnvironment(),
-            executionContext.getProcessExecutor());
+            executionContext.getProcessExecutor(),
+            params -> {
+              throw new UnsupportedOperationException("In memory javac doesn't use workers");
+            });
 
     boolean caught = false;
 
@@ -383,7 +392,10 @@ public class Jsr199JavacIntegrationTest {
             createProjectFilesystem(),
             executionContext.getProjectFilesystemFactory(),
             executionContext.getEnvironment(),
-            executionContext.getProcessExecutor());
+            executionContext.getProcessExecutor(),
+            params -> {
+              throw new UnsupportedOperationException("In memory javac doesn't use workers");
+            });
 
     Invocation buildInvocation =
         javac.newBuildInvocation(
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import com.facebook.buck.core.model.BuildTargetFactory;
+import com.facebook.buck.jvm.java.abi.AbiGenerationMode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import java.nio.file.Paths;
+import org.junit.Test;
+
+public class WorkerJavacTest {
+
+  private final WorkerJavac javac = new WorkerJavac(JavacWorkerSettings.of(1, "1g", 500));
+
+  @Test
+  public void classesAreCompiledByWorkers() {
+    assertThat(
+        newBuildInvocation(AbiGenerationMode.CLASS, false),
+        not(instanceOf(Jsr199JavacInvocation.class)));
+  }
+
+  @Test
+  public void sourceAbisAreCompiledInProcess() {
+    assertThat(
+        newBuildInvocation(AbiGenerationMode.SOURCE, false),
+        instanceOf(Jsr199JavacInvocation.class));
+  }
+
+  @Test
+  public void classUsageIsTrackedInProcess() {
+    assertThat(
+        newBuildInvocation(AbiGenerationMode.CLASS, true),
+        instanceOf(Jsr199JavacInvocation.class));
+  }
+
+  private Javac.Invocation newBuildInvocation(
+      AbiGenerationMode abiGenerationMode, boolean trackClassUsage) {
+    return javac.newBuildInvocation(
+        null,
+        null,
+        BuildTargetFactory.newInstance("//foo:bar"),
+        ImmutableList.of(),
+        ImmutableList.of(),
+        ImmutableList.of(),
+        ImmutableSortedSet.of(),
+        Paths.get("srcs"),
+        Paths.get("work"),
+        trackClassUsage,
+        false,
+        null,
+        null,
+        abiGenerationMode,
+        abiGenerationMode,
+        null);
+  }
+}
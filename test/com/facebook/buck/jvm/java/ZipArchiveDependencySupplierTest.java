@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.buck.core.model.BuildTarget;
+import com.facebook.buck.core.model.BuildTargetFactory;
+import com.facebook.buck.core.rules.ActionGraphBuilder;
+import com.facebook.buck.core.rules.impl.FakeBuildRule;
+import com.facebook.buck.core.rules.resolver.impl.TestActionGraphBuilder;
+import com.facebook.buck.core.sourcepath.ArchiveMemberSourcePath;
+import com.facebook.buck.core.sourcepath.FakeSourcePath;
+import com.facebook.buck.core.sourcepath.SourcePath;
+import com.facebook.buck.core.sourcepath.resolver.SourcePathResolverAdapter;
+import com.facebook.buck.jvm.core.HasJavaAbi;
+import com.facebook.buck.jvm.core.JavaAbiInfo;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import java.nio.file.Paths;
+import java.util.function.Predicate;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZipArchiveDependencySupplierTest {
+  private ActionGraphBuilder graphBuilder;
+  private SourcePath firstJar;
+  private SourcePath secondJar;
+  private ZipArchiveDependencySupplier supplier;
+
+  @Before
+  public void setUp() {
+    graphBuilder = new TestActionGraphBuilder();
+    firstJar = addAbiRule("//:first#class-abi", "first-abi.jar", "a/A.class", "a/B.class");
+    secondJar = addAbiRule("//:second#class-abi", "second-abi.jar", "b/C.class");
+    supplier = new ZipArchiveDependencySupplier(ImmutableSortedSet.of(firstJar, secondJar));
+  }
+
+  @Test
+  public void predicateMatchesEveryArchiveMember() {
+    Predicate<SourcePath> predicate = supplier.getArchiveMembersPredicate(graphBuilder);
+
+    ImmutableSet<SourcePath> members =
+        supplier.getArchiveMembers(graphBuilder).collect(ImmutableSet.toImmutableSet());
+    assertEquals(3, members.size());
+    members.forEach(member -> assertTrue(member.toString(), predicate.test(member)));
+  }
+
+  @Test
+  public void predicateRejectsPathsThatAreNotMembersOfTheirArchive() {
+    Predicate<SourcePath> predicate = supplier.getArchiveMembersPredicate(graphBuilder);
+
+    assertFalse(predicate.test(ArchiveMemberSourcePath.of(firstJar, Paths.get("b/C.class"))));
+    assertFalse(predicate.test(ArchiveMemberSourcePath.of(secondJar, Paths.get("a/A.class"))));
+    assertFalse(predicate.test(firstJar));
+    assertFalse(predicate.test(FakeSourcePath.of("a/A.class")));
+    assertFalse(
+        predicate.test(
+            ArchiveMemberSourcePath.of(FakeSourcePath.of("other.jar"), Paths.get("a/A.class"))));
+  }
+
+  private SourcePath addAbiRule(String target, String output, String... members) {
+    AbiRule rule = new AbiRule(BuildTargetFactory.newInstance(target));
+    rule.setOutputFile(output);
+    SourcePath jar = rule.getSourcePathToOutput();
+    ImmutableSortedSet.Builder<SourcePath> contents = ImmutableSortedSet.naturalOrder();
+    for (String member : members) {
+      contents.add(ArchiveMemberSourcePath.of(jar, Paths.get(member)));
+    }
+    rule.contents = contents.build();
+    graphBuilder.addToIndex(rule);
+    return jar;
+  }
+
+  private static class AbiRule extends FakeBuildRule implements HasJavaAbi, JavaAbiInfo {
+    private ImmutableSortedSet<SourcePath> contents = ImmutableSortedSet.of();
+
+    private AbiRule(BuildTarget target) {
+      super(target);
+    }
+
+    @Override
+    public JavaAbiInfo getAbiInfo() {
+      return this;
+    }
+
+    @Override
+    public ImmutableSortedSet<SourcePath> getJarContents() {
+      return contents;
+    }
+
+    @Override
+    public boolean jarContains(String path) {
+      return contents.stream()
+          .anyMatch(
+              member -> ((ArchiveMemberSourcePath) member).getMemberPath().equals(Paths.get(path)));
+    }
+
+    @Override
+    public void load(SourcePathResolverAdapter pathResolver) {}
+
+    @Override
+    public void invalidate() {}
+  }
+}
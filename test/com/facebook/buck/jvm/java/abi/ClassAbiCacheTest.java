@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java.abi;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.facebook.buck.io.filesystem.ProjectFilesystem;
+import com.facebook.buck.io.filesystem.TestProjectFilesystems;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ClassAbiCacheTest {
+  @Rule public TemporaryFolder temp = new TemporaryFolder();
+
+  private ProjectFilesystem filesystem;
+  private Path library;
+
+  @Before
+  public void setUp() throws IOException {
+    filesystem = TestProjectFilesystems.createProjectFilesystem(temp.getRoot().toPath());
+    library = temp.newFolder("library").toPath();
+    copyClass(ClassAbiCache.class);
+    copyClass(StubJar.class);
+    copyClass(ClassAbiCacheTest.class);
+  }
+
+  @Test
+  public void cachedStubsAreIdenticalToComputedStubs() throws IOException {
+    byte[] uncached = writeStubJar(null, "uncached.jar");
+
+    ClassAbiCache cache = ClassAbiCache.create(ClassAbiCache.DEFAULT_MAXIMUM_WEIGHT);
+    byte[] firstBuild = writeStubJar(cache, "first.jar");
+    assertEquals(0, (long) cache.getStats().getHitCount().get());
+    assertEquals(3, (long) cache.getStats().getMissCount().get());
+
+    byte[] secondBuild = writeStubJar(cache, "second.jar");
+    assertEquals(3, (long) cache.getStats().getHitCount().get());
+    assertEquals(3, (long) cache.getStats().getMissCount().get());
+
+    assertArrayEquals(uncached, firstBuild);
+    assertArrayEquals(uncached, secondBuild);
+  }
+
+  @Test
+  public void onlyChangedClassesAreStubbedAgain() throws IOException {
+    ClassAbiCache cache = ClassAbiCache.create(ClassAbiCache.DEFAULT_MAXIMUM_WEIGHT);
+    writeStubJar(cache, "first.jar");
+
+    // Replace one class with another one, as a change to a single class would.
+    Files.delete(classPath(ClassAbiCacheTest.class));
+    copyClass(AbiGenerationMode.class);
+    byte[] incremental = writeStubJar(cache, "second.jar");
+
+    assertEquals(2, (long) cache.getStats().getHitCount().get());
+    assertEquals(4, (long) cache.getStats().getMissCount().get());
+    assertArrayEquals(writeStubJar(null, "uncached.jar"), incremental);
+  }
+
+  @Test
+  public void compatibilityModeIsPartOfTheKey() throws IOException {
+    ClassAbiCache cache = ClassAbiCache.create(ClassAbiCache.DEFAULT_MAXIMUM_WEIGHT);
+    writeStubJar(cache, "class.jar");
+    new StubJar(library)
+        .setClassAbiCache(cache)
+        .setCompatibilityMode(AbiGenerationMode.SOURCE)
+        .writeTo(filesystem, Paths.get("source.jar"));
+
+    assertEquals(0, (long) cache.getStats().getHitCount().get());
+    assertEquals(6, (long) cache.getStats().getMissCount().get());
+  }
+
+  private byte[] writeStubJar(@Nullable ClassAbiCache cache, String name) throws IOException {
+    Path output = Paths.get(name);
+    new StubJar(library).setClassAbiCache(cache).writeTo(filesystem, output);
+    return Files.readAllBytes(filesystem.resolve(output));
+  }
+
+  private Path classPath(Class<?> clazz) {
+    return library.resolve(clazz.getName().replace('.', '/') + ".class");
+  }
+
+  private void copyClass(Class<?> clazz) throws IOException {
+    Path destination = classPath(clazz);
+    Files.createDirectories(destination.getParent());
+    try (InputStream classFile =
+        Objects.requireNonNull(
+            clazz.getResourceAsStream("/" + clazz.getName().replace('.', '/') + ".class"))) {
+      Files.write(destination, ByteStreams.toByteArray(classFile));
+    }
+  }
+}
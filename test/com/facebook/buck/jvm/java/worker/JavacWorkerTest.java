@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.java.worker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.buck.testutil.TemporaryPaths;
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.jar.JarOutputStream;
+import javax.tools.ToolProvider;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class JavacWorkerTest {
+
+  @Rule public TemporaryPaths tmp = new TemporaryPaths();
+
+  private JavacWorker worker;
+
+  @Before
+  public void setUp() {
+    worker = new JavacWorker(ToolProvider.getSystemJavaCompiler());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    worker.close();
+  }
+
+  @Test
+  public void jobRoundTripsThroughJson() throws IOException {
+    JavacWorkerJob job =
+        new JavacWorkerJob(
+            ImmutableList.of("-d", "out dir", "-Xlint:\"all\""), ImmutableList.of("A.java"));
+
+    assertEquals(job, JavacWorkerJob.fromJson(new StringReader(job.toJson())));
+  }
+
+  @Test
+  public void compilesSuccessiveJobsWithTheSameWorker() throws IOException {
+    Path out = tmp.newFolder("out");
+    Path first = writeSource("A.java", "public class A {}");
+    Path second = writeSource("B.java", "public class B extends A {}");
+
+    assertEquals(0, compile(ImmutableList.of("-d", out.toString()), first));
+    assertEquals(
+        0,
+        compile(ImmutableList.of("-d", out.toString(), "-cp", out.toString()), second));
+
+    assertTrue(Files.exists(out.resolve("A.class")));
+    assertTrue(Files.exists(out.resolve("B.class")));
+  }
+
+  @Test
+  public void reportsCompilationErrors() throws IOException {
+    Path out = tmp.newFolder("out");
+    Path source = writeSource("Broken.java", "public class Broken { int i = \"\"; }");
+
+    StringWriter diagnostics = new StringWriter();
+    int exitCode =
+        worker.compile(
+            new JavacWorkerJob(
+                ImmutableList.of("-d", out.toString()), ImmutableList.of(source.toString())),
+            diagnostics);
+
+    assertEquals(1, exitCode);
+    assertThat(diagnostics.toString(), Matchers.containsString("Broken.java"));
+  }
+
+  @Test
+  public void fileManagerIsOnlyRecreatedWhenClasspathJarsChange() throws IOException {
+    Path out = tmp.newFolder("out");
+    Path jar = tmp.getRoot().resolve("dep.jar");
+    try (JarOutputStream ignored = new JarOutputStream(Files.newOutputStream(jar))) {
+      // An empty jar is enough to be indexed.
+    }
+    Path source = writeSource("A.java", "public class A {}");
+    ImmutableList<String> options = ImmutableList.of("-d", out.toString(), "-cp", jar.toString());
+
+    assertEquals(0, compile(options, source));
+    assertEquals(0, compile(options, source));
+    assertEquals(0, worker.getFileManagerRecreations());
+
+    Files.setLastModifiedTime(
+        jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 10_000));
+    assertEquals(0, compile(options, source));
+    assertEquals(1, worker.getFileManagerRecreations());
+  }
+
+  @Test
+  public void fileManagerIsRecreatedWhenFileManagerOptionsChange() throws IOException {
+    Path out = tmp.newFolder("out");
+    Path source = writeSource("A.java", "public class A {}");
+    ImmutableList<String> utf8 = ImmutableList.of("-d", out.toString(), "-encoding", "UTF-8");
+    ImmutableList<String> latin1 =
+        ImmutableList.of("-d", out.toString(), "-encoding", "ISO-8859-1");
+
+    assertEquals(0, compile(utf8, source));
+    assertEquals(0, compile(utf8, source));
+    assertEquals(0, worker.getFileManagerRecreations());
+
+    assertEquals(0, compile(latin1, source));
+    assertEquals(1, worker.getFileManagerRecreations());
+    assertEquals(0, compile(ImmutableList.of("-d", out.toString()), source));
+    assertEquals(2, worker.getFileManagerRecreations());
+  }
+
+  private int compile(ImmutableList<String> options, Path source) throws IOException {
+    return worker.compile(
+        new JavacWorkerJob(options, ImmutableList.of(source.toString())), new StringWriter());
+  }
+
+  private Path writeSource(String name, String contents) throws IOException {
+    Path source = tmp.getRoot().resolve(name);
+    Files.write(source, contents.getBytes(StandardCharsets.UTF_8));
+    return source;
+  }
+}
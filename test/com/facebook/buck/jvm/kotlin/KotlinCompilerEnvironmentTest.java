@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.jvm.kotlin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.facebook.buck.testutil.TemporaryPaths;
+import com.facebook.buck.util.hashing.FileHashLoader;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class KotlinCompilerEnvironmentTest {
+
+  @Rule public TemporaryPaths tmp = new TemporaryPaths();
+
+  private FakeJarFileSystem jarFileSystem;
+  private KotlinCompilerEnvironment environment;
+  private Path jar;
+
+  @Before
+  public void setUp() throws Exception {
+    jarFileSystem = new FakeJarFileSystem();
+    environment =
+        new KotlinCompilerEnvironment(
+            new FakeCompanion(new FakeApplicationEnvironment(jarFileSystem)),
+            FakeCompanion.class.getMethod("getApplicationEnvironment"));
+    jar = tmp.newFile("dep.jar");
+  }
+
+  @Test
+  public void classpathIsReadFromTheClasspathOption() {
+    assertEquals(
+        ImmutableList.of("a.jar", "b.jar"),
+        KotlinCompilerEnvironment.getClasspath(
+            ImmutableList.of(
+                "-d", "out", "-classpath", "a.jar" + File.pathSeparator + "b.jar", "A.kt")));
+  }
+
+  @Test
+  public void classpathIsEmptyWithoutClasspathOption() {
+    assertEquals(
+        ImmutableList.of(), KotlinCompilerEnvironment.getClasspath(ImmutableList.of("A.kt")));
+    assertEquals(
+        ImmutableList.of(),
+        KotlinCompilerEnvironment.getClasspath(ImmutableList.of("A.kt", "-classpath")));
+  }
+
+  @Test
+  public void cachesAreOnlyClearedWhenAClasspathJarChanges() throws Exception {
+    compile();
+    compile();
+    assertEquals(0, jarFileSystem.clears);
+
+    touch(jar);
+    compile();
+    assertEquals(1, jarFileSystem.clears);
+
+    compile();
+    assertEquals(1, jarFileSystem.clears);
+  }
+
+  @Test
+  public void failedClearIsRetriedByTheNextCompilation() throws Exception {
+    compile();
+    touch(jar);
+
+    jarFileSystem.failNextClear = true;
+    try {
+      compile();
+      fail("Clearing the caches should have failed.");
+    } catch (InvocationTargetException e) {
+      // expected
+    }
+    assertEquals(0, jarFileSystem.clears);
+
+    compile();
+    assertEquals(1, jarFileSystem.clears);
+  }
+
+  @Test
+  public void cachesAreClearedWhenAJarIsRewrittenWithTheSameSizeAndModificationTime()
+      throws Exception {
+    write(jar, "a", FileTime.fromMillis(1_000));
+    compile(Optional.of(new ContentHashLoader()));
+
+    write(jar, "b", FileTime.fromMillis(1_000));
+    compile(Optional.of(new ContentHashLoader()));
+    assertEquals(1, jarFileSystem.clears);
+  }
+
+  @Test
+  public void cachesAreClearedWhenAJarIsReplacedWithTheSameSizeAndModificationTime()
+      throws Exception {
+    write(jar, "a", FileTime.fromMillis(1_000));
+    compile();
+
+    Path replacement = tmp.newFile("replacement.jar");
+    write(replacement, "b", FileTime.fromMillis(1_000));
+    Files.move(replacement, jar, StandardCopyOption.REPLACE_EXISTING);
+    compile();
+    assertEquals(1, jarFileSystem.clears);
+  }
+
+  @Test
+  public void keepAlivePropertyIsOnlySetWhileCompiling() throws Exception {
+    String property = "kotlin.environment.keepalive";
+    assertNull(System.getProperty(property));
+
+    assertEquals(
+        "true",
+        environment.compile(
+            ImmutableList.of(jar.toString()),
+            Optional.empty(),
+            () -> System.getProperty(property)));
+    assertNull(System.getProperty(property));
+  }
+
+  private void compile() throws Exception {
+    compile(Optional.empty());
+  }
+
+  private void compile(Optional<FileHashLoader> fileHashLoader) throws Exception {
+    assertEquals(
+        Integer.valueOf(0),
+        environment.compile(ImmutableList.of(jar.toString()), fileHashLoader, () -> 0));
+  }
+
+  private static void write(Path file, String content, FileTime lastModified) throws IOException {
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    Files.setLastModifiedTime(file, lastModified);
+  }
+
+  private static void touch(Path file) throws IOException {
+    Files.setLastModifiedTime(
+        file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10_000));
+  }
+
+  public static class FakeCompanion {
+    private final FakeApplicationEnvironment applicationEnvironment;
+
+    FakeCompanion(FakeApplicationEnvironment applicationEnvironment) {
+      this.applicationEnvironment = applicationEnvironment;
+    }
+
+    public FakeApplicationEnvironment getApplicationEnvironment() {
+      return applicationEnvironment;
+    }
+  }
+
+  public static class FakeApplicationEnvironment {
+    private final FakeJarFileSystem jarFileSystem;
+
+    FakeApplicationEnvironment(FakeJarFileSystem jarFileSystem) {
+      this.jarFileSystem = jarFileSystem;
+    }
+
+    public FakeJarFileSystem getJarFileSystem() {
+      return jarFileSystem;
+    }
+  }
+
+  public static class FakeJarFileSystem {
+    private int clears = 0;
+    private boolean failNextClear = false;
+
+    public void clearHandlersCache() {
+      if (failNextClear) {
+        failNextClear = false;
+        throw new IllegalStateException("Failed to clear caches");
+      }
+      clears++;
+    }
+  }
+
+  /** Hashes file contents on every call, like a file hash cache that saw every change */
+  private static class ContentHashLoader implements FileHashLoader {
+    @Override
+    public HashCode get(Path path) throws IOException {
+      return Hashing.sha1().hashBytes(Files.readAllBytes(path));
+    }
+
+    @Override
+    public long getSize(Path path) throws IOException {
+      return Files.size(path);
+    }
+
+    @Override
+    public HashCode getForArchiveMember(Path relativeArchivePath, Path memberPath) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.facebook.buck.parser.cache.json;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeThat;
 
@@ -121,4 +122,23 @@ public class BuildFileManifestSerializerTest {
     assertTrue(resultString.contains("confKey1"));
     assertTrue(resultString.contains("confVal1"));
   }
+
+  @Test
+  public void buildFileManifestRoundTripsThroughJson() throws Exception {
+    BuildFileManifest manifest =
+        BuildFileManifest.of(
+            ImmutableMap.of(
+                "tar1",
+                ImmutableMap.of(
+                    "name", "tar1", "srcs", ImmutableList.of("A.java", "B.java"), "flag", true)),
+            ImmutableSortedSet.of("/Includes1"),
+            ImmutableMap.of("section", ImmutableMap.of("key", "value")),
+            Optional.of(ImmutableMap.of("set", Optional.of("val"), "unset", Optional.empty())),
+            createFakeManifest().getGlobManifest(),
+            createFakeManifest().getErrors());
+
+    assertEquals(
+        manifest,
+        BuildFileManifestSerializer.deserialize(BuildFileManifestSerializer.serialize(manifest)));
+  }
 }
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.parser.manifest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.facebook.buck.io.filesystem.TestProjectFilesystems;
+import com.facebook.buck.parser.api.BuildFileManifest;
+import com.facebook.buck.parser.api.ProjectBuildFileParser;
+import com.facebook.buck.skylark.io.GlobSpec;
+import com.facebook.buck.skylark.io.GlobSpecWithResult;
+import com.facebook.buck.testutil.TemporaryPaths;
+import com.facebook.buck.util.hashing.FileHashLoader;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class BuildFileManifestCacheCodecTest {
+
+  @Rule public TemporaryPaths tmp = new TemporaryPaths();
+
+  private Path cellPath;
+  private Path include;
+  private BuildFileManifestCacheCodec codec;
+  private BuildPackagePathToBuildFileManifestKey key;
+  private BuildFileManifest manifest;
+  /** Whether the build files are parsed by a parser that records globs, like Skylark */
+  private boolean parserRecordsGlobs = true;
+
+  @Before
+  public void setUp() throws IOException {
+    cellPath = tmp.newFolder("cell");
+    Path packagePath = cellPath.resolve("package");
+    Files.createDirectories(packagePath.resolve("subpackage"));
+    Files.write(
+        packagePath.resolve("BUCK"), "java_library(name = 'a')".getBytes(StandardCharsets.UTF_8));
+    Files.createFile(packagePath.resolve("A.java"));
+    Files.createFile(packagePath.resolve("subpackage").resolve("BUCK"));
+    include = cellPath.resolve("defs.bzl");
+    Files.write(include, "def f(): pass".getBytes(StandardCharsets.UTF_8));
+
+    codec = newCodec(Hashing.sha1().hashInt(1));
+    key = BuildPackagePathToBuildFileManifestKey.of(Paths.get("package"));
+    manifest =
+        BuildFileManifest.of(
+            ImmutableMap.of("a", ImmutableMap.of("name", "a")),
+            ImmutableSortedSet.of(include.toString()),
+            ImmutableMap.of(),
+            Optional.of(ImmutableMap.of("VAR", Optional.of("a"))),
+            ImmutableList.of(
+                GlobSpecWithResult.of(
+                    GlobSpec.of(ImmutableList.of("*.java"), ImmutableList.of(), true),
+                    ImmutableSet.of("A.java"))),
+            ImmutableList.of());
+  }
+
+  @Test
+  public void roundTripsManifest() throws IOException {
+    assertEquals(manifest, codec.deserialize(codec.serialize(manifest)));
+  }
+
+  @Test
+  public void keyDependsOnConfiguration() {
+    assertEquals(codec.hashKey(key), newCodec(Hashing.sha1().hashInt(1)).hashKey(key));
+    assertNotEquals(codec.hashKey(key), newCodec(Hashing.sha1().hashInt(2)).hashKey(key));
+  }
+
+  @Test
+  public void keyDependsOnBuckVersion() {
+    assertNotEquals(
+        codec.hashKey(key),
+        newCodec(Hashing.sha1().hashInt(1), "other version", ImmutableMap.of()).hashKey(key));
+  }
+
+  @Test
+  public void fingerprintChangesWhenEnvironmentVariableReadByBuildFileChanges()
+      throws IOException {
+    HashCode before = codec.fingerprintInputs(key, manifest);
+    HashCode hash = Hashing.sha1().hashInt(1);
+
+    assertEquals(
+        before,
+        newCodec(hash, "version", ImmutableMap.of("VAR", "a", "OTHER", "b"))
+            .fingerprintInputs(key, manifest));
+    assertNotEquals(
+        before,
+        newCodec(hash, "version", ImmutableMap.of("VAR", "b")).fingerprintInputs(key, manifest));
+    assertNotEquals(
+        before, newCodec(hash, "version", ImmutableMap.of()).fingerprintInputs(key, manifest));
+  }
+
+  @Test
+  public void fingerprintChangesWhenPackageFileChanges() throws IOException {
+    HashCode before = codec.fingerprintInputs(key, manifest);
+
+    Files.write(cellPath.resolve("PACKAGE"), "package()".getBytes(StandardCharsets.UTF_8));
+    HashCode withRootPackageFile = codec.fingerprintInputs(key, manifest);
+    assertNotEquals(before, withRootPackageFile);
+
+    Files.write(
+        cellPath.resolve("package").resolve("PACKAGE"),
+        "package()".getBytes(StandardCharsets.UTF_8));
+    assertNotEquals(withRootPackageFile, codec.fingerprintInputs(key, manifest));
+  }
+
+  @Test
+  public void fingerprintChangesWhenIncludeChanges() throws IOException {
+    HashCode before = codec.fingerprintInputs(key, manifest);
+    assertEquals(before, codec.fingerprintInputs(key, manifest));
+
+    Files.write(include, "def g(): pass".getBytes(StandardCharsets.UTF_8));
+    assertNotEquals(before, codec.fingerprintInputs(key, manifest));
+  }
+
+  @Test
+  public void fingerprintChangesWhenBuildFileChanges() throws IOException {
+    HashCode before = codec.fingerprintInputs(key, manifest);
+
+    Files.write(
+        cellPath.resolve("package").resolve("BUCK"),
+        "java_library(name = 'b')".getBytes(StandardCharsets.UTF_8));
+    assertNotEquals(before, codec.fingerprintInputs(key, manifest));
+  }
+
+  @Test
+  public void fingerprintDoesNotDependOnFilesNotMatchedByGlobs() throws IOException {
+    HashCode before = codec.fingerprintInputs(key, manifest);
+
+    Files.createFile(cellPath.resolve("package").resolve("README"));
+    Files.createDirectories(cellPath.resolve("package").resolve("res"));
+    assertEquals(before, codec.fingerprintInputs(key, manifest));
+  }
+
+  @Test
+  public void inputsDoNotMatchWhenFileMatchingGlobIsAdded() throws Exception {
+    assertTrue(codec.inputsMatchCurrentState(key, manifest));
+
+    Files.createFile(cellPath.resolve("package").resolve("README"));
+    assertTrue(codec.inputsMatchCurrentState(key, manifest));
+
+    Files.createFile(cellPath.resolve("package").resolve("B.java"));
+    assertFalse(codec.inputsMatchCurrentState(key, manifest));
+  }
+
+  @Test
+  public void fingerprintChangesWhenFileIsAddedToPackageOfParserWithoutGlobs() throws Exception {
+    parserRecordsGlobs = false;
+    HashCode before = codec.fingerprintInputs(key, manifest);
+
+    Files.createFile(cellPath.resolve("package").resolve("B.java"));
+    assertNotEquals(before, codec.fingerprintInputs(key, manifest));
+    assertTrue(codec.inputsMatchCurrentState(key, manifest));
+  }
+
+  @Test
+  public void fingerprintIgnoresFilesOfNestedPackages() throws IOException {
+    parserRecordsGlobs = false;
+    HashCode before = codec.fingerprintInputs(key, manifest);
+
+    Files.createFile(cellPath.resolve("package").resolve("subpackage").resolve("B.java"));
+    assertEquals(before, codec.fingerprintInputs(key, manifest));
+  }
+
+  private BuildFileManifestCacheCodec newCodec(HashCode configHash) {
+    return newCodec(configHash, "version", ImmutableMap.of("VAR", "a"));
+  }
+
+  private BuildFileManifestCacheCodec newCodec(
+      HashCode configHash, String buckVersion, ImmutableMap<String, String> environment) {
+    return BuildFileManifestCacheCodec.of(
+        tmp.getRoot(),
+        cellPath,
+        Paths.get("BUCK"),
+        TestProjectFilesystems.createProjectFilesystem(cellPath).asView(),
+        new ContentHashLoader(),
+        new GlobbingParser(),
+        configHash,
+        buckVersion,
+        environment);
+  }
+
+  /** Hashes file contents on every call, like a file hash cache that saw every change */
+  private static class ContentHashLoader implements FileHashLoader {
+    @Override
+    public HashCode get(Path path) throws IOException {
+      return Hashing.sha1().hashBytes(Files.readAllBytes(path));
+    }
+
+    @Override
+    public long getSize(Path path) throws IOException {
+      return Files.size(path);
+    }
+
+    @Override
+    public HashCode getForArchiveMember(Path relativeArchivePath, Path memberPath) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /** Evaluates include patterns of globs against files in the directory of the build file */
+  private class GlobbingParser implements ProjectBuildFileParser {
+    @Override
+    public boolean globResultsMatchCurrentState(
+        Path buildFile, ImmutableList<GlobSpecWithResult> existingGlobsWithResults)
+        throws IOException {
+      if (!parserRecordsGlobs) {
+        throw new UnsupportedOperationException();
+      }
+      for (GlobSpecWithResult glob : existingGlobsWithResults) {
+        ImmutableList<PathMatcher> matchers =
+            glob.getGlobSpec().getInclude().stream()
+                .map(pattern -> FileSystems.getDefault().getPathMatcher("glob:" + pattern))
+                .collect(ImmutableList.toImmutableList());
+        try (Stream<Path> files = Files.list(buildFile.getParent())) {
+          if (!files
+              .map(Path::getFileName)
+              .filter(file -> matchers.stream().anyMatch(matcher -> matcher.matches(file)))
+              .map(Path::toString)
+              .collect(Collectors.toSet())
+              .equals(glob.getFilePaths())) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public BuildFileManifest getManifest(Path parseFile) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ImmutableSortedSet<String> getIncludedFiles(Path parseFile) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void reportProfile() {}
+
+    @Override
+    public void close() {}
+  }
+}
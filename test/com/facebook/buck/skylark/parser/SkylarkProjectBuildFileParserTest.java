@@ -35,13 +35,17 @@ import com.facebook.buck.core.model.targetgraph.DescriptionProvider;
 import com.facebook.buck.core.plugin.impl.BuckPluginManagerFactory;
 import com.facebook.buck.core.rules.knowntypes.TestKnownRuleTypesProvider;
 import com.facebook.buck.core.rules.knowntypes.provider.KnownRuleTypesProvider;
+import com.facebook.buck.event.BuckEventBus;
 import com.facebook.buck.event.BuckEventBusForTests;
+import com.facebook.buck.event.FakeBuckEventListener;
 import com.facebook.buck.io.filesystem.ProjectFilesystem;
 import com.facebook.buck.io.filesystem.impl.FakeProjectFilesystem;
 import com.facebook.buck.io.filesystem.skylark.SkylarkFilesystem;
 import com.facebook.buck.parser.LabelCache;
 import com.facebook.buck.parser.api.BuildFileManifest;
 import com.facebook.buck.parser.config.ParserConfig;
+import com.facebook.buck.parser.events.BuildFileParseCost;
+import com.facebook.buck.parser.events.ParseBuckFileEvent;
 import com.facebook.buck.parser.exceptions.BuildFileParseException;
 import com.facebook.buck.parser.implicit.ImplicitInclude;
 import com.facebook.buck.parser.options.ImplicitNativeRulesState;
@@ -56,6 +60,7 @@ import com.facebook.buck.skylark.parser.SkylarkProjectBuildFileParserTestUtils.R
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
 import com.google.devtools.build.lib.events.Event;
@@ -567,6 +572,102 @@ public class SkylarkProjectBuildFileParserTest {
         equalTo(recordingParser.expectedCounts(vfs_path(ext1), 1, vfs_path(ext2), 1)));
   }
 
+  @Test
+  public void reusesExtensionsEvaluatedByAnotherParser() throws Exception {
+    Path buildFile = projectFilesystem.resolve("BUCK");
+    Files.write(buildFile, Arrays.asList("load('//:ext_1.bzl', 'jar')", "jar(name='guava')"));
+
+    Path ext1 = projectFilesystem.resolve("ext_1.bzl");
+    Files.write(ext1, Arrays.asList("load(':ext_2.bzl', 'make_jar')", "jar = make_jar"));
+
+    Path ext2 = projectFilesystem.resolve("ext_2.bzl");
+    Files.write(
+        ext2,
+        Arrays.asList(
+            "def make_jar(name):", "  native.prebuilt_jar(name=name, binary_jar='guava.jar')"));
+
+    RecordingParser firstParser = new RecordingParser(parser);
+    firstParser.getManifest(buildFile);
+    assertThat(
+        firstParser.buildCounts,
+        equalTo(firstParser.expectedCounts(vfs_path(ext1), 1, vfs_path(ext2), 1)));
+
+    RecordingParser secondParser = new RecordingParser(parser);
+    Map<String, Object> rule =
+        SkylarkProjectBuildFileParserTestUtils.getSingleRule(secondParser, buildFile);
+    assertThat(rule.get("name"), equalTo("guava"));
+    assertThat(secondParser.buildCounts, equalTo(ImmutableMap.of()));
+  }
+
+  @Test
+  public void reevaluatesSharedExtensionsWhenTransitiveDependencyChanges() throws Exception {
+    Path buildFile = projectFilesystem.resolve("BUCK");
+    Files.write(
+        buildFile, Arrays.asList("load('//:ext_1.bzl', 'ext_1')", "load('//:ext_3.bzl', 'ext_3')"));
+
+    Path ext1 = projectFilesystem.resolve("ext_1.bzl");
+    Files.write(ext1, Arrays.asList("load(':ext_2.bzl', 'ext_2')", "ext_1 = ext_2"));
+
+    Path ext2 = projectFilesystem.resolve("ext_2.bzl");
+    Files.write(ext2, Arrays.asList("ext_2 = 'hello'"));
+
+    Path ext3 = projectFilesystem.resolve("ext_3.bzl");
+    Files.write(ext3, Arrays.asList("ext_3 = 'unrelated'"));
+
+    new RecordingParser(parser).getManifest(buildFile);
+
+    Files.write(ext2, Arrays.asList("ext_2 = 'goodbye'"));
+    RecordingParser recordingParser = new RecordingParser(parser);
+    recordingParser.getManifest(buildFile);
+
+    assertThat(
+        recordingParser.buildCounts,
+        equalTo(recordingParser.expectedCounts(vfs_path(ext2), 1, vfs_path(ext1), 1)));
+  }
+
+  @Test
+  public void attributesParseCostToMacrosAndLoadEdgesWhenProfilingIsEnabled() throws Exception {
+    Path buildFile = projectFilesystem.resolve("src").resolve("BUCK");
+    Files.createDirectories(buildFile.getParent());
+    Files.write(
+        buildFile,
+        Arrays.asList(
+            "load('//:macros.bzl', 'make_libs')",
+            "make_libs()",
+            "prebuilt_jar(name='top', binary_jar='top.jar')"));
+    Path macros = projectFilesystem.resolve("macros.bzl");
+    Files.write(
+        macros,
+        Arrays.asList(
+            "def make_libs():",
+            "  native.glob(['*.java'])",
+            "  native.prebuilt_jar(name='a', binary_jar='a.jar')",
+            "  native.prebuilt_jar(name='b', binary_jar='b.jar')"));
+
+    ProjectBuildFileParserOptions options =
+        getDefaultParserOptions().setEnableProfiling(true).build();
+    ParseBuckFileEvent.Finished finished = getParseFinishedEvent(buildFile, options);
+    BuildFileParseCost cost = finished.getCost().get();
+    String macro = "make_libs (" + vfs_path(macros) + ")";
+    assertEquals(3, cost.getRulesCount());
+    assertEquals(1, cost.getGlobCount());
+    assertEquals(ImmutableSortedMap.of(macro, 2, "prebuilt_jar", 1), cost.getRulesByMacro());
+    assertEquals(ImmutableSet.of(macro), cost.getGlobTimeNanosByMacro().keySet());
+    assertEquals(
+        ImmutableSet.of("//src:BUCK -> //:macros.bzl"),
+        cost.getExtensionEvaluationNanosByLoadEdge().keySet());
+  }
+
+  @Test
+  public void doesNotReportParseCostWhenProfilingIsDisabled() throws Exception {
+    Path buildFile = projectFilesystem.resolve("BUCK");
+    Files.write(buildFile, Arrays.asList("prebuilt_jar(name='top', binary_jar='top.jar')"));
+
+    ProjectBuildFileParserOptions options = getDefaultParserOptions().build();
+    ParseBuckFileEvent.Finished finished = getParseFinishedEvent(buildFile, options);
+    assertFalse(finished.getCost().isPresent());
+  }
+
   @Test
   public void doesNotReadSameBuildFileMultipleTimes() throws Exception {
     // Verifies BUILD file is accessed for IO and AST construction only once.
@@ -1686,6 +1787,33 @@ public class SkylarkProjectBuildFileParserTest {
         stringContainsInOrder("name 'package' is not defined"));
   }
 
+  private ParseBuckFileEvent.Finished getParseFinishedEvent(
+      Path buildFile, ProjectBuildFileParserOptions options) throws Exception {
+    BuckEventBus eventBus = BuckEventBusForTests.newInstance();
+    FakeBuckEventListener eventListener = new FakeBuckEventListener();
+    eventBus.register(eventListener);
+    SkylarkProjectBuildFileParser.using(
+            options,
+            eventBus,
+            skylarkFilesystem,
+            BuckGlobals.of(
+                SkylarkBuildModule.BUILD_MODULE,
+                options.getDescriptions(),
+                options.getUserDefinedRulesState(),
+                options.getImplicitNativeRulesState(),
+                new RuleFunctionFactory(new DefaultTypeCoercerFactory()),
+                LabelCache.newLabelCache(),
+                knownRuleTypesProvider.getUserDefinedRuleTypes(cell.getRootCell()),
+                options.getPerFeatureProviders()),
+            new PrintingEventHandler(EnumSet.allOf(EventKind.class)),
+            NativeGlobber::create)
+        .getManifest(buildFile);
+    return (ParseBuckFileEvent.Finished)
+        Iterables.getOnlyElement(
+            Iterables.filter(
+                eventListener.getEvents(), event -> event instanceof ParseBuckFileEvent.Finished));
+  }
+
   private Map<String, Object> getSingleRule(Path buildFile)
       throws BuildFileParseException, InterruptedException, IOException {
     return SkylarkProjectBuildFileParserTestUtils.getSingleRule(parser, buildFile);
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.testrunner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ParallelClassesTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testClassesRunConcurrentlyAndKeepTheirOwnOutput() throws Throwable {
+    File outputDirectory = temporaryFolder.newFolder();
+    JUnitRunner runner = new JUnitRunner();
+    runner.parseArgs(
+        "--output",
+        outputDirectory.getPath(),
+        "--parallel-classes",
+        "2",
+        First.class.getName(),
+        Second.class.getName());
+
+    Rendezvous.isBeingUsedForParallelTest.set(true);
+    try {
+      runner.run();
+    } finally {
+      Rendezvous.isBeingUsedForParallelTest.set(false);
+    }
+
+    String first = readResult(outputDirectory, First.class);
+    String second = readResult(outputDirectory, Second.class);
+    assertTrue(first, first.contains("success=\"true\""));
+    assertTrue(second, second.contains("success=\"true\""));
+    assertTrue(first, first.contains("out of first"));
+    assertTrue(first, first.contains("err of first"));
+    assertFalse(first, first.contains("of second"));
+    assertTrue(second, second.contains("out of second"));
+    assertTrue(second, second.contains("err of second"));
+    assertFalse(second, second.contains("of first"));
+  }
+
+  private static String readResult(File outputDirectory, Class<?> testClass) throws IOException {
+    return new String(
+        Files.readAllBytes(new File(outputDirectory, testClass.getName() + ".xml").toPath()),
+        UTF_8);
+  }
+
+  /** Blocks each test until the other one has started as well. */
+  public static class Rendezvous {
+    public static AtomicBoolean isBeingUsedForParallelTest = new AtomicBoolean(false);
+    private static final CountDownLatch latch = new CountDownLatch(2);
+
+    static void printAndAwait(String name) throws InterruptedException {
+      Assume.assumeTrue(isBeingUsedForParallelTest.get());
+      System.out.println("out of " + name);
+      latch.countDown();
+      assertTrue("Test classes did not run in parallel.", latch.await(10, TimeUnit.SECONDS));
+      System.err.println("err of " + name);
+    }
+  }
+
+  public static class First {
+    @Test
+    public void printsAndWaits() throws InterruptedException {
+      Rendezvous.printAndAwait("first");
+    }
+  }
+
+  public static class Second {
+    @Test
+    public void printsAndWaits() throws InterruptedException {
+      Rendezvous.printAndAwait("second");
+    }
+  }
+}
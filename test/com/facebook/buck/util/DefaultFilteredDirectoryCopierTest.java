@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import com.facebook.buck.file.ProjectFilesystemMatchers;
+import com.facebook.buck.io.filesystem.ProjectFilesystem;
+import com.facebook.buck.io.filesystem.impl.FakeProjectFilesystem;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Test;
+
+public class DefaultFilteredDirectoryCopierTest {
+
+  @Test
+  public void copiesEveryDirectoryWithTheFilterApplied() throws Exception {
+    ProjectFilesystem filesystem = new FakeProjectFilesystem();
+    ImmutableMap.Builder<Path, Path> dirs = ImmutableMap.builder();
+    for (int i = 0; i < 8; i++) {
+      Path src = Paths.get("src" + i);
+      filesystem.createNewFile(src.resolve("values/keep.xml"));
+      filesystem.createNewFile(src.resolve("values/drop.xml"));
+      dirs.put(src, Paths.get("dest" + i));
+    }
+
+    DefaultFilteredDirectoryCopier.getInstance()
+        .copyDirs(filesystem, dirs.build(), path -> !path.endsWith("drop.xml"));
+
+    for (int i = 0; i < 8; i++) {
+      Path dest = Paths.get("dest" + i);
+      assertThat(
+          filesystem, ProjectFilesystemMatchers.pathExists(dest.resolve("values/keep.xml")));
+      assertThat(
+          filesystem, ProjectFilesystemMatchers.pathDoesNotExist(dest.resolve("values/drop.xml")));
+    }
+  }
+
+  @Test
+  public void propagatesIOExceptionFromOneDirectory() throws Exception {
+    IOException failure = new IOException("cannot create directory");
+    ProjectFilesystem filesystem =
+        new FakeProjectFilesystem() {
+          @Override
+          public void createParentDirs(Path path) throws IOException {
+            if (path.startsWith("broken-dest")) {
+              throw failure;
+            }
+            super.createParentDirs(path);
+          }
+        };
+    filesystem.createNewFile(Paths.get("ok/values/strings.xml"));
+    filesystem.createNewFile(Paths.get("broken/values/strings.xml"));
+
+    try {
+      DefaultFilteredDirectoryCopier.getInstance()
+          .copyDirs(
+              filesystem,
+              ImmutableMap.of(
+                  Paths.get("ok"), Paths.get("ok-dest"),
+                  Paths.get("broken"), Paths.get("broken-dest")),
+              path -> true);
+      fail("copyDirs should have thrown");
+    } catch (IOException e) {
+      assertEquals(failure, e);
+    }
+  }
+}
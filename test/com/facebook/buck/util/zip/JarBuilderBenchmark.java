@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.util.zip;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Compares building jars with and without parallel compression, for jars made of many small class
+ * files and for jars made of a few large resources.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JarBuilderBenchmark {
+  @Param({"1", "4"})
+  private int compressionParallelism;
+
+  private Path root;
+  private Path smallEntries;
+  private Path largeEntries;
+  private Path output;
+
+  @Setup
+  public void setUp() throws IOException {
+    root = Files.createTempDirectory("jar-builder-benchmark");
+    smallEntries = root.resolve("small");
+    largeEntries = root.resolve("large");
+    output = root.resolve("out.jar");
+
+    Random random = new Random(0);
+    for (int i = 0; i < 5000; i++) {
+      writeFile(
+          smallEntries.resolve("com/example/p" + (i % 50) + "/C" + i + ".class"), 2048, random);
+    }
+    for (int i = 0; i < 16; i++) {
+      writeFile(largeEntries.resolve("assets/a" + i + ".bin"), 2 * 1024 * 1024, random);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    MoreFiles.deleteRecursively(root, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public int smallEntryHeavyJar() throws IOException {
+    return createJar(smallEntries);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  public int largeEntryHeavyJar() throws IOException {
+    return createJar(largeEntries);
+  }
+
+  private int createJar(Path entries) throws IOException {
+    return new JarBuilder()
+        .setEntriesToJar(Collections.singleton(entries))
+        .setCompressionParallelism(compressionParallelism)
+        .createJarFile(output);
+  }
+
+  /** Writes moderately compressible contents, similar to class files. */
+  private static void writeFile(Path path, int size, Random random) throws IOException {
+    byte[] contents = new byte[size];
+    for (int i = 0; i < size; i++) {
+      contents[i] = (byte) ('a' + random.nextInt(random.nextBoolean() ? 4 : 26));
+    }
+    Files.createDirectories(path.getParent());
+    Files.write(path, contents);
+  }
+
+  public static void main(String[] args) throws IOException, RunnerException {
+    Main.main(new String[] {JarBuilderBenchmark.class.getName()});
+  }
+}
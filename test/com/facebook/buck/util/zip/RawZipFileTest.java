@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.facebook.buck.util.zip;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import javax.annotation.Nullable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RawZipFileTest {
+  @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+  private static final byte[] CONTENTS =
+      "The quick brown fox jumps over the lazy dog. The quick brown fox jumps over the lazy dog."
+          .getBytes(UTF_8);
+
+  @Test
+  public void readsEntriesOfCentralDirectory() throws IOException {
+    Path zip = createZip(null);
+
+    try (RawZipFile rawZipFile = RawZipFile.open(zip).get()) {
+      assertEquals(3, rawZipFile.getEntries().size());
+      assertTrue(rawZipFile.isCentralDirectoryInFileOrder());
+
+      RawZipFile.Entry deflated = rawZipFile.getEntries().get(0);
+      assertEquals("deflated.txt", deflated.getName());
+      assertEquals(ZipEntry.DEFLATED, deflated.getMethod());
+      assertEquals(CONTENTS.length, deflated.getSize());
+      assertEquals(Hashing.crc32().hashBytes(CONTENTS).padToLong(), deflated.getCrc());
+      assertTrue(deflated.isRawCopyable());
+
+      RawZipFile.Entry stored = rawZipFile.getEntries().get(1);
+      assertEquals("stored.txt", stored.getName());
+      assertEquals(ZipEntry.STORED, stored.getMethod());
+      ByteArrayOutputStream storedData = new ByteArrayOutputStream();
+      rawZipFile.copyStoredData(stored, storedData);
+      assertArrayEquals(CONTENTS, storedData.toByteArray());
+    }
+  }
+
+  @Test
+  public void zipsWithCommentsAreNotSupported() throws IOException {
+    assertFalse(RawZipFile.open(createZip("comment")).isPresent());
+  }
+
+  @Test
+  public void deflatedDataIsCopiedAsIs() throws IOException {
+    Path zip = createZip(null);
+    Path copy = tmp.newFile("copy.zip").toPath();
+
+    try (RawZipFile rawZipFile = RawZipFile.open(zip).get();
+        CustomZipOutputStream out = ZipOutputStreams.newOutputStream(copy)) {
+      for (RawZipFile.Entry entry : rawZipFile.getEntries()) {
+        CustomZipEntry customEntry = new CustomZipEntry(entry.getName());
+        if (entry.getMethod() == ZipEntry.STORED) {
+          customEntry.setCompressionLevel(Deflater.NO_COMPRESSION);
+          customEntry.setSize(entry.getSize());
+          customEntry.setCompressedSize(entry.getCompressedSize());
+          customEntry.setCrc(entry.getCrc());
+          out.putNextEntry(customEntry);
+          rawZipFile.copyStoredData(entry, out);
+        } else {
+          out.putNextEntry(customEntry);
+          assertTrue(out.writeRawDeflated(rawZipFile, entry));
+        }
+        out.closeEntry();
+      }
+    }
+
+    try (ZipFile original = new ZipFile(zip.toFile());
+        ZipFile copied = new ZipFile(copy.toFile())) {
+      for (String name : new String[] {"deflated.txt", "stored.txt", "empty.txt"}) {
+        ZipEntry originalEntry = original.getEntry(name);
+        ZipEntry copiedEntry = copied.getEntry(name);
+        assertEquals(originalEntry.getCrc(), copiedEntry.getCrc());
+        assertEquals(originalEntry.getCompressedSize(), copiedEntry.getCompressedSize());
+        try (InputStream originalStream = original.getInputStream(originalEntry);
+            InputStream copiedStream = copied.getInputStream(copiedEntry)) {
+          assertArrayEquals(
+              ByteStreams.toByteArray(originalStream), ByteStreams.toByteArray(copiedStream));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void entriesWithCompressionLevelAreNotCopiedAsIs() throws IOException {
+    Path zip = createZip(null);
+
+    try (RawZipFile rawZipFile = RawZipFile.open(zip).get();
+        CustomZipOutputStream out = ZipOutputStreams.newOutputStream(new ByteArrayOutputStream())) {
+      CustomZipEntry entry = new CustomZipEntry("deflated.txt");
+      entry.setCompressionLevel(Deflater.BEST_SPEED);
+      out.putNextEntry(entry);
+      assertFalse(out.writeRawDeflated(rawZipFile, rawZipFile.getEntries().get(0)));
+      out.write(CONTENTS);
+      out.closeEntry();
+    }
+  }
+
+  private Path createZip(@Nullable String comment) throws IOException {
+    Path zip = tmp.newFile().toPath();
+    try (OutputStream stream = Files.newOutputStream(zip);
+        ZipOutputStream out = new ZipOutputStream(stream)) {
+      out.setLevel(Deflater.BEST_COMPRESSION);
+      out.putNextEntry(new ZipEntry("deflated.txt"));
+      out.write(CONTENTS);
+      out.closeEntry();
+
+      ZipEntry stored = new ZipEntry("stored.txt");
+      stored.setMethod(ZipEntry.STORED);
+      stored.setSize(CONTENTS.length);
+      stored.setCrc(Hashing.crc32().hashBytes(CONTENTS).padToLong());
+      out.putNextEntry(stored);
+      out.write(CONTENTS);
+      out.closeEntry();
+
+      out.putNextEntry(new ZipEntry("empty.txt"));
+      out.closeEntry();
+
+      if (comment != null) {
+        out.setComment(comment);
+      }
+    }
+    return zip;
+  }
+}
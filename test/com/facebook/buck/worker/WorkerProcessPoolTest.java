@@ -32,6 +32,8 @@ import com.google.common.hash.Hashing;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -349,6 +351,34 @@ public class WorkerProcessPoolTest {
     pool.close();
   }
 
+  @Test
+  public void testWorkersAreRecycledAfterMaxJobs() throws Exception {
+    int maxJobsPerWorker = 2;
+    Set<WorkerProcess> createdWorkers = concurrentSet();
+    WorkerProcessPool pool =
+        new WorkerProcessPool(
+            1,
+            Hashing.sha1().hashLong(0),
+            OptionalInt.of(maxJobsPerWorker),
+            () -> {
+              WorkerJobResult result = WorkerJobResult.of(0, Optional.empty(), Optional.empty());
+              FakeWorkerProcess worker = new FakeWorkerProcess(ImmutableMap.of("job", result));
+              worker.ensureLaunchAndHandshake();
+              createdWorkers.add(worker);
+              return worker;
+            });
+
+    for (int i = 0; i < maxJobsPerWorker * 2 + 1; i++) {
+      try (BorrowedWorkerProcess worker = pool.borrowWorkerProcess()) {
+        worker.submitAndWaitForJob("job");
+      }
+    }
+
+    assertThat(createdWorkers.size(), equalTo(3));
+    assertThat(createdWorkers.stream().filter(WorkerProcess::isAlive).count(), equalTo(1L));
+    pool.close();
+  }
+
   @Test(expected = IllegalStateException.class)
   public void testThrowsWhenClosingWithoutAllWorkersReturned()
       throws InterruptedException, IOException {
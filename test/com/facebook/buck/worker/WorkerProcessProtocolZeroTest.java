@@ -16,6 +16,8 @@
 
 package com.facebook.buck.worker;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -228,6 +230,48 @@ public class WorkerProcessProtocolZeroTest {
     }
   }
 
+  @Test
+  public void testReceiverHandlesHandshakeCommandsAndClose() throws IOException {
+    String jsonSentByBuck =
+        "[{\"id\":0,\"type\":\"handshake\",\"protocol_version\":\"0\",\"capabilities\":[]},"
+            + "{\"id\":1,\"type\":\"command\",\"args_path\":\"args\","
+            + "\"stdout_path\":\"stdout\",\"stderr_path\":\"stderr\"}]";
+    ByteArrayOutputStream jsonSentToBuck = new ByteArrayOutputStream();
+    WorkerProcessProtocol.CommandReceiver protocol =
+        new WorkerProcessProtocolZero.CommandReceiver(inputStream(jsonSentByBuck), jsonSentToBuck);
+
+    protocol.handshake(0);
+    assertFalse(protocol.shouldClose());
+    WorkerProcessCommand command = protocol.receiveCommand(1);
+    assertEquals(
+        ImmutableWorkerProcessCommand.of(
+            Paths.get("args"), Paths.get("stdout"), Paths.get("stderr")),
+        command);
+    protocol.sendResponse(1, WorkerProcessProtocolZero.TYPE_RESULT, 0);
+    assertTrue(protocol.shouldClose());
+    protocol.close();
+
+    assertEquals(
+        "[{\"id\":0,\"type\":\"handshake\",\"protocol_version\":\"0\",\"capabilities\":[]},"
+            + "{\"id\":1,\"type\":\"result\",\"exit_code\":0}]",
+        jsonSentToBuck.toString());
+  }
+
+  @Test
+  public void testReceiverRejectsUnexpectedMessageId() throws IOException {
+    expectedException.expect(HumanReadableException.class);
+    expectedException.expectMessage("Expected command's \"id\" value to be \"2\"");
+
+    WorkerProcessProtocol.CommandReceiver protocol =
+        new WorkerProcessProtocolZero.CommandReceiver(
+            inputStream(
+                "{\"id\":1,\"type\":\"command\",\"args_path\":\"args\","
+                    + "\"stdout_path\":\"stdout\",\"stderr_path\":\"stderr\"}"),
+            dummyOutputStream);
+
+    protocol.receiveCommand(2);
+  }
+
   private Path newTempFile() throws IOException {
     return temporaryPaths.newFile();
   }